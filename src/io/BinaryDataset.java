@@ -0,0 +1,400 @@
+package io;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: BinaryDataset
+ */
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import neuralnetwork.Dataset;
+
+/**
+ * A dataset held in a binary file of fixed-width rows, read through a memory
+ * map. Each row is the inputs of a training set followed by its desired
+ * outputs, all in the same precision, so the nth row sits at a known offset
+ * and is read straight from the page cache with no parsing. Rows can be read
+ * in any order, see {@link #read} and {@link #shuffled}.
+ *
+ * <p>
+ * All values are little-endian. The file is a 32 byte header, int magic
+ * "BPDS", int version, int inputs per row, int outputs per row, long number
+ * of rows, int bytes per value (4 for float, 8 for double) and int reserved,
+ * followed by the rows.
+ * </p>
+ *
+ * @author Curtis Alcock 18403879
+ */
+public class BinaryDataset implements Dataset {
+
+    /*
+     * The first 4 bytes of every binary dataset file, "BPDS".
+     */
+    private static final int MAGIC = 0x53445042;
+
+    /*
+     * The version of the format written by this class.
+     */
+    private static final int VERSION = 1;
+
+    /*
+     * The size of the file header.
+     */
+    private static final int HEADER_BYTES = 32;
+
+    /*
+     * The size of the buffer rows are gathered in while being written, unless
+     * a single row is larger.
+     */
+    private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+    /*
+     * The number of inputs in each row.
+     */
+    private final int mInputCount;
+
+    /*
+     * The number of desired outputs in each row.
+     */
+    private final int mOutputCount;
+
+    /*
+     * The number of rows in the file.
+     */
+    private final long mRowCount;
+
+    /*
+     * The size of each value, 4 or 8 bytes.
+     */
+    private final int mValueBytes;
+
+    /*
+     * The size of each row.
+     */
+    private final int mRowBytes;
+
+    /*
+     * The number of rows mapped by each chunk.
+     */
+    private final int mRowsPerChunk;
+
+    /*
+     * The chunks of whole rows the file is mapped in, each under 2GB.
+     */
+    private final MappedByteBuffer[] mChunks;
+
+    /**
+     * Maps a binary dataset file.
+     *
+     * @param file the file to be read.
+     * @throws IOException if the file could not be mapped, or is not a
+     * supported binary dataset file.
+     */
+    public BinaryDataset(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException(file.getName() + " is not a binary dataset file");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC) {
+                throw new IOException(file.getName() + " is not a binary dataset file");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary dataset version: " + version);
+            }
+            mInputCount = header.getInt();
+            mOutputCount = header.getInt();
+            mRowCount = header.getLong();
+            mValueBytes = header.getInt();
+            if (mValueBytes != 4 && mValueBytes != 8) {
+                throw new IOException("Unsupported value size: " + mValueBytes);
+            }
+            mRowBytes = (mInputCount + mOutputCount) * mValueBytes;
+            if (channel.size() < HEADER_BYTES + mRowCount * mRowBytes) {
+                throw new IOException(file.getName() + " is missing rows");
+            }
+
+            mRowsPerChunk = Math.max(1, Integer.MAX_VALUE / Math.max(1, mRowBytes));
+            mChunks = new MappedByteBuffer[(int) ((mRowCount + mRowsPerChunk - 1) / mRowsPerChunk)];
+            for (int chunk = 0; chunk < mChunks.length; chunk++) {
+                long first = (long) chunk * mRowsPerChunk;
+                long rows = Math.min(mRowsPerChunk, mRowCount - first);
+                mChunks[chunk] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * mRowBytes, rows * mRowBytes);
+                mChunks[chunk].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of inputs in each row.
+     *
+     * @return the number of inputs of each training set.
+     */
+    public int getInputCount() {
+        return mInputCount;
+    }
+
+    /**
+     * Gets the number of desired outputs in each row.
+     *
+     * @return the number of outputs desired of each training set.
+     */
+    public int getOutputCount() {
+        return mOutputCount;
+    }
+
+    /**
+     * Gets the number of rows in the dataset.
+     *
+     * @return the number of training sets.
+     */
+    public long getRowCount() {
+        return mRowCount;
+    }
+
+    /**
+     * Checks whether the values are held in single precision.
+     *
+     * @return true if each value is a float, false if a double.
+     */
+    public boolean isSinglePrecision() {
+        return mValueBytes == 4;
+    }
+
+    /**
+     * Reads a single row. Any number of threads may read at once.
+     *
+     * @param row the index of the row to be read.
+     * @param inputs receives the inputs of the row.
+     * @param desiredOutputs receives the desired outputs of the row.
+     * @throws IndexOutOfBoundsException if there is no such row, or either
+     * array is too small.
+     */
+    public void read(long row, double[] inputs, double[] desiredOutputs) {
+        if (row < 0 || row >= mRowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + mRowCount);
+        }
+        ByteBuffer chunk = mChunks[(int) (row / mRowsPerChunk)];
+        int index = (int) (row % mRowsPerChunk) * mRowBytes;
+        if (mValueBytes == 4) {
+            for (int i = 0; i < mInputCount; i++, index += 4) {
+                inputs[i] = chunk.getFloat(index);
+            }
+            for (int i = 0; i < mOutputCount; i++, index += 4) {
+                desiredOutputs[i] = chunk.getFloat(index);
+            }
+        } else {
+            for (int i = 0; i < mInputCount; i++, index += 8) {
+                inputs[i] = chunk.getDouble(index);
+            }
+            for (int i = 0; i < mOutputCount; i++, index += 8) {
+                desiredOutputs[i] = chunk.getDouble(index);
+            }
+        }
+    }
+
+    /**
+     * Starts a new pass over the rows in file order. The cursor reuses the
+     * same two arrays for every row.
+     *
+     * @return a cursor positioned before the first row.
+     */
+    @Override
+    public Cursor open() {
+        return new RowCursor(null);
+    }
+
+    /**
+     * Views the dataset in a random order. Each pass over the view visits
+     * every row once, in a new order drawn from the seeded generator, so the
+     * sequence of passes is the same every time.
+     *
+     * @param seed the seed of the generator.
+     * @return a shuffled view of the dataset.
+     * @throws IllegalStateException if the dataset has more rows than an
+     * array can index.
+     */
+    public Dataset shuffled(long seed) {
+        if (mRowCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Too many rows to shuffle: " + mRowCount);
+        }
+        Random random = new Random(seed);
+        int[] order = new int[(int) mRowCount];
+        for (int row = 0; row < order.length; row++) {
+            order[row] = row;
+        }
+        return () -> {
+            // Fisher-Yates, carrying on from the last pass's order
+            for (int i = order.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+            return new RowCursor(order);
+        };
+    }
+
+    /**
+     * Writes a dataset to a binary dataset file, one pass over the source.
+     * The shape of the rows is taken from the first pair.
+     *
+     * @param source the dataset to be written, e.g. an {@link XmlDataset}.
+     * @param file the location and name of the file to be written.
+     * @param singlePrecision if true each value is rounded to the nearest
+     * float, halving the size of the file.
+     * @return the number of rows written.
+     * @throws IOException if the source could not be read, its pairs differ
+     * in shape, or the file could not be written.
+     */
+    public static long write(Dataset source, File file, boolean singlePrecision) throws IOException {
+        int inputs = -1;
+        int outputs = -1;
+        int rowBytes = 0;
+        long rows = 0;
+        ByteBuffer buffer = null;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                Cursor cursor = source.open()) {
+            channel.position(HEADER_BYTES);
+            while (cursor.next()) {
+                double[] set = cursor.getInputs();
+                double[] desired = cursor.getDesiredOutputs();
+                if (inputs < 0) {
+                    inputs = set.length;
+                    outputs = desired.length;
+                    long bytes = (long) (inputs + outputs) * (singlePrecision ? 4 : 8);
+                    if (bytes > Integer.MAX_VALUE) {
+                        throw new IOException("Rows of " + (inputs + outputs) + " values are too wide");
+                    }
+                    rowBytes = (int) bytes;
+                    buffer = ByteBuffer.allocateDirect(Math.max(WRITE_BUFFER_BYTES, rowBytes)).order(ByteOrder.LITTLE_ENDIAN);
+                } else if (set.length != inputs || desired.length != outputs) {
+                    throw new IOException("Set [" + rows + "] was of wrong size");
+                }
+                if (buffer.remaining() < rowBytes) {
+                    drain(channel, buffer);
+                }
+                for (double value : set) {
+                    put(buffer, value, singlePrecision);
+                }
+                for (double value : desired) {
+                    put(buffer, value, singlePrecision);
+                }
+                rows++;
+            }
+            if (buffer != null) {
+                drain(channel, buffer);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putInt(Math.max(inputs, 0));
+            header.putInt(Math.max(outputs, 0));
+            header.putLong(rows);
+            header.putInt(singlePrecision ? 4 : 8);
+            header.putInt(0);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Puts a single value into the write buffer.
+     *
+     * @param buffer the buffer.
+     * @param value the value to be put.
+     * @param singlePrecision if true the value is put as a float.
+     */
+    private static void put(ByteBuffer buffer, double value, boolean singlePrecision) {
+        if (singlePrecision) {
+            buffer.putFloat((float) value);
+        } else {
+            buffer.putDouble(value);
+        }
+    }
+
+    /**
+     * Writes out the contents of the write buffer and empties it.
+     *
+     * @param channel the channel being written.
+     * @param buffer the buffer.
+     * @throws IOException if the channel could not be written.
+     */
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * A single pass over the rows, in file order or in a given order.
+     */
+    private class RowCursor implements Cursor {
+
+        /*
+         * The order to visit the rows in, null for file order.
+         */
+        private final int[] mOrder;
+
+        /*
+         * The inputs of the current row.
+         */
+        private final double[] mInputs;
+
+        /*
+         * The desired outputs of the current row.
+         */
+        private final double[] mDesiredOutputs;
+
+        /*
+         * The number of rows visited so far.
+         */
+        private long mVisited;
+
+        RowCursor(int[] order) {
+            mOrder = order;
+            mInputs = new double[mInputCount];
+            mDesiredOutputs = new double[mOutputCount];
+        }
+
+        @Override
+        public boolean next() {
+            if (mVisited >= mRowCount) {
+                return false;
+            }
+            read(mOrder == null ? mVisited : mOrder[(int) mVisited], mInputs, mDesiredOutputs);
+            mVisited++;
+            return true;
+        }
+
+        @Override
+        public double[] getInputs() {
+            return mInputs;
+        }
+
+        @Override
+        public double[] getDesiredOutputs() {
+            return mDesiredOutputs;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package io;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: Checkpointer
+ */
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import neuralnetwork.Network;
+import neuralnetwork.TrainingListener;
+
+/**
+ * A training listener that saves checkpoints of a network while it trains,
+ * every so many epochs and/or every so many seconds, and once more when
+ * training has converged. The training thread only takes a
+ * {@link Network#snapshot()} between epochs; writing it out is done on the
+ * checkpointer's own thread, see {@link IOManager#writeCheckpoint}. If the
+ * last checkpoint is still being written when the next is due, the next waits
+ * for the following epoch rather than piling up.
+ *
+ * e.g. {@code network.addTrainingListener(new Checkpointer(network, file, 100, 60, true), 1)}
+ *
+ * @author Curtis Alcock 18403879
+ */
+public class Checkpointer implements TrainingListener, Closeable {
+
+    /*
+     * The network being trained.
+     */
+    private final Network mNetwork;
+
+    /*
+     * The checkpoint file.
+     */
+    private final File mFile;
+
+    /*
+     * True for a binary network file, false for XML.
+     */
+    private final boolean mBinary;
+
+    /*
+     * The number of epochs between checkpoints, 0 for no limit.
+     */
+    private final int mEveryEpochs;
+
+    /*
+     * The time between checkpoints in nanoseconds, 0 for no limit.
+     */
+    private final long mEveryNanos;
+
+    /*
+     * The single thread the checkpoints are written on.
+     */
+    private final ExecutorService mExecutor;
+
+    /*
+     * The checkpoint being written, if any.
+     */
+    private Future<?> mPending;
+
+    /*
+     * The number of epochs since the last checkpoint.
+     */
+    private int mEpochs;
+
+    /*
+     * The time of the last checkpoint, from System.nanoTime().
+     */
+    private long mLastTime;
+
+    /*
+     * The number of checkpoints written.
+     */
+    private volatile int mWritten;
+
+    /*
+     * The last error met writing a checkpoint, if any.
+     */
+    private volatile IOException mError;
+
+    /**
+     * Initializes the checkpointer. It must be added to the network with an
+     * interval of 1, as it counts the epochs itself.
+     *
+     * @param network the network being trained.
+     * @param file the checkpoint file, replaced by each checkpoint.
+     * @param everyEpochs the number of epochs between checkpoints, or 0 to go
+     * by time alone.
+     * @param everySeconds the number of seconds between checkpoints, or 0 to
+     * go by epochs alone.
+     * @param binary true for a binary network file, false for XML.
+     */
+    public Checkpointer(Network network, File file, int everyEpochs, long everySeconds, boolean binary) {
+        if (everyEpochs < 0 || everySeconds < 0 || (everyEpochs == 0 && everySeconds == 0)) {
+            throw new IllegalArgumentException("A checkpoint interval must be given in epochs or seconds");
+        }
+        mNetwork = network;
+        mFile = file;
+        mBinary = binary;
+        mEveryEpochs = everyEpochs;
+        mEveryNanos = TimeUnit.SECONDS.toNanos(everySeconds);
+        mExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        mLastTime = System.nanoTime();
+    }
+
+    /**
+     * Gets the number of checkpoints written so far.
+     *
+     * @return the number of checkpoints written.
+     */
+    public int getCheckpointCount() {
+        return mWritten;
+    }
+
+    /**
+     * Takes a checkpoint if one is due and the last has been written.
+     *
+     * @param epoch the epoch just finished.
+     * @param sumOfSquaredErrors the sum of the squared errors over the epoch.
+     * @param learningRate the learning rate at the end of the epoch.
+     * @param outputs not used.
+     */
+    @Override
+    public void epochCompleted(int epoch, double sumOfSquaredErrors, double learningRate, double[][] outputs) {
+        mEpochs++;
+        boolean due = (mEveryEpochs > 0 && mEpochs >= mEveryEpochs)
+                || (mEveryNanos > 0 && System.nanoTime() - mLastTime >= mEveryNanos);
+        if (due && (mPending == null || mPending.isDone())) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Takes a checkpoint of the converged network, after any still being
+     * written.
+     *
+     * @param epochs the number of epochs taken to converge.
+     */
+    @Override
+    public void trainingFinished(int epochs) {
+        checkpoint();
+    }
+
+    /**
+     * Waits for the checkpoints still being written and stops the
+     * checkpointer.
+     *
+     * @throws IOException if a checkpoint could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        mExecutor.shutdown();
+        try {
+            while (!mExecutor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // still writing
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for the checkpoint", ex);
+        }
+        if (mError != null) {
+            throw mError;
+        }
+    }
+
+    /**
+     * Snapshots the network and hands it over to be written.
+     */
+    private void checkpoint() {
+        final Network snapshot = mNetwork.snapshot();
+        mPending = mExecutor.submit(() -> {
+            try {
+                IOManager.writeCheckpoint(mFile, snapshot, mBinary);
+                mWritten++;
+            } catch (IOException ex) {
+                Logger.getLogger(Checkpointer.class.getName()).log(Level.SEVERE, null, ex);
+                mError = ex;
+            }
+        });
+        mEpochs = 0;
+        mLastTime = System.nanoTime();
+    }
+}
@@ -1,18 +1,39 @@
 package io;
 
 import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.w3c.dom.*;
 import javax.xml.parsers.*;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import neuralnetwork.ActivationFunction;
+import neuralnetwork.DenseLayer;
+import neuralnetwork.FloatNetwork;
 import neuralnetwork.Network;
+import neuralnetwork.Optimizer;
+import neuralnetwork.QuantizedNetwork;
+import neuralnetworkexceptions.UnevenArraysException;
 import org.xml.sax.SAXException;
 
 /*
@@ -27,6 +48,97 @@ import org.xml.sax.SAXException;
  */
 public class IOManager {
 
+    /*
+     * The factory every XML reader of the package is created from, configured
+     * once, shared with XmlDataset.
+     */
+    static final XMLInputFactory XML_INPUT_FACTORY = newInputFactory();
+
+    /*
+     * The factory every network writer is created from.
+     */
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    /*
+     * The size of the buffers network files are read and written through.
+     */
+    private static final int STREAM_BUFFER_BYTES = 1 << 16;
+
+    /*
+     * The first 4 bytes of every binary network file, "BPNN".
+     */
+    private static final int BINARY_MAGIC = 0x4E4E5042;
+
+    /*
+     * The version of the binary network format written by this class.
+     */
+    private static final int BINARY_VERSION = 2;
+
+    /*
+     * The size of the binary file header: magic, version, layer count,
+     * reserved, learning rate and momentum.
+     */
+    private static final int BINARY_HEADER_BYTES = 32;
+
+    /*
+     * The size of each binary layer header: links, neurons, flags, name
+     * length, kept links and reserved.
+     */
+    private static final int BINARY_LAYER_HEADER_BYTES = 24;
+
+    /*
+     * Layer flag: the layer has pruned links. Without either flag below, as
+     * only version 1 wrote it, its zero weights are the ones held pruned.
+     */
+    private static final int BINARY_PRUNED = 1;
+
+    /*
+     * Layer flag: only the weights of the kept links are stored, compressed
+     * by row. Any link not stored is held pruned.
+     */
+    private static final int BINARY_SPARSE = 2;
+
+    /*
+     * Layer flag: every weight is stored, followed by the pruned links.
+     */
+    private static final int BINARY_PRUNED_LINKS = 4;
+
+    /*
+     * The first 4 bytes of every training state file, "BPTS".
+     */
+    private static final int STATE_MAGIC = 0x53545042;
+
+    /*
+     * The version of the training state format written by this class.
+     */
+    private static final int STATE_VERSION = 3;
+
+    /*
+     * The size of the training state header: magic, version, layer count,
+     * epoch, learning rate, momentum and the sums of the last two epochs.
+     */
+    private static final int STATE_HEADER_BYTES = 48;
+
+    /*
+     * The size of each training state layer header: links, neurons, flags,
+     * name length, optimizer name length, optimizer state length, pruned
+     * links and reserved.
+     */
+    private static final int STATE_LAYER_HEADER_BYTES = 32;
+
+    /*
+     * The size of each layer header of a version 2 training state file, which
+     * did not record the pruned links: links, neurons, flags, name length,
+     * optimizer name length and optimizer state length.
+     */
+    private static final int STATE_V2_LAYER_HEADER_BYTES = 24;
+
+    /*
+     * The size of each layer header of a version 1 training state file, which
+     * had no optimizer: links, neurons, flags and name length.
+     */
+    private static final int STATE_V1_LAYER_HEADER_BYTES = 16;
+
     /**
      * Instantiates a Back-Prop Network from an XML file.
      *
@@ -41,6 +153,7 @@ public class IOManager {
      * &nbsp;&nbsp;&lt;momentum&gt;0&lt;/momentum&gt;<br>
      * &nbsp;&nbsp;&lt;seed&gt;6969&lt;/seed&gt;<br>
      * &nbsp;&nbsp;&lt;neurons&gt;2,2,1&lt;/neurons&gt;<br>
+     * &nbsp;&nbsp;&lt;activations&gt;relu,tanh&lt;/activations&gt;<br>
      * &nbsp;&lt;/network&gt;<br>
      * &lt;/project&gt;
      * </p>
@@ -80,113 +193,308 @@ public class IOManager {
      * </li>
      * </ul>
      *
+     * A layer that has been pruned, see {@link Network#prune(double)}, is
+     * written with only the weights of the links it kept, e.g.
+     * &lt;layer links="2"&gt; with &lt;weight link="1"&gt;1.1&lt;/weight&gt;,
+     * where links is the number of links each neuron has and link the index
+     * of the one the weight belongs to. Its missing links are held pruned;
+     * the links of any other layer are not, even where their weight is 0.
+     *
+     * The optional activations element names the activation function of each
+     * calculating layer in turn, see {@link ActivationFunction#forName}. Layers
+     * it leaves out use the hyperbolic tangent; naming more functions than
+     * there are layers makes the file malformed. The optional optimizer element
+     * names the rule the weights are corrected by, e.g.
+     * &lt;optimizer&gt;adam&lt;/optimizer&gt;, see {@link Optimizer#forName}.
+     * Without it the classic momentum rule is used.
+     *
+     * The file is read in a single pass with a streaming reader, so the time
+     * taken grows linearly with the number of weights. It may be GZIP
+     * compressed, see {@link #writeNetwork(File, Network, boolean, boolean)}.
+     *
      * @param file the XML file to be read.
      * @return a Back-Prop Network, fully initialized with the values from file.
      * Null if file not found.
      */
     public static Network readNetwork(File file) {
         Network n;
-        double learningRate;
-        double momentum;
+        XMLStreamReader reader = null;
 
-        try {
-            DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-            Document doc = dBuilder.parse(file);
-            doc.getDocumentElement().normalize();
+        try (InputStream in = openXml(file)) {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
 
             System.out.println("Reading from xml file: " + file.getPath() + " " + file.getName());
 
-            Element eElement = (Element) doc.getElementsByTagName("network").item(0);
-            learningRate = Double.parseDouble(eElement.getElementsByTagName("learningRate")
-                    .item(0).getTextContent());
-            momentum = Double.parseDouble(eElement.getElementsByTagName("momentum")
-                    .item(0).getTextContent());
-            Element neurons = (Element) eElement.getElementsByTagName("neurons")
-                    .item(0);
-
-            if (neurons.getElementsByTagName("layer").getLength() > 0) {
-                double[][][] weights;
-                double thresholds[][];
-                weights = new double[neurons
-                        .getElementsByTagName("layer")
-                        .getLength()][][];
-                thresholds = new double[neurons
-                        .getElementsByTagName("layer")
-                        .getLength()][];
-
-                // Iterate over each layer
-                for (int l = 0; l < weights.length; l++) {
-                    weights[l] = new double[((Element) neurons.getElementsByTagName("layer") // Get the list of layers
-                            .item(l)) // Get layer 'l'
-                            .getElementsByTagName("neuron") // Get the list of neurons in layer 'l'
-                            .getLength()][]; // Get the length of that list
-                    thresholds[l] = new double[((Element) neurons.getElementsByTagName("layer")
-                            .item(l)).getElementsByTagName("neuron")
-                            .getLength()];
-
-                    // Iterate over each neuron
-                    for (int neu = 0; neu < weights[l].length; neu++) {
-                        weights[l][neu] = new double[((Element) ((Element) neurons
-                                .getElementsByTagName("layer")
-                                .item(l))
-                                .getElementsByTagName("neuron")
-                                .item(neu))
-                                .getElementsByTagName("weight")
-                                .getLength()];
-
-                        // Iterate over the weights
-                        for (int link = 0; link < weights[l][neu].length; link++) {
-                            // Parse the weight
-                            weights[l][neu][link] = Double.parseDouble(((Element) ((Element) neurons
-                                    .getElementsByTagName("layer")
-                                    .item(l))
-                                    .getElementsByTagName("neuron")
-                                    .item(neu))
-                                    .getElementsByTagName("weight")
-                                    .item(link)
-                                    .getTextContent());
+            while (!(reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("network"))) {
+                if (reader.getEventType() == XMLStreamConstants.END_DOCUMENT) {
+                    throw new IOException("No network element was found");
+                }
+            }
+
+            Double learningRate = null;
+            Double momentum = null;
+            Long seed = null;
+            int[] noNeurons = null;
+            String activations = null;
+            String optimizer = null;
+            List<double[][]> weights = new ArrayList<>();
+            List<double[]> thresholds = new ArrayList<>();
+            List<int[]> pruned = new ArrayList<>();
+
+            // walk the network element once, in whatever order its children come
+            while (!(reader.next() == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("network"))) {
+                if (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                switch (reader.getLocalName()) {
+                    case "learningRate":
+                        learningRate = Double.parseDouble(reader.getElementText());
+                        break;
+                    case "momentum":
+                        momentum = Double.parseDouble(reader.getElementText());
+                        break;
+                    case "seed":
+                        seed = Long.parseLong(reader.getElementText().trim());
+                        break;
+                    case "activations":
+                        activations = reader.getElementText();
+                        break;
+                    case "optimizer":
+                        optimizer = reader.getElementText();
+                        break;
+                    case "neurons":
+                        StringBuilder shape = new StringBuilder();
+                        readNeurons(reader, weights, thresholds, pruned, shape);
+                        if (weights.isEmpty()) {
+                            noNeurons = stringToIntArray(shape.toString().trim(), ",");
                         }
-                        // Parse the threshold
-                        thresholds[l][neu] = Double.parseDouble(((Element) ((Element) neurons
-                                .getElementsByTagName("layer")
-                                .item(l))
-                                .getElementsByTagName("neuron")
-                                .item(neu))
-                                .getElementsByTagName("threshold")
-                                .item(0)
-                                .getTextContent());
-                    }
+                        break;
+                    default:
+                        break;
                 }
+            }
+            if (learningRate == null || momentum == null) {
+                throw new IOException("The network must have a learningRate and a momentum");
+            }
 
+            if (!weights.isEmpty()) {
                 // Instantiate the Network object
-                n = new Network(weights, thresholds, learningRate, momentum);
-
+                n = new Network(weights.toArray(new double[weights.size()][][]),
+                        thresholds.toArray(new double[thresholds.size()][]), learningRate, momentum);
+                for (int l = 0; l < pruned.size(); l++) {
+                    if (pruned.get(l) != null) {
+                        // keep the missing links pruned through any further training
+                        n.getLayer(l).setPrunedLinks(pruned.get(l));
+                    }
+                }
             } else {
-                int[] noNeurons;
-                long seed;
-                noNeurons = stringToIntArray(eElement.getElementsByTagName("neurons")
-                        .item(0)
-                        .getTextContent(), ",");
-                seed = Long.parseLong(eElement.getElementsByTagName("seed")
-                        .item(0)
-                        .getTextContent());
-
+                if (noNeurons == null || seed == null) {
+                    throw new IOException("The network must have either layers of neurons or a seed and a shape");
+                }
                 // Instantiate the Network object
                 n = new Network(noNeurons, seed, learningRate, momentum);
             }
 
+            if (activations != null) {
+                String[] names = activations.split(",");
+                if (names.length > n.getLayerCount()) {
+                    throw new IOException("There are " + names.length + " activations for " + n.getLayerCount() + " layers");
+                }
+                for (int l = 0; l < names.length; l++) {
+                    n.setActivationFunction(l, ActivationFunction.forName(names[l]));
+                }
+            }
+            if (optimizer != null) {
+                n.setOptimizer(optimizer);
+            }
+
             return n;
 
         } catch (FileNotFoundException f) {
             Logger.getLogger(IOManager.class.getName()).log(Level.SEVERE, "File Not found, no network...", f);
-        } catch (ParserConfigurationException | SAXException | IOException | DOMException e) {
+        } catch (XMLStreamException | IOException | IllegalArgumentException e) {
             Logger.getLogger(IOManager.class.getName()).log(Level.SEVERE, null, e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    Logger.getLogger(IOManager.class.getName()).log(Level.SEVERE, null, e);
+                }
+            }
         }
 
         return null;
     }
 
+    /**
+     * Checks whether a network file names the activation functions of its
+     * layers, see {@link #readNetwork(File)}.
+     *
+     * @param file the XML file to be checked.
+     * @return true if the network element has an activations element, false
+     * if it has none or the file could not be read.
+     */
+    static boolean namesActivations(File file) {
+        XMLStreamReader reader = null;
+
+        try (InputStream in = openXml(file)) {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("activations")) {
+                    return true;
+                }
+            }
+        } catch (XMLStreamException | IOException e) {
+            Logger.getLogger(IOManager.class.getName()).log(Level.SEVERE, null, e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    Logger.getLogger(IOManager.class.getName()).log(Level.SEVERE, null, e);
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Opens an XML file for reading, decompressing it if it was written GZIP
+     * compressed.
+     *
+     * @param file the file to be opened.
+     * @return a buffered stream of the XML.
+     * @throws IOException if the file could not be opened.
+     */
+    private static InputStream openXml(File file) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file), STREAM_BUFFER_BYTES);
+        try {
+            in.mark(2);
+            int magic = in.read() | in.read() << 8;
+            in.reset();
+            if (magic == GZIPInputStream.GZIP_MAGIC) {
+                return new BufferedInputStream(new GZIPInputStream(in, STREAM_BUFFER_BYTES), STREAM_BUFFER_BYTES);
+            }
+            return in;
+        } catch (IOException ex) {
+            in.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Reads the neurons element of a network. The element either holds the
+     * shape of a pseudo-randomly generated network as text, or one layer
+     * element per calculating layer, which are read into the lists given.
+     *
+     * @param reader a reader positioned on the neurons start tag. Left on its
+     * end tag.
+     * @param weights receives the weights of each layer read.
+     * @param thresholds receives the thresholds of each layer read.
+     * @param pruned receives the pruned links of each layer read, i.e. those
+     * a layer with a links attribute left out, or null for a layer without.
+     * @param text receives the text of the element, outside of any layers.
+     * @throws XMLStreamException if the XML is malformed.
+     * @throws IOException if a layer's neurons differ in number of links.
+     */
+    private static void readNeurons(XMLStreamReader reader, List<double[][]> weights, List<double[]> thresholds, List<int[]> pruned, StringBuilder text) throws XMLStreamException, IOException {
+        List<double[]> rows = new ArrayList<>();
+        List<Double> layerThresholds = new ArrayList<>();
+        List<Integer> layerPruned = new ArrayList<>();
+        double[] row = new double[16];
+        boolean[] listed = new boolean[0];
+        int count = 0;
+        int links = -1;
+        double threshold = 0;
+
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.CHARACTERS && weights.isEmpty() && rows.isEmpty()) {
+                text.append(reader.getText());
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "layer":
+                        String attribute = reader.getAttributeValue(null, "links");
+                        // a pruned layer only lists the weights of the links it
+                        // kept, each tagged with the link it belongs to
+                        links = attribute == null ? -1 : Integer.parseInt(attribute.trim());
+                        rows.clear();
+                        layerThresholds.clear();
+                        layerPruned.clear();
+                        break;
+                    case "neuron":
+                        count = 0;
+                        if (links >= 0) {
+                            row = new double[links];
+                            listed = new boolean[links];
+                        }
+                        break;
+                    case "weight":
+                        if (links >= 0) {
+                            int link = Integer.parseInt(reader.getAttributeValue(null, "link").trim());
+                            row[link] = Double.parseDouble(reader.getElementText());
+                            listed[link] = true;
+                        } else {
+                            if (count == row.length) {
+                                row = Arrays.copyOf(row, row.length * 2);
+                            }
+                            row[count++] = Double.parseDouble(reader.getElementText());
+                        }
+                        break;
+                    case "threshold":
+                        threshold = Double.parseDouble(reader.getElementText());
+                        break;
+                    default:
+                        break;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "neuron":
+                        for (int link = 0; link < listed.length; link++) {
+                            if (!listed[link]) {
+                                layerPruned.add(rows.size() * links + link);
+                            }
+                        }
+                        listed = new boolean[0];
+                        rows.add(links >= 0 ? row : Arrays.copyOf(row, count));
+                        layerThresholds.add(threshold);
+                        threshold = 0;
+                        break;
+                    case "layer":
+                        double[][] layer = rows.toArray(new double[rows.size()][]);
+                        double[] layerThreshold = new double[layer.length];
+                        for (int neu = 0; neu < layer.length; neu++) {
+                            if (layer[neu].length != layer[0].length) {
+                                throw new IOException("Every neuron in Layer(" + weights.size() + ") must have the same number of links");
+                            }
+                            layerThreshold[neu] = layerThresholds.get(neu);
+                        }
+                        weights.add(layer);
+                        thresholds.add(layerThreshold);
+                        if (links >= 0) {
+                            int[] layerLinks = new int[layerPruned.size()];
+                            for (int i = 0; i < layerLinks.length; i++) {
+                                layerLinks[i] = layerPruned.get(i);
+                            }
+                            pruned.add(layerLinks);
+                        } else {
+                            pruned.add(null);
+                        }
+                        rows.clear();
+                        row = new double[16];
+                        links = -1;
+                        break;
+                    case "neurons":
+                        return;
+                    default:
+                        break;
+                }
+            }
+        }
+    }
+
     /**
      * Reads the sets of inputs to be used when training a neural network from
      * an XML file.
@@ -278,6 +586,31 @@ public class IOManager {
         return null;
     }
 
+    /**
+     * Converts the training sets and desired outcomes of an XML file, see
+     * {@link #readTrainingSets} and {@link #readDesiredOutcomes}, to a binary
+     * dataset file, see {@link BinaryDataset}. The XML is streamed rather than
+     * read whole, so files of any size can be converted.
+     *
+     * @param xmlFile the XML file to be read.
+     * @param binaryFile the location and name of the binary file to be
+     * written.
+     * @param singlePrecision if true each value is stored as a float, halving
+     * the size of the file.
+     * @return the binary dataset, null if either file could not be read or
+     * written.
+     */
+    public static BinaryDataset convertDataset(File xmlFile, File binaryFile, boolean singlePrecision) {
+        try {
+            long rows = BinaryDataset.write(new XmlDataset(xmlFile), binaryFile, singlePrecision);
+            System.out.println("Converted " + rows + " sets from " + xmlFile.getName() + " to " + binaryFile.getName());
+            return new BinaryDataset(binaryFile);
+        } catch (IOException e) {
+            Logger.getLogger(IOManager.class.getName()).log(Level.SEVERE, "Dataset conversion failed...", e);
+        }
+        return null;
+    }
+
     /**
      * Writes the Network to an XML file in the project's root directory. Same
      * DOM Structure as a fully set network. See {@link #readNetwork}.
@@ -287,70 +620,884 @@ public class IOManager {
      * @param n the database to be saved.
      */
     public static void writeNetwork(File file, Network n) {
-        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder dBuilder;
+        writeNetwork(file, n, false, false);
+    }
+
+    /**
+     * Writes the Network to an XML file, optionally GZIP compressed, and
+     * optionally echoes it to the console. Same DOM Structure as a fully set
+     * network. See {@link #readNetwork}, which reads either form.
+     *
+     * @param file the location and name of the file to be written.
+     * @param n the network to be saved.
+     * @param compress if true the file is GZIP compressed.
+     * @param echo if true the XML is also written to the console.
+     */
+    public static void writeNetwork(File file, Network n, boolean compress, boolean echo) {
+        System.out.println("Writing to xml file: " + file.getPath() + " " + file.getName());
+
+        try (OutputStream out = compress
+                ? new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file), STREAM_BUFFER_BYTES), STREAM_BUFFER_BYTES)
+                : new BufferedOutputStream(new FileOutputStream(file), STREAM_BUFFER_BYTES)) {
+            writeNetwork(out, n);
+            if (echo) {
+                writeNetwork(System.out, n);
+                System.out.println();
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(IOManager.class
+                    .getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Streams the Network as XML. Same DOM Structure as a fully set network,
+     * see {@link #readNetwork}. The weights are read straight from the
+     * network's layers as they are written, so no copy of the network and no
+     * document is held in memory. A pruned layer is written with only the
+     * weights of the links it kept.
+     *
+     * @param out the stream to be written. Flushed but left open.
+     * @param n the network to be saved.
+     * @throws IOException if the stream could not be written.
+     */
+    public static void writeNetwork(OutputStream out, Network n) throws IOException {
         try {
-            // Build the structure and assign the DVD details to the structure
-            dBuilder = dbFactory.newDocumentBuilder();
-            Document doc = dBuilder.newDocument();
-            Element rootElement = doc.createElement("collection");
-            doc.appendChild(rootElement);
-
-            Element network = doc.createElement("network");
-            rootElement.appendChild(network);
-
-            Element neurons = doc.createElement("neurons");
-            network.appendChild(neurons);
-            double[][][] weights = n.getWeights();
-            double[][] thresholds = n.getThresholds();
-            for (int l = 0; l < weights.length; l++) {
-                Element layer = doc.createElement("layer");
-                neurons.appendChild(layer);
-                for (int neu = 0; neu < weights[l].length; neu++) {
-                    Element neuron = doc.createElement("neuron");
-                    layer.appendChild(neuron);
-                    for (int w = 0; w < weights[l][neu].length; w++) {
-                        Element weight = doc.createElement("weight");
-                        weight.setTextContent(Double.toString(weights[l][neu][w]));
-                        neuron.appendChild(weight);
-                    }
+            XMLStreamWriter writer = XML_OUTPUT_FACTORY.createXMLStreamWriter(out, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeCharacters("\n");
+            writer.writeStartElement("collection");
+            writer.writeCharacters("\n");
+            writer.writeStartElement("network");
+            writer.writeCharacters("\n");
 
-                    Element threshold = doc.createElement("threshold");
-                    threshold.setTextContent(Double.toString(thresholds[l][neu]));
-                    neuron.appendChild(threshold);
+            writer.writeStartElement("neurons");
+            writer.writeCharacters("\n");
+            for (int l = 0; l < n.getLayerCount(); l++) {
+                DenseLayer layer = n.getLayer(l);
+                int links = layer.getInputCount();
+                // a pruned layer is written with only the links it kept
+                boolean sparse = layer.getPrunedLinks().length > 0;
+                writer.writeStartElement("layer");
+                if (sparse) {
+                    writer.writeAttribute("links", Integer.toString(links));
                 }
+                writer.writeCharacters("\n");
+                for (int neu = 0; neu < layer.getNeuronCount(); neu++) {
+                    writer.writeStartElement("neuron");
+                    writer.writeCharacters("\n");
+                    for (int w = 0; w < links; w++) {
+                        double weight = layer.getWeight(neu, w);
+                        if (sparse && layer.isPruned(neu, w)) {
+                            continue;
+                        }
+                        writer.writeStartElement("weight");
+                        if (sparse) {
+                            writer.writeAttribute("link", Integer.toString(w));
+                        }
+                        writer.writeCharacters(Double.toString(weight));
+                        writer.writeEndElement();
+                        writer.writeCharacters("\n");
+                    }
+                    writeElement(writer, "threshold", Double.toString(layer.getThreshold(neu)));
+                    writer.writeEndElement();
+                    writer.writeCharacters("\n");
+                }
+                writer.writeEndElement();
+                writer.writeCharacters("\n");
             }
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
 
-            Element learningRate = doc.createElement("learningRate");
-            learningRate.setTextContent(Double.toString(n.mLearningRate));
-            network.appendChild(learningRate);
+            writeElement(writer, "learningRate", Double.toString(n.mLearningRate));
+            writeElement(writer, "momentum", Double.toString(n.mMomentum));
 
-            Element momentum = doc.createElement("momentum");
-            momentum.setTextContent(Double.toString(n.mMomentum));
-            network.appendChild(momentum);
+            String names = "";
+            for (int l = 0; l < n.getLayerCount(); l++) {
+                names += (l == 0 ? "" : ",") + n.getActivationFunction(l).getName();
+            }
+            writeElement(writer, "activations", names);
+            if (!Optimizer.MOMENTUM.equals(n.getOptimizer())) {
+                writeElement(writer, "optimizer", n.getOptimizer());
+            }
 
-            // Write the XML
-            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+            out.flush();
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex);
+        }
+    }
 
-            transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty("{http:xml.apache.org/xslt}indent-amount", "2");
+    /**
+     * Writes an element holding only text, on a line of its own.
+     *
+     * @param writer the writer.
+     * @param name the name of the element.
+     * @param text the text of the element.
+     * @throws XMLStreamException if the element could not be written.
+     */
+    private static void writeElement(XMLStreamWriter writer, String name, String text) throws XMLStreamException {
+        writer.writeStartElement(name);
+        writer.writeCharacters(text);
+        writer.writeEndElement();
+        writer.writeCharacters("\n");
+    }
 
-            DOMSource source = new DOMSource(doc);
-            StreamResult result = new StreamResult(file);
+    /**
+     * Instantiates a single-precision Back-Prop Network from an XML file. Same
+     * DOM Structure as {@link #readNetwork}, each weight and threshold is
+     * rounded to the nearest float.
+     *
+     * @param file the location and name of the file to be read.
+     * @return a FloatNetwork generated from the file, null if the file could
+     * not be read.
+     */
+    public static FloatNetwork readFloatNetwork(File file) {
+        Network network = readNetwork(file);
+        if (network == null) {
+            return null;
+        }
+        return new FloatNetwork(network);
+    }
+
+    /**
+     * Writes a single-precision Network to an XML file. Same DOM Structure as
+     * a fully set network. See {@link #readNetwork}.
+     *
+     * @param file the location and name of the file to be written.
+     * @param n the network to be saved.
+     */
+    public static void writeNetwork(File file, FloatNetwork n) {
+        writeNetwork(file, n.toNetwork());
+    }
 
-            System.out.println("Writing to xml file: " + file.getPath() + " " + file.getName());
+    /**
+     * Reads a network and quantizes it to 8 bit weights for inference, using
+     * the training sets of a second file to calibrate it. See
+     * {@link Network#quantize(double[][])}. The quantization report is
+     * printed to the console.
+     *
+     * @param networkFile the file holding the network, see
+     * {@link #readNetwork}.
+     * @param calibrationFile the file holding the calibration sets, see
+     * {@link #readTrainingSets}. May be the same file.
+     * @return the quantized network, null if either file could not be read.
+     * @throws UnevenArraysException if a calibration set doesn't match the
+     * number of incoming links.
+     */
+    public static QuantizedNetwork readQuantizedNetwork(File networkFile, File calibrationFile) throws UnevenArraysException {
+        QuantizedNetwork quantized;
+        Network network = readNetwork(networkFile);
+        double[][] calibrationSets = readTrainingSets(calibrationFile);
+        if (network == null || calibrationSets == null) {
+            return null;
+        }
+        quantized = network.quantize(calibrationSets);
+        System.out.print(quantized);
+        return quantized;
+    }
 
-            transformer.transform(source, result);
-            StreamResult consoleResult = new StreamResult(System.out);
-            transformer.transform(source, consoleResult);
+    /**
+     * Instantiates a Back-Prop Network from a binary network file, see
+     * {@link #writeBinaryNetwork}. The file is memory-mapped and each layer's
+     * weights and thresholds are read in a single bulk copy, so no text is
+     * parsed and nothing is allocated per weight.
+     *
+     * <p>
+     * All values are little-endian. The file is a 32 byte header followed by
+     * one record per calculating layer:
+     * </p>
+     * <ul>
+     * <li>
+     * Header: int magic "BPNN", int version, int layer count, int reserved,
+     * double learning rate, double momentum.
+     * </li>
+     * <li>
+     * Layer: int links, int neurons, int flags, int name length, int kept
+     * links, int reserved, the ASCII name of the activation function padded
+     * to 8 bytes, then the weight block and the thresholds.
+     * </li>
+     * <li>
+     * Weight block: the row-major weights, one row of links per neuron. If the
+     * layer is flagged sparse: the row starts (neurons + 1 ints), the link of
+     * each kept weight (ints, padded to 8 bytes) and the kept weights.
+     * </li>
+     * <li>
+     * Pruned links: only if the layer is flagged pruned but not sparse, the
+     * row-major index of each pruned link after the thresholds (ints, padded
+     * to 8 bytes).
+     * </li>
+     * </ul>
+     *
+     * Only the links a layer pruned are held pruned; a weight that is merely 0
+     * is not. Version 1 files, which stored only the non-zero weights of a
+     * pruned layer, are read with that layer's zero weights held pruned. Each
+     * layer record must be smaller than 2GB.
+     *
+     * @param file the binary file to be read.
+     * @return a Back-Prop Network, fully initialized with the values from file.
+     * Null if the file could not be read, or is not a supported binary network
+     * file.
+     */
+    public static Network readBinaryNetwork(File file) {
+        Network n;
+        DenseLayer[] layers;
+        String[] activations;
+        int[][] pruned;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            System.out.println("Reading from binary file: " + file.getPath() + " " + file.getName());
+
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, BINARY_HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != BINARY_MAGIC) {
+                throw new IOException(file.getName() + " is not a binary network file");
+            }
+            int version = header.getInt();
+            if (version < 1 || version > BINARY_VERSION) {
+                throw new IOException("Unsupported binary network version: " + version);
+            }
+            layers = new DenseLayer[header.getInt()];
+            activations = new String[layers.length];
+            pruned = new int[layers.length][];
+            header.getInt();
+            double learningRate = header.getDouble();
+            double momentum = header.getDouble();
 
-        } catch (ParserConfigurationException | DOMException | TransformerException ex) {
+            long position = BINARY_HEADER_BYTES;
+            for (int l = 0; l < layers.length; l++) {
+                ByteBuffer shape = ByteBuffer.allocate(BINARY_LAYER_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                while (shape.hasRemaining()) {
+                    if (channel.read(shape, position + shape.position()) < 0) {
+                        throw new EOFException("Layer(" + l + ") is missing from " + file.getName());
+                    }
+                }
+                shape.flip();
+                int links = shape.getInt();
+                int neurons = shape.getInt();
+                int flags = shape.getInt();
+                int nameLength = shape.getInt();
+                int kept = shape.getInt();
+                long size = binaryLayerBytes(links, neurons, flags, nameLength, kept);
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Layer(" + l + ") is too large to be mapped");
+                }
+
+                MappedByteBuffer record = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+                record.order(ByteOrder.LITTLE_ENDIAN);
+                byte[] name = new byte[nameLength];
+                record.position(BINARY_LAYER_HEADER_BYTES);
+                record.get(name);
+                activations[l] = new String(name, StandardCharsets.US_ASCII);
+                record.position((int) (BINARY_LAYER_HEADER_BYTES + padded(nameLength)));
+
+                if ((flags & BINARY_SPARSE) == 0) {
+                    // the weights and thresholds follow one another, one bulk copy each
+                    DoubleBuffer values = record.asDoubleBuffer();
+                    layers[l] = new DenseLayer(links, neurons, values, values);
+                    if ((flags & BINARY_PRUNED_LINKS) != 0) {
+                        record.position(record.position() + 8 * (links * neurons + neurons));
+                        pruned[l] = new int[links * neurons - kept];
+                        record.asIntBuffer().get(pruned[l]);
+                    } else if ((flags & BINARY_PRUNED) != 0) {
+                        pruned[l] = zeroLinks(layers[l]);
+                    }
+                } else {
+                    IntBuffer rowStart = record.asIntBuffer();
+                    IntBuffer columns = record.asIntBuffer();
+                    columns.position(neurons + 1);
+                    record.position((int) (record.position() + padded(4L * (neurons + 1 + kept))));
+                    DoubleBuffer values = record.asDoubleBuffer();
+                    double[] weights = new double[links * neurons];
+                    boolean[] listed = new boolean[links * neurons];
+                    for (int neu = 0; neu < neurons; neu++) {
+                        for (int k = rowStart.get(neu); k < rowStart.get(neu + 1); k++) {
+                            int index = neu * links + columns.get();
+                            weights[index] = values.get();
+                            listed[index] = true;
+                        }
+                    }
+                    layers[l] = new DenseLayer(links, neurons, DoubleBuffer.wrap(weights), values);
+                    pruned[l] = new int[links * neurons - kept];
+                    for (int index = 0, p = 0; index < listed.length; index++) {
+                        if (!listed[index]) {
+                            pruned[l][p++] = index;
+                        }
+                    }
+                }
+                position += size;
+            }
+
+            // Instantiate the Network object
+            n = new Network(layers, learningRate, momentum);
+            for (int l = 0; l < layers.length; l++) {
+                n.setActivationFunction(l, ActivationFunction.forName(activations[l]));
+                if (pruned[l] != null) {
+                    // keep the pruned links pruned through any further training
+                    n.getLayer(l).setPrunedLinks(pruned[l]);
+                }
+            }
+            return n;
+
+        } catch (NoSuchFileException f) {
+            Logger.getLogger(IOManager.class.getName()).log(Level.SEVERE, "File Not found, no network...", f);
+        } catch (IOException | IllegalArgumentException | IndexOutOfBoundsException | BufferUnderflowException e) {
+            Logger.getLogger(IOManager.class.getName()).log(Level.SEVERE, null, e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Writes the Network to a binary network file, see
+     * {@link #readBinaryNetwork} for the layout. A layer with pruned links is
+     * flagged pruned, and stored sparse if that is smaller than storing every
+     * weight and the pruned links.
+     *
+     * @param file the location and name of the file to be written.
+     * @param n the network to be saved.
+     */
+    public static void writeBinaryNetwork(File file, Network n) {
+        System.out.println("Writing to binary file: " + file.getPath() + " " + file.getName());
+
+        try {
+            writeBinary(file, n);
+        } catch (IOException ex) {
             Logger.getLogger(IOManager.class
                     .getName()).log(Level.SEVERE, null, ex);
         }
     }
 
+    /**
+     * Writes the Network to a binary network file, see
+     * {@link #writeBinaryNetwork(File, Network)}.
+     *
+     * @param file the location and name of the file to be written.
+     * @param n the network to be saved.
+     * @throws IOException if the file could not be written.
+     */
+    private static void writeBinary(File file, Network n) throws IOException {
+        double[][][] weights = n.getWeights();
+        double[][] thresholds = n.getThresholds();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(BINARY_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(BINARY_MAGIC);
+            header.putInt(BINARY_VERSION);
+            header.putInt(weights.length);
+            header.putInt(0);
+            header.putDouble(n.mLearningRate);
+            header.putDouble(n.mMomentum);
+            header.flip();
+            writeFully(channel, header, 0);
+
+            long position = BINARY_HEADER_BYTES;
+            for (int l = 0; l < weights.length; l++) {
+                int links = weights[l][0].length;
+                int neurons = weights[l].length;
+                DenseLayer layer = n.getLayer(l);
+                int[] pruned = layer.getPrunedLinks();
+                int kept = links * neurons - pruned.length;
+                int flags = 0;
+                if (pruned.length > 0) {
+                    flags = BINARY_PRUNED | BINARY_PRUNED_LINKS;
+                    if (binaryLayerBytes(links, neurons, BINARY_PRUNED | BINARY_SPARSE, 0, kept)
+                            < binaryLayerBytes(links, neurons, flags, 0, kept)) {
+                        flags = BINARY_PRUNED | BINARY_SPARSE;
+                    }
+                }
+                byte[] name = n.getActivationFunction(l).getName().getBytes(StandardCharsets.US_ASCII);
+                long size = binaryLayerBytes(links, neurons, flags, name.length, kept);
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Layer(" + l + ") is too large to be written");
+                }
+
+                // written from the heap rather than mapped, as a live mapping
+                // stops a checkpoint being renamed over the last on Windows
+                ByteBuffer record = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+                record.putInt(links);
+                record.putInt(neurons);
+                record.putInt(flags);
+                record.putInt(name.length);
+                record.putInt(kept);
+                record.putInt(0);
+                record.put(name);
+                record.position((int) (BINARY_LAYER_HEADER_BYTES + padded(name.length)));
+
+                if ((flags & BINARY_SPARSE) == 0) {
+                    DoubleBuffer values = record.asDoubleBuffer();
+                    for (double[] row : weights[l]) {
+                        values.put(row);
+                    }
+                    values.put(thresholds[l]);
+                    if ((flags & BINARY_PRUNED_LINKS) != 0) {
+                        record.position(record.position() + 8 * values.position());
+                        record.asIntBuffer().put(pruned);
+                    }
+                } else {
+                    IntBuffer indexes = record.asIntBuffer();
+                    int start = 0;
+                    for (int neu = 0; neu < neurons; neu++) {
+                        indexes.put(start);
+                        for (int w = 0; w < links; w++) {
+                            if (!layer.isPruned(neu, w)) {
+                                start++;
+                            }
+                        }
+                    }
+                    indexes.put(start);
+                    for (int neu = 0; neu < neurons; neu++) {
+                        for (int w = 0; w < links; w++) {
+                            if (!layer.isPruned(neu, w)) {
+                                indexes.put(w);
+                            }
+                        }
+                    }
+                    record.position((int) (record.position() + padded(4L * (neurons + 1 + kept))));
+                    DoubleBuffer values = record.asDoubleBuffer();
+                    for (int neu = 0; neu < neurons; neu++) {
+                        for (int w = 0; w < links; w++) {
+                            if (!layer.isPruned(neu, w)) {
+                                values.put(weights[l][neu][w]);
+                            }
+                        }
+                    }
+                    values.put(thresholds[l]);
+                }
+                record.clear();
+                writeFully(channel, record, position);
+                position += size;
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Writes a checkpoint of the Network. The checkpoint is written in full
+     * under a temporary name beside the file, then renamed over it, so the
+     * file always holds either the last checkpoint or the new one, never a
+     * part written one.
+     *
+     * @param file the location and name of the checkpoint.
+     * @param n the network to be saved, e.g. a {@link Network#snapshot()}.
+     * @param binary true for a binary network file, see
+     * {@link #readBinaryNetwork}, false for XML, see {@link #readNetwork}.
+     * @throws IOException if the checkpoint could not be written. The last
+     * checkpoint is left in place.
+     */
+    public static void writeCheckpoint(File file, Network n, boolean binary) throws IOException {
+        File temp = temporaryFile(file);
+        try {
+            if (binary) {
+                writeBinary(temp, n);
+            } else {
+                try (FileOutputStream fileOut = new FileOutputStream(temp);
+                        OutputStream out = new BufferedOutputStream(fileOut, STREAM_BUFFER_BYTES)) {
+                    writeNetwork(out, n);
+                    out.flush();
+                    fileOut.getFD().sync();
+                }
+            }
+            replace(temp, file);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * Instantiates a Back-Prop Network, and the state of its training, from a
+     * training state file written by {@link #writeTrainingState}. Training
+     * the network carries on exactly as the network written would have.
+     *
+     * @param file the training state file to be read.
+     * @return a Back-Prop Network, fully initialized with the values from file.
+     * Null if the file could not be read, or is not a training state file.
+     */
+    public static Network readTrainingState(File file) {
+        Network n;
+        DenseLayer[] layers;
+        String[] activations;
+        String[] optimizers;
+        DoubleBuffer[] states;
+        int[][] pruned;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            System.out.println("Reading training state: " + file.getPath() + " " + file.getName());
+
+            ByteBuffer header = ByteBuffer.allocate(STATE_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, 0, file.getName() + " is not a training state file");
+            if (header.getInt() != STATE_MAGIC) {
+                throw new IOException(file.getName() + " is not a training state file");
+            }
+            int version = header.getInt();
+            if (version < 1 || version > STATE_VERSION) {
+                throw new IOException("Unsupported training state version: " + version);
+            }
+            int layerHeaderBytes = version == 1 ? STATE_V1_LAYER_HEADER_BYTES
+                    : version == 2 ? STATE_V2_LAYER_HEADER_BYTES : STATE_LAYER_HEADER_BYTES;
+            layers = new DenseLayer[header.getInt()];
+            activations = new String[layers.length];
+            optimizers = new String[layers.length];
+            states = new DoubleBuffer[layers.length];
+            pruned = new int[layers.length][];
+            int epoch = header.getInt();
+            double learningRate = header.getDouble();
+            double momentum = header.getDouble();
+            double[] epochSums = {header.getDouble(), header.getDouble()};
+
+            long position = STATE_HEADER_BYTES;
+            for (int l = 0; l < layers.length; l++) {
+                ByteBuffer shape = ByteBuffer.allocate(layerHeaderBytes).order(ByteOrder.LITTLE_ENDIAN);
+                readFully(channel, shape, position, "Layer(" + l + ") is missing from " + file.getName());
+                int links = shape.getInt();
+                int neurons = shape.getInt();
+                int flags = shape.getInt();
+                int nameLength = shape.getInt();
+                int optimizerLength = version == 1 ? 0 : shape.getInt();
+                int stateLength = version == 1 ? 0 : shape.getInt();
+                int prunedLength = version < 3 ? 0 : shape.getInt();
+                long size = stateLayerBytes(layerHeaderBytes, links, neurons, nameLength, optimizerLength, stateLength, prunedLength);
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Layer(" + l + ") is too large to be read");
+                }
+
+                // read into the heap rather than mapped, so that no mapping
+                // outlives the channel and holds the file open
+                ByteBuffer record = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+                readFully(channel, record, position, "Layer(" + l + ") is cut short in " + file.getName());
+                byte[] name = new byte[nameLength];
+                record.position(layerHeaderBytes);
+                record.get(name);
+                activations[l] = new String(name, StandardCharsets.US_ASCII);
+                byte[] optimizerName = new byte[optimizerLength];
+                record.position((int) (layerHeaderBytes + padded(nameLength)));
+                record.get(optimizerName);
+                record.position((int) (layerHeaderBytes + padded(nameLength) + padded(optimizerLength)));
+
+                // weights, thresholds, weight deltas, threshold deltas and the
+                // optimizer's state follow one another
+                DoubleBuffer values = record.asDoubleBuffer();
+                layers[l] = new DenseLayer(links, neurons, values, values);
+                layers[l].setDeltas(values, values);
+                if (optimizerLength > 0) {
+                    optimizers[l] = new String(optimizerName, StandardCharsets.US_ASCII);
+                    states[l] = values.slice();
+                    states[l].limit(stateLength);
+                }
+                if (prunedLength > 0) {
+                    record.position(record.position() + 8 * (values.position() + stateLength));
+                    pruned[l] = new int[prunedLength];
+                    record.asIntBuffer().get(pruned[l]);
+                } else if (version < 3 && (flags & BINARY_PRUNED) != 0) {
+                    pruned[l] = zeroLinks(layers[l]);
+                }
+                position += size;
+            }
+
+            // Instantiate the Network object
+            n = new Network(layers, learningRate, momentum);
+            for (int l = 0; l < layers.length; l++) {
+                n.setActivationFunction(l, ActivationFunction.forName(activations[l]));
+                if (pruned[l] != null) {
+                    // keep the pruned links pruned through any further training
+                    n.getLayer(l).setPrunedLinks(pruned[l]);
+                }
+            }
+            if (optimizers[0] != null) {
+                // every layer has the network's one optimizer, restored into
+                // the fresh one in place
+                n.setOptimizer(optimizers[0]);
+                for (int l = 0; l < layers.length; l++) {
+                    Optimizer optimizer = n.getLayer(l).getOptimizer();
+                    if (!optimizers[0].equals(optimizers[l]) || optimizer.getState().length != states[l].remaining()) {
+                        throw new IOException("Layer(" + l + ") has the wrong optimizer state");
+                    }
+                    optimizer.setState(states[l]);
+                }
+            }
+            n.setTrainingProgress(epoch, epochSums);
+            return n;
+
+        } catch (NoSuchFileException f) {
+            Logger.getLogger(IOManager.class.getName()).log(Level.SEVERE, "File Not found, no network...", f);
+        } catch (IOException | IllegalArgumentException | IndexOutOfBoundsException | BufferUnderflowException e) {
+            Logger.getLogger(IOManager.class.getName()).log(Level.SEVERE, null, e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Writes the Network and the state of its training to a training state
+     * file: everything {@link #writeBinaryNetwork} writes, plus the momentum
+     * deltas of every weight and threshold, the optimizer and its state, see
+     * {@link Network#setOptimizer}, the number of epochs trained in
+     * the current run and the sums of the squared errors of its last two
+     * epochs, that the adaptive learning rate compares. Reading the file back
+     * with {@link #readTrainingState} and training on carries on exactly as
+     * if training had never stopped. Like {@link #writeCheckpoint}, the file
+     * is replaced whole or not at all.
+     *
+     * <ul>
+     * <li>
+     * Header: int magic "BPTS", int version, int layer count, int epoch,
+     * double learning rate, double momentum, double sum of the squared errors
+     * of the last even epoch, then of the last odd epoch.
+     * </li>
+     * <li>
+     * Layer: int links, int neurons, int flags, int name length, int
+     * optimizer name length, int optimizer state length, int pruned links, int
+     * reserved, the ASCII name of the activation function and then of the
+     * optimizer, each padded to 8 bytes, then the row-major weights, the
+     * thresholds, the weight deltas, the threshold deltas, the optimizer's
+     * state and the row-major index of each pruned link (ints, padded to 8
+     * bytes). An optimizer name of length 0 is the classic momentum rule,
+     * which has no state of its own. Version 1 files, without the optimizer,
+     * and version 2 files, without the pruned links, are still read, with the
+     * zero weights of a layer flagged pruned held pruned.
+     * </li>
+     * </ul>
+     *
+     * @param file the location and name of the file to be written.
+     * @param n the network to be saved, e.g. a {@link Network#snapshot()}.
+     * @throws IOException if the file could not be written. Any earlier file
+     * is left in place.
+     */
+    public static void writeTrainingState(File file, Network n) throws IOException {
+        File temp = temporaryFile(file);
+        double[] epochSums = n.getEpochSums();
+
+        try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(STATE_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(STATE_MAGIC);
+            header.putInt(STATE_VERSION);
+            header.putInt(n.getLayerCount());
+            header.putInt(n.getEpoch());
+            header.putDouble(n.mLearningRate);
+            header.putDouble(n.mMomentum);
+            header.putDouble(epochSums[0]);
+            header.putDouble(epochSums[1]);
+            header.flip();
+            writeFully(channel, header, 0);
+
+            long position = STATE_HEADER_BYTES;
+            for (int l = 0; l < n.getLayerCount(); l++) {
+                DenseLayer layer = n.getLayer(l);
+                int links = layer.getInputCount();
+                int neurons = layer.getNeuronCount();
+                int[] pruned = layer.getPrunedLinks();
+                int flags = pruned.length > 0 ? BINARY_PRUNED : 0;
+                byte[] name = layer.getActivationFunction().getName().getBytes(StandardCharsets.US_ASCII);
+                Optimizer optimizer = layer.getOptimizer();
+                byte[] optimizerName = optimizer == null ? new byte[0] : optimizer.getName().getBytes(StandardCharsets.US_ASCII);
+                double[] state = optimizer == null ? new double[0] : optimizer.getState();
+                long size = stateLayerBytes(STATE_LAYER_HEADER_BYTES, links, neurons, name.length, optimizerName.length, state.length, pruned.length);
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Layer(" + l + ") is too large to be written");
+                }
+
+                // written from the heap rather than mapped, as a live mapping
+                // stops the file being renamed or deleted on Windows
+                ByteBuffer record = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+                record.putInt(links);
+                record.putInt(neurons);
+                record.putInt(flags);
+                record.putInt(name.length);
+                record.putInt(optimizerName.length);
+                record.putInt(state.length);
+                record.putInt(pruned.length);
+                record.putInt(0);
+                record.put(name);
+                record.position((int) (STATE_LAYER_HEADER_BYTES + padded(name.length)));
+                record.put(optimizerName);
+                record.position((int) (STATE_LAYER_HEADER_BYTES + padded(name.length) + padded(optimizerName.length)));
+
+                DoubleBuffer values = record.asDoubleBuffer();
+                for (double[] row : layer.getWeights()) {
+                    values.put(row);
+                }
+                values.put(layer.getThresholds());
+                values.put(layer.getWeightDeltas());
+                values.put(layer.getThresholdDeltas());
+                values.put(state);
+                record.position(record.position() + 8 * values.position());
+                record.asIntBuffer().put(pruned);
+                record.clear();
+                writeFully(channel, record, position);
+                position += size;
+            }
+            channel.force(true);
+        } catch (IOException ex) {
+            Files.deleteIfExists(temp.toPath());
+            throw ex;
+        }
+        try {
+            replace(temp, file);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * Names the temporary file a file is written under before it replaces
+     * the file, see {@link #replace}.
+     *
+     * @param file the file to be replaced.
+     * @return a file of the same name with ".tmp" added, in the same
+     * directory.
+     */
+    private static File temporaryFile(File file) {
+        return new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+    }
+
+    /**
+     * Renames a fully written file over the file it replaces, atomically
+     * where the file system allows it.
+     *
+     * @param temp the fully written file.
+     * @param file the file to be replaced.
+     * @throws IOException if the file could not be renamed.
+     */
+    private static void replace(File temp, File file) throws IOException {
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads from a channel until a buffer is full, then flips the buffer
+     * ready to be read.
+     *
+     * @param channel the channel to be read.
+     * @param buffer the buffer to be filled.
+     * @param position the position in the channel the first byte is read
+     * from.
+     * @param missing the message if the channel ends first.
+     * @throws IOException if the channel could not be read, or ended before
+     * the buffer was full.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position, String missing) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException(missing);
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Writes the whole of a buffer to a channel.
+     *
+     * @param channel the channel to be written.
+     * @param buffer the buffer to be written, from its position to its
+     * limit.
+     * @param position the position in the channel the first byte is written
+     * to.
+     * @throws IOException if the channel could not be written.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long start = position - buffer.position();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, start + buffer.position());
+        }
+    }
+
+    /**
+     * Works out the size of a layer record in a training state file.
+     *
+     * @param headerBytes the size of the layer header.
+     * @param links the number of links each neuron has.
+     * @param neurons the number of neurons in the layer.
+     * @param nameLength the length of the activation function's name.
+     * @param optimizerLength the length of the optimizer's name, 0 for the
+     * classic momentum rule.
+     * @param stateLength the number of values of optimizer state.
+     * @param prunedLength the number of pruned links.
+     * @return the number of bytes in the record.
+     */
+    private static long stateLayerBytes(int headerBytes, int links, int neurons, int nameLength, int optimizerLength, int stateLength, int prunedLength) {
+        return headerBytes + padded(nameLength) + padded(optimizerLength)
+                + 8L * (2 * ((long) links * neurons + neurons) + stateLength) + padded(4L * prunedLength);
+    }
+
+    /**
+     * Works out the size of a layer record in a binary network file.
+     *
+     * @param links the number of links each neuron has.
+     * @param neurons the number of neurons in the layer.
+     * @param flags the layer's flags.
+     * @param nameLength the length of the activation function's name.
+     * @param kept the number of links in the layer that are not pruned.
+     * @return the number of bytes in the record.
+     */
+    private static long binaryLayerBytes(int links, int neurons, int flags, int nameLength, int kept) {
+        long size = BINARY_LAYER_HEADER_BYTES + padded(nameLength);
+        if ((flags & BINARY_SPARSE) == 0) {
+            size += 8L * links * neurons;
+        } else {
+            size += padded(4L * (neurons + 1 + kept)) + 8L * kept;
+        }
+        if ((flags & BINARY_PRUNED_LINKS) != 0) {
+            size += padded(4L * ((long) links * neurons - kept));
+        }
+        return size + 8L * neurons;
+    }
+
+    /**
+     * Finds the links of a layer whose weight is 0, which is how files that
+     * did not record the pruned links marked them.
+     *
+     * @param layer the layer to be searched.
+     * @return the row-major index of each zero weight, in ascending order.
+     */
+    private static int[] zeroLinks(DenseLayer layer) {
+        int links = layer.getInputCount();
+        int[] zero = new int[links * layer.getNeuronCount() - layer.getNonZeroCount()];
+        int count = 0;
+        for (int neu = 0; neu < layer.getNeuronCount(); neu++) {
+            for (int w = 0; w < links; w++) {
+                if (layer.getWeight(neu, w) == 0) {
+                    zero[count++] = neu * links + w;
+                }
+            }
+        }
+        return zero;
+    }
+
+    /**
+     * Rounds a number of bytes up to a whole number of doubles, so that every
+     * weight block starts 8 byte aligned.
+     *
+     * @param bytes the number of bytes.
+     * @return the number of bytes once padded.
+     */
+    private static long padded(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * Creates a StAX factory that coalesces text and ignores DTDs and external
+     * entities.
+     *
+     * @return the factory.
+     */
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
     /**
      * Parses a delimited string into an Int array.
      *
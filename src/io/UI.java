@@ -6,10 +6,12 @@ package io;
  Title: UI
  */
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.Scanner;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import neuralnetwork.ActivationFunction;
+import neuralnetwork.Dataset;
 import neuralnetwork.Network;
 import neuralnetworkexceptions.UnevenArraysException;
 
@@ -32,17 +34,18 @@ public class UI {
     public static void main(String[] args) {
 
         Network network;
-        double[][] trainingSets;
-        double[][] desiredOutcomes;
+        Dataset dataset;
         String work;
+        boolean namedActivations;
 
         System.out.println("Welcome to Curtis Alcock's Back Propagation Neural Network.\n");
 
         System.out.print("Please enter the relative location of the network file: ");
         File file = new File(c.nextLine());
         network = IOManager.readNetwork(file);
+        namedActivations = IOManager.namesActivations(file);
 
-        System.out.print("What would you like the network to do (run, train, exit)?: ");
+        System.out.print("What would you like the network to do (run, report, train, exit)?: ");
         work = c.nextLine();
 
         while (!work.equals("exit")) {
@@ -51,7 +54,20 @@ public class UI {
                     System.out.print("Please enter the input values you would like to run the network against: i.e. '1,0,1' ");
                     double[] set = IOManager.stringToDoubleArray(c.nextLine(), ",");
                     try {
-                        System.out.println(network.run(set));
+                        double[] outputs = network.predict(set);
+                        for (int i = 0; i < outputs.length; i++) {
+                            System.out.printf("[%d]=%.4f%s", i, outputs[i], i < outputs.length - 1 ? ", " : "\n");
+                        }
+                    } catch (UnevenArraysException ex) {
+                        Logger.getLogger(UI.class.getName()).log(Level.SEVERE, null, ex);
+                    }
+                    break;
+                }
+                case "report": {
+                    System.out.print("Please enter the input values you would like to run the network against: i.e. '1,0,1' ");
+                    double[] set = IOManager.stringToDoubleArray(c.nextLine(), ",");
+                    try {
+                        System.out.println(network.report(set));
                     } catch (UnevenArraysException ex) {
                         Logger.getLogger(UI.class.getName()).log(Level.SEVERE, null, ex);
                     }
@@ -60,24 +76,34 @@ public class UI {
                 case "train": {
                     System.out.print("Please enter the relative location of the training sets file: ");
                     file = new File(c.nextLine());
-                    trainingSets = IOManager.readTrainingSets(file);
-                    desiredOutcomes = IOManager.readDesiredOutcomes(file);
+                    dataset = new XmlDataset(file);
 
+                    if (namedActivations) {
+                        // keep the activation function the file gave each layer
+                        try {
+                            network.train(dataset, 0.0001);
+                        } catch (UnevenArraysException | IOException ex) {
+                            Logger.getLogger(UI.class.getName()).log(Level.SEVERE, null, ex);
+                        }
+                        break;
+                    }
                     System.out.print("Would you like to use accelerated training? (y/n) ");
                     work = c.nextLine();
                     switch (work) {
                         case "y": {
                             try {
-                                network.train(trainingSets, desiredOutcomes, 0.0001, false);
-                            } catch (UnevenArraysException ex) {
+                                network.setActivationFunction(ActivationFunction.HYPERBOLIC_TANGENT);
+                                network.train(dataset, 0.0001);
+                            } catch (UnevenArraysException | IOException ex) {
                                 Logger.getLogger(UI.class.getName()).log(Level.SEVERE, null, ex);
                             }
                             break;
                         }
                         case "n": {
                             try {
-                                network.train(trainingSets, desiredOutcomes, 0.0001, true);
-                            } catch (UnevenArraysException ex) {
+                                network.setActivationFunction(ActivationFunction.SIGMOID);
+                                network.train(dataset, 0.0001);
+                            } catch (UnevenArraysException | IOException ex) {
                                 Logger.getLogger(UI.class.getName()).log(Level.SEVERE, null, ex);
                             }
                             break;
@@ -93,10 +119,10 @@ public class UI {
                     break;
                 }
                 default: {
-                    System.out.println("Please enter one of the given options. (run, train, exit) ");
+                    System.out.println("Please enter one of the given options. (run, report, train, exit) ");
                 }
             }
-            System.out.print("What would you like the network to do (run, train, exit)?: ");
+            System.out.print("What would you like the network to do (run, report, train, exit)?: ");
             work = c.nextLine();
         }
     }
@@ -0,0 +1,215 @@
+package io;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: XmlDataset
+ */
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import neuralnetwork.Dataset;
+
+/**
+ * Streams the training sets and desired outcomes of an XML file, see
+ * {@link IOManager#readTrainingSets} and {@link IOManager#readDesiredOutcomes}
+ * for the structure. Rather than building a DOM of the whole file, each pass
+ * reads the file with two StAX readers side by side, one working through the
+ * trainingSets element and one through the desiredOutcomes element, so only
+ * the current pair is ever held in memory.
+ *
+ * @author Curtis Alcock 18403879
+ */
+public class XmlDataset implements Dataset {
+
+    /*
+     * The file holding the dataset.
+     */
+    private final File mFile;
+
+    /**
+     * Initializes the dataset. The file is not read until a pass is started.
+     *
+     * @param file the XML file holding the training sets and desired outcomes.
+     */
+    public XmlDataset(File file) {
+        mFile = file;
+    }
+
+    /**
+     * Starts a new pass over the file.
+     *
+     * @return a cursor positioned before the first pair.
+     * @throws IOException if the file could not be opened, or is missing
+     * either the trainingSets or the desiredOutcomes element.
+     */
+    @Override
+    public Cursor open() throws IOException {
+        return new XmlCursor(mFile);
+    }
+
+    /**
+     * A single pass over the file, reading the nth training set alongside the
+     * nth desired outcome.
+     */
+    private static class XmlCursor implements Cursor {
+
+        /*
+         * The stream being read for the training sets.
+         */
+        private final InputStream mSetsStream;
+
+        /*
+         * The stream being read for the desired outcomes.
+         */
+        private final InputStream mOutcomesStream;
+
+        /*
+         * The reader positioned within the trainingSets element.
+         */
+        private XMLStreamReader mSets;
+
+        /*
+         * The reader positioned within the desiredOutcomes element.
+         */
+        private XMLStreamReader mOutcomes;
+
+        /*
+         * The inputs of the current pair.
+         */
+        private double[] mInputs;
+
+        /*
+         * The desired outputs of the current pair.
+         */
+        private double[] mDesiredOutputs;
+
+        /*
+         * The number of pairs read so far.
+         */
+        private int mCount;
+
+        /*
+         * True once both elements have been read to the end.
+         */
+        private boolean mFinished;
+
+        XmlCursor(File file) throws IOException {
+            XMLInputFactory factory = IOManager.XML_INPUT_FACTORY;
+            mSetsStream = new BufferedInputStream(new FileInputStream(file));
+            try {
+                mOutcomesStream = new BufferedInputStream(new FileInputStream(file));
+            } catch (IOException ex) {
+                mSetsStream.close();
+                throw ex;
+            }
+            try {
+                mSets = section(factory.createXMLStreamReader(mSetsStream), "trainingSets");
+                mOutcomes = section(factory.createXMLStreamReader(mOutcomesStream), "desiredOutcomes");
+            } catch (XMLStreamException ex) {
+                close();
+                throw new IOException(ex);
+            } catch (IOException ex) {
+                close();
+                throw ex;
+            }
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            if (mFinished) {
+                return false;
+            }
+            try {
+                boolean set = nextSet(mSets, "trainingSets");
+                boolean outcome = nextSet(mOutcomes, "desiredOutcomes");
+                if (set != outcome) {
+                    throw new IOException("There must be exactly one desired outcome per training set!");
+                }
+                if (!set) {
+                    mFinished = true;
+                    return false;
+                }
+                mInputs = IOManager.stringToDoubleArray(mSets.getElementText().trim(), ",");
+                mDesiredOutputs = IOManager.stringToDoubleArray(mOutcomes.getElementText().trim(), ",");
+            } catch (XMLStreamException | NumberFormatException ex) {
+                throw new IOException("Set [" + mCount + "] could not be read", ex);
+            }
+            mCount++;
+            return true;
+        }
+
+        @Override
+        public double[] getInputs() {
+            return mInputs;
+        }
+
+        @Override
+        public double[] getDesiredOutputs() {
+            return mDesiredOutputs;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (mSets != null) {
+                    mSets.close();
+                }
+                if (mOutcomes != null) {
+                    mOutcomes.close();
+                }
+            } catch (XMLStreamException ex) {
+                throw new IOException(ex);
+            } finally {
+                mSetsStream.close();
+                mOutcomesStream.close();
+            }
+        }
+
+        /**
+         * Moves a reader on to the start of an element.
+         *
+         * @param reader the reader to be moved.
+         * @param name the name of the element.
+         * @return the reader, positioned on the element's start tag.
+         * @throws XMLStreamException if the XML is malformed.
+         * @throws IOException if the element is not in the file.
+         */
+        private static XMLStreamReader section(XMLStreamReader reader, String name) throws XMLStreamException, IOException {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals(name)) {
+                    return reader;
+                }
+            }
+            reader.close();
+            throw new IOException("No " + name + " element was found");
+        }
+
+        /**
+         * Moves a reader on to the start of the next set within an element.
+         *
+         * @param reader the reader to be moved.
+         * @param name the name of the element the sets belong to.
+         * @return false if the end of the element was reached first.
+         * @throws XMLStreamException if the XML is malformed.
+         */
+        private static boolean nextSet(XMLStreamReader reader, String name) throws XMLStreamException {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("set")) {
+                    return true;
+                }
+                if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals(name)) {
+                    return false;
+                }
+            }
+            return false;
+        }
+    }
+}
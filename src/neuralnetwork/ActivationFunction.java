@@ -0,0 +1,120 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: ActivationFunction
+ */
+/**
+ * The activation function of a layer of neurons, paired with its derivative.
+ * Every layer of a network carries its own, so e.g. the hidden layers can use
+ * the ReLU family, which needs no transcendental functions at all, while the
+ * output layer keeps a squashing function.
+ *
+ * <ul>
+ * <li>{@link #SIGMOID} 1 / (1 + e^-x), between 0 and 1.</li>
+ * <li>{@link #HYPERBOLIC_TANGENT} 2a / (1 + e^(-b * x)) - a, between -a and
+ * +a, with a and b from {@link Neuron}. The default.</li>
+ * <li>{@link #RELU} max(0, x).</li>
+ * <li>{@link #LEAKY_RELU} x when positive, otherwise 0.01 * x.</li>
+ * <li>{@link #HARD_TANH} x clamped between -1 and +1.</li>
+ * </ul>
+ *
+ * Every function's derivative can be worked out from its output alone, which
+ * is what lets back-propagation run from the outputs recorded on the way
+ * forwards.
+ *
+ * @author Curtis Alcock 18403879
+ */
+public interface ActivationFunction {
+
+    /**
+     * The sigmoid, 1 / (1 + e^-x).
+     */
+    ActivationFunction SIGMOID = StandardActivation.SIGMOID;
+
+    /**
+     * The scaled hyperbolic tangent, 2a / (1 + e^(-b * x)) - a.
+     */
+    ActivationFunction HYPERBOLIC_TANGENT = StandardActivation.HYPERBOLIC_TANGENT;
+
+    /**
+     * The rectified linear unit, max(0, x).
+     */
+    ActivationFunction RELU = StandardActivation.RELU;
+
+    /**
+     * The leaky rectified linear unit, x when positive, otherwise 0.01 * x.
+     */
+    ActivationFunction LEAKY_RELU = StandardActivation.LEAKY_RELU;
+
+    /**
+     * The hard hyperbolic tangent, x clamped between -1 and +1.
+     */
+    ActivationFunction HARD_TANH = StandardActivation.HARD_TANH;
+
+    /**
+     * Finds an activation function by the name it is saved under.
+     *
+     * @param name the name of the function, see {@link #getName()}.
+     * @return the activation function.
+     * @throws IllegalArgumentException if there is no function by that name.
+     */
+    static ActivationFunction forName(String name) {
+        for (StandardActivation function : StandardActivation.values()) {
+            if (function.getName().equals(name.trim())) {
+                return function;
+            }
+        }
+        throw new IllegalArgumentException("No activation function named \"" + name + "\"!");
+    }
+
+    /**
+     * Gets the name the function is saved under, e.g. "tanh".
+     *
+     * @return the name of the function.
+     */
+    String getName();
+
+    /**
+     * Transfers a neuron's weighted sum (less its threshold) to its output.
+     *
+     * @param input the weighted sum of the inputs minus the threshold.
+     * @return the output of the neuron.
+     */
+    double transfer(double input);
+
+    /**
+     * The slope of the function, worked out from a neuron's output.
+     *
+     * @param output the output of the neuron.
+     * @return the derivative of the function at that output.
+     */
+    double slope(double output);
+
+    /**
+     * Transfers a neuron's weighted sum to its output and records the slope
+     * at that point, sharing whatever work the two have in common.
+     *
+     * @param input the weighted sum of the inputs minus the threshold.
+     * @param slopes receives the slope of the function.
+     * @param index where in slopes to record it.
+     * @return the output of the neuron.
+     */
+    default double transfer(double input, double[] slopes, int index) {
+        double output = transfer(input);
+        slopes[index] = slope(output);
+        return output;
+    }
+
+    /**
+     * Gets a cheaper approximation of the function, see
+     * {@link FastActivation}. Functions that are already cheap return
+     * themselves.
+     *
+     * @return the approximate function.
+     */
+    default ActivationFunction approximate() {
+        return this;
+    }
+}
@@ -0,0 +1,177 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: BatchWorkspace
+ */
+import java.util.Arrays;
+
+/**
+ * The scratch buffers needed to run a mini-batch forwards and backwards
+ * through a network: the activations and error gradients of every layer for
+ * each row of the batch, and the gradient accumulators of every layer. All
+ * matrices are flat and row-major.
+ *
+ * @author Curtis Alcock 18403879
+ */
+class BatchWorkspace {
+
+    /*
+     * The largest number of rows the workspace can hold.
+     */
+    final int mCapacity;
+
+    /*
+     * The batch of network inputs, capacity x input count.
+     */
+    final double[] mInputs;
+
+    /*
+     * The batch of desired outputs, capacity x output count.
+     */
+    final double[] mDesiredOutputs;
+
+    /*
+     * The batch of outputs of each layer, capacity x neuron count.
+     */
+    final double[][] mOutputs;
+
+    /*
+     * The batch of error gradients of each layer, capacity x neuron count.
+     */
+    final double[][] mDeltas;
+
+    /*
+     * The accumulated weight gradients of each layer.
+     */
+    final double[][] mWeightGradients;
+
+    /*
+     * The accumulated threshold gradients of each layer.
+     */
+    final double[][] mThresholdGradients;
+
+    /**
+     * Allocates a workspace for the given layers.
+     *
+     * @param layers the layers of the network.
+     * @param capacity the largest number of rows to be worked at once.
+     */
+    BatchWorkspace(DenseLayer[] layers, int capacity) {
+        this(layers, capacity, true);
+    }
+
+    /**
+     * Allocates a workspace for the given layers, optionally without the
+     * gradient accumulators when the weights are to be corrected straight
+     * from the error gradients.
+     *
+     * @param layers the layers of the network.
+     * @param capacity the largest number of rows to be worked at once.
+     * @param accumulators if false the gradient accumulators are left empty.
+     */
+    BatchWorkspace(DenseLayer[] layers, int capacity, boolean accumulators) {
+        this(shape(layers), capacity, true, accumulators);
+    }
+
+    /**
+     * Allocates a workspace for the given layers that can only run batches
+     * forwards. The desired outputs, error gradients and gradient accumulators
+     * are left empty.
+     *
+     * @param layers the layers of the network.
+     * @param capacity the largest number of rows to be worked at once.
+     * @return a workspace for inference only.
+     */
+    static BatchWorkspace forInference(DenseLayer[] layers, int capacity) {
+        return forInference(shape(layers), capacity);
+    }
+
+    /**
+     * Allocates a workspace for a network of the given shape that can only
+     * run batches forwards.
+     *
+     * @param shape the number of inputs of the network, followed by the number
+     * of neurons in each layer.
+     * @param capacity the largest number of rows to be worked at once.
+     * @return a workspace for inference only.
+     */
+    static BatchWorkspace forInference(int[] shape, int capacity) {
+        return new BatchWorkspace(shape, capacity, false, false);
+    }
+
+    /**
+     * Gets the shape of a network from its layers.
+     *
+     * @param layers the layers of the network.
+     * @return the number of inputs of the network, followed by the number of
+     * neurons in each layer.
+     */
+    private static int[] shape(DenseLayer[] layers) {
+        int[] shape = new int[layers.length + 1];
+        shape[0] = layers[0].getInputCount();
+        for (int layer = 0; layer < layers.length; layer++) {
+            shape[layer + 1] = layers[layer].getNeuronCount();
+        }
+        return shape;
+    }
+
+    /**
+     * Allocates a workspace for a network of the given shape.
+     *
+     * @param shape the number of inputs of the network, followed by the number
+     * of neurons in each layer.
+     * @param capacity the largest number of rows to be worked at once.
+     * @param deltas if false the desired outputs and error gradients are left
+     * empty.
+     * @param accumulators if false the gradient accumulators are left empty.
+     */
+    private BatchWorkspace(int[] shape, int capacity, boolean deltas, boolean accumulators) {
+        int layers = shape.length - 1;
+        mCapacity = capacity;
+        mInputs = new double[capacity * shape[0]];
+        mDesiredOutputs = new double[deltas ? capacity * shape[layers] : 0];
+        mOutputs = new double[layers][];
+        mDeltas = new double[layers][];
+        mWeightGradients = new double[layers][];
+        mThresholdGradients = new double[layers][];
+        for (int layer = 0; layer < layers; layer++) {
+            int neurons = shape[layer + 1];
+            mOutputs[layer] = new double[capacity * neurons];
+            mDeltas[layer] = new double[deltas ? capacity * neurons : 0];
+            mWeightGradients[layer] = new double[accumulators ? neurons * shape[layer] : 0];
+            mThresholdGradients[layer] = new double[accumulators ? neurons : 0];
+        }
+    }
+
+    /**
+     * Adds the gradients accumulated in another workspace onto this one's.
+     *
+     * @param other a workspace for the same layers.
+     */
+    void addGradients(BatchWorkspace other) {
+        for (int layer = 0; layer < mWeightGradients.length; layer++) {
+            double[] weights = mWeightGradients[layer];
+            double[] otherWeights = other.mWeightGradients[layer];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] += otherWeights[i];
+            }
+            double[] thresholds = mThresholdGradients[layer];
+            double[] otherThresholds = other.mThresholdGradients[layer];
+            for (int i = 0; i < thresholds.length; i++) {
+                thresholds[i] += otherThresholds[i];
+            }
+        }
+    }
+
+    /**
+     * Zeroes the gradient accumulators ready for the next batch.
+     */
+    void clearGradients() {
+        for (int layer = 0; layer < mWeightGradients.length; layer++) {
+            Arrays.fill(mWeightGradients[layer], 0.0);
+            Arrays.fill(mThresholdGradients[layer], 0.0);
+        }
+    }
+}
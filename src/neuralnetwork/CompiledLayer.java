@@ -0,0 +1,88 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: CompiledLayer
+ */
+/**
+ * A frozen copy of a fully connected layer, for inference only. Holds just
+ * the weights, thresholds and activation function, laid out as in
+ * {@link DenseLayer}, with none of the momentum deltas or training buffers.
+ * Nothing is written to it after it is made.
+ *
+ * @author Curtis Alcock 18403879
+ */
+class CompiledLayer {
+
+    /*
+     * The number of incoming links for every neuron in the layer.
+     */
+    private final int mInputCount;
+
+    /*
+     * The number of neurons in the layer.
+     */
+    private final int mNeuronCount;
+
+    /*
+     * Row-major weight matrix, laid out as in DenseLayer.
+     */
+    private final double[] mWeights;
+
+    /*
+     * The bias weight of each neuron.
+     */
+    private final double[] mThresholds;
+
+    /*
+     * The activation function of every neuron in the layer, approximated if
+     * the layer was.
+     */
+    private final ActivationFunction mFunction;
+
+    /**
+     * Takes a frozen copy of a layer.
+     *
+     * @param layer the layer to be copied.
+     */
+    CompiledLayer(DenseLayer layer) {
+        mInputCount = layer.getInputCount();
+        mNeuronCount = layer.getNeuronCount();
+        mWeights = new double[mInputCount * mNeuronCount];
+        mThresholds = layer.getThresholds();
+        mFunction = layer.isApproximate() ? layer.getActivationFunction().approximate() : layer.getActivationFunction();
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            for (int link = 0; link < mInputCount; link++) {
+                mWeights[neuron * mInputCount + link] = layer.getWeight(neuron, link);
+            }
+        }
+    }
+
+    int getInputCount() {
+        return mInputCount;
+    }
+
+    int getNeuronCount() {
+        return mNeuronCount;
+    }
+
+    /**
+     * Activates the layer for a whole batch of input rows at once, exactly as
+     * {@link DenseLayer#activation(double[], double[], int)} does.
+     *
+     * @param inputs the batch of inputs, row-major, rows x input count.
+     * @param outputs receives the batch of outputs, row-major, rows x neuron
+     * count.
+     * @param rows the number of rows in the batch.
+     */
+    void activation(double[] inputs, double[] outputs, int rows) {
+        Kernels.multiply(inputs, rows, mWeights, mNeuronCount, mInputCount, outputs);
+        for (int row = 0; row < rows; row++) {
+            int out = row * mNeuronCount;
+            for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+                outputs[out + neuron] = mFunction.transfer(outputs[out + neuron] - mThresholds[neuron]);
+            }
+        }
+    }
+}
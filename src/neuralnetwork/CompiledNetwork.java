@@ -0,0 +1,188 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: CompiledNetwork
+ */
+import neuralnetworkexceptions.UnevenArraysException;
+
+/**
+ * An immutable snapshot of a {@link Network} for inference only. The weights
+ * and thresholds are frozen when the snapshot is made with
+ * {@link Network#compile()}, and no call ever writes to them or keeps any
+ * state between calls; each thread works in its own workspace. A single
+ * snapshot can therefore be shared by any number of scoring threads at once.
+ *
+ * @author Curtis Alcock 18403879
+ */
+public final class CompiledNetwork {
+
+    /*
+     * Frozen copies of the network's layers.
+     */
+    private final CompiledLayer[] mLayers;
+
+    /*
+     * The number of rows worked at once by activateBatch.
+     */
+    private static final int BATCH_ROWS = 256;
+
+    /*
+     * Each thread's workspace for scoring a single set.
+     */
+    private final ThreadLocal<BatchWorkspace> mRowWorkspace;
+
+    /*
+     * Each thread's workspace for scoring a block of sets.
+     */
+    private final ThreadLocal<BatchWorkspace> mBlockWorkspace;
+
+    /**
+     * Takes a frozen copy of the weights, thresholds and activation functions
+     * of the given layers. None of their training state is copied.
+     *
+     * @param layers the layers of the network to be compiled.
+     */
+    CompiledNetwork(DenseLayer[] layers) {
+        int[] shape = new int[layers.length + 1];
+        mLayers = new CompiledLayer[layers.length];
+        shape[0] = layers[0].getInputCount();
+        for (int layer = 0; layer < layers.length; layer++) {
+            mLayers[layer] = new CompiledLayer(layers[layer]);
+            shape[layer + 1] = mLayers[layer].getNeuronCount();
+        }
+        mRowWorkspace = ThreadLocal.withInitial(() -> BatchWorkspace.forInference(shape, 1));
+        mBlockWorkspace = ThreadLocal.withInitial(() -> BatchWorkspace.forInference(shape, BATCH_ROWS));
+    }
+
+    /**
+     * Gets the number of input values the network takes.
+     *
+     * @return the number of inputs.
+     */
+    public int getInputCount() {
+        return mLayers[0].getInputCount();
+    }
+
+    /**
+     * Gets the number of output values the network produces.
+     *
+     * @return the number of output neurons.
+     */
+    public int getOutputCount() {
+        return mLayers[mLayers.length - 1].getNeuronCount();
+    }
+
+    /**
+     * Activates the network.
+     *
+     * @param inputs the input values for the network.
+     * @return the result of the network's activation.
+     * @throws UnevenArraysException if the inputs array doesn't match the
+     * number of incoming links.
+     */
+    public double[] activation(double[] inputs) throws UnevenArraysException {
+        double[] outputs;
+        outputs = new double[getOutputCount()];
+        activation(inputs, outputs);
+        return outputs;
+    }
+
+    /**
+     * Activates the network, writing the result into the given array. Once
+     * warmed up this allocates nothing.
+     *
+     * @param inputs the input values for the network.
+     * @param outputs receives the result of the network's activation. Must
+     * have one value per output neuron.
+     * @throws UnevenArraysException if the inputs array doesn't match the
+     * number of incoming links, or the outputs array the number of output
+     * neurons.
+     */
+    public void activation(double[] inputs, double[] outputs) throws UnevenArraysException {
+        BatchWorkspace workspace;
+
+        if (inputs.length != getInputCount()) {
+            throw new UnevenArraysException("There must be exactly " + getInputCount() + " input values!");
+        }
+        if (outputs.length != getOutputCount()) {
+            throw new UnevenArraysException("There must be exactly " + getOutputCount() + " output values!");
+        }
+
+        workspace = mRowWorkspace.get();
+        System.arraycopy(inputs, 0, workspace.mInputs, 0, inputs.length);
+        forward(workspace, 1);
+        System.arraycopy(workspace.mOutputs[mLayers.length - 1], 0, outputs, 0, outputs.length);
+    }
+
+    /**
+     * Activates the network for a whole batch of input sets, each layer as a
+     * matrix-matrix product over a block of rows.
+     *
+     * @param inputs the sets of input values for the network.
+     * @return the outputs of the network for each input set.
+     * @throws UnevenArraysException if an input set doesn't match the number of
+     * incoming links.
+     */
+    public double[][] activateBatch(double[][] inputs) throws UnevenArraysException {
+        double[][] outputs;
+        outputs = new double[inputs.length][getOutputCount()];
+        activateBatch(inputs, outputs);
+        return outputs;
+    }
+
+    /**
+     * Activates the network for a whole batch of input sets, writing into the
+     * given output arrays.
+     *
+     * @param inputs the sets of input values for the network.
+     * @param outputs receives the outputs of the network for each input set.
+     * @throws UnevenArraysException if an input set doesn't match the number of
+     * incoming links, or an output array doesn't match the number of output
+     * neurons.
+     */
+    public void activateBatch(double[][] inputs, double[][] outputs) throws UnevenArraysException {
+        BatchWorkspace workspace;
+        int inputCount = getInputCount();
+        int outputCount = getOutputCount();
+        int last = mLayers.length - 1;
+
+        if (outputs.length < inputs.length) {
+            throw new UnevenArraysException("There must be an output array for every input set!");
+        }
+        for (int i = 0; i < inputs.length; i++) {
+            if (inputs[i].length != inputCount) {
+                throw new UnevenArraysException("Input set [" + i + "] was of wrong size.");
+            }
+            if (outputs[i].length != outputCount) {
+                throw new UnevenArraysException("Output array [" + i + "] was of wrong size.");
+            }
+        }
+
+        workspace = mBlockWorkspace.get();
+        for (int from = 0; from < inputs.length; from += workspace.mCapacity) {
+            int to = Math.min(from + workspace.mCapacity, inputs.length);
+            for (int i = from; i < to; i++) {
+                System.arraycopy(inputs[i], 0, workspace.mInputs, (i - from) * inputCount, inputCount);
+            }
+            forward(workspace, to - from);
+            for (int i = from; i < to; i++) {
+                System.arraycopy(workspace.mOutputs[last], (i - from) * outputCount, outputs[i], 0, outputCount);
+            }
+        }
+    }
+
+    /**
+     * Runs the rows held in a workspace forwards through every layer.
+     *
+     * @param workspace the workspace holding the rows.
+     * @param rows the number of rows.
+     */
+    private void forward(BatchWorkspace workspace, int rows) {
+        mLayers[0].activation(workspace.mInputs, workspace.mOutputs[0], rows);
+        for (int layer = 1; layer < mLayers.length; layer++) {
+            mLayers[layer].activation(workspace.mOutputs[layer - 1], workspace.mOutputs[layer], rows);
+        }
+    }
+}
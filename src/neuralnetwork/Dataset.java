@@ -0,0 +1,97 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: Dataset
+ */
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A source of training pairs, each a set of inputs and the output desired for
+ * them, that can be read through any number of times. Each pass reads the
+ * pairs in order through a {@link Cursor}, one pair at a time, so a dataset
+ * need never be held in memory as a whole.
+ *
+ * @author Curtis Alcock 18403879
+ */
+public interface Dataset {
+
+    /**
+     * Starts a new pass over the dataset, from its first pair.
+     *
+     * @return a cursor positioned before the first pair. Must be closed once
+     * finished with.
+     * @throws IOException if the dataset could not be opened.
+     */
+    Cursor open() throws IOException;
+
+    /**
+     * Wraps training sets that are already in memory.
+     *
+     * @param trainingSets An array of sets of inputs.
+     * @param desiredOutcomes An array of the desired outputs of the network,
+     * one per training set.
+     * @return a dataset over the arrays. The arrays are not copied.
+     * @throws IllegalArgumentException if there is not exactly one desired
+     * outcome per training set.
+     */
+    static Dataset of(double[][] trainingSets, double[][] desiredOutcomes) {
+        if (trainingSets.length != desiredOutcomes.length) {
+            throw new IllegalArgumentException("There must be exactly one desired outcome per training set!");
+        }
+        return () -> new Cursor() {
+            private int mIndex = -1;
+
+            @Override
+            public boolean next() {
+                return ++mIndex < trainingSets.length;
+            }
+
+            @Override
+            public double[] getInputs() {
+                return trainingSets[mIndex];
+            }
+
+            @Override
+            public double[] getDesiredOutputs() {
+                return desiredOutcomes[mIndex];
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * A single pass over a dataset.
+     */
+    interface Cursor extends Closeable {
+
+        /**
+         * Moves on to the next pair.
+         *
+         * @return false once every pair has been read.
+         * @throws IOException if the next pair could not be read.
+         */
+        boolean next() throws IOException;
+
+        /**
+         * Gets the inputs of the current pair. Only valid until the next call
+         * to {@link #next()}.
+         *
+         * @return the set of inputs.
+         */
+        double[] getInputs();
+
+        /**
+         * Gets the desired outputs of the current pair. Only valid until the
+         * next call to {@link #next()}.
+         *
+         * @return the output desired of the network for the inputs.
+         */
+        double[] getDesiredOutputs();
+    }
+}
@@ -0,0 +1,922 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: DenseLayer
+ */
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import neuralnetworkexceptions.UnevenArraysException;
+
+/**
+ * A fully connected layer of neurons stored layer-major. Rather than keeping
+ * one {@link Neuron} object per node, all of the weights of the layer live in
+ * a single row-major array, where row 'n' holds the incoming links of neuron
+ * 'n'. Thresholds, momentum deltas, outputs and errors are likewise kept in
+ * one array each, so a pass over the layer walks contiguous memory.
+ *
+ * @author Curtis Alcock 18403879
+ */
+public class DenseLayer {
+
+    /*
+     * The number of incoming links for every neuron in the layer.
+     */
+    private final int mInputCount;
+
+    /*
+     * The number of neurons in the layer.
+     */
+    private final int mNeuronCount;
+
+    /*
+     * Row-major weight matrix, the weight of link 'i' of neuron 'n' is stored
+     * at [n * mInputCount + i].
+     */
+    private final double[] mWeights;
+
+    /*
+     * The bias weight of each neuron.
+     */
+    private final double[] mThresholds;
+
+    /*
+     * The previous delta for each link, laid out the same as mWeights.
+     */
+    private final double[] mPreviousWeightsDelta;
+
+    /*
+     * The previous delta for each threshold.
+     */
+    private final double[] mPreviousThresholdsDelta;
+
+    /*
+     * The inputs that were passed to the layer in the most recent activation.
+     */
+    private final double[] mInputs;
+
+    /*
+     * The output of each neuron for this iteration.
+     */
+    private final double[] mOutputs;
+
+    /*
+     * The tape of the most recent activation: the slope of the activation
+     * function at each neuron's weighted sum, recorded on the way forwards so
+     * back-propagation never has to weight the inputs or call exp() again.
+     */
+    private final double[] mDerivatives;
+
+    /*
+     * The error of each neuron for this iteration. Only set for the output
+     * layer.
+     */
+    private final double[] mErrors;
+
+    /*
+     * The error gradient of each neuron for this iteration.
+     */
+    private final double[] mGradients;
+
+    /*
+     * The activation function of every neuron in the layer.
+     */
+    private ActivationFunction mFunction;
+
+    /*
+     * If true the layer uses the approximation of its activation function
+     * rather than computing it exactly.
+     */
+    private boolean mApproximate;
+
+    /*
+     * The function actually run, mFunction or its approximation.
+     */
+    private ActivationFunction mTransfer;
+
+    /*
+     * The indices into mWeights of the links that have been pruned, held at 0
+     * through any further training. Empty until the layer is pruned.
+     */
+    private int[] mPrunedLinks;
+
+    /*
+     * The optimizer the weights and thresholds are corrected by, or null for
+     * the classic momentum rule, which is run in the kernels.
+     */
+    private Optimizer mOptimizer;
+
+    /**
+     * Initializes the layer with weights and thresholds pseudo-randomly
+     * generated between -1 and +1. The generator is consumed in the same order
+     * as creating each {@link Neuron} in turn, i.e. the weights of a neuron
+     * followed by its threshold.
+     *
+     * @param noInputs the number of input links each neuron has.
+     * @param noNeurons the number of neurons in the layer.
+     * @param myRand random number generator to generate the weights.
+     */
+    public DenseLayer(int noInputs, int noNeurons, Random myRand) {
+        this(noInputs, noNeurons);
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            int row = neuron * mInputCount;
+            for (int link = 0; link < mInputCount; link++) {
+                mWeights[row + link] = myRand.nextDouble() * 2 - 1;
+            }
+            mThresholds[neuron] = myRand.nextDouble() * 2 - 1;
+        }
+    }
+
+    /**
+     * Initializes the layer with predefined weights and thresholds.
+     *
+     * @param weights the weights of each neuron, i.e. {{W13,W23},{W14,W24}}.
+     * Every neuron must have the same number of links.
+     * @param thresholds the threshold of each neuron, in the same order.
+     * @throws IllegalArgumentException if the neurons have differing numbers of
+     * links, or there is not exactly one threshold per neuron.
+     */
+    public DenseLayer(double[][] weights, double[] thresholds) {
+        this(weights.length == 0 ? 0 : weights[0].length, weights.length);
+        if (thresholds.length != mNeuronCount) {
+            throw new IllegalArgumentException("There must be exactly one threshold per neuron!");
+        }
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            if (weights[neuron].length != mInputCount) {
+                throw new IllegalArgumentException("Every neuron in a layer must have the same number of links!");
+            }
+            System.arraycopy(weights[neuron], 0, mWeights, neuron * mInputCount, mInputCount);
+        }
+        System.arraycopy(thresholds, 0, mThresholds, 0, mNeuronCount);
+    }
+
+    /**
+     * Initializes the layer with weights and thresholds read in bulk from
+     * buffers, e.g. a memory-mapped model file. Each buffer is read from its
+     * current position, which is advanced past the values read.
+     *
+     * @param noInputs the number of input links each neuron has.
+     * @param noNeurons the number of neurons in the layer.
+     * @param weights the row-major weights of the layer, row 'n' holding the
+     * incoming links of neuron 'n'.
+     * @param thresholds the threshold of each neuron, in the same order.
+     * @throws java.nio.BufferUnderflowException if either buffer holds too
+     * few values.
+     */
+    public DenseLayer(int noInputs, int noNeurons, DoubleBuffer weights, DoubleBuffer thresholds) {
+        this(noInputs, noNeurons);
+        weights.get(mWeights);
+        thresholds.get(mThresholds);
+    }
+
+    /**
+     * Initializes the layer with a copy of another layer's weights and
+     * thresholds. The momentum deltas and activation state start at 0.
+     *
+     * @param other the layer to be copied.
+     */
+    public DenseLayer(DenseLayer other) {
+        this(other.mInputCount, other.mNeuronCount);
+        System.arraycopy(other.mWeights, 0, mWeights, 0, mWeights.length);
+        System.arraycopy(other.mThresholds, 0, mThresholds, 0, mNeuronCount);
+        mFunction = other.mFunction;
+        mApproximate = other.mApproximate;
+        mTransfer = other.mTransfer;
+    }
+
+    /**
+     * Allocates the storage for a layer of the given shape. All values start
+     * at 0.
+     *
+     * @param noInputs the number of input links each neuron has.
+     * @param noNeurons the number of neurons in the layer.
+     */
+    private DenseLayer(int noInputs, int noNeurons) {
+        mInputCount = noInputs;
+        mNeuronCount = noNeurons;
+        mWeights = new double[noInputs * noNeurons];
+        mThresholds = new double[noNeurons];
+        mPreviousWeightsDelta = new double[noInputs * noNeurons];
+        mPreviousThresholdsDelta = new double[noNeurons];
+        mInputs = new double[noInputs];
+        mOutputs = new double[noNeurons];
+        mDerivatives = new double[noNeurons];
+        mErrors = new double[noNeurons];
+        mGradients = new double[noNeurons];
+        mPrunedLinks = new int[0];
+        mFunction = ActivationFunction.HYPERBOLIC_TANGENT;
+        mTransfer = mFunction;
+    }
+
+    /**
+     * Gets the number of input links each neuron in the layer has.
+     *
+     * @return the fan-in of the layer.
+     */
+    public int getInputCount() {
+        return mInputCount;
+    }
+
+    /**
+     * Gets the number of neurons in the layer.
+     *
+     * @return the number of neurons.
+     */
+    public int getNeuronCount() {
+        return mNeuronCount;
+    }
+
+    /**
+     * Gets the activation function of the neurons in the layer.
+     *
+     * @return the activation function.
+     */
+    public ActivationFunction getActivationFunction() {
+        return mFunction;
+    }
+
+    /**
+     * Sets the activation function of the neurons in the layer.
+     *
+     * @param function the activation function to be used from now on.
+     */
+    void setActivationFunction(ActivationFunction function) {
+        mFunction = function;
+        mTransfer = mApproximate ? function.approximate() : function;
+    }
+
+    /**
+     * Sets whether the layer uses the approximate activation functions of
+     * {@link FastActivation}.
+     *
+     * @param approximate true to use the approximate functions, false for the
+     * exact ones.
+     */
+    void setApproximate(boolean approximate) {
+        mApproximate = approximate;
+        mTransfer = approximate ? mFunction.approximate() : mFunction;
+    }
+
+    /**
+     * Gets the optimizer the layer is corrected by.
+     *
+     * @return the optimizer, or null for the classic momentum rule.
+     */
+    public Optimizer getOptimizer() {
+        return mOptimizer;
+    }
+
+    /**
+     * Sets the optimizer the layer is corrected by from now on.
+     *
+     * @param optimizer an optimizer for the layer's weights followed by its
+     * thresholds, or null for the classic momentum rule.
+     */
+    void setOptimizer(Optimizer optimizer) {
+        mOptimizer = optimizer;
+    }
+
+    /**
+     * Checks whether the layer uses the approximate activation functions.
+     *
+     * @return true if the approximate functions are used.
+     */
+    boolean isApproximate() {
+        return mApproximate;
+    }
+
+    /**
+     * Prunes every link whose weight is smaller in magnitude than the
+     * threshold. Links already at 0 count as pruned too. Pruned links are set
+     * to 0 and held there through any further training.
+     *
+     * @param threshold the smallest magnitude of weight that is kept.
+     * @return the number of links now pruned in the layer.
+     */
+    int prune(double threshold) {
+        int count = 0;
+        int[] pruned = new int[mWeights.length];
+        for (int index = 0; index < mWeights.length; index++) {
+            if (mWeights[index] == 0 || Math.abs(mWeights[index]) < threshold) {
+                pruned[count++] = index;
+            }
+        }
+        mPrunedLinks = Arrays.copyOf(pruned, count);
+        holdPrunedLinks();
+        return count;
+    }
+
+    /**
+     * Prunes all but the largest links of every neuron, by magnitude. Links
+     * already at 0 are never kept. Pruned links are set to 0 and held there
+     * through any further training.
+     *
+     * @param keep the number of links each neuron keeps.
+     * @return the number of links now pruned in the layer.
+     */
+    int pruneTopK(int keep) {
+        int count = 0;
+        int[] pruned = new int[mWeights.length];
+        Integer[] order = new Integer[mInputCount];
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            final int row = neuron * mInputCount;
+            for (int link = 0; link < mInputCount; link++) {
+                order[link] = link;
+            }
+            // largest magnitude first
+            Arrays.sort(order, (a, b) -> Double.compare(Math.abs(mWeights[row + b]), Math.abs(mWeights[row + a])));
+            for (int rank = 0; rank < mInputCount; rank++) {
+                if (rank >= keep || mWeights[row + order[rank]] == 0) {
+                    pruned[count++] = row + order[rank];
+                }
+            }
+        }
+        mPrunedLinks = Arrays.copyOf(pruned, count);
+        Arrays.sort(mPrunedLinks);
+        holdPrunedLinks();
+        return count;
+    }
+
+    /**
+     * Checks whether a link has been pruned, i.e. is held at 0 through any
+     * further training. A link whose weight merely happens to be 0 is not
+     * pruned.
+     *
+     * @param neuron the neuron the link leads into.
+     * @param linkId the link being checked.
+     * @return true if the link is pruned.
+     */
+    public boolean isPruned(int neuron, int linkId) {
+        return Arrays.binarySearch(mPrunedLinks, neuron * mInputCount + linkId) >= 0;
+    }
+
+    /**
+     * Gets the links that have been pruned, as indices into the row-major
+     * weights, i.e. neuron * input count + link.
+     *
+     * @return a copy of the pruned links, in ascending order. Empty if the
+     * layer has not been pruned.
+     */
+    public int[] getPrunedLinks() {
+        return mPrunedLinks.clone();
+    }
+
+    /**
+     * Prunes exactly the given links, e.g. to restore the links of a layer
+     * that was pruned before it was saved. Any other links are no longer
+     * held. The pruned links are set to 0 and held there through any further
+     * training.
+     *
+     * @param links the links to be pruned, as indices into the row-major
+     * weights, see {@link #getPrunedLinks()}.
+     * @throws IllegalArgumentException if a link is not in the layer.
+     */
+    public void setPrunedLinks(int[] links) {
+        int[] pruned = links.clone();
+        Arrays.sort(pruned);
+        if (pruned.length > 0 && (pruned[0] < 0 || pruned[pruned.length - 1] >= mWeights.length)) {
+            throw new IllegalArgumentException("Every pruned link must be in the layer!");
+        }
+        mPrunedLinks = pruned;
+        holdPrunedLinks();
+    }
+
+    /**
+     * Puts the pruned links back to 0, along with their momentum.
+     */
+    private void holdPrunedLinks() {
+        for (int index : mPrunedLinks) {
+            mWeights[index] = 0;
+            mPreviousWeightsDelta[index] = 0;
+        }
+    }
+
+    /**
+     * Counts the links whose weight is not 0.
+     *
+     * @return the number of non-zero weights in the layer.
+     */
+    public int getNonZeroCount() {
+        int count = 0;
+        for (double weight : mWeights) {
+            if (weight != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the value of the weight for a specified link.
+     *
+     * @param neuron the neuron the link leads into.
+     * @param linkId the link whose value we are getting.
+     * @return the weight of the link.
+     */
+    public double getWeight(int neuron, int linkId) {
+        return mWeights[neuron * mInputCount + linkId];
+    }
+
+    /**
+     * Gets a copy of the weights of every neuron in the layer.
+     *
+     * @return the weights of the layer, one array per neuron.
+     */
+    public double[][] getWeights() {
+        double[][] weights;
+        weights = new double[mNeuronCount][];
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            weights[neuron] = Arrays.copyOfRange(mWeights, neuron * mInputCount, (neuron + 1) * mInputCount);
+        }
+        return weights;
+    }
+
+    /**
+     * Gets the Threshold of a neuron. Also known as the bias.
+     *
+     * @param neuron the neuron whose threshold we are getting.
+     * @return the Threshold of the neuron.
+     */
+    public double getThreshold(int neuron) {
+        return mThresholds[neuron];
+    }
+
+    /**
+     * Gets a copy of the thresholds of every neuron in the layer.
+     *
+     * @return the thresholds of the layer.
+     */
+    public double[] getThresholds() {
+        return mThresholds.clone();
+    }
+
+    /**
+     * Gets a copy of the momentum deltas of the weights: the change the last
+     * correction made to each weight, laid out row-major, row 'n' holding the
+     * incoming links of neuron 'n'.
+     *
+     * @return the previous delta of each weight.
+     */
+    public double[] getWeightDeltas() {
+        return mPreviousWeightsDelta.clone();
+    }
+
+    /**
+     * Gets a copy of the momentum deltas of the thresholds.
+     *
+     * @return the previous delta of each threshold.
+     */
+    public double[] getThresholdDeltas() {
+        return mPreviousThresholdsDelta.clone();
+    }
+
+    /**
+     * Sets the momentum deltas, e.g. to resume training where it was left.
+     * Each buffer is read from its current position, which is advanced past
+     * the values read.
+     *
+     * @param weightDeltas the row-major previous delta of each weight.
+     * @param thresholdDeltas the previous delta of each threshold.
+     * @throws java.nio.BufferUnderflowException if either buffer holds too
+     * few values.
+     */
+    public void setDeltas(DoubleBuffer weightDeltas, DoubleBuffer thresholdDeltas) {
+        weightDeltas.get(mPreviousWeightsDelta);
+        thresholdDeltas.get(mPreviousThresholdsDelta);
+    }
+
+    /**
+     * Copies the momentum deltas, the pruned links and the optimizer of
+     * another layer of the same shape, so that this layer trains on exactly
+     * as the other would.
+     *
+     * @param other the layer to be copied.
+     */
+    void copyTrainingState(DenseLayer other) {
+        System.arraycopy(other.mPreviousWeightsDelta, 0, mPreviousWeightsDelta, 0, mPreviousWeightsDelta.length);
+        System.arraycopy(other.mPreviousThresholdsDelta, 0, mPreviousThresholdsDelta, 0, mNeuronCount);
+        mPrunedLinks = other.mPrunedLinks.clone();
+        mOptimizer = other.mOptimizer == null ? null : other.mOptimizer.copy();
+    }
+
+    /**
+     * Gets the most recent output of each neuron in the layer.
+     *
+     * @return a copy of the last outputs.
+     */
+    public double[] getOutputs() {
+        return mOutputs.clone();
+    }
+
+    /**
+     * Gets the current Error of a neuron.
+     *
+     * @param neuron the neuron whose error we are getting.
+     * @return the current error.
+     */
+    public double getError(int neuron) {
+        return mErrors[neuron];
+    }
+
+    /**
+     * Weights the inputs of a single neuron and sums them together.
+     *
+     * @param neuron the neuron whose inputs are to be weighted.
+     * @return the sum of the weighted inputs.
+     */
+    private double weightedSum(int neuron) {
+        return Kernels.dot(mInputs, 0, mWeights, neuron * mInputCount, mInputCount);
+    }
+
+    /**
+     * Activates every neuron in the layer.
+     *
+     * @param inputs the input values in the same order as the neurons in the
+     * previous layer. Must have the same number of values as each neuron has
+     * links!
+     * @return the outputs of the layer. This is the layer's own buffer, which
+     * is overwritten by the next activation.
+     * @throws UnevenArraysException if there are a different number of inputs
+     * to links.
+     */
+    double[] activation(double[] inputs) throws UnevenArraysException {
+        // A little validation
+        if (inputs.length != mInputCount) {
+            throw new UnevenArraysException();
+        }
+
+        System.arraycopy(inputs, 0, mInputs, 0, mInputCount);
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            mOutputs[neuron] = mTransfer.transfer(weightedSum(neuron) - mThresholds[neuron], mDerivatives, neuron);
+        }
+        return mOutputs;
+    }
+
+    /**
+     * Gets the slope of the activation function recorded for a neuron by the
+     * most recent activation.
+     *
+     * @param neuron the neuron whose derivative we are getting.
+     * @return the recorded derivative.
+     */
+    double getDerivative(int neuron) {
+        return mDerivatives[neuron];
+    }
+
+    /**
+     * Activates the layer for a whole batch of input rows at once, as a
+     * single matrix-matrix product run by {@link Kernels#multiply}.
+     *
+     * @param inputs the batch of inputs, row-major, rows x input count.
+     * @param outputs receives the batch of outputs, row-major, rows x neuron
+     * count.
+     * @param rows the number of rows in the batch.
+     */
+    void activation(double[] inputs, double[] outputs, int rows) {
+        Kernels.multiply(inputs, rows, mWeights, mNeuronCount, mInputCount, outputs);
+        for (int row = 0; row < rows; row++) {
+            int out = row * mNeuronCount;
+            for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+                outputs[out + neuron] = mTransfer.transfer(outputs[out + neuron] - mThresholds[neuron]);
+            }
+        }
+    }
+
+    /**
+     * Calculates the error gradients of a batch, when this is the output
+     * layer.
+     *
+     * @param outputs the batch of outputs from {@link #activation(double[], double[], int)}.
+     * @param desiredOutputs the batch of desired outputs, laid out the same.
+     * @param deltas receives the error gradients, laid out the same.
+     * @param rows the number of rows in the batch.
+     * @return the sum of the squared errors over the batch.
+     */
+    double outputDeltas(double[] outputs, double[] desiredOutputs, double[] deltas, int rows) {
+        double sum;
+        double error;
+        sum = 0.0;
+        for (int i = 0; i < rows * mNeuronCount; i++) {
+            error = desiredOutputs[i] - outputs[i];
+            deltas[i] = mTransfer.slope(outputs[i]) * error;
+            sum += error * error;
+        }
+        return sum;
+    }
+
+    /**
+     * Calculates the error gradients of a batch, when this is a hidden layer.
+     * The gradients of the next layer are carried back through its weights as
+     * a matrix product, rows x next neurons by next neurons x neurons.
+     *
+     * @param next the layer that this layer feeds into.
+     * @param nextDeltas the batch of gradients of the next layer.
+     * @param outputs the batch of outputs of this layer.
+     * @param deltas receives the error gradients of this layer.
+     * @param rows the number of rows in the batch.
+     */
+    void hiddenDeltas(DenseLayer next, double[] nextDeltas, double[] outputs, double[] deltas, int rows) {
+        Arrays.fill(deltas, 0, rows * mNeuronCount, 0.0);
+        for (int row = 0; row < rows; row++) {
+            int base = row * mNeuronCount;
+            for (int k = 0; k < next.mNeuronCount; k++) {
+                Kernels.axpy(nextDeltas[row * next.mNeuronCount + k], next.mWeights, k * next.mInputCount, deltas, base, mNeuronCount);
+            }
+            for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+                deltas[base + neuron] *= mTransfer.slope(outputs[base + neuron]);
+            }
+        }
+    }
+
+    /**
+     * Adds the weight and threshold gradients of a batch onto the given
+     * accumulators, i.e. deltas transposed by inputs.
+     *
+     * @param inputs the batch of inputs to this layer.
+     * @param deltas the batch of error gradients of this layer.
+     * @param rows the number of rows in the batch.
+     * @param weightGradients the accumulator for the weights, laid out the
+     * same as the weight matrix.
+     * @param thresholdGradients the accumulator for the thresholds.
+     */
+    void accumulateGradients(double[] inputs, double[] deltas, int rows, double[] weightGradients, double[] thresholdGradients) {
+        Kernels.outerProducts(deltas, inputs, rows, mNeuronCount, mInputCount, weightGradients);
+        for (int row = 0; row < rows; row++) {
+            int d = row * mNeuronCount;
+            for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+                thresholdGradients[neuron] += deltas[d + neuron];
+            }
+        }
+    }
+
+    /**
+     * Updates the weights and thresholds from accumulated gradients, in the
+     * same way as {@link #weightCorrection(double, double)} does for a single
+     * activation.
+     *
+     * @param weightGradients the accumulated weight gradients.
+     * @param thresholdGradients the accumulated threshold gradients.
+     * @param learningRate the learning rate parameter.
+     * @param momentum the current momentum of the learning algorithm.
+     * @param scale applied to every gradient, i.e. 1 / batch size to use the
+     * mean gradient of the batch.
+     */
+    void gradientCorrection(double[] weightGradients, double[] thresholdGradients, double learningRate, double momentum, double scale) {
+        double delta;
+        double rate;
+        rate = learningRate * scale;
+
+        if (mOptimizer != null) {
+            mOptimizer.nextStep();
+            Kernels.optimizerCorrection(mOptimizer, mWeights, mPreviousWeightsDelta, 0, weightGradients, 0, mWeights.length,
+                    learningRate, momentum, scale);
+            holdPrunedLinks();
+            for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+                delta = mOptimizer.delta(mWeights.length + neuron, -thresholdGradients[neuron] * scale, learningRate, momentum);
+                mThresholds[neuron] += delta;
+                mPreviousThresholdsDelta[neuron] = delta;
+            }
+            return;
+        }
+
+        // the gradients stand in for the inputs, each with a gradient of 1
+        Kernels.correction(mWeights, mPreviousWeightsDelta, 0, weightGradients, 0, mWeights.length, momentum, rate, 1);
+        holdPrunedLinks();
+
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            delta = momentum * mPreviousThresholdsDelta[neuron] + rate * -1 * thresholdGradients[neuron];
+            mThresholds[neuron] += delta;
+            mPreviousThresholdsDelta[neuron] = delta;
+        }
+    }
+
+    /**
+     * Calculates the error and error gradient of every neuron, when this is
+     * the output layer. Compares the desired output to that which was produced
+     * by the layer. The slopes come from the tape of the last activation.
+     *
+     * @param desiredOutput the desired output of the network.
+     * @return the error gradients of the layer. This is the layer's own
+     * buffer.
+     */
+    double[] outputGradients(double[] desiredOutput) {
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            mErrors[neuron] = desiredOutput[neuron] - mOutputs[neuron];
+            mGradients[neuron] = mDerivatives[neuron] * mErrors[neuron];
+        }
+        return mGradients;
+    }
+
+    /**
+     * Calculates the error gradient of every neuron, when this is a hidden
+     * layer. The slopes come from the tape of the last activation.
+     *
+     * @param next the layer that this layer feeds into.
+     * @param gradients the gradients for all neurons in the next layer.
+     * @return the error gradients of the layer. This is the layer's own
+     * buffer.
+     */
+    double[] hiddenGradients(DenseLayer next, double[] gradients) {
+        // summing the weighted gradients
+        // each gradient is carried back along the outgoing links of every
+        // neuron at once, by adding the whole weight row of the next neuron
+        Arrays.fill(mGradients, 0.0);
+        for (int i = 0; i < next.mNeuronCount; i++) {
+            Kernels.axpy(gradients[i], next.mWeights, i * next.mInputCount, mGradients, 0, mNeuronCount);
+        }
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            mGradients[neuron] = mDerivatives[neuron] * mGradients[neuron];
+        }
+        return mGradients;
+    }
+
+    /**
+     * Updates the weights and thresholds of every neuron in the layer using
+     * the gradients last calculated, by the layer's optimizer if it has one.
+     *
+     * @param learningRate the learning rate parameter.
+     * @param momentum the current momentum of the learning algorithm.
+     */
+    void weightCorrection(double learningRate, double momentum) {
+        weightCorrection(learningRate, momentum, true);
+    }
+
+    /**
+     * Updates the weights and thresholds of every neuron in the layer using
+     * the gradients last calculated, by the layer's optimizer if it has one.
+     *
+     * @param learningRate the learning rate parameter.
+     * @param momentum the current momentum of the learning algorithm.
+     * @param nextStep false if this correction repeats the last one with a new
+     * learning rate, so the optimizer does not count it as a step of its own.
+     */
+    void weightCorrection(double learningRate, double momentum, boolean nextStep) {
+        double delta;
+
+        if (mOptimizer != null) {
+            optimizerCorrection(mInputs, mGradients, learningRate, momentum, nextStep);
+            return;
+        }
+
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            // calculate the weight correction delta for each link
+            Kernels.correction(mWeights, mPreviousWeightsDelta, neuron * mInputCount, mInputs, 0, mInputCount,
+                    momentum, learningRate, mGradients[neuron]);
+
+            // do the same for the threshold
+            delta = momentum * mPreviousThresholdsDelta[neuron] + learningRate * -1 * mGradients[neuron];
+            mThresholds[neuron] += delta;
+            mPreviousThresholdsDelta[neuron] = delta;
+        }
+        holdPrunedLinks();
+    }
+
+    /**
+     * Corrects the weights and thresholds straight from the error gradients
+     * of a single activation, without taking any locks. The weights are read
+     * and written with plain accesses, so when several threads correct the
+     * same layer at once an update may occasionally be lost; this is the
+     * trade made by Hogwild style training. When there is no momentum, links
+     * whose input was 0 have nothing to add and are not written at all, which
+     * keeps threads training on sparse inputs off each other's weights. Only
+     * the classic momentum rule is applied, as an optimizer's state cannot be
+     * shared between threads this way, see
+     * {@link Network#trainAsynchronous}.
+     *
+     * @param inputs the inputs of the activation.
+     * @param deltas the error gradients of the activation.
+     * @param learningRate the learning rate parameter.
+     * @param momentum the current momentum of the learning algorithm.
+     */
+    void sampleCorrection(double[] inputs, double[] deltas, double learningRate, double momentum) {
+        double delta;
+        int index;
+
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            double gradient = deltas[neuron];
+            index = neuron * mInputCount;
+            if (momentum != 0) {
+                Kernels.correction(mWeights, mPreviousWeightsDelta, index, inputs, 0, mInputCount,
+                        momentum, learningRate, gradient);
+            } else {
+                Kernels.sparseCorrection(mWeights, mPreviousWeightsDelta, index, inputs, 0, mInputCount,
+                        learningRate, gradient);
+            }
+
+            delta = momentum * mPreviousThresholdsDelta[neuron] + learningRate * -1 * gradient;
+            mThresholds[neuron] += delta;
+            mPreviousThresholdsDelta[neuron] = delta;
+        }
+        holdPrunedLinks();
+    }
+
+    /**
+     * Corrects the weights and thresholds with the layer's optimizer, from the
+     * inputs and error gradients of a single activation.
+     *
+     * @param inputs the inputs of the activation.
+     * @param gradients the error gradients of the activation.
+     * @param learningRate the learning rate parameter.
+     * @param momentum the current momentum of the learning algorithm.
+     * @param nextStep true to start a new step of the optimizer first.
+     */
+    private void optimizerCorrection(double[] inputs, double[] gradients, double learningRate, double momentum, boolean nextStep) {
+        double delta;
+
+        if (nextStep) {
+            mOptimizer.nextStep();
+        }
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            double gradient = gradients[neuron];
+            Kernels.optimizerCorrection(mOptimizer, mWeights, mPreviousWeightsDelta, neuron * mInputCount,
+                    inputs, 0, mInputCount, learningRate, momentum, gradient);
+
+            delta = mOptimizer.delta(mWeights.length + neuron, -gradient, learningRate, momentum);
+            mThresholds[neuron] += delta;
+            mPreviousThresholdsDelta[neuron] = delta;
+        }
+        holdPrunedLinks();
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 5;
+        hash = 97 * hash + mInputCount;
+        hash = 97 * hash + Arrays.hashCode(this.mWeights);
+        hash = 97 * hash + Arrays.hashCode(this.mThresholds);
+        hash = 97 * hash + Arrays.hashCode(this.mInputs);
+        hash = 97 * hash + Arrays.hashCode(this.mOutputs);
+        hash = 97 * hash + Arrays.hashCode(this.mErrors);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj2) {
+        if (this == obj2) {
+            return true;
+        }
+        if (obj2 == null) {
+            return false;
+        }
+        if (getClass() != obj2.getClass()) {
+            return false;
+        }
+        final DenseLayer other = (DenseLayer) obj2;
+        return this.mInputCount == other.mInputCount
+                && this.mFunction == other.mFunction
+                && Arrays.equals(this.mWeights, other.mWeights)
+                && Arrays.equals(this.mThresholds, other.mThresholds)
+                && Arrays.equals(this.mInputs, other.mInputs)
+                && Arrays.equals(this.mOutputs, other.mOutputs)
+                && Arrays.equals(this.mErrors, other.mErrors);
+    }
+
+    /**
+     * Outputs the state of a single neuron in the layer as a string, in the
+     * same format as {@link Neuron#toString()}.
+     *
+     * @param neuron the neuron to be reported.
+     * @return the state of the neuron.
+     */
+    public String toString(int neuron) {
+        String weights;
+        String inputs;
+        int row;
+        weights = "";
+        inputs = "";
+        row = neuron * mInputCount;
+
+        int i = 0;
+        while (i < mInputCount - 1) {
+            weights += String.format("[%d]: %.4f, ", i, mWeights[row + i]);
+            i++;
+        }
+        weights += String.format("[%d]: %.4f", i, mWeights[row + i]);
+
+        i = 0;
+        while (i < mInputCount - 1) {
+            inputs += String.format("[%d]: %.4f, ", i, mInputs[i]);
+            i++;
+        }
+        inputs += String.format("[%d]: %.4f", i, mInputs[i]);
+
+        return String.format("{Weights= {%s}, Inputs= {%s}, Threshold= %.4f, Output= %.4f, Error= %.4f}", weights, inputs, mThresholds[neuron], mOutputs[neuron], mErrors[neuron]);
+    }
+
+    /**
+     * Outputs the state of every neuron in the layer as a string.
+     *
+     * @return the state of the layer.
+     */
+    @Override
+    public String toString() {
+        String out;
+        out = "";
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            out += String.format("N[%d] : %s\n", neuron, toString(neuron));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,99 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: FastActivation
+ */
+/**
+ * Approximate activation functions that avoid calling {@link Math#exp} for
+ * every neuron on every pass. The sigmoid is tabulated once, between
+ * -{@value #RANGE} and +{@value #RANGE} at {@value #STEPS_PER_UNIT} steps per
+ * unit, and read back with linear interpolation; beyond the table it is held
+ * at 0 or 1. The scaled hyperbolic tangent is the same table, as
+ * a * (2 * sigmoid(b * x) - 1).
+ *
+ * <p>
+ * The derivatives are not tabulated, they are worked out from the
+ * approximated output just as for the exact functions. Layers use these
+ * through {@link ActivationFunction#approximate()}.
+ * </p>
+ *
+ * <p>
+ * Maximum absolute errors against the exact functions:
+ * </p>
+ * <ul>
+ * <li>sigmoid: {@value #SIGMOID_MAX_ERROR}, its derivative is no worse.</li>
+ * <li>scaled hyperbolic tangent: {@value #HYPERBOLIC_MAX_ERROR}, its
+ * derivative is no worse.</li>
+ * </ul>
+ *
+ * @author Curtis Alcock 18403879
+ */
+public final class FastActivation {
+
+    /**
+     * The table covers inputs from -RANGE to +RANGE.
+     */
+    public static final double RANGE = 16;
+
+    /**
+     * The number of table entries per unit of input.
+     */
+    public static final int STEPS_PER_UNIT = 64;
+
+    /**
+     * The largest absolute error of {@link #sigmoid(double)}.
+     */
+    public static final double SIGMOID_MAX_ERROR = 3e-6;
+
+    /**
+     * The largest absolute error of {@link #hyperbolicTangent(double)}.
+     */
+    public static final double HYPERBOLIC_MAX_ERROR = 1.1e-5;
+
+    /*
+     * The sigmoid at every step from -RANGE to +RANGE inclusive.
+     */
+    private static final double[] SIGMOID = new double[(int) (2 * RANGE * STEPS_PER_UNIT) + 1];
+
+    static {
+        for (int i = 0; i < SIGMOID.length; i++) {
+            SIGMOID[i] = 1 / (1 + Math.exp(RANGE - (double) i / STEPS_PER_UNIT));
+        }
+    }
+
+    private FastActivation() {
+    }
+
+    /**
+     * Approximates the sigmoid 1 / (1 + e^-x).
+     *
+     * @param input the input to the function.
+     * @return the approximate sigmoid of the input.
+     */
+    public static double sigmoid(double input) {
+        double position;
+        int index;
+        if (input >= RANGE) {
+            return 1;
+        }
+        if (input <= -RANGE) {
+            return 0;
+        }
+        position = (input + RANGE) * STEPS_PER_UNIT;
+        index = (int) position;
+        return SIGMOID[index] + (position - index) * (SIGMOID[index + 1] - SIGMOID[index]);
+    }
+
+    /**
+     * Approximates the scaled hyperbolic tangent
+     * 2a / (1 + e^(-b * x)) - a, with a and b from {@link Neuron}.
+     *
+     * @param input the input to the function.
+     * @return the approximate hyperbolic tangent of the input.
+     */
+    public static double hyperbolicTangent(double input) {
+        return Neuron.HYPERBOLIC_TANGENT_A * (2 * sigmoid(Neuron.HYPERBOLIC_TANGENT_B * input) - 1);
+    }
+}
@@ -0,0 +1,225 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: FloatDenseLayer
+ */
+/**
+ * The single-precision twin of {@link DenseLayer}. Weights, thresholds,
+ * momentum deltas and activations are all held as floats, halving the memory
+ * a layer takes and the bandwidth a pass over it needs.
+ *
+ * @author Curtis Alcock 18403879
+ */
+class FloatDenseLayer {
+
+    /*
+     * The number of incoming links for every neuron in the layer.
+     */
+    private final int mInputCount;
+
+    /*
+     * The number of neurons in the layer.
+     */
+    private final int mNeuronCount;
+
+    /*
+     * Row-major weight matrix, the weight of link 'i' of neuron 'n' is stored
+     * at [n * mInputCount + i].
+     */
+    private final float[] mWeights;
+
+    /*
+     * The bias weight of each neuron.
+     */
+    private final float[] mThresholds;
+
+    /*
+     * The previous delta for each link, laid out the same as mWeights.
+     */
+    private final float[] mPreviousWeightsDelta;
+
+    /*
+     * The previous delta for each threshold.
+     */
+    private final float[] mPreviousThresholdsDelta;
+
+    /*
+     * The inputs that were passed to the layer in the most recent activation.
+     */
+    private final float[] mInputs;
+
+    /*
+     * The output of each neuron for this iteration.
+     */
+    private final float[] mOutputs;
+
+    /*
+     * The error gradient of each neuron for this iteration.
+     */
+    private final float[] mGradients;
+
+    /*
+     * The activation function of every neuron in the layer.
+     */
+    private ActivationFunction mFunction;
+
+    /**
+     * Initializes the layer with the weights and thresholds of a double
+     * precision layer, rounded to the nearest float.
+     *
+     * @param weights the weights of each neuron.
+     * @param thresholds the threshold of each neuron.
+     * @param function the activation function of every neuron.
+     */
+    FloatDenseLayer(double[][] weights, double[] thresholds, ActivationFunction function) {
+        mFunction = function;
+        mNeuronCount = weights.length;
+        mInputCount = weights.length == 0 ? 0 : weights[0].length;
+        mWeights = new float[mNeuronCount * mInputCount];
+        mThresholds = new float[mNeuronCount];
+        mPreviousWeightsDelta = new float[mNeuronCount * mInputCount];
+        mPreviousThresholdsDelta = new float[mNeuronCount];
+        mInputs = new float[mInputCount];
+        mOutputs = new float[mNeuronCount];
+        mGradients = new float[mNeuronCount];
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            if (weights[neuron].length != mInputCount) {
+                throw new IllegalArgumentException("Every neuron in a layer must have the same number of links!");
+            }
+            for (int link = 0; link < mInputCount; link++) {
+                mWeights[neuron * mInputCount + link] = (float) weights[neuron][link];
+            }
+            mThresholds[neuron] = (float) thresholds[neuron];
+        }
+    }
+
+    int getInputCount() {
+        return mInputCount;
+    }
+
+    int getNeuronCount() {
+        return mNeuronCount;
+    }
+
+    /**
+     * Gets the weights of every neuron, widened back to doubles.
+     *
+     * @return the weights of the layer, one array per neuron.
+     */
+    double[][] getWeights() {
+        double[][] weights;
+        weights = new double[mNeuronCount][mInputCount];
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            for (int link = 0; link < mInputCount; link++) {
+                weights[neuron][link] = mWeights[neuron * mInputCount + link];
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * Gets the thresholds of every neuron, widened back to doubles.
+     *
+     * @return the thresholds of the layer.
+     */
+    double[] getThresholds() {
+        double[] thresholds;
+        thresholds = new double[mNeuronCount];
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            thresholds[neuron] = mThresholds[neuron];
+        }
+        return thresholds;
+    }
+
+    ActivationFunction getActivationFunction() {
+        return mFunction;
+    }
+
+    void setActivationFunction(ActivationFunction function) {
+        mFunction = function;
+    }
+
+    /**
+     * Activates every neuron in the layer.
+     *
+     * @param inputs the input values, one per link.
+     * @return the outputs of the layer. This is the layer's own buffer.
+     */
+    float[] activation(float[] inputs) {
+        System.arraycopy(inputs, 0, mInputs, 0, mInputCount);
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            float sum = 0;
+            int row = neuron * mInputCount;
+            for (int i = 0; i < mInputCount; i++) {
+                sum += mInputs[i] * mWeights[row + i];
+            }
+            mOutputs[neuron] = (float) mFunction.transfer(sum - mThresholds[neuron]);
+        }
+        return mOutputs;
+    }
+
+    /**
+     * Calculates the error gradients of the output layer.
+     *
+     * @param desiredOutput the desired output of the network.
+     * @return the sum of the squared errors.
+     */
+    double outputGradients(double[] desiredOutput) {
+        double sum;
+        float error;
+        sum = 0;
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            error = (float) desiredOutput[neuron] - mOutputs[neuron];
+            mGradients[neuron] = (float) mFunction.slope(mOutputs[neuron]) * error;
+            sum += error * error;
+        }
+        return sum;
+    }
+
+    /**
+     * Calculates the error gradients of a hidden layer from those of the
+     * layer it feeds into.
+     *
+     * @param next the layer that this layer feeds into.
+     */
+    void hiddenGradients(FloatDenseLayer next) {
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            mGradients[neuron] = 0;
+        }
+        for (int k = 0; k < next.mNeuronCount; k++) {
+            float gradient = next.mGradients[k];
+            int row = k * next.mInputCount;
+            for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+                mGradients[neuron] += gradient * next.mWeights[row + neuron];
+            }
+        }
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            mGradients[neuron] *= (float) mFunction.slope(mOutputs[neuron]);
+        }
+    }
+
+    /**
+     * Updates the weights and thresholds of every neuron using the gradients
+     * last calculated.
+     *
+     * @param learningRate the learning rate parameter.
+     * @param momentum the current momentum of the learning algorithm.
+     */
+    void weightCorrection(float learningRate, float momentum) {
+        float delta;
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            float rate = learningRate * mGradients[neuron];
+            int index = neuron * mInputCount;
+            for (int link = 0; link < mInputCount; link++, index++) {
+                delta = momentum * mPreviousWeightsDelta[index] + rate * mInputs[link];
+                mWeights[index] += delta;
+                mPreviousWeightsDelta[index] = delta;
+            }
+            delta = momentum * mPreviousThresholdsDelta[neuron] - rate;
+            mThresholds[neuron] += delta;
+            mPreviousThresholdsDelta[neuron] = delta;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: FloatNetwork
+ */
+import neuralnetworkexceptions.UnevenArraysException;
+
+/**
+ * A single-precision (float32) network. Weights, thresholds, momentum deltas
+ * and activations are all floats, which halves the memory traffic of every
+ * pass over a wide layer. It is made from, and converts back to, a
+ * {@link Network}, so it loads from and saves to the same XML through
+ * {@link io.IOManager}.
+ *
+ * @author Curtis Alcock 18403879
+ */
+public class FloatNetwork {
+
+    /*
+     * Array containing all calculating neuron layers.
+     */
+    private final FloatDenseLayer[] mLayers;
+
+    /*
+     * The optimizer of each layer of the network this was made from, kept
+     * untouched to be handed back, or null for the classic momentum rule.
+     */
+    private final Optimizer[] mOptimizers;
+
+    /*
+     * The network inputs, converted to floats.
+     */
+    private final float[] mInputs;
+
+    /**
+     * The learning rate of the network.
+     */
+    public double mLearningRate;
+
+    /**
+     * The momentum constant of the network.
+     */
+    public double mMomentum;
+
+    /*
+     * The desired output of the last set trained on, trained on once more
+     * when the learning rate is adapted.
+     */
+    private double[] mDesiredOutput;
+
+    /*
+     * The epoch loop of train, the same as Network's, with the listeners
+     * told of each reported epoch.
+     */
+    private final TrainingLoop mTraining = new TrainingLoop(new TrainingLoop.LearningRate() {
+        @Override
+        public double get() {
+            return mLearningRate;
+        }
+
+        @Override
+        public void scale(double factor) throws UnevenArraysException {
+            mLearningRate *= factor;
+            weightTraining(mDesiredOutput);
+        }
+    });
+
+    /**
+     * Initializes the network from a double precision network, rounding each
+     * weight and threshold to the nearest float. Its optimizer is kept aside,
+     * to be handed back by {@link #toNetwork()}; it cannot be trained with
+     * here.
+     *
+     * @param network the network to be copied.
+     */
+    public FloatNetwork(Network network) {
+        double[][][] weights = network.getWeights();
+        double[][] thresholds = network.getThresholds();
+        mLayers = new FloatDenseLayer[weights.length];
+        for (int layer = 0; layer < weights.length; layer++) {
+            mLayers[layer] = new FloatDenseLayer(weights[layer], thresholds[layer], network.getActivationFunction(layer));
+        }
+        mInputs = new float[mLayers[0].getInputCount()];
+        mLearningRate = network.mLearningRate;
+        mMomentum = network.mMomentum;
+        mOptimizers = optimizers(network);
+    }
+
+    /**
+     * Converts the network back to double precision, e.g. for writing with
+     * {@link io.IOManager#writeNetwork}. The momentum deltas are not carried
+     * over; the optimizer of the network this was made from is, as it was
+     * then.
+     *
+     * @return a double precision copy of the network.
+     */
+    public Network toNetwork() {
+        Network network = new Network(getWeights(), getThresholds(), mLearningRate, mMomentum);
+        for (int layer = 0; layer < mLayers.length; layer++) {
+            network.setActivationFunction(layer, mLayers[layer].getActivationFunction());
+            if (mOptimizers[layer] != null) {
+                network.getLayer(layer).setOptimizer(mOptimizers[layer].copy());
+            }
+        }
+        return network;
+    }
+
+    /**
+     * Copies the optimizer of each layer of a network.
+     *
+     * @param network the network being copied.
+     * @return a copy of each layer's optimizer, or null for a layer corrected
+     * by the classic momentum rule.
+     */
+    private static Optimizer[] optimizers(Network network) {
+        Optimizer[] optimizers = new Optimizer[network.getLayerCount()];
+        for (int layer = 0; layer < optimizers.length; layer++) {
+            Optimizer optimizer = network.getLayer(layer).getOptimizer();
+            optimizers[layer] = optimizer == null ? null : optimizer.copy();
+        }
+        return optimizers;
+    }
+
+    /**
+     * Gets a collection of all the weights in the network, widened to doubles.
+     *
+     * @return the weights that determine the output of the network.
+     */
+    public double[][][] getWeights() {
+        double[][][] weights;
+        weights = new double[mLayers.length][][];
+        for (int layer = 0; layer < mLayers.length; layer++) {
+            weights[layer] = mLayers[layer].getWeights();
+        }
+        return weights;
+    }
+
+    /**
+     * Gets a collection of all the thresholds in the network, widened to
+     * doubles.
+     *
+     * @return all the thresholds in the network.
+     */
+    public double[][] getThresholds() {
+        double[][] thresholds;
+        thresholds = new double[mLayers.length][];
+        for (int layer = 0; layer < mLayers.length; layer++) {
+            thresholds[layer] = mLayers[layer].getThresholds();
+        }
+        return thresholds;
+    }
+
+    /**
+     * Activates the network. Layer by layer, each layer as a whole.
+     *
+     * @param inputs the input values for the network.
+     * @return the result of the entire network's activations.
+     * @throws UnevenArraysException if the inputs array doesn't match the
+     * number of incoming links.
+     */
+    public double[] activation(double[] inputs) throws UnevenArraysException {
+        float[] outputs;
+        double[] result;
+        outputs = forward(inputs);
+        result = new double[outputs.length];
+        for (int i = 0; i < outputs.length; i++) {
+            result[i] = outputs[i];
+        }
+        return result;
+    }
+
+    /**
+     * Runs the inputs through every layer.
+     *
+     * @param inputs the input values for the network.
+     * @return the output layer's own buffer of outputs.
+     * @throws UnevenArraysException if the inputs array doesn't match the
+     * number of incoming links.
+     */
+    private float[] forward(double[] inputs) throws UnevenArraysException {
+        float[] outputs;
+        if (inputs.length != mInputs.length) {
+            throw new UnevenArraysException("There must be exactly " + mInputs.length + " input values!");
+        }
+        for (int i = 0; i < inputs.length; i++) {
+            mInputs[i] = (float) inputs[i];
+        }
+        outputs = mInputs;
+        for (FloatDenseLayer layer : mLayers) {
+            outputs = layer.activation(outputs);
+        }
+        return outputs;
+    }
+
+    /**
+     * Back-propagates the error of the last activation and adjusts the
+     * weights for all neurons in the network, in the same order as
+     * {@link Network#weightTraining()}: each layer is corrected before the
+     * gradients of the layer below are worked out from it.
+     *
+     * @param desiredOutput the output that was desired of the last activation.
+     * @return the sum of the squared errors of the last activation.
+     * @throws UnevenArraysException if the desiredOutput param does not match
+     * the number of output neurons.
+     */
+    public double weightTraining(double[] desiredOutput) throws UnevenArraysException {
+        double sum;
+        int last = mLayers.length - 1;
+        if (desiredOutput.length != mLayers[last].getNeuronCount()) {
+            throw new UnevenArraysException("There must be exactly " + mLayers[last].getNeuronCount() + " desired outputs!");
+        }
+        mDesiredOutput = desiredOutput;
+
+        sum = mLayers[last].outputGradients(desiredOutput);
+        mLayers[last].weightCorrection((float) mLearningRate, (float) mMomentum);
+        for (int layer = last - 1; layer >= 0; layer--) {
+            mLayers[layer].hiddenGradients(mLayers[layer + 1]);
+            mLayers[layer].weightCorrection((float) mLearningRate, (float) mMomentum);
+        }
+        return sum;
+    }
+
+    /**
+     * Trains the network one training set at a time until the sum of the
+     * squared errors over an epoch drops to the convergence point, see
+     * {@link #train(double[][], double[][], double)}.
+     *
+     * @param trainingSets An array of sets of inputs.
+     * @param desiredOutcomes An array of the desired outputs of the network.
+     * All second tier arrays should be the same size.
+     * @param convergence The point at which the network is to be considered
+     * converged.
+     * @param function if true then uses sigmoidal activation. If false, uses
+     * hyperbolic tangent.
+     * @throws UnevenArraysException if the number of inputs in each training
+     * set is not equal to the number of input links.
+     * @return the number of epochs taken to converge.
+     */
+    public int train(double[][] trainingSets, double[][] desiredOutcomes, double convergence, boolean function) throws UnevenArraysException {
+        for (FloatDenseLayer layer : mLayers) {
+            layer.setActivationFunction(function ? ActivationFunction.SIGMOID : ActivationFunction.HYPERBOLIC_TANGENT);
+        }
+        return train(trainingSets, desiredOutcomes, convergence);
+    }
+
+    /**
+     * Sets the listener told of the progress of training, in place of the
+     * console report. The outputs of each training set are not kept, so the
+     * listener is passed null for them.
+     *
+     * @param listener the listener, or null for no reports at all.
+     * @param interval the number of epochs between reports. The epoch that
+     * stops training is always reported.
+     */
+    public void setTrainingListener(TrainingListener listener, int interval) {
+        mTraining.setTrainingListener(listener, interval);
+    }
+
+    /**
+     * Trains the network one training set at a time, by the same rule as
+     * {@link Network#train(double[][], double[][], double)}: the same order of
+     * corrections, the same adaptive learning rate and the same test for
+     * convergence, only in single precision.
+     *
+     * @param trainingSets An array of sets of inputs.
+     * @param desiredOutcomes An array of the desired outputs of the network.
+     * All second tier arrays should be the same size.
+     * @param convergence The point at which the network is to be considered
+     * converged.
+     * @throws UnevenArraysException if the number of inputs in each training
+     * set is not equal to the number of input links.
+     * @throws IllegalStateException if the network was made from one corrected
+     * by an optimizer, see {@link Network#setOptimizer}, as this network only
+     * trains with the classic momentum rule.
+     * @return the number of epochs taken to converge.
+     */
+    public int train(double[][] trainingSets, double[][] desiredOutcomes, double convergence) throws UnevenArraysException {
+        for (Optimizer optimizer : mOptimizers) {
+            if (optimizer != null) {
+                throw new IllegalStateException("Only the classic momentum rule can be trained, not " + optimizer.getName());
+            }
+        }
+        return mTraining.train(() -> {
+            double sum = 0;
+            for (int i = 0; i < trainingSets.length; i++) {
+                try {
+                    forward(trainingSets[i]);
+                    sum += weightTraining(desiredOutcomes[i]);
+                } catch (UnevenArraysException ex) {
+                    throw new UnevenArraysException("Training set [" + i + "] was of wrong size: " + ex.getMessage());
+                }
+            }
+            return sum;
+        }, convergence, null, true);
+    }
+}
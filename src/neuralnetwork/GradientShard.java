@@ -0,0 +1,140 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: GradientShard
+ */
+import java.util.concurrent.RecursiveTask;
+import neuralnetworkexceptions.UnevenArraysException;
+
+/**
+ * A fork/join task that works a range of shards of a mini-batch. Each shard
+ * is a slice of the batch's rows with its own {@link BatchWorkspace}, so the
+ * forward and backward passes of the shards run side by side against the
+ * shared (read only) weights. As the task joins back up, the gradients of the
+ * right half are added onto the left half, so once the root task completes the
+ * gradients of the whole batch sit in the workspace of the first shard.
+ *
+ * @author Curtis Alcock 18403879
+ */
+class GradientShard extends RecursiveTask<Double> {
+
+    /*
+     * Tasks are never serialized, but RecursiveTask is Serializable.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /*
+     * The network being trained.
+     */
+    private final Network mNetwork;
+
+    /*
+     * A workspace for every shard of the batch.
+     */
+    private final BatchWorkspace[] mWorkspaces;
+
+    /*
+     * The first shard of this task, inclusive.
+     */
+    private final int mFirstShard;
+
+    /*
+     * The last shard of this task, exclusive.
+     */
+    private final int mLastShard;
+
+    /*
+     * The sets of inputs being trained on.
+     */
+    private final double[][] mTrainingSets;
+
+    /*
+     * The desired outputs of the network for each training set.
+     */
+    private final double[][] mDesiredOutcomes;
+
+    /*
+     * The first training set of the batch, inclusive.
+     */
+    private final int mFrom;
+
+    /*
+     * The last training set of the batch, exclusive.
+     */
+    private final int mTo;
+
+    /*
+     * The number of training sets per shard.
+     */
+    private final int mShardSize;
+
+    /*
+     * Receives the outputs of the network for each training set, if not null.
+     */
+    private final double[][] mResult;
+
+    /**
+     * @param network the network being trained.
+     * @param workspaces a workspace for every shard.
+     * @param firstShard the first shard of this task, inclusive.
+     * @param lastShard the last shard of this task, exclusive.
+     * @param trainingSets An array of sets of inputs.
+     * @param desiredOutcomes An array of the desired outputs of the network.
+     * @param from the first training set of the batch, inclusive.
+     * @param to the last training set of the batch, exclusive.
+     * @param shardSize the number of training sets per shard.
+     * @param result if not null, receives the outputs of the network for each
+     * training set.
+     */
+    GradientShard(Network network, BatchWorkspace[] workspaces, int firstShard, int lastShard,
+            double[][] trainingSets, double[][] desiredOutcomes, int from, int to, int shardSize, double[][] result) {
+        mNetwork = network;
+        mWorkspaces = workspaces;
+        mFirstShard = firstShard;
+        mLastShard = lastShard;
+        mTrainingSets = trainingSets;
+        mDesiredOutcomes = desiredOutcomes;
+        mFrom = from;
+        mTo = to;
+        mShardSize = shardSize;
+        mResult = result;
+    }
+
+    /**
+     * Works the shards, splitting in half until a single shard is left.
+     *
+     * @return the sum of the squared errors over the shards.
+     */
+    @Override
+    protected Double compute() {
+        if (mLastShard - mFirstShard == 1) {
+            int from = Math.min(mFrom + mFirstShard * mShardSize, mTo);
+            int to = Math.min(from + mShardSize, mTo);
+            BatchWorkspace workspace = mWorkspaces[mFirstShard];
+            workspace.clearGradients();
+            if (from == to) {
+                return 0.0;
+            }
+            try {
+                return mNetwork.batchPass(workspace, mTrainingSets, mDesiredOutcomes, from, to, mResult);
+            } catch (UnevenArraysException ex) {
+                throw new IllegalStateException(ex.getMessage(), ex);
+            }
+        }
+
+        int middle = (mFirstShard + mLastShard) >>> 1;
+        GradientShard left = new GradientShard(mNetwork, mWorkspaces, mFirstShard, middle,
+                mTrainingSets, mDesiredOutcomes, mFrom, mTo, mShardSize, mResult);
+        GradientShard right = new GradientShard(mNetwork, mWorkspaces, middle, mLastShard,
+                mTrainingSets, mDesiredOutcomes, mFrom, mTo, mShardSize, mResult);
+        left.fork();
+        double sum = right.compute();
+        sum += left.join();
+
+        // Reduce: fold the right half's gradients into the left half's
+        mWorkspaces[mFirstShard].addGradients(mWorkspaces[middle]);
+        return sum;
+    }
+}
@@ -0,0 +1,230 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: Kernels
+ */
+/**
+ * The inner loops of the forward and backward passes: dot products and their
+ * batched form, AXPY style accumulation, the gradients of a batch and the
+ * weight corrections. A layer runs all of its per-link arithmetic through
+ * these, the plain loops one element at a time in order, which give the same
+ * results, to the bit, as the loops in {@link Neuron}.
+ *
+ * Loops unrolled by hand into independent lanes were measured no faster than
+ * these once the JIT compiler had them, so a faster version would have to
+ * come from real vector instructions.
+ *
+ * @author Curtis Alcock 18403879
+ */
+final class Kernels {
+
+    private Kernels() {
+    }
+
+    /**
+     * The dot product of two runs of values.
+     *
+     * @param a the first array.
+     * @param aOffset where the run starts in the first array.
+     * @param b the second array.
+     * @param bOffset where the run starts in the second array.
+     * @param length the number of values in each run.
+     * @return the sum of the products.
+     */
+    static double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        double sum;
+        sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    /**
+     * Adds a scaled run of values onto another, i.e. y += alpha * x.
+     *
+     * @param alpha the scale applied to x.
+     * @param x the values to be added.
+     * @param xOffset where the run starts in x.
+     * @param y the values to be added to.
+     * @param yOffset where the run starts in y.
+     * @param length the number of values in each run.
+     */
+    static void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            y[yOffset + i] += alpha * x[xOffset + i];
+        }
+    }
+
+    /**
+     * Corrects a run of weights with momentum. For each link:
+     * delta = momentum * previous delta + learning rate * input * gradient,
+     * the delta is added to the weight and kept as the new previous delta.
+     *
+     * @param weights the weights to be corrected.
+     * @param previousDeltas the previous delta of each weight.
+     * @param offset where the run starts in the weights and deltas.
+     * @param inputs the input of each link.
+     * @param inputOffset where the run starts in the inputs.
+     * @param length the number of links.
+     * @param momentum the current momentum of the learning algorithm.
+     * @param learningRate the learning rate parameter.
+     * @param gradient the error gradient of the neuron.
+     */
+    static void correction(double[] weights, double[] previousDeltas, int offset, double[] inputs, int inputOffset,
+            int length, double momentum, double learningRate, double gradient) {
+        double delta;
+        for (int i = 0; i < length; i++) {
+            delta = momentum * previousDeltas[offset + i] + learningRate * inputs[inputOffset + i] * gradient;
+            weights[offset + i] += delta;
+            previousDeltas[offset + i] = delta;
+        }
+    }
+
+    /**
+     * Corrects a run of weights without momentum, skipping every link whose
+     * input is 0. For each other link: delta = learning rate * input *
+     * gradient, the delta is added to the weight and kept as the new previous
+     * delta. Links that are skipped are not written at all.
+     *
+     * @param weights the weights to be corrected.
+     * @param previousDeltas the previous delta of each weight.
+     * @param offset where the run starts in the weights and deltas.
+     * @param inputs the input of each link.
+     * @param inputOffset where the run starts in the inputs.
+     * @param length the number of links.
+     * @param learningRate the learning rate parameter.
+     * @param gradient the error gradient of the neuron.
+     */
+    static void sparseCorrection(double[] weights, double[] previousDeltas, int offset, double[] inputs, int inputOffset,
+            int length, double learningRate, double gradient) {
+        double delta;
+        for (int i = 0; i < length; i++) {
+            if (inputs[inputOffset + i] != 0) {
+                delta = learningRate * inputs[inputOffset + i] * gradient;
+                weights[offset + i] += delta;
+                previousDeltas[offset + i] = delta;
+            }
+        }
+    }
+
+    /**
+     * Corrects a run of weights by an optimizer. For each link the step
+     * input * gradient is handed to the optimizer as the parameter at the
+     * link's index in the weights, and the change it gives is added to the
+     * weight and kept as the new previous delta.
+     *
+     * @param optimizer the optimizer of the weights.
+     * @param weights the weights to be corrected.
+     * @param previousDeltas the previous delta of each weight.
+     * @param offset where the run starts in the weights and deltas.
+     * @param inputs the input of each link.
+     * @param inputOffset where the run starts in the inputs.
+     * @param length the number of links.
+     * @param learningRate the learning rate parameter.
+     * @param momentum the current momentum of the learning algorithm.
+     * @param gradient the error gradient of the neuron.
+     */
+    static void optimizerCorrection(Optimizer optimizer, double[] weights, double[] previousDeltas, int offset,
+            double[] inputs, int inputOffset, int length, double learningRate, double momentum, double gradient) {
+        double delta;
+        for (int i = 0; i < length; i++) {
+            delta = optimizer.delta(offset + i, inputs[inputOffset + i] * gradient, learningRate, momentum);
+            weights[offset + i] += delta;
+            previousDeltas[offset + i] = delta;
+        }
+    }
+
+    /**
+     * Multiplies a batch of rows by a weight matrix: the output of neuron 'n'
+     * for row 'r' is the dot product of input row 'r' and weight row 'n'. All
+     * matrices are flat and row-major.
+     *
+     * Four rows are worked at a time so that each weight row is read once per
+     * four rows rather than once per row. Each sum is still built in order.
+     *
+     * @param inputs the batch of inputs, rows x length.
+     * @param rows the number of rows in the batch.
+     * @param weights the weight matrix, neurons x length.
+     * @param neurons the number of neurons.
+     * @param length the number of links of each neuron.
+     * @param outputs receives the weighted sums, rows x neurons.
+     */
+    static void multiply(double[] inputs, int rows, double[] weights, int neurons, int length, double[] outputs) {
+        int row;
+        for (row = 0; row + 4 <= rows; row += 4) {
+            int in0 = row * length;
+            int in1 = in0 + length;
+            int in2 = in1 + length;
+            int in3 = in2 + length;
+            int out = row * neurons;
+            for (int neuron = 0; neuron < neurons; neuron++) {
+                double sum0 = 0;
+                double sum1 = 0;
+                double sum2 = 0;
+                double sum3 = 0;
+                int w = neuron * length;
+                for (int i = 0; i < length; i++, w++) {
+                    sum0 += inputs[in0 + i] * weights[w];
+                    sum1 += inputs[in1 + i] * weights[w];
+                    sum2 += inputs[in2 + i] * weights[w];
+                    sum3 += inputs[in3 + i] * weights[w];
+                }
+                outputs[out + neuron] = sum0;
+                outputs[out + neurons + neuron] = sum1;
+                outputs[out + 2 * neurons + neuron] = sum2;
+                outputs[out + 3 * neurons + neuron] = sum3;
+            }
+        }
+        // the remaining rows, one at a time
+        for (; row < rows; row++) {
+            for (int neuron = 0; neuron < neurons; neuron++) {
+                outputs[row * neurons + neuron] = dot(inputs, row * length, weights, neuron * length, length);
+            }
+        }
+    }
+
+    /**
+     * Adds the gradients of a batch onto a weight shaped accumulator: the
+     * gradient of link 'i' of neuron 'n' gains the sum over the rows of
+     * delta 'n' times input 'i'. All matrices are flat and row-major.
+     *
+     * Four rows are folded into each weight row per sweep.
+     *
+     * @param deltas the batch of error gradients, rows x neurons.
+     * @param inputs the batch of inputs, rows x length.
+     * @param rows the number of rows in the batch.
+     * @param neurons the number of neurons.
+     * @param length the number of links of each neuron.
+     * @param gradients the accumulator, neurons x length.
+     */
+    static void outerProducts(double[] deltas, double[] inputs, int rows, int neurons, int length, double[] gradients) {
+        int row;
+        for (row = 0; row + 4 <= rows; row += 4) {
+            int in0 = row * length;
+            int in1 = in0 + length;
+            int in2 = in1 + length;
+            int in3 = in2 + length;
+            int d = row * neurons;
+            for (int neuron = 0; neuron < neurons; neuron++) {
+                double d0 = deltas[d + neuron];
+                double d1 = deltas[d + neurons + neuron];
+                double d2 = deltas[d + 2 * neurons + neuron];
+                double d3 = deltas[d + 3 * neurons + neuron];
+                int w = neuron * length;
+                for (int i = 0; i < length; i++, w++) {
+                    gradients[w] += d0 * inputs[in0 + i] + d1 * inputs[in1 + i]
+                            + d2 * inputs[in2 + i] + d3 * inputs[in3 + i];
+                }
+            }
+        }
+        // the remaining rows, one at a time
+        for (; row < rows; row++) {
+            for (int neuron = 0; neuron < neurons; neuron++) {
+                axpy(deltas[row * neurons + neuron], inputs, row * length, gradients, neuron * length, length);
+            }
+        }
+    }
+}
@@ -1,6 +1,13 @@
 package neuralnetwork;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import neuralnetworkexceptions.UnevenArraysException;
 import java.util.Arrays;
 import java.util.Objects;
@@ -20,13 +27,7 @@ public class Network {
     /*
      * Array containing all calculating neuron layers.
      */
-    private final Neuron[][] mNeurons;
-
-    /*
-     * If true then a sigmoidal activation function will be used.
-     * If false then a hyperbolic tangent activation function will be used.
-     */
-    private boolean mActivationFunction;
+    private final DenseLayer[] mLayers;
 
     /*
      * The desired output of the network.
@@ -51,11 +52,194 @@ public class Network {
         mMomentum = newMomentum;
     }
 
+    /*
+     * The epoch loop of train: the listeners told of each reported epoch,
+     * the console report until others are set, and the progress of the
+     * current run.
+     */
+    private final TrainingLoop mTraining = new TrainingLoop(new TrainingLoop.LearningRate() {
+        @Override
+        public double get() {
+            return mLearningRate;
+        }
+
+        @Override
+        public void scale(double factor) throws UnevenArraysException {
+            mLearningRate *= factor;
+            weightTraining(false);
+        }
+    });
+
+    /**
+     * Sets the listener told of the progress of training, in place of the
+     * console report and any other listeners.
+     *
+     * @param listener the listener, or null for no reports at all.
+     * @param interval the number of epochs between reports. The epoch that
+     * stops training is always reported.
+     */
+    public void setTrainingListener(TrainingListener listener, int interval) {
+        mTraining.setTrainingListener(listener, interval);
+    }
+
+    /**
+     * Adds a listener told of the progress of training, alongside those
+     * already set, e.g. a checkpoint writer alongside the console report.
+     *
+     * @param listener the listener.
+     * @param interval the number of epochs between reports. The epoch that
+     * stops training is always reported.
+     */
+    public void addTrainingListener(TrainingListener listener, int interval) {
+        mTraining.addTrainingListener(listener, interval);
+    }
+
+    /**
+     * Gets the number of epochs trained so far in the current run of train.
+     * Goes back to 0 once a run ends, whether it converged or threw, so an
+     * interrupted run is only carried on through
+     * {@link #setTrainingProgress}.
+     *
+     * @return the number of epochs trained in the current run.
+     */
+    public int getEpoch() {
+        return mTraining.getEpoch();
+    }
+
+    /**
+     * Gets the sums of the squared errors of the last two epochs of the
+     * current run, that the adaptive learning rate compares.
+     *
+     * @return the sums, indexed by the parity of the epoch.
+     */
+    public double[] getEpochSums() {
+        return mTraining.getEpochSums();
+    }
+
+    /**
+     * Sets the progress of the current run, so that the next call to train
+     * carries on exactly where an earlier run was left, e.g. one read back
+     * with {@link io.IOManager#readTrainingState}.
+     *
+     * @param epoch the number of epochs already trained.
+     * @param epochSums the sums of the squared errors of the last two epochs,
+     * indexed by the parity of the epoch.
+     */
+    public void setTrainingProgress(int epoch, double[] epochSums) {
+        mTraining.setTrainingProgress(epoch, epochSums);
+    }
+
+    /**
+     * Gets the activation function of a layer. Every layer starts with
+     * {@link ActivationFunction#HYPERBOLIC_TANGENT}.
+     *
+     * @param layer the index of the calculating layer, 0 being the first
+     * hidden layer.
+     * @return the activation function of the layer.
+     */
+    public ActivationFunction getActivationFunction(int layer) {
+        return mLayers[layer].getActivationFunction();
+    }
+
+    /**
+     * Sets the activation function of a single layer, e.g. a cheap
+     * {@link ActivationFunction#RELU} for the hidden layers while the output
+     * layer keeps a squashing function.
+     *
+     * @param layer the index of the calculating layer, 0 being the first
+     * hidden layer.
+     * @param function the activation function to be used from now on.
+     */
+    public void setActivationFunction(int layer, ActivationFunction function) {
+        mLayers[layer].setActivationFunction(function);
+    }
+
+    /**
+     * Sets the activation function of every layer.
+     *
+     * @param function the activation function to be used from now on.
+     */
+    public void setActivationFunction(ActivationFunction function) {
+        for (DenseLayer layer : mLayers) {
+            layer.setActivationFunction(function);
+        }
+    }
+
+    /**
+     * Gets the name of the optimizer the network is corrected by, see
+     * {@link Optimizer}.
+     *
+     * @return the name of the optimizer, e.g. "adam".
+     */
+    public String getOptimizer() {
+        Optimizer optimizer = mLayers[0].getOptimizer();
+        return optimizer == null ? Optimizer.MOMENTUM : optimizer.getName();
+    }
+
+    /**
+     * Sets the optimizer every layer is corrected by from now on, with fresh
+     * state, e.g. {@link Optimizer#ADAM} in place of the classic
+     * {@link Optimizer#MOMENTUM}. The learning rate and momentum constant of
+     * the network are handed to it, and the adaptive learning rate of
+     * {@link #train(double[][], double[][], double)} still applies.
+     *
+     * @param name the name of the optimizer, see {@link Optimizer#forName}.
+     * @throws IllegalArgumentException if there is no optimizer by that name.
+     */
+    public void setOptimizer(String name) {
+        for (DenseLayer layer : mLayers) {
+            layer.setOptimizer(Optimizer.forName(name, layer.getInputCount() * layer.getNeuronCount() + layer.getNeuronCount()));
+        }
+    }
+
+    /**
+     * Sets whether the network uses the table based activation functions of
+     * {@link FastActivation} instead of calling exp() for every neuron. See
+     * FastActivation for the error this brings. Networks compiled afterwards
+     * keep the setting.
+     *
+     * @param approximate true to use the approximate functions, false for the
+     * exact ones.
+     */
+    public void setApproximateActivation(boolean approximate) {
+        for (DenseLayer layer : mLayers) {
+            layer.setApproximate(approximate);
+        }
+    }
+
+    /**
+     * Checks whether the network uses the approximate activation functions.
+     *
+     * @return true if the approximate functions of {@link FastActivation} are
+     * used.
+     */
+    public boolean isApproximateActivation() {
+        return mLayers[0].isApproximate();
+    }
+
     /*
      * The random number generator used in the creation of the neurons.
      */
     private final Random RANDOM;
 
+    /*
+     * The number of rows worked at once by activateBatch. Large enough for
+     * each weight row to be reused many times while in cache, small enough
+     * that the activations of a block stay in cache too.
+     */
+    private static final int BATCH_ROWS = 256;
+
+    /*
+     * Each thread's workspace for scoring a single set, reused between calls.
+     */
+    private final ThreadLocal<BatchWorkspace> mRowWorkspace;
+
+    /*
+     * Each thread's workspace for scoring a block of sets, reused between
+     * calls.
+     */
+    private final ThreadLocal<BatchWorkspace> mBlockWorkspace;
+
     /**
      * Initializes the network with weights pseudo-randomly generated according
      * to the given seed.
@@ -70,20 +254,17 @@ public class Network {
         // Initialize the jagged array to have the right number of layers
         mLearningRate = learningRate;
         mMomentum = momentum;
-        mActivationFunction = false; // Initially false (meaning will use tanh, which is most efficient), but can be changed in training.
         RANDOM = new Random(seed); // Initialize the generator for genning weights
         mDesiredOutput = new double[neurons[neurons.length - 1]]; // number of neurons in the output layer
-        mNeurons = new Neuron[neurons.length - 1][];
+        mLayers = new DenseLayer[neurons.length - 1];
 
         for (int layer = 1; layer < neurons.length; layer++) {
             // Set the number of neurons in each layer
             // so each layer can have a different number of neurons
-            mNeurons[layer - 1] = new Neuron[neurons[layer]];
-
-            for (int neuron = 0; neuron < mNeurons[layer - 1].length; neuron++) {
-                mNeurons[layer - 1][neuron] = new Neuron(neurons[layer - 1], RANDOM);
-            }
+            mLayers[layer - 1] = new DenseLayer(neurons[layer - 1], neurons[layer], RANDOM);
         }
+        mRowWorkspace = ThreadLocal.withInitial(() -> BatchWorkspace.forInference(mLayers, 1));
+        mBlockWorkspace = ThreadLocal.withInitial(() -> BatchWorkspace.forInference(mLayers, BATCH_ROWS));
     }
 
     /**
@@ -105,16 +286,41 @@ public class Network {
         mMomentum = momentum;
         RANDOM = new Random();
 
-        // Initialize the jagged array to have the right number of layers
-        mNeurons = new Neuron[weights.length][];
+        // Initialize the array to have the right number of layers
+        mLayers = new DenseLayer[weights.length];
         for (int layer = 0; layer < weights.length; layer++) {
-            // Set the number of neurons in each layer
-            mNeurons[layer] = new Neuron[weights[layer].length];
-            for (int neuron = 0; neuron < mNeurons[layer].length; neuron++) {
-                mNeurons[layer][neuron] = new Neuron(weights[layer][neuron], thresholds[layer][neuron], RANDOM);
+            mLayers[layer] = new DenseLayer(weights[layer], thresholds[layer]);
+        }
+        mDesiredOutput = new double[mLayers[mLayers.length - 1].getNeuronCount()];
+        mRowWorkspace = ThreadLocal.withInitial(() -> BatchWorkspace.forInference(mLayers, 1));
+        mBlockWorkspace = ThreadLocal.withInitial(() -> BatchWorkspace.forInference(mLayers, BATCH_ROWS));
+    }
+
+    /**
+     * Initializes the network from layers that have already been built. The
+     * layers are used as they are, not copied.
+     *
+     * @param layers the calculating layers of the network, in order from the
+     * first hidden layer to the output layer.
+     * @param learningRate the learning rate constant for the network.
+     * @param momentum the momentum constant for the network.
+     * @throws IllegalArgumentException if a layer's number of links does not
+     * match the number of neurons in the layer before it.
+     */
+    public Network(DenseLayer[] layers, double learningRate, double momentum) {
+        mLearningRate = learningRate;
+        mMomentum = momentum;
+        RANDOM = new Random();
+
+        for (int layer = 1; layer < layers.length; layer++) {
+            if (layers[layer].getInputCount() != layers[layer - 1].getNeuronCount()) {
+                throw new IllegalArgumentException("Layer(" + layer + ") must have exactly " + layers[layer - 1].getNeuronCount() + " links!");
             }
         }
-        mDesiredOutput = new double[mNeurons[mNeurons.length - 1].length];
+        mLayers = layers.clone();
+        mDesiredOutput = new double[mLayers[mLayers.length - 1].getNeuronCount()];
+        mRowWorkspace = ThreadLocal.withInitial(() -> BatchWorkspace.forInference(mLayers, 1));
+        mBlockWorkspace = ThreadLocal.withInitial(() -> BatchWorkspace.forInference(mLayers, BATCH_ROWS));
     }
 
     /**
@@ -142,7 +348,7 @@ public class Network {
     }
 
     /**
-     * Activates the network. Layer by layer, one neuron at a time.
+     * Activates the network. Layer by layer, each layer as a whole.
      *
      * @param inputs the input values for the network
      * @return the result of the entire network's activations.
@@ -150,29 +356,207 @@ public class Network {
      * number of incoming links.
      */
     public double[] activation(double[] inputs) throws UnevenArraysException {
-        double[] newInputs;
-        newInputs = null;
-
         // Activate each layer with the outputs of the previous layer
-        for (Neuron[] mNeuron : mNeurons) {
-            // for each layer
-            // Compile an array of the outputs of the current layer
-            newInputs = new double[mNeuron.length];
-            for (int neuron = 0; neuron < mNeuron.length; neuron++) {
-                // for each neuron within a layer
-                // add the output to the array
-                try {
-                    newInputs[neuron] = mNeuron[neuron].activation(inputs, mActivationFunction);
-                } catch (UnevenArraysException e) {
-                    throw new UnevenArraysException(e.getMessage());
-                }
-            }
-            // Clone the current layer's outputs into the parameter inputs ready for the next layer.
-            inputs = newInputs.clone();
+        for (DenseLayer layer : mLayers) {
+            inputs = layer.activation(inputs);
         }
 
         // The result of the final (output) layer's activations
-        return newInputs;
+        return inputs.clone();
+    }
+
+    /**
+     * Activates the network, writing the result into the given array. Unlike
+     * {@link #activation(double[])} this leaves the network's own state
+     * untouched and, once warmed up, allocates nothing: the shapes are checked
+     * once up front and every layer works in a workspace kept per thread. Any
+     * number of threads may call this at once, provided nothing is training
+     * the network at the same time.
+     *
+     * @param inputs the input values for the network.
+     * @param outputs receives the result of the network's activation. Must
+     * have one value per output neuron.
+     * @throws UnevenArraysException if the inputs array doesn't match the
+     * number of incoming links, or the outputs array the number of output
+     * neurons.
+     */
+    public void activation(double[] inputs, double[] outputs) throws UnevenArraysException {
+        BatchWorkspace workspace;
+        int last = mLayers.length - 1;
+
+        if (inputs.length != mLayers[0].getInputCount()) {
+            throw new UnevenArraysException("There must be exactly " + mLayers[0].getInputCount() + " input values!");
+        }
+        if (outputs.length != mDesiredOutput.length) {
+            throw new UnevenArraysException("There must be exactly " + mDesiredOutput.length + " output values!");
+        }
+
+        workspace = mRowWorkspace.get();
+        System.arraycopy(inputs, 0, workspace.mInputs, 0, inputs.length);
+        forward(workspace, 1);
+        System.arraycopy(workspace.mOutputs[last], 0, outputs, 0, outputs.length);
+    }
+
+    /**
+     * Activates the network for a whole batch of input sets. Each layer is run
+     * as a single matrix-matrix product over a block of rows, rather than one
+     * dot product per neuron per set as in {@link #activation(double[])}. The
+     * network's own state (as reported by {@link #toString()}) is untouched,
+     * and the blocks are worked in a workspace kept per thread.
+     *
+     * @param inputs the sets of input values for the network.
+     * @return the outputs of the network for each input set.
+     * @throws UnevenArraysException if an input set doesn't match the number of
+     * incoming links.
+     */
+    public double[][] activateBatch(double[][] inputs) throws UnevenArraysException {
+        double[][] outputs;
+        outputs = new double[inputs.length][mDesiredOutput.length];
+        activateBatch(inputs, outputs);
+        return outputs;
+    }
+
+    /**
+     * Activates the network for a whole batch of input sets, writing into the
+     * given output arrays.
+     *
+     * @param inputs the sets of input values for the network.
+     * @param outputs receives the outputs of the network for each input set.
+     * There must be at least as many as there are input sets, each with one
+     * value per output neuron.
+     * @throws UnevenArraysException if an input set doesn't match the number of
+     * incoming links, or an output array doesn't match the number of output
+     * neurons.
+     * @see #activateBatch(double[][])
+     * @see #activation(double[], double[])
+     */
+    public void activateBatch(double[][] inputs, double[][] outputs) throws UnevenArraysException {
+        BatchWorkspace workspace;
+
+        if (outputs.length < inputs.length) {
+            throw new UnevenArraysException("There must be an output array for every input set!");
+        }
+        for (int i = 0; i < inputs.length; i++) {
+            if (outputs[i].length != mDesiredOutput.length) {
+                throw new UnevenArraysException("Output array [" + i + "] was of wrong size.");
+            }
+        }
+
+        workspace = mBlockWorkspace.get();
+        for (int from = 0; from < inputs.length; from += workspace.mCapacity) {
+            int to = Math.min(from + workspace.mCapacity, inputs.length);
+            gather(workspace, inputs, null, from, to);
+            forward(workspace, to - from);
+            scatter(workspace, from, to, outputs);
+        }
+    }
+
+    /**
+     * Compiles the network into an immutable snapshot for inference. The
+     * snapshot takes its own copy of the current weights, thresholds and
+     * activation functions, so it is unaffected by any later training of this
+     * network, and it keeps no state between calls, so any number of threads
+     * may score against it at once. As it is never trained, the optimizer and
+     * the momentum deltas are left behind.
+     *
+     * @return a frozen, thread-safe copy of the network for inference.
+     */
+    public CompiledNetwork compile() {
+        return new CompiledNetwork(mLayers);
+    }
+
+    /**
+     * Quantizes the network to 8 bit weights for inference. The calibration
+     * sets are run through the network to find the range of values each
+     * layer takes in; the error the quantization brings over them is kept
+     * with the result. Like {@link #compile()} the result is a snapshot,
+     * unaffected by later training.
+     *
+     * @param calibrationSets input sets representative of those the network
+     * will be asked to score, e.g. its training sets.
+     * @return an 8 bit, thread-safe copy of the network for inference.
+     * @throws UnevenArraysException if a calibration set doesn't match the
+     * number of incoming links.
+     */
+    public QuantizedNetwork quantize(double[][] calibrationSets) throws UnevenArraysException {
+        return new QuantizedNetwork(mLayers, calibrationSets);
+    }
+
+    /**
+     * Compresses the network into a sparse snapshot for inference, keeping
+     * only the links whose weight is not 0. See {@link #prune(double)}.
+     *
+     * @return a sparse, thread-safe copy of the network for inference.
+     */
+    public SparseNetwork compileSparse() {
+        return new SparseNetwork(mLayers);
+    }
+
+    /**
+     * Prunes every link in the network whose weight is smaller in magnitude
+     * than the threshold. Links already at 0 count as pruned too. Pruned
+     * links are set to 0 and held there by any further training, so the
+     * network can be fine-tuned afterwards with {@link #train}.
+     *
+     * @param threshold the smallest magnitude of weight that is kept.
+     * @return the number of links now pruned in the network.
+     */
+    public int prune(double threshold) {
+        int count = 0;
+        for (DenseLayer layer : mLayers) {
+            count += layer.prune(threshold);
+        }
+        return count;
+    }
+
+    /**
+     * Prunes all but the largest links of every neuron in the network, by
+     * magnitude. Pruned links are set to 0 and held there by any further
+     * training, so the network can be fine-tuned afterwards with
+     * {@link #train}.
+     *
+     * @param keep the number of links each neuron keeps.
+     * @return the number of links now pruned in the network.
+     */
+    public int pruneTopK(int keep) {
+        int count = 0;
+        for (DenseLayer layer : mLayers) {
+            count += layer.pruneTopK(keep);
+        }
+        return count;
+    }
+
+    /**
+     * Counts the links in the network whose weight is not 0.
+     *
+     * @return the number of non-zero weights.
+     */
+    public int getNonZeroCount() {
+        int count = 0;
+        for (DenseLayer layer : mLayers) {
+            count += layer.getNonZeroCount();
+        }
+        return count;
+    }
+
+    /**
+     * Takes a copy of the network and its training state: the weights,
+     * thresholds, momentum deltas, pruned links and activation function of
+     * each layer, the learning rate, the momentum constant and the progress of
+     * the current run. Cheap enough to be taken between epochs, e.g. for a
+     * checkpoint to be written out while training carries on.
+     *
+     * @return a copy of the network, that trains on exactly as this one would.
+     */
+    public Network snapshot() {
+        DenseLayer[] layers = new DenseLayer[mLayers.length];
+        for (int layer = 0; layer < mLayers.length; layer++) {
+            layers[layer] = new DenseLayer(mLayers[layer]);
+            layers[layer].copyTrainingState(mLayers[layer]);
+        }
+        Network copy = new Network(layers, mLearningRate, mMomentum);
+        copy.setTrainingProgress(mTraining.getEpoch(), mTraining.getEpochSums());
+        return copy;
     }
 
     /**
@@ -182,12 +566,9 @@ public class Network {
      */
     public double[][][] getWeights() {
         double[][][] weights;
-        weights = new double[mNeurons.length][][];
-        for (int layer = 0; layer < mNeurons.length; layer++) {
-            weights[layer] = new double[mNeurons[layer].length][];
-            for (int neuron = 0; neuron < mNeurons[layer].length; neuron++) {
-                weights[layer][neuron] = mNeurons[layer][neuron].getWeights();
-            }
+        weights = new double[mLayers.length][][];
+        for (int layer = 0; layer < mLayers.length; layer++) {
+            weights[layer] = mLayers[layer].getWeights();
         }
         return weights;
     }
@@ -199,16 +580,36 @@ public class Network {
      */
     public double[][] getThresholds() {
         double[][] thresholds;
-        thresholds = new double[mNeurons.length][];
-        for (int layer = 0; layer < mNeurons.length; layer++) {
-            thresholds[layer] = new double[mNeurons[layer].length];
-            for (int neuron = 0; neuron < mNeurons[layer].length; neuron++) {
-                thresholds[layer][neuron] = mNeurons[layer][neuron].getThreshold();
-            }
+        thresholds = new double[mLayers.length][];
+        for (int layer = 0; layer < mLayers.length; layer++) {
+            thresholds[layer] = mLayers[layer].getThresholds();
         }
         return thresholds;
     }
 
+    /**
+     * Gets the number of calculating layers in the network, i.e. every layer
+     * but the inputs.
+     *
+     * @return the number of layers.
+     */
+    public int getLayerCount() {
+        return mLayers.length;
+    }
+
+    /**
+     * Gets a calculating layer of the network, for reading its weights
+     * without copying them all, see {@link DenseLayer#getWeight(int, int)}.
+     * This is the network's own layer, not a copy, and must not be activated
+     * while the network is in use.
+     *
+     * @param layer the index of the layer, 0 being the first hidden layer.
+     * @return the layer.
+     */
+    public DenseLayer getLayer(int layer) {
+        return mLayers[layer];
+    }
+
     /**
      * Back-propagates the error and adjusts the weights for all neurons in the
      * network.
@@ -217,49 +618,34 @@ public class Network {
      * the number of output neurons.
      */
     public void weightTraining() throws UnevenArraysException {
+        weightTraining(true);
+    }
+
+    /**
+     * Back-propagates the error and adjusts the weights for all neurons in the
+     * network.
+     *
+     * @param nextStep false if this repeats the last correction with a new
+     * learning rate, so the optimizers do not count it as a step of their own.
+     * @throws UnevenArraysException if the desired output does not match the
+     * number of output neurons.
+     */
+    private void weightTraining(boolean nextStep) throws UnevenArraysException {
         double[] gradients;
-        double[] weights;
-        double[] newGradients;
-        int last = mNeurons.length - 1;
-        gradients = new double[mNeurons[last].length];
-        weights = new double[mNeurons[last].length];
-
-        // for each neuron in the output layer
-        for (int neuron = 0; neuron < mNeurons[last].length; neuron++) {
-            mNeurons[last][neuron].calcError(mDesiredOutput[neuron]);
-
-            if (mActivationFunction) {
-                gradients[neuron] = mNeurons[last][neuron].sigmoidalErrorGradient();
-            } else {
-                gradients[neuron] = mNeurons[last][neuron].hyperbolicErrorGradient();
-            }
+        int last = mLayers.length - 1;
 
-            try {
-                mNeurons[last][neuron].weightCorrection(mLearningRate, mMomentum, gradients[neuron]);
-            } catch (UnevenArraysException ex) {
-                throw new UnevenArraysException(String.format("Weight training failed for Neuron(%d,%d): %s", last, neuron, ex));
-            }
+        if (mLayers[last].getNeuronCount() != mDesiredOutput.length) {
+            throw new UnevenArraysException(String.format("Weight training failed for Layer(%d): the desired output does not match the output neurons", last));
         }
 
+        // the output layer
+        gradients = mLayers[last].outputGradients(mDesiredOutput);
+        mLayers[last].weightCorrection(mLearningRate, mMomentum, nextStep);
+
         // for each hidden layer, count down from the last hidden layer before the outputs
         for (int layer = last - 1; layer >= 0; layer--) {
-            newGradients = new double[mNeurons[layer].length];
-            for (int neuron = 0; neuron < mNeurons[layer].length; neuron++) {
-
-                for (int prevNeuron = 0; prevNeuron < mNeurons[layer + 1].length; prevNeuron++) {
-                    weights[prevNeuron] = mNeurons[layer + 1][prevNeuron].getWeight(neuron);
-                }
-
-                if (mActivationFunction) {
-                    newGradients[neuron] = mNeurons[layer][neuron].sigmoidalErrorGradient(gradients, weights);
-                } else {
-                    newGradients[neuron] = mNeurons[layer][neuron].hyperbolicErrorGradient(gradients, weights);
-                }
-
-                mNeurons[layer][neuron].weightCorrection(mLearningRate, mMomentum, newGradients[neuron]);
-                weights = new double[mNeurons[layer + 1].length];
-            }
-            gradients = newGradients.clone();
+            gradients = mLayers[layer].hiddenGradients(mLayers[layer + 1], gradients);
+            mLayers[layer].weightCorrection(mLearningRate, mMomentum, nextStep);
         }
 
     }
@@ -273,11 +659,11 @@ public class Network {
         double sum;
         int lastLayer;
         sum = 0.0;
-        lastLayer = mNeurons.length - 1;
+        lastLayer = mLayers.length - 1;
 
-        for (Neuron neuron : mNeurons[lastLayer]) {
-            sum += Math.pow(neuron.getError(), 2);
-        }   
+        for (int neuron = 0; neuron < mLayers[lastLayer].getNeuronCount(); neuron++) {
+            sum += Math.pow(mLayers[lastLayer].getError(neuron), 2);
+        }
         return sum;
     }
 
@@ -299,7 +685,7 @@ public class Network {
      * @return the sum of the squared errors for this pass.
      */
     public int train(double[][] trainingSets, double[][] desiredOutcomes, double convergence, boolean function) throws UnevenArraysException {
-        mActivationFunction = function;
+        setActivationFunction(function ? ActivationFunction.SIGMOID : ActivationFunction.HYPERBOLIC_TANGENT);
         return this.train(trainingSets, desiredOutcomes, convergence);
     }
 
@@ -316,126 +702,450 @@ public class Network {
      * @return the sum of the squared errors for this pass.
      */
     public int train(double[][] trainingSets, double[][] desiredOutcomes, double convergence) throws UnevenArraysException {
-        double[] sum = {1, 1};
-        int epoch;
-        double[][] result;
-        String out;
-        epoch = 0;
-        while (sum[epoch % 2] > convergence) {
-            sum[epoch % 2] = 0;
-            result = new double[trainingSets.length][];
+        double[][] result = new double[trainingSets.length][];
+        return mTraining.train(() -> {
+            double sum = 0;
             for (int i = 0; i < trainingSets.length; i++) {
                 try {
                     result[i] = activation(trainingSets[i]);
                     setDesiredOutput(desiredOutcomes[i]);
                     weightTraining();
-                    sum[epoch % 2] += sumOfTheSquaredErrors();
+                    sum += sumOfTheSquaredErrors();
                 } catch (UnevenArraysException ex) {
                     throw new UnevenArraysException("Training set [" + i + "] was of wrong size: " + ex.getMessage());
                 }
             }
+            return sum;
+        }, convergence, result, true);
+    }
 
-            // An attempt at adaptive learning rate; doesn't work as wanted, actually seems to slow down convergence.
-            
-            if (sum[epoch & 1] / sum[(epoch - 1) & 1] > 1.04) {
-                mLearningRate *= 0.7;
-                weightTraining();
-            } else if (sum[epoch & 1] - sum[(epoch - 1) & 1] < 0.0) {
-                mLearningRate *= 1.05;
-                weightTraining();
-            }
-            
-            // Epoch report: Outputs the results of each set, the Sum of the Squared Errors, and the Learning Rate.
-            System.out.printf("Epoch[%d]:\n", epoch);
-            for (int i = 0; i < result.length; i++) {
-                out = "{";
-                int j;
-                for (j = 0; j < result[i].length - 1; j++) {
-                    out += String.format("%.4f,", result[i][j]);
+    /**
+     * Runs a dataset through the network, one pair at a time, until the sum of
+     * the squared errors over an epoch drops to the convergence point. Each
+     * epoch is a fresh pass over the dataset, so only the pair being trained
+     * on need be in memory. Trains exactly as
+     * {@link #train(double[][], double[][], double)} does with the same pairs
+     * in the same order, but reports only the totals of each epoch.
+     *
+     * @param dataset the pairs of training sets and desired outputs.
+     * @param convergence The point at which the network is to be considered
+     * converged.
+     * @throws UnevenArraysException if the number of inputs in a training set
+     * is not equal to the number of input links.
+     * @throws IOException if the dataset could not be read.
+     * @return the number of epochs taken to converge.
+     */
+    public int train(Dataset dataset, double convergence) throws UnevenArraysException, IOException {
+        return mTraining.train(() -> {
+            double sum = 0;
+            int sets = 0;
+            try (Dataset.Cursor cursor = dataset.open()) {
+                while (cursor.next()) {
+                    try {
+                        activation(cursor.getInputs());
+                        setDesiredOutput(cursor.getDesiredOutputs());
+                        weightTraining();
+                        sum += sumOfTheSquaredErrors();
+                    } catch (UnevenArraysException ex) {
+                        throw new UnevenArraysException("Training set [" + sets + "] was of wrong size: " + ex.getMessage());
+                    }
+                    sets++;
                 }
-                out += String.format("%.4f}", result[i][j]);
-                System.out.printf(" Set #%d: %s", i, out); // The output of the network for each activation
             }
-            System.out.printf(" SotSE: %.8f", sum[epoch % 2]); // The Sum of the Squared Errors for this epoch.
-            System.out.printf(" Learning Rate: %.4f\n", mLearningRate); // The Learning Rate for this epoch.
+            return sum;
+        }, convergence, null, true);
+    }
 
-            epoch++;
+    /**
+     * Trains the network in mini-batches. Each batch is run forwards and
+     * backwards as whole-batch matrix operations, the gradients of its rows
+     * are accumulated, and the weights are corrected once per batch using the
+     * mean gradient. Unlike {@link #train(double[][], double[][], double)} the
+     * learning rate is held constant.
+     *
+     * @param trainingSets An array of sets of inputs.
+     * @param desiredOutcomes An array of the desired outputs of the network.
+     * All second tier arrays should be the same size.
+     * @param convergence The point at which the network is to be considered
+     * converged.
+     * @param batchSize the number of training sets per weight correction.
+     * @throws UnevenArraysException if the number of inputs in each training
+     * set is not equal to the number of input links.
+     * @return the number of epochs taken to converge.
+     */
+    public int train(double[][] trainingSets, double[][] desiredOutcomes, double convergence, int batchSize) throws UnevenArraysException {
+        double[][] result;
+        BatchWorkspace workspace;
+
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batch size must be at least 1!");
         }
-        return epoch - 1;
+        if (trainingSets.length != desiredOutcomes.length) {
+            throw new UnevenArraysException("There must be a desired outcome for every training set!");
+        }
+
+        workspace = new BatchWorkspace(mLayers, Math.min(batchSize, trainingSets.length));
+        result = new double[trainingSets.length][mDesiredOutput.length];
+        return mTraining.train(() -> {
+            double sum = 0;
+            for (int from = 0; from < trainingSets.length; from += batchSize) {
+                int to = Math.min(from + batchSize, trainingSets.length);
+                workspace.clearGradients();
+                sum += batchPass(workspace, trainingSets, desiredOutcomes, from, to, result);
+                correctWeights(workspace, to - from);
+            }
+            return sum;
+        }, convergence, result, false);
     }
 
     /**
-     * Runs the network forward once over the inputs provided.
+     * Trains the network in mini-batches, with each batch split across the
+     * threads of a fork/join pool. Every thread runs the forward and backward
+     * pass of its shard of the batch into its own gradient buffers, the
+     * buffers are summed together, and then the shared weights are corrected
+     * once, exactly as in {@link #train(double[][], double[][], double, int)}.
      *
-     * @param input the inputs to be processed by the network.
-     * @return a report of the final values that the network produced.
-     * @throws UnevenArraysException if the number of inputs doesn't match the
-     * number of input nodes.
+     * @param trainingSets An array of sets of inputs.
+     * @param desiredOutcomes An array of the desired outputs of the network.
+     * All second tier arrays should be the same size.
+     * @param convergence The point at which the network is to be considered
+     * converged.
+     * @param batchSize the number of training sets per weight correction.
+     * @param pool the pool to run the shards of each batch on. The batch is
+     * split into as many shards as the pool's parallelism.
+     * @throws UnevenArraysException if the number of inputs in each training
+     * set is not equal to the number of input links.
+     * @return the number of epochs taken to converge.
      */
-    public String run(double[] input) throws UnevenArraysException {
-        String out;
-        String temp;
-        double[] output;
-        double[] inputClone;
-        double[][][] weights = getWeights();
-        double[][] thresholds = getThresholds();
-        inputClone = input.clone();
-        output = activation(inputClone);
-        int i;
-        // validate inputs
-        if (inputClone.length != weights[0][0].length) {
-            throw new UnevenArraysException("There must be exactly "
-                    + weights[0][0].length + " input values!");
-        }
-
-        // List inputs
-        temp = "{";
-        for (i = 0; i < input.length - 1; i++) {
-            temp += String.format("[%d]=%.4f, ", i, inputClone[i]);
-        }
-        temp += String.format("[%d]=%.4f}", i, inputClone[i]);
-        
-        // Insert inputs into final output string
-        out = String.format(
-                "---------------\n"
-                + "| Network Run |\n"
-                + "---------------\n"
-                + "| Input: %s\n", temp);
-
-        out += "---------------\n"; // section divider
-        
-        // List weights
-        temp = "| Weights: \n";
-        for (int layer = 0; layer < weights.length; layer++) {
-            // Layer
-            temp += String.format("| Layer #%d:\n", layer);
-            for (int neuron = 0; neuron < weights[layer].length; neuron++) {
-                // Neuron
-                temp += String.format("|\tN[%d]: {", neuron);
-                int link;
-                for (link = 0; link < weights[layer][neuron].length - 1; link++) {
-                    // Individual weights
-                    temp += String.format("%.4f, ", weights[layer][neuron][link]);
+    public int train(double[][] trainingSets, double[][] desiredOutcomes, double convergence, int batchSize, ForkJoinPool pool) throws UnevenArraysException {
+        int size;
+        int shards;
+        int shardSize;
+        double[][] result;
+        BatchWorkspace[] workspaces;
+
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batch size must be at least 1!");
+        }
+        if (trainingSets.length != desiredOutcomes.length) {
+            throw new UnevenArraysException("There must be a desired outcome for every training set!");
+        }
+        // Validate up front, so the workers never have to
+        for (int i = 0; i < trainingSets.length; i++) {
+            if (trainingSets[i].length != mLayers[0].getInputCount() || desiredOutcomes[i].length != mDesiredOutput.length) {
+                throw new UnevenArraysException("Training set [" + i + "] was of wrong size.");
+            }
+        }
+
+        size = Math.min(batchSize, trainingSets.length);
+        shards = Math.max(1, Math.min(pool.getParallelism(), size));
+        shardSize = (size + shards - 1) / shards;
+        workspaces = new BatchWorkspace[shards];
+        for (int shard = 0; shard < shards; shard++) {
+            workspaces[shard] = new BatchWorkspace(mLayers, shardSize);
+        }
+
+        result = new double[trainingSets.length][mDesiredOutput.length];
+        return mTraining.train(() -> {
+            double sum = 0;
+            for (int from = 0; from < trainingSets.length; from += size) {
+                int to = Math.min(from + size, trainingSets.length);
+                sum += pool.invoke(new GradientShard(this, workspaces, 0, shards,
+                        trainingSets, desiredOutcomes, from, to, shardSize, result));
+                correctWeights(workspaces[0], to - from);
+            }
+            return sum;
+        }, convergence, result, false);
+    }
+
+    /**
+     * Trains the network asynchronously, Hogwild style. The training sets are
+     * dealt out between the threads of a fork/join pool, and every thread runs
+     * per-set training against the one shared copy of the weights at the same
+     * time with no locking. Each thread keeps its activation state in its own
+     * workspace, only the weights, thresholds and momentum deltas are shared,
+     * and these are read and written with plain (relaxed) accesses. A thread
+     * may therefore occasionally overwrite another's correction; for sparse or
+     * large data sets these collisions are rare and cost far less than
+     * synchronizing. The learning rate is held constant.
+     *
+     * Only the classic momentum rule can be trained this way: an optimizer's
+     * state and step count would be shared by every thread with no locking at
+     * all.
+     *
+     * @param trainingSets An array of sets of inputs.
+     * @param desiredOutcomes An array of the desired outputs of the network.
+     * All second tier arrays should be the same size.
+     * @param convergence The point at which the network is to be considered
+     * converged.
+     * @param pool the pool to train on, one worker per unit of parallelism.
+     * @throws UnevenArraysException if the number of inputs in each training
+     * set is not equal to the number of input links.
+     * @throws IllegalStateException if the network is corrected by an
+     * optimizer, see {@link #setOptimizer}.
+     * @return the number of epochs taken to converge.
+     */
+    public int trainAsynchronous(double[][] trainingSets, double[][] desiredOutcomes, double convergence, ForkJoinPool pool) throws UnevenArraysException {
+        int workers;
+        double[][] result;
+        BatchWorkspace[] workspaces;
+        List<Callable<Double>> tasks;
+
+        if (!getOptimizer().equals(Optimizer.MOMENTUM)) {
+            throw new IllegalStateException("Only the classic momentum rule can be trained asynchronously, not " + getOptimizer());
+        }
+        if (trainingSets.length != desiredOutcomes.length) {
+            throw new UnevenArraysException("There must be a desired outcome for every training set!");
+        }
+        // Validate up front, so the workers never have to
+        for (int i = 0; i < trainingSets.length; i++) {
+            if (trainingSets[i].length != mLayers[0].getInputCount() || desiredOutcomes[i].length != mDesiredOutput.length) {
+                throw new UnevenArraysException("Training set [" + i + "] was of wrong size.");
+            }
+        }
+
+        result = new double[trainingSets.length][mDesiredOutput.length];
+        workers = Math.max(1, Math.min(pool.getParallelism(), trainingSets.length));
+        workspaces = new BatchWorkspace[workers];
+        tasks = new ArrayList<>(workers);
+        for (int worker = 0; worker < workers; worker++) {
+            final int first = worker;
+            final int stride = workers;
+            final BatchWorkspace workspace = new BatchWorkspace(mLayers, 1, false);
+            workspaces[worker] = workspace;
+            // Each worker takes every n'th training set
+            tasks.add(() -> {
+                double workerSum = 0;
+                for (int i = first; i < trainingSets.length; i += stride) {
+                    workerSum += asynchronousStep(workspace, trainingSets, desiredOutcomes, i, result);
+                }
+                return workerSum;
+            });
+        }
+
+        return mTraining.train(() -> {
+            double sum = 0;
+            for (Future<Double> part : pool.invokeAll(tasks)) {
+                try {
+                    sum += part.get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    throw new IllegalStateException("Asynchronous training failed: " + ex.getMessage(), ex);
                 }
-                temp += String.format("%.4f}", weights[layer][neuron][link]);
-                temp += String.format(", Threshold: %.4f\n", thresholds[layer][neuron]);
             }
+            return sum;
+        }, convergence, result, false);
+    }
+
+    /**
+     * Runs a batch of training sets forwards and backwards through the
+     * network, adding their gradients onto the workspace's accumulators. The
+     * weights are left untouched.
+     *
+     * @param workspace the buffers to work the batch in.
+     * @param trainingSets An array of sets of inputs.
+     * @param desiredOutcomes An array of the desired outputs of the network.
+     * @param from the first training set of the batch, inclusive.
+     * @param to the last training set of the batch, exclusive.
+     * @param result if not null, receives the outputs of the network for each
+     * training set of the batch.
+     * @return the sum of the squared errors for the batch.
+     * @throws UnevenArraysException if a training set or desired outcome is of
+     * the wrong size.
+     */
+    double batchPass(BatchWorkspace workspace, double[][] trainingSets, double[][] desiredOutcomes, int from, int to, double[][] result) throws UnevenArraysException {
+        int rows = to - from;
+        double sum;
+
+        gather(workspace, trainingSets, desiredOutcomes, from, to);
+        sum = forwardBackward(workspace, rows);
+        for (int layer = 0; layer < mLayers.length; layer++) {
+            mLayers[layer].accumulateGradients(layer == 0 ? workspace.mInputs : workspace.mOutputs[layer - 1],
+                    workspace.mDeltas[layer], rows, workspace.mWeightGradients[layer], workspace.mThresholdGradients[layer]);
         }
-        
-        // Add weights to final output
-        out += temp;
+        scatter(workspace, from, to, result);
+        return sum;
+    }
+
+    /**
+     * Copies a batch of training sets and desired outcomes into a workspace,
+     * validating each set once.
+     *
+     * @param workspace the workspace to gather the batch into.
+     * @param trainingSets An array of sets of inputs.
+     * @param desiredOutcomes An array of the desired outputs of the network,
+     * or null when only scoring.
+     * @param from the first training set of the batch, inclusive.
+     * @param to the last training set of the batch, exclusive.
+     * @throws UnevenArraysException if a training set or desired outcome is of
+     * the wrong size.
+     */
+    private void gather(BatchWorkspace workspace, double[][] trainingSets, double[][] desiredOutcomes, int from, int to) throws UnevenArraysException {
+        int inputs = mLayers[0].getInputCount();
+        int outputs = mDesiredOutput.length;
+        for (int i = from; i < to; i++) {
+            if (trainingSets[i].length != inputs || (desiredOutcomes != null && desiredOutcomes[i].length != outputs)) {
+                throw new UnevenArraysException("Training set [" + i + "] was of wrong size.");
+            }
+            System.arraycopy(trainingSets[i], 0, workspace.mInputs, (i - from) * inputs, inputs);
+            if (desiredOutcomes != null) {
+                System.arraycopy(desiredOutcomes[i], 0, workspace.mDesiredOutputs, (i - from) * outputs, outputs);
+            }
+        }
+    }
+
+    /**
+     * Copies the network's outputs for a batch out of a workspace.
+     *
+     * @param workspace the workspace the batch was worked in.
+     * @param from the first training set of the batch, inclusive.
+     * @param to the last training set of the batch, exclusive.
+     * @param result if not null, receives the outputs of the network for each
+     * training set of the batch.
+     */
+    private void scatter(BatchWorkspace workspace, int from, int to, double[][] result) {
+        int outputs = mDesiredOutput.length;
+        if (result != null) {
+            for (int i = from; i < to; i++) {
+                System.arraycopy(workspace.mOutputs[mLayers.length - 1], (i - from) * outputs, result[i], 0, outputs);
+            }
+        }
+    }
+
+    /**
+     * Runs the batch held in a workspace forwards, each layer as one matrix
+     * product over the batch, then works the error gradients of every layer
+     * backwards from the output layer down.
+     *
+     * @param workspace the workspace holding the batch.
+     * @param rows the number of rows in the batch.
+     * @return the sum of the squared errors for the batch.
+     */
+    private double forwardBackward(BatchWorkspace workspace, int rows) {
+        int last = mLayers.length - 1;
+        double sum;
+
+        forward(workspace, rows);
+        sum = mLayers[last].outputDeltas(workspace.mOutputs[last], workspace.mDesiredOutputs, workspace.mDeltas[last], rows);
+        for (int layer = last - 1; layer >= 0; layer--) {
+            mLayers[layer].hiddenDeltas(mLayers[layer + 1], workspace.mDeltas[layer + 1], workspace.mOutputs[layer], workspace.mDeltas[layer], rows);
+        }
+        return sum;
+    }
+
+    /**
+     * Runs the batch held in a workspace forwards, each layer as one matrix
+     * product over the batch.
+     *
+     * @param workspace the workspace holding the batch.
+     * @param rows the number of rows in the batch.
+     */
+    private void forward(BatchWorkspace workspace, int rows) {
+        mLayers[0].activation(workspace.mInputs, workspace.mOutputs[0], rows);
+        for (int layer = 1; layer < mLayers.length; layer++) {
+            mLayers[layer].activation(workspace.mOutputs[layer - 1], workspace.mOutputs[layer], rows);
+        }
+    }
+
+    /**
+     * Runs one training set through the network and corrects the shared
+     * weights straight away, without taking any locks. All of the activation
+     * state lives in the caller's workspace, so any number of threads may call
+     * this at once; see {@link #trainAsynchronous}.
+     *
+     * @param workspace this thread's workspace, with room for one row.
+     * @param trainingSets An array of sets of inputs.
+     * @param desiredOutcomes An array of the desired outputs of the network.
+     * @param i the training set to work.
+     * @param result if not null, receives the outputs of the network.
+     * @return the sum of the squared errors for the training set.
+     * @throws UnevenArraysException if the training set or desired outcome is
+     * of the wrong size.
+     */
+    private double asynchronousStep(BatchWorkspace workspace, double[][] trainingSets, double[][] desiredOutcomes, int i, double[][] result) throws UnevenArraysException {
+        double sum;
 
-        out += "---------------\n"; // section divider
+        gather(workspace, trainingSets, desiredOutcomes, i, i + 1);
+        sum = forwardBackward(workspace, 1);
+        for (int layer = 0; layer < mLayers.length; layer++) {
+            mLayers[layer].sampleCorrection(layer == 0 ? workspace.mInputs : workspace.mOutputs[layer - 1],
+                    workspace.mDeltas[layer], mLearningRate, mMomentum);
+        }
+        scatter(workspace, i, i + 1, result);
+        return sum;
+    }
 
-        // List outputs
-        temp = "";
-        for (i = 0; i < output.length - 1; i++) {
-            temp += String.format("[%d]=%.4f, ", i, output[i]);
+    /**
+     * Corrects the weights of every layer once, using the mean of the
+     * gradients accumulated in the workspace.
+     *
+     * @param workspace the workspace holding the accumulated gradients.
+     * @param rows the number of training sets the gradients were summed over.
+     */
+    void correctWeights(BatchWorkspace workspace, int rows) {
+        for (int layer = 0; layer < mLayers.length; layer++) {
+            mLayers[layer].gradientCorrection(workspace.mWeightGradients[layer], workspace.mThresholdGradients[layer],
+                    mLearningRate, mMomentum, 1.0 / rows);
         }
-        temp += String.format("[%d]=%.4f", i, output[i]);
-        out += String.format("| Output: %s\n", temp);
+    }
 
-        return out + "---------------"; // return final output + section divider
+    /**
+     * Runs the network forward once over the inputs provided, without touching
+     * the network's own state, see {@link #activation(double[], double[])}.
+     *
+     * @param inputs the inputs to be processed by the network.
+     * @return the outputs of the network.
+     * @throws UnevenArraysException if the number of inputs doesn't match the
+     * number of input nodes.
+     */
+    public double[] predict(double[] inputs) throws UnevenArraysException {
+        double[] outputs = new double[mDesiredOutput.length];
+        activation(inputs, outputs);
+        return outputs;
+    }
+
+    /**
+     * Runs the network forward once over the inputs provided, writing the
+     * outputs into the given array. Allocates nothing once warmed up.
+     *
+     * @param inputs the inputs to be processed by the network.
+     * @param outputs receives the outputs of the network. Must have one value
+     * per output neuron.
+     * @throws UnevenArraysException if the number of inputs doesn't match the
+     * number of input nodes, or the outputs array the number of output
+     * neurons.
+     */
+    public void predict(double[] inputs, double[] outputs) throws UnevenArraysException {
+        activation(inputs, outputs);
+    }
+
+    /**
+     * Runs the network forward once over the inputs provided, keeping a
+     * report of the run that is only rendered when printed.
+     *
+     * @param inputs the inputs to be processed by the network.
+     * @return the outputs of the network, with a report of the run.
+     * @throws UnevenArraysException if the number of inputs doesn't match the
+     * number of input nodes.
+     */
+    public RunReport report(double[] inputs) throws UnevenArraysException {
+        double[] inputClone = inputs.clone();
+        return new RunReport(this, inputClone, predict(inputClone));
+    }
+
+    /**
+     * Runs the network forward once over the inputs provided.
+     *
+     * @param input the inputs to be processed by the network.
+     * @return a report of the final values that the network produced.
+     * @throws UnevenArraysException if the number of inputs doesn't match the
+     * number of input nodes.
+     * @deprecated renders every weight of the network for a single run; use
+     * {@link #predict(double[])} for the outputs, or {@link #report(double[])}
+     * for the report.
+     */
+    @Deprecated
+    public String run(double[] input) throws UnevenArraysException {
+        return report(input).toString();
     }
 
     /**
@@ -465,17 +1175,8 @@ public class Network {
         if (Double.doubleToLongBits(this.mMomentum) != Double.doubleToLongBits(other.mMomentum)) {
             return false;
         }
-        boolean same;
-        same = true;
-        while (same) {
-            for (int l = 0; l < this.mNeurons.length; l++) {
-                for (int n = 0; n < this.mNeurons[l].length; n++) {
-                    same = this.mNeurons[l][n].equals(other.mNeurons[l][n]);
-                    if (same == false) {
-                        return same;
-                    }
-                }
-            }
+        if (!Arrays.equals(this.mLayers, other.mLayers)) {
+            return false;
         }
         if (!Arrays.equals(this.mDesiredOutput, other.mDesiredOutput)) {
             return false;
@@ -494,7 +1195,7 @@ public class Network {
     @Override
     public int hashCode() {
         int hash = 3;
-        hash = 97 * hash + Arrays.deepHashCode(this.mNeurons);
+        hash = 97 * hash + Arrays.hashCode(this.mLayers);
         hash = 97 * hash + Arrays.hashCode(this.mDesiredOutput);
         hash = 97 * hash + (int) (Double.doubleToLongBits(this.mLearningRate) ^ (Double.doubleToLongBits(this.mLearningRate) >>> 32));
         hash = 97 * hash + (int) (Double.doubleToLongBits(this.mMomentum) ^ (Double.doubleToLongBits(this.mMomentum) >>> 32));
@@ -523,9 +1224,9 @@ public class Network {
         out = String.format("Network{\n%20s"
                 + "%s} Learning Rate: %.3f, Momentum: %.3f\n%18s\n", "Desired Outputs: {", outputs, mLearningRate, mMomentum, "Neurons (L,N): {");
 
-        for (int layer = 0; layer < mNeurons.length; layer++) {
-            for (int neuron = 0; neuron < mNeurons[layer].length; neuron++) {
-                out += String.format("%11s(%d,%d) : %s\n", "Neuron", layer, neuron, mNeurons[layer][neuron].toString());
+        for (int layer = 0; layer < mLayers.length; layer++) {
+            for (int neuron = 0; neuron < mLayers[layer].getNeuronCount(); neuron++) {
+                out += String.format("%11s(%d,%d) : %s\n", "Neuron", layer, neuron, mLayers[layer].toString(neuron));
             }
         }
 
@@ -0,0 +1,309 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: OffHeapLayer
+ */
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Random;
+
+/**
+ * A fully connected layer whose weights, thresholds and momentum deltas live
+ * outside the Java heap, in direct buffers. The garbage collector never
+ * scans or moves them, however large the layer. The weight matrix is
+ * row-major as in {@link DenseLayer}, split into chunks of whole rows so that
+ * a layer may hold more than the 2^31 bytes a single buffer can address.
+ * Only the per-neuron scratch values (outputs, slopes and gradients) are kept
+ * on the heap.
+ *
+ * @author Curtis Alcock 18403879
+ */
+class OffHeapLayer {
+
+    /*
+     * The most doubles held in a single chunk, 1GB.
+     */
+    static final int CHUNK_DOUBLES = 1 << 27;
+
+    /*
+     * The number of incoming links for every neuron in the layer.
+     */
+    private final int mInputCount;
+
+    /*
+     * The number of neurons in the layer.
+     */
+    private final int mNeuronCount;
+
+    /*
+     * The number of weight rows held in each chunk.
+     */
+    private final int mRowsPerChunk;
+
+    /*
+     * The chunks of the row-major weight matrix.
+     */
+    private final DoubleBuffer[] mWeights;
+
+    /*
+     * The chunks of the previous delta for each link, laid out as mWeights.
+     */
+    private final DoubleBuffer[] mPreviousWeightsDelta;
+
+    /*
+     * The bias weight of each neuron.
+     */
+    private final DoubleBuffer mThresholds;
+
+    /*
+     * The previous delta for each threshold.
+     */
+    private final DoubleBuffer mPreviousThresholdsDelta;
+
+    /*
+     * The inputs that were passed to the layer in the most recent activation.
+     */
+    private final double[] mInputs;
+
+    /*
+     * The output of each neuron for this iteration.
+     */
+    private final double[] mOutputs;
+
+    /*
+     * The slope of the activation function at each neuron's weighted sum,
+     * recorded on the way forwards.
+     */
+    private final double[] mDerivatives;
+
+    /*
+     * The error gradient of each neuron for this iteration.
+     */
+    private final double[] mGradients;
+
+    /*
+     * The activation function of every neuron in the layer.
+     */
+    private ActivationFunction mFunction;
+
+    /**
+     * Allocates the off-heap storage for a layer of the given shape. All
+     * values start at 0.
+     *
+     * @param noInputs the number of input links each neuron has.
+     * @param noNeurons the number of neurons in the layer.
+     */
+    OffHeapLayer(int noInputs, int noNeurons) {
+        int chunks;
+        mInputCount = noInputs;
+        mNeuronCount = noNeurons;
+        mRowsPerChunk = Math.max(1, Math.min(noNeurons, CHUNK_DOUBLES / Math.max(1, noInputs)));
+        chunks = (noNeurons + mRowsPerChunk - 1) / mRowsPerChunk;
+        mWeights = new DoubleBuffer[chunks];
+        mPreviousWeightsDelta = new DoubleBuffer[chunks];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int rows = Math.min(mRowsPerChunk, noNeurons - chunk * mRowsPerChunk);
+            mWeights[chunk] = allocate(rows * noInputs);
+            mPreviousWeightsDelta[chunk] = allocate(rows * noInputs);
+        }
+        mThresholds = allocate(noNeurons);
+        mPreviousThresholdsDelta = allocate(noNeurons);
+        mInputs = new double[noInputs];
+        mOutputs = new double[noNeurons];
+        mDerivatives = new double[noNeurons];
+        mGradients = new double[noNeurons];
+        mFunction = ActivationFunction.HYPERBOLIC_TANGENT;
+    }
+
+    /**
+     * Initializes the layer with weights and thresholds pseudo-randomly
+     * generated between -1 and +1, consuming the generator in the same order
+     * as {@link DenseLayer#DenseLayer(int, int, Random)}.
+     *
+     * @param noInputs the number of input links each neuron has.
+     * @param noNeurons the number of neurons in the layer.
+     * @param myRand random number generator to generate the weights.
+     */
+    OffHeapLayer(int noInputs, int noNeurons, Random myRand) {
+        this(noInputs, noNeurons);
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            DoubleBuffer chunk = mWeights[neuron / mRowsPerChunk];
+            int row = (neuron % mRowsPerChunk) * mInputCount;
+            for (int link = 0; link < mInputCount; link++) {
+                chunk.put(row + link, myRand.nextDouble() * 2 - 1);
+            }
+            mThresholds.put(neuron, myRand.nextDouble() * 2 - 1);
+        }
+    }
+
+    /**
+     * Copies the given weights and thresholds into off-heap storage.
+     *
+     * @param weights the weights of each neuron, one row per neuron.
+     * @param thresholds the threshold of each neuron.
+     * @param function the activation function of the layer.
+     */
+    OffHeapLayer(double[][] weights, double[] thresholds, ActivationFunction function) {
+        this(weights[0].length, weights.length);
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            DoubleBuffer chunk = mWeights[neuron / mRowsPerChunk];
+            int row = (neuron % mRowsPerChunk) * mInputCount;
+            for (int link = 0; link < mInputCount; link++) {
+                chunk.put(row + link, weights[neuron][link]);
+            }
+            mThresholds.put(neuron, thresholds[neuron]);
+        }
+        mFunction = function;
+    }
+
+    /**
+     * Allocates a zeroed, native ordered, direct buffer.
+     *
+     * @param doubles the number of doubles the buffer holds.
+     * @return the buffer.
+     */
+    private static DoubleBuffer allocate(int doubles) {
+        return ByteBuffer.allocateDirect(doubles * 8).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+    }
+
+    int getInputCount() {
+        return mInputCount;
+    }
+
+    int getNeuronCount() {
+        return mNeuronCount;
+    }
+
+    ActivationFunction getActivationFunction() {
+        return mFunction;
+    }
+
+    void setActivationFunction(ActivationFunction function) {
+        mFunction = function;
+    }
+
+    /**
+     * Gets the number of bytes the layer holds off the heap.
+     *
+     * @return the size of the off-heap storage.
+     */
+    long getOffHeapBytes() {
+        return 16L * (mInputCount + 1) * mNeuronCount;
+    }
+
+    /**
+     * Copies the weights of every neuron onto the heap.
+     *
+     * @return the weights of the layer, one array per neuron.
+     */
+    double[][] getWeights() {
+        double[][] weights;
+        weights = new double[mNeuronCount][mInputCount];
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            DoubleBuffer chunk = mWeights[neuron / mRowsPerChunk].duplicate();
+            chunk.position((neuron % mRowsPerChunk) * mInputCount);
+            chunk.get(weights[neuron]);
+        }
+        return weights;
+    }
+
+    /**
+     * Copies the thresholds of every neuron onto the heap.
+     *
+     * @return the thresholds of the layer.
+     */
+    double[] getThresholds() {
+        double[] thresholds;
+        thresholds = new double[mNeuronCount];
+        mThresholds.duplicate().get(thresholds);
+        return thresholds;
+    }
+
+    /**
+     * Activates every neuron in the layer.
+     *
+     * @param inputs the input values, one per link.
+     * @return the outputs of the layer. This is the layer's own buffer.
+     */
+    double[] activation(double[] inputs) {
+        System.arraycopy(inputs, 0, mInputs, 0, mInputCount);
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            DoubleBuffer chunk = mWeights[neuron / mRowsPerChunk];
+            int row = (neuron % mRowsPerChunk) * mInputCount;
+            double sum = 0;
+            for (int i = 0; i < mInputCount; i++) {
+                sum += mInputs[i] * chunk.get(row + i);
+            }
+            mOutputs[neuron] = mFunction.transfer(sum - mThresholds.get(neuron), mDerivatives, neuron);
+        }
+        return mOutputs;
+    }
+
+    /**
+     * Calculates the error gradients of the output layer.
+     *
+     * @param desiredOutput the desired output of the network.
+     * @return the sum of the squared errors.
+     */
+    double outputGradients(double[] desiredOutput) {
+        double sum;
+        double error;
+        sum = 0;
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            error = desiredOutput[neuron] - mOutputs[neuron];
+            mGradients[neuron] = mDerivatives[neuron] * error;
+            sum += error * error;
+        }
+        return sum;
+    }
+
+    /**
+     * Calculates the error gradients of a hidden layer from those of the
+     * layer it feeds into.
+     *
+     * @param next the layer that this layer feeds into.
+     */
+    void hiddenGradients(OffHeapLayer next) {
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            mGradients[neuron] = 0;
+        }
+        for (int k = 0; k < next.mNeuronCount; k++) {
+            double gradient = next.mGradients[k];
+            DoubleBuffer chunk = next.mWeights[k / next.mRowsPerChunk];
+            int row = (k % next.mRowsPerChunk) * next.mInputCount;
+            for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+                mGradients[neuron] += gradient * chunk.get(row + neuron);
+            }
+        }
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            mGradients[neuron] = mDerivatives[neuron] * mGradients[neuron];
+        }
+    }
+
+    /**
+     * Updates the weights and thresholds of every neuron using the gradients
+     * last calculated.
+     *
+     * @param learningRate the learning rate parameter.
+     * @param momentum the current momentum of the learning algorithm.
+     */
+    void weightCorrection(double learningRate, double momentum) {
+        double delta;
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            DoubleBuffer weights = mWeights[neuron / mRowsPerChunk];
+            DoubleBuffer previous = mPreviousWeightsDelta[neuron / mRowsPerChunk];
+            int index = (neuron % mRowsPerChunk) * mInputCount;
+            for (int link = 0; link < mInputCount; link++, index++) {
+                delta = momentum * previous.get(index) + learningRate * mInputs[link] * mGradients[neuron];
+                weights.put(index, weights.get(index) + delta);
+                previous.put(index, delta);
+            }
+            delta = momentum * mPreviousThresholdsDelta.get(neuron) + learningRate * -1 * mGradients[neuron];
+            mThresholds.put(neuron, mThresholds.get(neuron) + delta);
+            mPreviousThresholdsDelta.put(neuron, delta);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: OffHeapNetwork
+ */
+import java.util.Random;
+import neuralnetworkexceptions.UnevenArraysException;
+
+/**
+ * A network whose weights, thresholds and momentum deltas are stored off the
+ * Java heap, in direct buffers, for models too large to sit comfortably on
+ * it. The forward and backward passes run straight against the off-heap
+ * storage, so a multi-gigabyte model adds nothing to the heap the garbage
+ * collector has to scan. A training step is the same arithmetic, in the same
+ * order, as {@link Network#weightTraining()}, so both give identical
+ * results.
+ *
+ * <p>
+ * The storage is released by the garbage collector once the network is no
+ * longer reachable.
+ * </p>
+ *
+ * @author Curtis Alcock 18403879
+ */
+public class OffHeapNetwork {
+
+    /*
+     * Array containing all calculating neuron layers.
+     */
+    private final OffHeapLayer[] mLayers;
+
+    /*
+     * The optimizer of each layer of the network this was made from, kept
+     * untouched to be handed back, or null for the classic momentum rule.
+     */
+    private final Optimizer[] mOptimizers;
+
+    /**
+     * The learning rate of the network.
+     */
+    public double mLearningRate;
+
+    /**
+     * The momentum constant of the network.
+     */
+    public double mMomentum;
+
+    /*
+     * The desired output of the last set trained on, trained on once more
+     * when the learning rate is adapted.
+     */
+    private double[] mDesiredOutput;
+
+    /*
+     * The epoch loop of train, the same as Network's, with the listeners
+     * told of each reported epoch.
+     */
+    private final TrainingLoop mTraining = new TrainingLoop(new TrainingLoop.LearningRate() {
+        @Override
+        public double get() {
+            return mLearningRate;
+        }
+
+        @Override
+        public void scale(double factor) throws UnevenArraysException {
+            mLearningRate *= factor;
+            weightTraining(mDesiredOutput);
+        }
+    });
+
+    /**
+     * Initializes the network with weights and thresholds pseudo-randomly
+     * generated straight into off-heap storage, the same values
+     * {@link Network#Network(int[], long, double, double)} would generate.
+     *
+     * @param neurons the basic structure of the network, i.e. {2,2,1} meaning 2
+     * input neurons, 1 hidden layer of 2 neurons and 1 output neuron
+     * @param seed the seed to be used when generating the weights.
+     * @param learningRate the learning rate constant for the network.
+     * @param momentum the momentum constant for the network.
+     */
+    public OffHeapNetwork(int[] neurons, long seed, double learningRate, double momentum) {
+        Random random = new Random(seed);
+        mLayers = new OffHeapLayer[neurons.length - 1];
+        for (int layer = 1; layer < neurons.length; layer++) {
+            mLayers[layer - 1] = new OffHeapLayer(neurons[layer - 1], neurons[layer], random);
+        }
+        mOptimizers = new Optimizer[mLayers.length];
+        mLearningRate = learningRate;
+        mMomentum = momentum;
+    }
+
+    /**
+     * Initializes the network with a copy of an on-heap network's weights,
+     * thresholds and activation functions. Its optimizer is kept aside, to be
+     * handed back by {@link #toNetwork()}; it cannot be trained with here.
+     *
+     * @param network the network to be copied.
+     */
+    public OffHeapNetwork(Network network) {
+        double[][][] weights = network.getWeights();
+        double[][] thresholds = network.getThresholds();
+        mLayers = new OffHeapLayer[weights.length];
+        for (int layer = 0; layer < weights.length; layer++) {
+            mLayers[layer] = new OffHeapLayer(weights[layer], thresholds[layer], network.getActivationFunction(layer));
+        }
+        mLearningRate = network.mLearningRate;
+        mMomentum = network.mMomentum;
+        mOptimizers = optimizers(network);
+    }
+
+    /**
+     * Copies the network back onto the heap. The momentum deltas are not
+     * carried over; the optimizer of the network this was made from is, as it
+     * was then.
+     *
+     * @return an on-heap copy of the network.
+     */
+    public Network toNetwork() {
+        Network network = new Network(getWeights(), getThresholds(), mLearningRate, mMomentum);
+        for (int layer = 0; layer < mLayers.length; layer++) {
+            network.setActivationFunction(layer, mLayers[layer].getActivationFunction());
+            if (mOptimizers[layer] != null) {
+                network.getLayer(layer).setOptimizer(mOptimizers[layer].copy());
+            }
+        }
+        return network;
+    }
+
+    /**
+     * Copies the optimizer of each layer of a network.
+     *
+     * @param network the network being copied.
+     * @return a copy of each layer's optimizer, or null for a layer corrected
+     * by the classic momentum rule.
+     */
+    private static Optimizer[] optimizers(Network network) {
+        Optimizer[] optimizers = new Optimizer[network.getLayerCount()];
+        for (int layer = 0; layer < optimizers.length; layer++) {
+            Optimizer optimizer = network.getLayer(layer).getOptimizer();
+            optimizers[layer] = optimizer == null ? null : optimizer.copy();
+        }
+        return optimizers;
+    }
+
+    /**
+     * Sets the activation function of every layer.
+     *
+     * @param function the activation function to be used from now on.
+     */
+    public void setActivationFunction(ActivationFunction function) {
+        for (OffHeapLayer layer : mLayers) {
+            layer.setActivationFunction(function);
+        }
+    }
+
+    /**
+     * Gets the number of bytes the network holds off the heap.
+     *
+     * @return the size of the off-heap storage.
+     */
+    public long getOffHeapBytes() {
+        long bytes = 0;
+        for (OffHeapLayer layer : mLayers) {
+            bytes += layer.getOffHeapBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Copies all the weights in the network onto the heap.
+     *
+     * @return the weights that determine the output of the network.
+     */
+    public double[][][] getWeights() {
+        double[][][] weights;
+        weights = new double[mLayers.length][][];
+        for (int layer = 0; layer < mLayers.length; layer++) {
+            weights[layer] = mLayers[layer].getWeights();
+        }
+        return weights;
+    }
+
+    /**
+     * Copies all the thresholds in the network onto the heap.
+     *
+     * @return all the thresholds in the network.
+     */
+    public double[][] getThresholds() {
+        double[][] thresholds;
+        thresholds = new double[mLayers.length][];
+        for (int layer = 0; layer < mLayers.length; layer++) {
+            thresholds[layer] = mLayers[layer].getThresholds();
+        }
+        return thresholds;
+    }
+
+    /**
+     * Activates the network. Layer by layer, each layer as a whole.
+     *
+     * @param inputs the input values for the network.
+     * @return the result of the entire network's activations.
+     * @throws UnevenArraysException if the inputs array doesn't match the
+     * number of incoming links.
+     */
+    public double[] activation(double[] inputs) throws UnevenArraysException {
+        if (inputs.length != mLayers[0].getInputCount()) {
+            throw new UnevenArraysException("There must be exactly " + mLayers[0].getInputCount() + " input values!");
+        }
+        for (OffHeapLayer layer : mLayers) {
+            inputs = layer.activation(inputs);
+        }
+        return inputs.clone();
+    }
+
+    /**
+     * Back-propagates the error of the last activation and adjusts the
+     * weights for all neurons in the network.
+     *
+     * @param desiredOutput the output that was desired of the last activation.
+     * @return the sum of the squared errors of the last activation.
+     * @throws UnevenArraysException if the desiredOutput param does not match
+     * the number of output neurons.
+     */
+    public double weightTraining(double[] desiredOutput) throws UnevenArraysException {
+        double sum;
+        int last = mLayers.length - 1;
+        if (desiredOutput.length != mLayers[last].getNeuronCount()) {
+            throw new UnevenArraysException("There must be exactly " + mLayers[last].getNeuronCount() + " desired outputs!");
+        }
+        mDesiredOutput = desiredOutput;
+
+        // the output layer
+        sum = mLayers[last].outputGradients(desiredOutput);
+        mLayers[last].weightCorrection(mLearningRate, mMomentum);
+
+        // for each hidden layer, count down from the last hidden layer before the outputs
+        for (int layer = last - 1; layer >= 0; layer--) {
+            mLayers[layer].hiddenGradients(mLayers[layer + 1]);
+            mLayers[layer].weightCorrection(mLearningRate, mMomentum);
+        }
+        return sum;
+    }
+
+    /**
+     * Sets the listener told of the progress of training, in place of the
+     * console report. The outputs of each training set are not kept, so the
+     * listener is passed null for them.
+     *
+     * @param listener the listener, or null for no reports at all.
+     * @param interval the number of epochs between reports. The epoch that
+     * stops training is always reported.
+     */
+    public void setTrainingListener(TrainingListener listener, int interval) {
+        mTraining.setTrainingListener(listener, interval);
+    }
+
+    /**
+     * Trains the network one training set at a time, by the same rule as
+     * {@link Network#train(double[][], double[][], double)}: the same order of
+     * corrections, the same adaptive learning rate and the same test for
+     * convergence.
+     *
+     * @param trainingSets An array of sets of inputs.
+     * @param desiredOutcomes An array of the desired outputs of the network.
+     * All second tier arrays should be the same size.
+     * @param convergence The point at which the network is to be considered
+     * converged.
+     * @throws UnevenArraysException if the number of inputs in each training
+     * set is not equal to the number of input links.
+     * @throws IllegalStateException if the network was made from one corrected
+     * by an optimizer, see {@link Network#setOptimizer}, as this network only
+     * trains with the classic momentum rule.
+     * @return the number of epochs taken to converge.
+     */
+    public int train(double[][] trainingSets, double[][] desiredOutcomes, double convergence) throws UnevenArraysException {
+        for (Optimizer optimizer : mOptimizers) {
+            if (optimizer != null) {
+                throw new IllegalStateException("Only the classic momentum rule can be trained, not " + optimizer.getName());
+            }
+        }
+        return mTraining.train(() -> {
+            double sum = 0;
+            for (int i = 0; i < trainingSets.length; i++) {
+                try {
+                    activation(trainingSets[i]);
+                    sum += weightTraining(desiredOutcomes[i]);
+                } catch (UnevenArraysException ex) {
+                    throw new UnevenArraysException("Training set [" + i + "] was of wrong size: " + ex.getMessage());
+                }
+            }
+            return sum;
+        }, convergence, null, true);
+    }
+}
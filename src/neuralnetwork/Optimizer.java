@@ -0,0 +1,139 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: Optimizer
+ */
+import java.nio.DoubleBuffer;
+
+/**
+ * The rule a layer corrects its weights and thresholds by, along with any
+ * state the rule keeps for each of them. Each layer has its own optimizer,
+ * covering its weights followed by its thresholds.
+ *
+ * <ul>
+ * <li>{@link #MOMENTUM} the learning rate times the step, plus the momentum
+ * constant times the last change. The default, which the layers run
+ * themselves.</li>
+ * <li>{@link #NESTEROV} momentum that looks ahead to where the last change
+ * is carrying the parameter.</li>
+ * <li>{@link #ADAGRAD} each parameter's learning rate scaled down by the sum
+ * of all its squared steps so far.</li>
+ * <li>{@link #RMSPROP} each parameter's learning rate scaled down by a moving
+ * average of its squared steps.</li>
+ * <li>{@link #ADAM} a moving average of the steps, scaled as in RMSProp, with
+ * both averages corrected for starting at 0.</li>
+ * </ul>
+ *
+ * Every rule is given the step that lowers the error, the input of a link
+ * times the error gradient of its neuron for a weight, and works out the
+ * change to make.
+ *
+ * @author Curtis Alcock 18403879
+ */
+public interface Optimizer {
+
+    /**
+     * The name of the classic momentum rule.
+     */
+    String MOMENTUM = "momentum";
+
+    /**
+     * The name of Nesterov's accelerated momentum.
+     */
+    String NESTEROV = "nesterov";
+
+    /**
+     * The name of AdaGrad.
+     */
+    String ADAGRAD = "adagrad";
+
+    /**
+     * The name of RMSProp.
+     */
+    String RMSPROP = "rmsprop";
+
+    /**
+     * The name of Adam.
+     */
+    String ADAM = "adam";
+
+    /**
+     * Creates an optimizer by the name it is saved under, with fresh state.
+     *
+     * @param name the name of the rule, see {@link #getName()}.
+     * @param parameters the number of parameters it is to correct.
+     * @return the optimizer, or null for {@link #MOMENTUM}, which the layers
+     * run themselves.
+     * @throws IllegalArgumentException if there is no rule by that name.
+     */
+    static Optimizer forName(String name, int parameters) {
+        switch (name.trim()) {
+            case MOMENTUM:
+                return null;
+            case NESTEROV:
+                return new StandardOptimizer.Nesterov(parameters);
+            case ADAGRAD:
+                return new StandardOptimizer.AdaGrad(parameters);
+            case RMSPROP:
+                return new StandardOptimizer.RmsProp(parameters);
+            case ADAM:
+                return new StandardOptimizer.Adam(parameters);
+            default:
+                throw new IllegalArgumentException("No optimizer named \"" + name + "\"!");
+        }
+    }
+
+    /**
+     * Gets the name the rule is saved under, e.g. "adam".
+     *
+     * @return the name of the rule.
+     */
+    String getName();
+
+    /**
+     * Starts a new correction. Called once before each correction of the
+     * parameters, ahead of any call to {@link #delta}.
+     */
+    default void nextStep() {
+    }
+
+    /**
+     * Works out the change to make to a parameter, updating its state.
+     *
+     * @param index the parameter, weights first and then thresholds.
+     * @param step the step that lowers the error.
+     * @param learningRate the learning rate parameter.
+     * @param momentum the momentum constant, for the rules that use it.
+     * @return the change to be added to the parameter.
+     */
+    double delta(int index, double step, double learningRate, double momentum);
+
+    /**
+     * Gets a copy of the state of the rule, e.g. to be saved with the
+     * training state of a network.
+     *
+     * @return the state, of the same length for every optimizer of this rule
+     * and number of parameters.
+     */
+    double[] getState();
+
+    /**
+     * Sets the state of the rule, as returned by {@link #getState()}. The
+     * buffer is read from its current position, which is advanced past the
+     * values read.
+     *
+     * @param state the state of the rule.
+     * @throws java.nio.BufferUnderflowException if the buffer holds too few
+     * values.
+     */
+    void setState(DoubleBuffer state);
+
+    /**
+     * Takes a copy of the optimizer, state and all.
+     *
+     * @return a copy that goes on exactly as this one would.
+     */
+    Optimizer copy();
+}
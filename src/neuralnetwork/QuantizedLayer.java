@@ -0,0 +1,143 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: QuantizedLayer
+ */
+/**
+ * A fully connected layer with 8 bit weights, for inference only. Each
+ * neuron's weights are scaled so the largest of them maps onto 127, and the
+ * layer's inputs are scaled likewise by the largest input seen during
+ * calibration. A neuron's weighted sum is then an exact 32 bit integer dot
+ * product, turned back into a real number with a single multiply by the
+ * product of the two scales.
+ *
+ * <p>
+ * The integer accumulator cannot overflow for fewer than 133,000 inputs per
+ * neuron.
+ * </p>
+ *
+ * @author Curtis Alcock 18403879
+ */
+class QuantizedLayer {
+
+    /*
+     * The largest magnitude of a quantized value.
+     */
+    static final int LEVELS = 127;
+
+    /*
+     * The number of incoming links for every neuron in the layer.
+     */
+    private final int mInputCount;
+
+    /*
+     * The number of neurons in the layer.
+     */
+    private final int mNeuronCount;
+
+    /*
+     * Row-major quantized weight matrix, laid out as in DenseLayer.
+     */
+    private final byte[] mWeights;
+
+    /*
+     * For each neuron, the input scale times its weight scale: what one unit
+     * of the integer dot product is worth.
+     */
+    private final double[] mScales;
+
+    /*
+     * The bias weight of each neuron, left unquantized.
+     */
+    private final double[] mThresholds;
+
+    /*
+     * One unit of a quantized input is worth this much.
+     */
+    private final double mInputScale;
+
+    /*
+     * The activation function of every neuron in the layer.
+     */
+    private final ActivationFunction mFunction;
+
+    /**
+     * Quantizes a layer.
+     *
+     * @param layer the layer to be quantized.
+     * @param inputRange the largest magnitude of any input to the layer.
+     */
+    QuantizedLayer(DenseLayer layer, double inputRange) {
+        double range;
+        mInputCount = layer.getInputCount();
+        mNeuronCount = layer.getNeuronCount();
+        mWeights = new byte[mInputCount * mNeuronCount];
+        mScales = new double[mNeuronCount];
+        mThresholds = layer.getThresholds();
+        mInputScale = inputRange > 0 ? inputRange / LEVELS : 1;
+        mFunction = layer.isApproximate() ? layer.getActivationFunction().approximate() : layer.getActivationFunction();
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            range = 0;
+            for (int link = 0; link < mInputCount; link++) {
+                range = Math.max(range, Math.abs(layer.getWeight(neuron, link)));
+            }
+            double weightScale = range > 0 ? range / LEVELS : 1;
+            for (int link = 0; link < mInputCount; link++) {
+                mWeights[neuron * mInputCount + link] = (byte) Math.round(layer.getWeight(neuron, link) / weightScale);
+            }
+            mScales[neuron] = mInputScale * weightScale;
+        }
+    }
+
+    int getInputCount() {
+        return mInputCount;
+    }
+
+    int getNeuronCount() {
+        return mNeuronCount;
+    }
+
+    /**
+     * Gets the number of bytes the weights, scales and thresholds of the layer
+     * take up.
+     *
+     * @return the size of the layer's parameters.
+     */
+    long getParameterBytes() {
+        return mWeights.length + 8L * (mScales.length + mThresholds.length);
+    }
+
+    /**
+     * Quantizes a run of inputs to this layer. Values beyond the calibrated
+     * range saturate at +/-127.
+     *
+     * @param values the real valued inputs.
+     * @param quantized receives the quantized inputs.
+     */
+    void quantize(double[] values, byte[] quantized) {
+        double inverse = 1 / mInputScale;
+        for (int i = 0; i < mInputCount; i++) {
+            long level = Math.round(values[i] * inverse);
+            quantized[i] = (byte) (level > LEVELS ? LEVELS : level < -LEVELS ? -LEVELS : level);
+        }
+    }
+
+    /**
+     * Activates every neuron in the layer.
+     *
+     * @param inputs the quantized inputs, from {@link #quantize}.
+     * @param outputs receives the output of each neuron.
+     */
+    void activation(byte[] inputs, double[] outputs) {
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            int sum = 0;
+            int row = neuron * mInputCount;
+            for (int i = 0; i < mInputCount; i++) {
+                sum += inputs[i] * mWeights[row + i];
+            }
+            outputs[neuron] = mFunction.transfer(sum * mScales[neuron] - mThresholds[neuron]);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: QuantizedNetwork
+ */
+import neuralnetworkexceptions.UnevenArraysException;
+
+/**
+ * An 8 bit quantized snapshot of a {@link Network} for inference only. Made
+ * with {@link Network#quantize(double[][])}, which runs a set of calibration
+ * inputs through the network to find the range of values each layer sees.
+ * Weights are stored as bytes with a scale per neuron, inputs to each layer
+ * are quantized with a scale per layer, and each weighted sum is accumulated
+ * as a 32 bit integer. Thresholds and activation functions stay in double
+ * precision.
+ *
+ * <p>
+ * The error the quantization brings, measured over the calibration inputs
+ * against the double precision network, is kept with the snapshot, see
+ * {@link #getMaxError()}, {@link #getMeanError()} and {@link #toString()}.
+ * Like {@link CompiledNetwork} a snapshot keeps no state between calls, so
+ * it can be shared by any number of scoring threads.
+ * </p>
+ *
+ * @author Curtis Alcock 18403879
+ */
+public final class QuantizedNetwork {
+
+    /*
+     * The quantized layers of the network.
+     */
+    private final QuantizedLayer[] mLayers;
+
+    /*
+     * Each thread's buffers for the quantized inputs of every layer.
+     */
+    private final ThreadLocal<byte[][]> mQuantized;
+
+    /*
+     * Each thread's buffers for the outputs of every layer.
+     */
+    private final ThreadLocal<double[][]> mOutputs;
+
+    /*
+     * The number of bytes the parameters of the source network take up.
+     */
+    private final long mSourceBytes;
+
+    /*
+     * The largest absolute difference from the source network's outputs over
+     * the calibration inputs.
+     */
+    private final double mMaxError;
+
+    /*
+     * The mean absolute difference from the source network's outputs over the
+     * calibration inputs.
+     */
+    private final double mMeanError;
+
+    /**
+     * Calibrates and quantizes the given layers.
+     *
+     * @param layers the layers of the network to be quantized.
+     * @param calibrationSets input sets representative of those the network
+     * will be asked to score, e.g. its training sets.
+     * @throws UnevenArraysException if a calibration set doesn't match the
+     * number of incoming links.
+     */
+    QuantizedNetwork(DenseLayer[] layers, double[][] calibrationSets) throws UnevenArraysException {
+        DenseLayer[] copies;
+        double[] ranges;
+        double[] reference;
+        double[] outputs;
+        double max, total;
+        long sourceBytes;
+
+        if (calibrationSets.length == 0) {
+            throw new IllegalArgumentException("At least one calibration set is needed!");
+        }
+
+        // run the calibration sets through private copies, noting the largest
+        // input seen by each layer
+        copies = new DenseLayer[layers.length];
+        ranges = new double[layers.length];
+        sourceBytes = 0;
+        for (int layer = 0; layer < layers.length; layer++) {
+            copies[layer] = new DenseLayer(layers[layer]);
+            copies[layer].setApproximate(layers[layer].isApproximate());
+            sourceBytes += 8L * (layers[layer].getInputCount() + 1) * layers[layer].getNeuronCount();
+        }
+        for (double[] set : calibrationSets) {
+            double[] inputs = set;
+            for (int layer = 0; layer < copies.length; layer++) {
+                for (double input : inputs) {
+                    ranges[layer] = Math.max(ranges[layer], Math.abs(input));
+                }
+                inputs = copies[layer].activation(inputs);
+            }
+        }
+
+        mLayers = new QuantizedLayer[layers.length];
+        for (int layer = 0; layer < layers.length; layer++) {
+            mLayers[layer] = new QuantizedLayer(layers[layer], ranges[layer]);
+        }
+        mSourceBytes = sourceBytes;
+        mQuantized = ThreadLocal.withInitial(() -> {
+            byte[][] quantized = new byte[mLayers.length][];
+            for (int layer = 0; layer < mLayers.length; layer++) {
+                quantized[layer] = new byte[mLayers[layer].getInputCount()];
+            }
+            return quantized;
+        });
+        mOutputs = ThreadLocal.withInitial(() -> {
+            double[][] buffers = new double[mLayers.length][];
+            for (int layer = 0; layer < mLayers.length; layer++) {
+                buffers[layer] = new double[mLayers[layer].getNeuronCount()];
+            }
+            return buffers;
+        });
+
+        // measure the error against the double precision copies
+        max = 0;
+        total = 0;
+        outputs = new double[getOutputCount()];
+        for (double[] set : calibrationSets) {
+            reference = set;
+            for (DenseLayer copy : copies) {
+                reference = copy.activation(reference);
+            }
+            activation(set, outputs);
+            for (int i = 0; i < outputs.length; i++) {
+                double error = Math.abs(reference[i] - outputs[i]);
+                max = Math.max(max, error);
+                total += error;
+            }
+        }
+        mMaxError = max;
+        mMeanError = total / (calibrationSets.length * outputs.length);
+    }
+
+    /**
+     * Gets the number of input values the network takes.
+     *
+     * @return the number of inputs.
+     */
+    public int getInputCount() {
+        return mLayers[0].getInputCount();
+    }
+
+    /**
+     * Gets the number of output values the network produces.
+     *
+     * @return the number of output neurons.
+     */
+    public int getOutputCount() {
+        return mLayers[mLayers.length - 1].getNeuronCount();
+    }
+
+    /**
+     * Gets the largest absolute difference between any output of this and the
+     * double precision network, over the calibration inputs.
+     *
+     * @return the largest output error.
+     */
+    public double getMaxError() {
+        return mMaxError;
+    }
+
+    /**
+     * Gets the mean absolute difference between the outputs of this and the
+     * double precision network, over the calibration inputs.
+     *
+     * @return the mean output error.
+     */
+    public double getMeanError() {
+        return mMeanError;
+    }
+
+    /**
+     * Gets the number of bytes the quantized weights, scales and thresholds
+     * take up.
+     *
+     * @return the size of the model.
+     */
+    public long getModelBytes() {
+        long bytes = 0;
+        for (QuantizedLayer layer : mLayers) {
+            bytes += layer.getParameterBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Activates the network.
+     *
+     * @param inputs the input values for the network.
+     * @return the result of the network's activation.
+     * @throws UnevenArraysException if the inputs array doesn't match the
+     * number of incoming links.
+     */
+    public double[] activation(double[] inputs) throws UnevenArraysException {
+        double[] outputs;
+        outputs = new double[getOutputCount()];
+        activation(inputs, outputs);
+        return outputs;
+    }
+
+    /**
+     * Activates the network, writing the result into the given array. Once
+     * warmed up this allocates nothing.
+     *
+     * @param inputs the input values for the network.
+     * @param outputs receives the result of the network's activation. Must
+     * have one value per output neuron.
+     * @throws UnevenArraysException if the inputs array doesn't match the
+     * number of incoming links, or the outputs array the number of output
+     * neurons.
+     */
+    public void activation(double[] inputs, double[] outputs) throws UnevenArraysException {
+        byte[][] quantized;
+        double[][] buffers;
+        int last = mLayers.length - 1;
+
+        if (inputs.length != getInputCount()) {
+            throw new UnevenArraysException("There must be exactly " + getInputCount() + " input values!");
+        }
+        if (outputs.length != getOutputCount()) {
+            throw new UnevenArraysException("There must be exactly " + getOutputCount() + " output values!");
+        }
+
+        quantized = mQuantized.get();
+        buffers = mOutputs.get();
+        mLayers[0].quantize(inputs, quantized[0]);
+        for (int layer = 0; layer < last; layer++) {
+            mLayers[layer].activation(quantized[layer], buffers[layer]);
+            mLayers[layer + 1].quantize(buffers[layer], quantized[layer + 1]);
+        }
+        mLayers[last].activation(quantized[last], outputs);
+    }
+
+    /**
+     * Activates the network for a whole batch of input sets.
+     *
+     * @param inputs the sets of input values for the network.
+     * @return the outputs of the network for each input set.
+     * @throws UnevenArraysException if an input set doesn't match the number of
+     * incoming links.
+     */
+    public double[][] activateBatch(double[][] inputs) throws UnevenArraysException {
+        double[][] outputs;
+        outputs = new double[inputs.length][getOutputCount()];
+        for (int i = 0; i < inputs.length; i++) {
+            try {
+                activation(inputs[i], outputs[i]);
+            } catch (UnevenArraysException ex) {
+                throw new UnevenArraysException("Input set [" + i + "] was of wrong size: " + ex.getMessage());
+            }
+        }
+        return outputs;
+    }
+
+    /**
+     * Reports the size of the quantized model against the source network and
+     * the error the quantization brought.
+     *
+     * @return the quantization report.
+     */
+    @Override
+    public String toString() {
+        return String.format("Quantized network: %d bytes (source %d bytes, x%.1f smaller)\n"
+                + "Calibration error: max %.6f, mean %.6f\n",
+                getModelBytes(), mSourceBytes, (double) mSourceBytes / getModelBytes(), mMaxError, mMeanError);
+    }
+}
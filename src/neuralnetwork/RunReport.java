@@ -0,0 +1,128 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: RunReport
+ */
+import java.util.Formatter;
+
+/**
+ * The result of running the network once over a set of inputs, with a
+ * human-readable report of the run: the inputs, every weight and threshold of
+ * the network, and the outputs. The report is only rendered the first time it
+ * is asked for, so a run that is never printed costs no more than
+ * {@link Network#predict(double[])}. The weights are read from the network at
+ * that time, so the report is best rendered before the network is trained
+ * further.
+ *
+ * @author Curtis Alcock 18403879
+ */
+public class RunReport {
+
+    /*
+     * The network that was run.
+     */
+    private final Network mNetwork;
+
+    /*
+     * The inputs the network was run over.
+     */
+    private final double[] mInputs;
+
+    /*
+     * The outputs the network produced.
+     */
+    private final double[] mOutputs;
+
+    /*
+     * The rendered report, once asked for.
+     */
+    private String mText;
+
+    /**
+     * Initializes the report. The arrays are kept, not copied.
+     *
+     * @param network the network that was run.
+     * @param inputs the inputs the network was run over.
+     * @param outputs the outputs the network produced.
+     */
+    RunReport(Network network, double[] inputs, double[] outputs) {
+        mNetwork = network;
+        mInputs = inputs;
+        mOutputs = outputs;
+    }
+
+    /**
+     * Gets the inputs the network was run over.
+     *
+     * @return a copy of the inputs.
+     */
+    public double[] getInputs() {
+        return mInputs.clone();
+    }
+
+    /**
+     * Gets the outputs the network produced.
+     *
+     * @return a copy of the outputs.
+     */
+    public double[] getOutputs() {
+        return mOutputs.clone();
+    }
+
+    /**
+     * Renders the report of the run, the first time it is asked for.
+     *
+     * @return the inputs, weights, thresholds and outputs of the run.
+     */
+    @Override
+    public String toString() {
+        if (mText == null) {
+            mText = render();
+        }
+        return mText;
+    }
+
+    /**
+     * Renders the report of the run in a single buffer.
+     *
+     * @return the inputs, weights, thresholds and outputs of the run.
+     */
+    private String render() {
+        StringBuilder out = new StringBuilder();
+        Formatter format = new Formatter(out);
+
+        out.append("---------------\n"
+                + "| Network Run |\n"
+                + "---------------\n"
+                + "| Input: {");
+        for (int i = 0; i < mInputs.length; i++) {
+            format.format(i < mInputs.length - 1 ? "[%d]=%.4f, " : "[%d]=%.4f}", i, mInputs[i]);
+        }
+        out.append("\n---------------\n"); // section divider
+
+        // List weights, straight from the layers rather than a copy of them
+        out.append("| Weights: \n");
+        for (int layer = 0; layer < mNetwork.getLayerCount(); layer++) {
+            DenseLayer dense = mNetwork.getLayer(layer);
+            format.format("| Layer #%d:\n", layer);
+            for (int neuron = 0; neuron < dense.getNeuronCount(); neuron++) {
+                format.format("|\tN[%d]: {", neuron);
+                for (int link = 0; link < dense.getInputCount(); link++) {
+                    format.format(link < dense.getInputCount() - 1 ? "%.4f, " : "%.4f}", dense.getWeight(neuron, link));
+                }
+                format.format(", Threshold: %.4f\n", dense.getThreshold(neuron));
+            }
+        }
+
+        out.append("---------------\n"); // section divider
+
+        out.append("| Output: ");
+        for (int i = 0; i < mOutputs.length; i++) {
+            format.format(i < mOutputs.length - 1 ? "[%d]=%.4f, " : "[%d]=%.4f", i, mOutputs[i]);
+        }
+        out.append("\n---------------"); // final section divider
+        return out.toString();
+    }
+}
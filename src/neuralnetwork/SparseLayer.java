@@ -0,0 +1,112 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: SparseLayer
+ */
+/**
+ * A fully connected layer stored in compressed sparse row form, for
+ * inference only. Only the links whose weight is not 0 are kept: for neuron
+ * 'n' they are held at [mRowStart[n], mRowStart[n + 1]) of mColumns, the
+ * index of the input each link comes from, and mValues, its weight. A pass
+ * over the layer therefore costs one multiply per non-zero weight.
+ *
+ * @author Curtis Alcock 18403879
+ */
+class SparseLayer {
+
+    /*
+     * The number of incoming links for every neuron in the layer, pruned or
+     * not.
+     */
+    private final int mInputCount;
+
+    /*
+     * The number of neurons in the layer.
+     */
+    private final int mNeuronCount;
+
+    /*
+     * Where each neuron's links start in mColumns and mValues, with one extra
+     * entry marking the end of the last neuron's.
+     */
+    private final int[] mRowStart;
+
+    /*
+     * The input each non-zero link comes from.
+     */
+    private final int[] mColumns;
+
+    /*
+     * The weight of each non-zero link.
+     */
+    private final double[] mValues;
+
+    /*
+     * The bias weight of each neuron.
+     */
+    private final double[] mThresholds;
+
+    /*
+     * The activation function of every neuron in the layer.
+     */
+    private final ActivationFunction mFunction;
+
+    /**
+     * Compresses a layer, dropping every link whose weight is 0.
+     *
+     * @param layer the layer to be compressed.
+     */
+    SparseLayer(DenseLayer layer) {
+        int nonZero;
+        mInputCount = layer.getInputCount();
+        mNeuronCount = layer.getNeuronCount();
+        mRowStart = new int[mNeuronCount + 1];
+        mColumns = new int[layer.getNonZeroCount()];
+        mValues = new double[mColumns.length];
+        mThresholds = layer.getThresholds();
+        mFunction = layer.isApproximate() ? layer.getActivationFunction().approximate() : layer.getActivationFunction();
+        nonZero = 0;
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            mRowStart[neuron] = nonZero;
+            for (int link = 0; link < mInputCount; link++) {
+                double weight = layer.getWeight(neuron, link);
+                if (weight != 0) {
+                    mColumns[nonZero] = link;
+                    mValues[nonZero] = weight;
+                    nonZero++;
+                }
+            }
+        }
+        mRowStart[mNeuronCount] = nonZero;
+    }
+
+    int getInputCount() {
+        return mInputCount;
+    }
+
+    int getNeuronCount() {
+        return mNeuronCount;
+    }
+
+    int getNonZeroCount() {
+        return mValues.length;
+    }
+
+    /**
+     * Activates every neuron in the layer.
+     *
+     * @param inputs the input values, one per link.
+     * @param outputs receives the output of each neuron.
+     */
+    void activation(double[] inputs, double[] outputs) {
+        for (int neuron = 0; neuron < mNeuronCount; neuron++) {
+            double sum = 0;
+            for (int k = mRowStart[neuron]; k < mRowStart[neuron + 1]; k++) {
+                sum += inputs[mColumns[k]] * mValues[k];
+            }
+            outputs[neuron] = mFunction.transfer(sum - mThresholds[neuron]);
+        }
+    }
+}
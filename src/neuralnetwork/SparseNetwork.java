@@ -0,0 +1,149 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: SparseNetwork
+ */
+import neuralnetworkexceptions.UnevenArraysException;
+
+/**
+ * A snapshot of a pruned {@link Network} for inference only, each layer held
+ * in compressed sparse row form so that scoring costs one multiply per
+ * non-zero weight. Made with {@link Network#compileSparse()}, usually after
+ * {@link Network#prune(double)} or {@link Network#pruneTopK(int)}. Like
+ * {@link CompiledNetwork} a snapshot keeps no state between calls, so it can
+ * be shared by any number of scoring threads.
+ *
+ * @author Curtis Alcock 18403879
+ */
+public final class SparseNetwork {
+
+    /*
+     * The compressed layers of the network.
+     */
+    private final SparseLayer[] mLayers;
+
+    /*
+     * Each thread's buffers for the outputs of every hidden layer.
+     */
+    private final ThreadLocal<double[][]> mOutputs;
+
+    /**
+     * Compresses the given layers.
+     *
+     * @param layers the layers of the network to be compressed.
+     */
+    SparseNetwork(DenseLayer[] layers) {
+        mLayers = new SparseLayer[layers.length];
+        for (int layer = 0; layer < layers.length; layer++) {
+            mLayers[layer] = new SparseLayer(layers[layer]);
+        }
+        mOutputs = ThreadLocal.withInitial(() -> {
+            double[][] buffers = new double[mLayers.length][];
+            for (int layer = 0; layer < mLayers.length; layer++) {
+                buffers[layer] = new double[mLayers[layer].getNeuronCount()];
+            }
+            return buffers;
+        });
+    }
+
+    /**
+     * Gets the number of input values the network takes.
+     *
+     * @return the number of inputs.
+     */
+    public int getInputCount() {
+        return mLayers[0].getInputCount();
+    }
+
+    /**
+     * Gets the number of output values the network produces.
+     *
+     * @return the number of output neurons.
+     */
+    public int getOutputCount() {
+        return mLayers[mLayers.length - 1].getNeuronCount();
+    }
+
+    /**
+     * Gets the number of links kept, i.e. those whose weight is not 0.
+     *
+     * @return the number of non-zero weights in the network.
+     */
+    public int getNonZeroCount() {
+        int count = 0;
+        for (SparseLayer layer : mLayers) {
+            count += layer.getNonZeroCount();
+        }
+        return count;
+    }
+
+    /**
+     * Activates the network.
+     *
+     * @param inputs the input values for the network.
+     * @return the result of the network's activation.
+     * @throws UnevenArraysException if the inputs array doesn't match the
+     * number of incoming links.
+     */
+    public double[] activation(double[] inputs) throws UnevenArraysException {
+        double[] outputs;
+        outputs = new double[getOutputCount()];
+        activation(inputs, outputs);
+        return outputs;
+    }
+
+    /**
+     * Activates the network, writing the result into the given array. Once
+     * warmed up this allocates nothing.
+     *
+     * @param inputs the input values for the network.
+     * @param outputs receives the result of the network's activation. Must
+     * have one value per output neuron.
+     * @throws UnevenArraysException if the inputs array doesn't match the
+     * number of incoming links, or the outputs array the number of output
+     * neurons.
+     */
+    public void activation(double[] inputs, double[] outputs) throws UnevenArraysException {
+        double[][] buffers;
+        double[] layerInputs;
+        int last = mLayers.length - 1;
+
+        if (inputs.length != getInputCount()) {
+            throw new UnevenArraysException("There must be exactly " + getInputCount() + " input values!");
+        }
+        if (outputs.length != getOutputCount()) {
+            throw new UnevenArraysException("There must be exactly " + getOutputCount() + " output values!");
+        }
+
+        buffers = mOutputs.get();
+        layerInputs = inputs;
+        for (int layer = 0; layer < last; layer++) {
+            mLayers[layer].activation(layerInputs, buffers[layer]);
+            layerInputs = buffers[layer];
+        }
+        mLayers[last].activation(layerInputs, outputs);
+    }
+
+    /**
+     * Activates the network for a whole batch of input sets.
+     *
+     * @param inputs the sets of input values for the network.
+     * @return the outputs of the network for each input set.
+     * @throws UnevenArraysException if an input set doesn't match the number of
+     * incoming links.
+     */
+    public double[][] activateBatch(double[][] inputs) throws UnevenArraysException {
+        double[][] outputs;
+        outputs = new double[inputs.length][getOutputCount()];
+        for (int i = 0; i < inputs.length; i++) {
+            try {
+                activation(inputs[i], outputs[i]);
+            } catch (UnevenArraysException ex) {
+                throw new UnevenArraysException("Input set [" + i + "] was of wrong size: " + ex.getMessage());
+            }
+        }
+        return outputs;
+    }
+}
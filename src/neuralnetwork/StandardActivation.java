@@ -0,0 +1,136 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: StandardActivation
+ */
+/**
+ * The activation functions that come with the network. See
+ * {@link ActivationFunction} for the constants that expose them.
+ *
+ * @author Curtis Alcock 18403879
+ */
+enum StandardActivation implements ActivationFunction {
+
+    SIGMOID("sigmoid") {
+        @Override
+        public double transfer(double input) {
+            return 1 / (1 + Math.exp(-1.0 * input));
+        }
+
+        @Override
+        public double slope(double output) {
+            return output * (1 - output);
+        }
+
+        @Override
+        public ActivationFunction approximate() {
+            return APPROXIMATE_SIGMOID;
+        }
+    },
+    HYPERBOLIC_TANGENT("tanh") {
+        @Override
+        public double transfer(double input) {
+            return ((2.0 * Neuron.HYPERBOLIC_TANGENT_A) / (1.0 + Math.exp(-Neuron.HYPERBOLIC_TANGENT_B * input))) - Neuron.HYPERBOLIC_TANGENT_A;
+        }
+
+        /**
+         * With s = 1 / (1 + e^(-b*x)), the output is a * (2s - 1) and the
+         * slope 2ab * s * (1 - s), which rearranges to
+         * b / 2a * (a - y) * (a + y).
+         */
+        @Override
+        public double slope(double output) {
+            return Neuron.HYPERBOLIC_TANGENT_B / (2 * Neuron.HYPERBOLIC_TANGENT_A)
+                    * (Neuron.HYPERBOLIC_TANGENT_A - output) * (Neuron.HYPERBOLIC_TANGENT_A + output);
+        }
+
+        @Override
+        public double transfer(double input, double[] slopes, int index) {
+            // one exp() serves both the output and its slope
+            double exp = Math.exp(-Neuron.HYPERBOLIC_TANGENT_B * input);
+            slopes[index] = (2 * Neuron.HYPERBOLIC_TANGENT_A * Neuron.HYPERBOLIC_TANGENT_B * exp) / ((1.0 + exp) * (1.0 + exp));
+            return ((2.0 * Neuron.HYPERBOLIC_TANGENT_A) / (1.0 + exp)) - Neuron.HYPERBOLIC_TANGENT_A;
+        }
+
+        @Override
+        public ActivationFunction approximate() {
+            return APPROXIMATE_HYPERBOLIC_TANGENT;
+        }
+    },
+    RELU("relu") {
+        @Override
+        public double transfer(double input) {
+            return input > 0 ? input : 0;
+        }
+
+        @Override
+        public double slope(double output) {
+            return output > 0 ? 1 : 0;
+        }
+    },
+    LEAKY_RELU("leakyRelu") {
+        @Override
+        public double transfer(double input) {
+            return input > 0 ? input : LEAK * input;
+        }
+
+        @Override
+        public double slope(double output) {
+            return output > 0 ? 1 : LEAK;
+        }
+    },
+    HARD_TANH("hardTanh") {
+        @Override
+        public double transfer(double input) {
+            return input < -1 ? -1 : input > 1 ? 1 : input;
+        }
+
+        @Override
+        public double slope(double output) {
+            return output > -1 && output < 1 ? 1 : 0;
+        }
+    },
+    APPROXIMATE_SIGMOID("approximateSigmoid") {
+        @Override
+        public double transfer(double input) {
+            return FastActivation.sigmoid(input);
+        }
+
+        @Override
+        public double slope(double output) {
+            return SIGMOID.slope(output);
+        }
+    },
+    APPROXIMATE_HYPERBOLIC_TANGENT("approximateTanh") {
+        @Override
+        public double transfer(double input) {
+            return FastActivation.hyperbolicTangent(input);
+        }
+
+        @Override
+        public double slope(double output) {
+            return HYPERBOLIC_TANGENT.slope(output);
+        }
+    };
+
+    /*
+     * The slope of the leaky ReLU below 0.
+     */
+    private static final double LEAK = 0.01;
+
+    /*
+     * The name the function is saved under.
+     */
+    private final String mName;
+
+    StandardActivation(String name) {
+        mName = name;
+    }
+
+    @Override
+    public String getName() {
+        return mName;
+    }
+}
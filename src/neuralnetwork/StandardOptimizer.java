@@ -0,0 +1,238 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: StandardOptimizer
+ */
+import java.nio.DoubleBuffer;
+
+/**
+ * The optimizers that come with the network, see {@link Optimizer}. Each
+ * keeps one or two values of state per parameter, in flat arrays.
+ *
+ * @author Curtis Alcock 18403879
+ */
+abstract class StandardOptimizer implements Optimizer {
+
+    /*
+     * Added to every divisor, so a parameter that has never moved does not
+     * divide by 0.
+     */
+    static final double EPSILON = 1e-8;
+
+    /*
+     * The state of each parameter.
+     */
+    final double[] mState;
+
+    /**
+     * Initializes the optimizer with fresh state.
+     *
+     * @param length the number of values of state.
+     */
+    StandardOptimizer(int length) {
+        mState = new double[length];
+    }
+
+    /**
+     * Initializes the optimizer with a copy of another's state.
+     *
+     * @param other the optimizer to be copied.
+     */
+    StandardOptimizer(StandardOptimizer other) {
+        mState = other.mState.clone();
+    }
+
+    @Override
+    public double[] getState() {
+        return mState.clone();
+    }
+
+    @Override
+    public void setState(DoubleBuffer state) {
+        state.get(mState);
+    }
+
+    /**
+     * Nesterov's accelerated momentum, in the form that keeps a velocity per
+     * parameter: v = momentum * v + rate * step, and the change is
+     * momentum * v + rate * step.
+     */
+    static final class Nesterov extends StandardOptimizer {
+
+        Nesterov(int parameters) {
+            super(parameters);
+        }
+
+        private Nesterov(Nesterov other) {
+            super(other);
+        }
+
+        @Override
+        public String getName() {
+            return NESTEROV;
+        }
+
+        @Override
+        public double delta(int index, double step, double learningRate, double momentum) {
+            double velocity = momentum * mState[index] + learningRate * step;
+            mState[index] = velocity;
+            return momentum * velocity + learningRate * step;
+        }
+
+        @Override
+        public Optimizer copy() {
+            return new Nesterov(this);
+        }
+    }
+
+    /**
+     * AdaGrad: keeps the sum of the squared steps of each parameter, and
+     * divides the step by its root.
+     */
+    static final class AdaGrad extends StandardOptimizer {
+
+        AdaGrad(int parameters) {
+            super(parameters);
+        }
+
+        private AdaGrad(AdaGrad other) {
+            super(other);
+        }
+
+        @Override
+        public String getName() {
+            return ADAGRAD;
+        }
+
+        @Override
+        public double delta(int index, double step, double learningRate, double momentum) {
+            double sum = mState[index] + step * step;
+            mState[index] = sum;
+            return learningRate * step / (Math.sqrt(sum) + EPSILON);
+        }
+
+        @Override
+        public Optimizer copy() {
+            return new AdaGrad(this);
+        }
+    }
+
+    /**
+     * RMSProp: keeps a moving average of the squared steps of each parameter,
+     * and divides the step by its root.
+     */
+    static final class RmsProp extends StandardOptimizer {
+
+        /*
+         * The decay of the moving average.
+         */
+        static final double DECAY = 0.9;
+
+        RmsProp(int parameters) {
+            super(parameters);
+        }
+
+        private RmsProp(RmsProp other) {
+            super(other);
+        }
+
+        @Override
+        public String getName() {
+            return RMSPROP;
+        }
+
+        @Override
+        public double delta(int index, double step, double learningRate, double momentum) {
+            double average = DECAY * mState[index] + (1 - DECAY) * step * step;
+            mState[index] = average;
+            return learningRate * step / (Math.sqrt(average) + EPSILON);
+        }
+
+        @Override
+        public Optimizer copy() {
+            return new RmsProp(this);
+        }
+    }
+
+    /**
+     * Adam: keeps moving averages of both the steps and the squared steps of
+     * each parameter, corrected for starting at 0, and divides the one by the
+     * root of the other. The state holds the averages of the steps, then of
+     * the squared steps, then the number of corrections made.
+     */
+    static final class Adam extends StandardOptimizer {
+
+        /*
+         * The decay of the moving average of the steps.
+         */
+        static final double BETA1 = 0.9;
+
+        /*
+         * The decay of the moving average of the squared steps.
+         */
+        static final double BETA2 = 0.999;
+
+        /*
+         * The number of parameters.
+         */
+        private final int mParameters;
+
+        /*
+         * The correction to the averages for the current step.
+         */
+        private double mCorrection1;
+
+        /*
+         * The correction to the averages of the squares for the current step.
+         */
+        private double mCorrection2;
+
+        Adam(int parameters) {
+            super(2 * parameters + 1);
+            mParameters = parameters;
+        }
+
+        private Adam(Adam other) {
+            super(other);
+            mParameters = other.mParameters;
+            mCorrection1 = other.mCorrection1;
+            mCorrection2 = other.mCorrection2;
+        }
+
+        @Override
+        public String getName() {
+            return ADAM;
+        }
+
+        @Override
+        public void nextStep() {
+            double step = ++mState[2 * mParameters];
+            mCorrection1 = 1 / (1 - Math.pow(BETA1, step));
+            mCorrection2 = 1 / (1 - Math.pow(BETA2, step));
+        }
+
+        @Override
+        public double delta(int index, double step, double learningRate, double momentum) {
+            double mean = BETA1 * mState[index] + (1 - BETA1) * step;
+            double square = BETA2 * mState[mParameters + index] + (1 - BETA2) * step * step;
+            mState[index] = mean;
+            mState[mParameters + index] = square;
+            return learningRate * mean * mCorrection1 / (Math.sqrt(square * mCorrection2) + EPSILON);
+        }
+
+        @Override
+        public void setState(DoubleBuffer state) {
+            super.setState(state);
+            // the corrections are worked out again by the next step
+            mCorrection1 = 0;
+            mCorrection2 = 0;
+        }
+
+        @Override
+        public Optimizer copy() {
+            return new Adam(this);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: TrainingListener
+ */
+/**
+ * Receives the progress of a network as it trains, as plain numbers. The
+ * training loop calls a listener directly, so anything slow, such as
+ * formatting or writing out a report, belongs on another thread, see
+ * {@link TrainingReporter}.
+ *
+ * @author Curtis Alcock 18403879
+ */
+public interface TrainingListener {
+
+    /**
+     * Called at the end of each epoch that is reported.
+     *
+     * @param epoch the epoch just finished, counting from 0.
+     * @param sumOfSquaredErrors the sum of the squared errors over the epoch.
+     * @param learningRate the learning rate at the end of the epoch.
+     * @param outputs the output of the network for each training set during
+     * the epoch, or null where the training method does not keep them. The
+     * array belongs to the training loop and is only valid during the call.
+     */
+    void epochCompleted(int epoch, double sumOfSquaredErrors, double learningRate, double[][] outputs);
+
+    /**
+     * Called once training has converged, after the last epoch has been
+     * reported.
+     *
+     * @param epochs the number of epochs taken to converge, as returned by the
+     * training method.
+     */
+    default void trainingFinished(int epochs) {
+    }
+
+    /**
+     * Called once a run of training ends, whether it converged or threw, after
+     * {@link #trainingFinished} if it converged.
+     */
+    default void trainingStopped() {
+    }
+}
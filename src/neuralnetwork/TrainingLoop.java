@@ -0,0 +1,277 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: TrainingLoop
+ */
+import java.util.Arrays;
+import neuralnetworkexceptions.UnevenArraysException;
+
+/**
+ * The epoch loop shared by every kind of network: runs epochs until the sum
+ * of the squared errors converges, adapts the learning rate between them,
+ * keeps the progress of the current run, and tells the training listeners of
+ * each reported epoch. Each network has one, and hands it a pass over its
+ * training sets for each run of train.
+ *
+ * @author Curtis Alcock 18403879
+ */
+final class TrainingLoop {
+
+    /**
+     * One pass of a network over all of its training sets.
+     *
+     * @param <X> the checked exception the pass may throw besides
+     * UnevenArraysException, e.g. IOException when reading a dataset.
+     */
+    interface Epoch<X extends Exception> {
+
+        /**
+         * Trains the network once on every training set.
+         *
+         * @return the sum of the squared errors over the epoch.
+         * @throws UnevenArraysException if a training set was of the wrong
+         * size.
+         * @throws X if the training sets could not be read.
+         */
+        double train() throws UnevenArraysException, X;
+    }
+
+    /**
+     * The learning rate of a network.
+     */
+    interface LearningRate {
+
+        /**
+         * Gets the learning rate.
+         *
+         * @return the current learning rate.
+         */
+        double get();
+
+        /**
+         * Multiplies the learning rate by a factor, then trains once more on
+         * the last training set with the new rate.
+         *
+         * @param factor the factor the learning rate is multiplied by.
+         * @throws UnevenArraysException if the desired output does not match
+         * the number of output neurons.
+         */
+        void scale(double factor) throws UnevenArraysException;
+    }
+
+    /*
+     * The reporter shared by every network that has not been given a listener
+     * of its own: the old console report, written on a background thread,
+     * without the output of each training set so that nothing is copied per
+     * epoch. Set TrainingReporter.console(true) as the listener for them.
+     */
+    private static final TrainingListener CONSOLE = TrainingReporter.console(false);
+
+    /*
+     * The learning rate of the network being trained.
+     */
+    private final LearningRate mRate;
+
+    /*
+     * The listeners told of each reported epoch.
+     */
+    private TrainingListener[] mListeners = {CONSOLE};
+
+    /*
+     * The number of epochs between reports, for each listener.
+     */
+    private int[] mReportIntervals = {1};
+
+    /*
+     * The number of epochs trained so far in the current run, 0 between runs.
+     */
+    private int mEpoch;
+
+    /*
+     * The sums of the squared errors of the last two epochs of the current
+     * run, by the parity of the epoch, for the adaptive learning rate.
+     */
+    private final double[] mEpochSums = {1, 1};
+
+    /**
+     * Initializes the loop of a network, reporting to the console.
+     *
+     * @param rate the learning rate of the network.
+     */
+    TrainingLoop(LearningRate rate) {
+        mRate = rate;
+    }
+
+    /**
+     * Sets the listener told of the progress of training, in place of any
+     * others.
+     *
+     * @param listener the listener, or null for no reports at all.
+     * @param interval the number of epochs between reports.
+     */
+    void setTrainingListener(TrainingListener listener, int interval) {
+        mListeners = new TrainingListener[0];
+        mReportIntervals = new int[0];
+        if (listener != null) {
+            addTrainingListener(listener, interval);
+        } else if (interval < 1) {
+            throw new IllegalArgumentException("Report interval must be at least 1: " + interval);
+        }
+    }
+
+    /**
+     * Adds a listener told of the progress of training, alongside those
+     * already set.
+     *
+     * @param listener the listener.
+     * @param interval the number of epochs between reports.
+     */
+    void addTrainingListener(TrainingListener listener, int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Report interval must be at least 1: " + interval);
+        }
+        mListeners = Arrays.copyOf(mListeners, mListeners.length + 1);
+        mListeners[mListeners.length - 1] = listener;
+        mReportIntervals = Arrays.copyOf(mReportIntervals, mReportIntervals.length + 1);
+        mReportIntervals[mReportIntervals.length - 1] = interval;
+    }
+
+    /**
+     * Gets the number of epochs trained so far in the current run.
+     *
+     * @return the number of epochs trained in the current run.
+     */
+    int getEpoch() {
+        return mEpoch;
+    }
+
+    /**
+     * Gets the sums of the squared errors of the last two epochs of the
+     * current run.
+     *
+     * @return the sums, indexed by the parity of the epoch.
+     */
+    double[] getEpochSums() {
+        return mEpochSums.clone();
+    }
+
+    /**
+     * Sets the progress of the current run, so that the next run carries on
+     * from it.
+     *
+     * @param epoch the number of epochs already trained.
+     * @param epochSums the sums of the squared errors of the last two epochs,
+     * indexed by the parity of the epoch.
+     */
+    void setTrainingProgress(int epoch, double[] epochSums) {
+        mEpoch = epoch;
+        mEpochSums[0] = epochSums[0];
+        mEpochSums[1] = epochSums[1];
+    }
+
+    /**
+     * Runs epochs until the network converges. With the adaptive learning
+     * rate the rate is adjusted after each epoch, and training stops once the
+     * epoch before the last has converged, as it always has for training one
+     * set at a time; with a constant rate it stops as soon as the last epoch
+     * has. The progress of the run is cleared once it ends, whether it
+     * converged or threw.
+     *
+     * @param <X> the checked exception the pass may throw.
+     * @param pass one pass over the training sets.
+     * @param convergence the point at which the network is to be considered
+     * converged.
+     * @param outputs the output of each training set, filled in by the pass,
+     * or null where it does not keep them.
+     * @param adaptive true to adapt the learning rate between epochs.
+     * @return the number of epochs taken to converge.
+     * @throws UnevenArraysException if a training set was of the wrong size.
+     * @throws X if the pass could not read the training sets.
+     */
+    <X extends Exception> int train(Epoch<X> pass, double convergence, double[][] outputs, boolean adaptive) throws UnevenArraysException, X {
+        double[] sum = mEpochSums;
+        int lag = adaptive ? 0 : 1;
+        int epoch;
+        epoch = mEpoch;
+        try {
+            while (sum[(epoch + lag) % 2] > convergence) {
+                sum[epoch % 2] = pass.train();
+
+                if (adaptive) {
+                    adaptLearningRate(sum, epoch);
+                }
+                mEpoch = epoch + 1;
+                epochReport(epoch, outputs, sum[epoch % 2], sum[(epoch + 1 + lag) % 2] <= convergence);
+
+                epoch++;
+            }
+            trainingFinished(epoch - 1);
+        } finally {
+            trainingStopped();
+        }
+        return epoch - 1;
+    }
+
+    /**
+     * Adjusts the learning rate between epochs by comparing the sum of the
+     * squared errors with that of the epoch before, and trains once more on
+     * the last set with the new rate.
+     *
+     * @param sum the sum of the squared errors for the last two epochs,
+     * indexed by epoch parity.
+     * @param epoch the epoch just finished.
+     * @throws UnevenArraysException if the desired output does not match the
+     * number of output neurons.
+     */
+    private void adaptLearningRate(double[] sum, int epoch) throws UnevenArraysException {
+        // An attempt at adaptive learning rate; doesn't work as wanted, actually seems to slow down convergence.
+        if (sum[epoch & 1] / sum[(epoch - 1) & 1] > 1.04) {
+            mRate.scale(0.7);
+        } else if (sum[epoch & 1] - sum[(epoch - 1) & 1] < 0.0) {
+            mRate.scale(1.05);
+        }
+    }
+
+    /**
+     * Passes the epoch to each training listener whose reporting interval it
+     * falls on, or to all of them if it is the last.
+     *
+     * @param epoch the epoch being reported.
+     * @param outputs the output of the network for each training set, or null.
+     * @param sum the sum of the squared errors for the epoch.
+     * @param last true if training stops after this epoch.
+     */
+    private void epochReport(int epoch, double[][] outputs, double sum, boolean last) {
+        for (int i = 0; i < mListeners.length; i++) {
+            if (last || epoch % mReportIntervals[i] == 0) {
+                mListeners[i].epochCompleted(epoch, sum, mRate.get(), outputs);
+            }
+        }
+    }
+
+    /**
+     * Tells the training listeners that training has converged.
+     *
+     * @param epochs the number of epochs taken to converge.
+     */
+    private void trainingFinished(int epochs) {
+        for (TrainingListener listener : mListeners) {
+            listener.trainingFinished(epochs);
+        }
+    }
+
+    /**
+     * Clears the progress of the run, so that the next run starts afresh,
+     * then tells the training listeners that the run has ended.
+     */
+    private void trainingStopped() {
+        mEpoch = 0;
+        mEpochSums[0] = 1;
+        mEpochSums[1] = 1;
+        for (TrainingListener listener : mListeners) {
+            listener.trainingStopped();
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package neuralnetwork;
+
+/*
+ Author: Curtis Alcock 18403879
+ Project: Artificial Intelligence Algorithm: Back-Propagation with Accelerated Learning
+ Title: TrainingReporter
+ */
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A training listener that writes each epoch report out on a background
+ * thread, either as console text or as a row of CSV. The training
+ * thread only hands the numbers over; all of the formatting and writing is
+ * done on the reporter's own thread, in the order the epochs were reported.
+ * If the reports come faster than they can be written the training thread
+ * waits for room rather than letting them pile up.
+ *
+ * @author Curtis Alcock 18403879
+ */
+public class TrainingReporter implements TrainingListener, Closeable {
+
+    /*
+     * The most reports waiting to be written at once.
+     */
+    private static final int QUEUE_CAPACITY = 256;
+
+    /*
+     * The destination of the reports.
+     */
+    private final Writer mOut;
+
+    /*
+     * True to write CSV rows, false for console text.
+     */
+    private final boolean mCsv;
+
+    /*
+     * True to include the output for each training set.
+     */
+    private final boolean mOutputs;
+
+    /*
+     * True if the destination is to be closed along with the reporter.
+     */
+    private final boolean mOwnsOut;
+
+    /*
+     * The single thread the reports are written on.
+     */
+    private final ThreadPoolExecutor mExecutor;
+
+    /*
+     * True once the CSV header has been written.
+     */
+    private boolean mHeaderWritten;
+
+    /*
+     * The first error met writing the reports, if any.
+     */
+    private volatile IOException mError;
+
+    /**
+     * Initializes the reporter.
+     *
+     * @param out the destination of the reports.
+     * @param csv true to write CSV rows, false for console text.
+     * @param outputs true to include the output of the network for each
+     * training set, where the training method keeps them.
+     * @param ownsOut true if out is to be closed when the reporter is.
+     */
+    private TrainingReporter(Writer out, boolean csv, boolean outputs, boolean ownsOut) {
+        mOut = out;
+        mCsv = csv;
+        mOutputs = outputs;
+        mOwnsOut = ownsOut;
+        mExecutor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "TrainingReporter");
+                    thread.setDaemon(true);
+                    return thread;
+                }, (runnable, executor) -> {
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("The reporter has been closed");
+                    }
+                    // wait for room rather than drop or reorder a report
+                    try {
+                        executor.getQueue().put(runnable);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException(ex);
+                    }
+                });
+        // the thread only lives while there are reports to write
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Creates a reporter that writes each epoch to the console as the network
+     * always printed it: "Epoch[n]:" on a line of its own, then the output
+     * for each training set if asked for, the sum of the squared errors and
+     * the learning rate, formatted for the default locale.
+     *
+     * @param outputs true to also write the output of the network for each
+     * training set.
+     * @return the reporter.
+     */
+    public static TrainingReporter console(boolean outputs) {
+        return new TrainingReporter(new BufferedWriter(new OutputStreamWriter(System.out)), false, outputs, false);
+    }
+
+    /**
+     * Creates a reporter that writes a row of CSV per epoch to a file:
+     * epoch, sumOfSquaredErrors and learningRate, followed by the output of
+     * the network for each training set if asked for.
+     *
+     * @param file the file to be written.
+     * @param outputs true to also write the output of the network for each
+     * training set.
+     * @return the reporter. Must be closed to finish the file.
+     * @throws IOException if the file could not be opened.
+     */
+    public static TrainingReporter csv(File file, boolean outputs) throws IOException {
+        return csv(new BufferedWriter(new FileWriter(file)), outputs);
+    }
+
+    /**
+     * Creates a reporter that writes a row of CSV per epoch, see
+     * {@link #csv(File, boolean)}.
+     *
+     * @param out the destination of the rows. Closed along with the reporter.
+     * @param outputs true to also write the output of the network for each
+     * training set.
+     * @return the reporter.
+     */
+    public static TrainingReporter csv(Writer out, boolean outputs) {
+        return new TrainingReporter(out, true, outputs, true);
+    }
+
+    /**
+     * Hands the epoch over to the reporter's thread. Only the outputs, if
+     * they are to be reported, are copied. Once the reporter has been closed
+     * the epoch is dropped.
+     *
+     * @param epoch the epoch just finished, counting from 0.
+     * @param sumOfSquaredErrors the sum of the squared errors over the epoch.
+     * @param learningRate the learning rate at the end of the epoch.
+     * @param outputs the output of the network for each training set, or
+     * null.
+     */
+    @Override
+    public void epochCompleted(int epoch, double sumOfSquaredErrors, double learningRate, double[][] outputs) {
+        if (mExecutor.isShutdown()) {
+            return;
+        }
+        double[][] copy = null;
+        if (mOutputs && outputs != null) {
+            copy = new double[outputs.length][];
+            for (int i = 0; i < outputs.length; i++) {
+                copy[i] = outputs[i] == null ? new double[0] : outputs[i].clone();
+            }
+        }
+        final double[][] sets = copy;
+        mExecutor.execute(() -> write(epoch, sumOfSquaredErrors, learningRate, sets));
+    }
+
+    /**
+     * Waits for every epoch reported so far to be written out.
+     */
+    @Override
+    public void trainingStopped() {
+        try {
+            flush();
+        } catch (IOException ex) {
+            // kept in mError, to be thrown by close
+        }
+    }
+
+    /**
+     * Waits for every epoch reported so far to be written out. Once the
+     * reporter has been closed there is nothing left to wait for.
+     *
+     * @throws IOException if a report could not be written.
+     */
+    public void flush() throws IOException {
+        if (mExecutor.isShutdown()) {
+            if (mError != null) {
+                throw mError;
+            }
+            return;
+        }
+        try {
+            mExecutor.submit(() -> {
+                try {
+                    mOut.flush();
+                } catch (IOException ex) {
+                    fail(ex);
+                }
+            }).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for the reports", ex);
+        } catch (ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        }
+        if (mError != null) {
+            throw mError;
+        }
+    }
+
+    /**
+     * Writes out every epoch reported so far and stops the reporter. A CSV
+     * reporter closes its destination.
+     *
+     * @throws IOException if a report could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            mExecutor.shutdown();
+            if (mOwnsOut) {
+                mOut.close();
+            }
+        }
+    }
+
+    /**
+     * Formats and writes a single epoch. Runs on the reporter's thread.
+     *
+     * @param epoch the epoch.
+     * @param sum the sum of the squared errors.
+     * @param learningRate the learning rate.
+     * @param outputs the output for each training set, or null.
+     */
+    private void write(int epoch, double sum, double learningRate, double[][] outputs) {
+        StringBuilder line = new StringBuilder();
+        if (mCsv) {
+            if (!mHeaderWritten) {
+                line.append("epoch,sumOfSquaredErrors,learningRate");
+                if (outputs != null) {
+                    for (int i = 0; i < outputs.length; i++) {
+                        for (int j = 0; j < outputs[i].length; j++) {
+                            line.append(",set").append(i).append('_').append(j);
+                        }
+                    }
+                }
+                line.append('\n');
+                mHeaderWritten = true;
+            }
+            line.append(epoch).append(',').append(sum).append(',').append(learningRate);
+            if (outputs != null) {
+                for (double[] set : outputs) {
+                    for (double value : set) {
+                        line.append(',').append(value);
+                    }
+                }
+            }
+        } else {
+            line.append("Epoch[").append(epoch).append("]:\n");
+            if (outputs != null) {
+                for (int i = 0; i < outputs.length; i++) {
+                    line.append(" Set #").append(i).append(": {");
+                    for (int j = 0; j < outputs[i].length; j++) {
+                        line.append(j == 0 ? "" : ",").append(String.format("%.4f", outputs[i][j]));
+                    }
+                    line.append('}');
+                }
+            }
+            line.append(String.format(" SotSE: %.8f Learning Rate: %.4f", sum, learningRate));
+        }
+        line.append('\n');
+        try {
+            mOut.write(line.toString());
+            // flush once the backlog has been written, so the console keeps up
+            if (!mCsv && mExecutor.getQueue().isEmpty()) {
+                mOut.flush();
+            }
+        } catch (IOException ex) {
+            fail(ex);
+        }
+    }
+
+    /**
+     * Keeps the first error met writing the reports.
+     *
+     * @param ex the error.
+     */
+    private void fail(IOException ex) {
+        if (mError == null) {
+            mError = ex;
+        }
+    }
+}
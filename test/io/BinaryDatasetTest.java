@@ -0,0 +1,208 @@
+package io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import neuralnetwork.Dataset;
+import neuralnetwork.Network;
+import neuralnetworkexceptions.UnevenArraysException;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * A JUnit test class for the BinaryDataset class.
+ *
+ * @author 18403879 Curtis Alcock
+ */
+public class BinaryDatasetTest {
+
+    public BinaryDatasetTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of convertDataset method, of class IOManager. Every row must match
+     * the XML in both precisions.
+     */
+    @Test
+    public void testConvertDataset() throws IOException {
+        System.out.println("convertDataset");
+        File xml = new File("set.xml");
+        double[][] trainingSets = IOManager.readTrainingSets(xml);
+        double[][] desiredOutcomes = IOManager.readDesiredOutcomes(xml);
+        for (boolean singlePrecision : new boolean[]{false, true}) {
+            File file = File.createTempFile("dataset", ".bpds");
+            file.deleteOnExit();
+            BinaryDataset instance = IOManager.convertDataset(xml, file, singlePrecision);
+            assertEquals(singlePrecision, instance.isSinglePrecision());
+            assertEquals(2, instance.getInputCount());
+            assertEquals(1, instance.getOutputCount());
+            assertEquals(trainingSets.length, instance.getRowCount());
+            double tolerance = singlePrecision ? 1e-7 : 0.0;
+            int i = 0;
+            try (Dataset.Cursor cursor = instance.open()) {
+                while (cursor.next()) {
+                    assertArrayEquals(trainingSets[i], cursor.getInputs(), tolerance);
+                    assertArrayEquals(desiredOutcomes[i], cursor.getDesiredOutputs(), tolerance);
+                    i++;
+                }
+            }
+            assertEquals(trainingSets.length, i);
+        }
+    }
+
+    /**
+     * Test of read method, of class BinaryDataset.
+     */
+    @Test
+    public void testRead() throws IOException {
+        System.out.println("read");
+        double[][] trainingSets = {{0, 0, 1}, {0, 1, 0}, {1, 1, 1}};
+        double[][] desiredOutcomes = {{0.25, 1}, {0.5, 2}, {0.75, 3}};
+        BinaryDataset instance = write(Dataset.of(trainingSets, desiredOutcomes));
+        double[] inputs = new double[3];
+        double[] desired = new double[2];
+        for (int row = 2; row >= 0; row--) {
+            instance.read(row, inputs, desired);
+            assertArrayEquals(trainingSets[row], inputs, 0.0);
+            assertArrayEquals(desiredOutcomes[row], desired, 0.0);
+        }
+    }
+
+    /**
+     * Test of write and read methods with rows wider than the write buffer, of
+     * class BinaryDataset.
+     */
+    @Test
+    public void testWrite_wideRows() throws IOException {
+        System.out.println("write_wideRows");
+        double[][] trainingSets = new double[3][10000];
+        double[][] desiredOutcomes = {{1}, {2}, {3}};
+        for (int row = 0; row < trainingSets.length; row++) {
+            for (int i = 0; i < trainingSets[row].length; i++) {
+                trainingSets[row][i] = row * trainingSets[row].length + i;
+            }
+        }
+        BinaryDataset instance = write(Dataset.of(trainingSets, desiredOutcomes));
+        double[] inputs = new double[10000];
+        double[] desired = new double[1];
+        for (int row = 0; row < trainingSets.length; row++) {
+            instance.read(row, inputs, desired);
+            assertArrayEquals(trainingSets[row], inputs, 0.0);
+            assertArrayEquals(desiredOutcomes[row], desired, 0.0);
+        }
+    }
+
+    /**
+     * Test of read method with a row that does not exist, of class
+     * BinaryDataset.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRead_noSuchRow() throws IOException {
+        System.out.println("read_noSuchRow");
+        BinaryDataset instance = write(Dataset.of(new double[][]{{1, 2}}, new double[][]{{3}}));
+        instance.read(1, new double[2], new double[1]);
+    }
+
+    /**
+     * Test of shuffled method, of class BinaryDataset. Each pass must visit
+     * every row exactly once, in a new order.
+     */
+    @Test
+    public void testShuffled() throws IOException {
+        System.out.println("shuffled");
+        int rows = 100;
+        double[][] trainingSets = new double[rows][];
+        double[][] desiredOutcomes = new double[rows][];
+        for (int row = 0; row < rows; row++) {
+            trainingSets[row] = new double[]{row};
+            desiredOutcomes[row] = new double[]{-row};
+        }
+        Dataset instance = write(Dataset.of(trainingSets, desiredOutcomes)).shuffled(6969);
+        double[] previous = null;
+        for (int pass = 0; pass < 2; pass++) {
+            double[] order = new double[rows];
+            int i = 0;
+            try (Dataset.Cursor cursor = instance.open()) {
+                while (cursor.next()) {
+                    assertEquals(-cursor.getInputs()[0], cursor.getDesiredOutputs()[0], 0.0);
+                    order[i++] = cursor.getInputs()[0];
+                }
+            }
+            assertEquals(rows, i);
+            assertFalse(Arrays.equals(previous, order));
+            double[] sorted = order.clone();
+            Arrays.sort(sorted);
+            for (int row = 0; row < rows; row++) {
+                assertEquals(row, sorted[row], 0.0);
+            }
+            previous = order;
+        }
+    }
+
+    /**
+     * Test of training from a BinaryDataset, of class Network. A double
+     * precision file must train exactly as the XML it was converted from.
+     */
+    @Test
+    public void testTrain() throws IOException {
+        System.out.println("train");
+        File xml = new File("multiplexer_test.xml");
+        File file = File.createTempFile("dataset", ".bpds");
+        file.deleteOnExit();
+        BinaryDataset instance = IOManager.convertDataset(xml, file, false);
+        Network expResult = new Network(new int[]{3, 8, 1}, 6969, 0.1, 0.95);
+        Network result = new Network(new int[]{3, 8, 1}, 6969, 0.1, 0.95);
+        try {
+            expResult.train(new XmlDataset(xml), 0.001);
+            result.train(instance, 0.001);
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+        assertArrayEquals(expResult.getWeights(), result.getWeights());
+        assertArrayEquals(expResult.getThresholds(), result.getThresholds());
+    }
+
+    /**
+     * Test of the constructor with a file that is not a binary dataset, of
+     * class BinaryDataset.
+     */
+    @Test(expected = IOException.class)
+    public void testConstructor_notBinary() throws IOException {
+        System.out.println("constructor_notBinary");
+        new BinaryDataset(new File("set.xml"));
+    }
+
+    /**
+     * Writes a dataset to a temporary binary file and maps it.
+     *
+     * @param source the dataset to be written.
+     * @return the binary dataset.
+     */
+    private static BinaryDataset write(Dataset source) throws IOException {
+        File file = File.createTempFile("dataset", ".bpds");
+        file.deleteOnExit();
+        BinaryDataset.write(source, file, false);
+        return new BinaryDataset(file);
+    }
+}
@@ -0,0 +1,99 @@
+package io;
+
+import java.io.File;
+import java.io.IOException;
+import neuralnetwork.Network;
+import neuralnetworkexceptions.UnevenArraysException;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * A JUnit test class for the Checkpointer class.
+ *
+ * @author 18403879 Curtis Alcock
+ */
+public class CheckpointerTest {
+
+    public CheckpointerTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of checkpoints taken every so many epochs, of class Checkpointer.
+     * The last checkpoint must hold the converged network, in both formats,
+     * and no temporary file may be left behind.
+     */
+    @Test
+    public void testCheckpoint_epochs() throws IOException {
+        System.out.println("checkpoint_epochs");
+        double[][] trainingSet = {{0.0, 0.0}, {0.0, 1.0}, {1.0, 0.0}, {1.0, 1.0}};
+        double[][] desiredOutcomes = {{0.1}, {0.9}, {0.9}, {0.1}};
+        for (boolean binary : new boolean[]{true, false}) {
+            File file = File.createTempFile("checkpoint", binary ? ".bpnn" : ".xml");
+            file.deleteOnExit();
+            Network instance = new Network(new int[]{2, 2, 1}, 6969, 0.1, 0.95);
+            Checkpointer checkpointer = new Checkpointer(instance, file, 10, 0, binary);
+            instance.setTrainingListener(null, 1);
+            instance.addTrainingListener(checkpointer, 1);
+            try {
+                instance.train(trainingSet, desiredOutcomes, 0.001);
+            } catch (UnevenArraysException ex) {
+                System.err.println(ex);
+                fail();
+            }
+            checkpointer.close();
+            assertTrue(checkpointer.getCheckpointCount() >= 2);
+            assertFalse(new File(file.getPath() + ".tmp").exists());
+
+            Network result = binary ? IOManager.readBinaryNetwork(file) : IOManager.readNetwork(file);
+            assertArrayEquals(instance.getWeights(), result.getWeights());
+            assertArrayEquals(instance.getThresholds(), result.getThresholds());
+            assertEquals(instance.mLearningRate, result.mLearningRate, 0.0);
+        }
+    }
+
+    /**
+     * Test of the constructor with no interval, of class Checkpointer.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_noInterval() {
+        System.out.println("constructor_noInterval");
+        Network network = new Network(new int[]{2, 2, 1}, 6969, 0.1, 0.95);
+        new Checkpointer(network, new File("checkpoint.bpnn"), 0, 0, true);
+    }
+
+    /**
+     * Test of close method when a checkpoint could not be written, of class
+     * Checkpointer. The error met on the checkpointer's thread must be
+     * thrown, and the training left to carry on.
+     */
+    @Test(expected = IOException.class)
+    public void testClose_writeError() throws IOException {
+        System.out.println("close_writeError");
+        Network network = new Network(new int[]{2, 2, 1}, 6969, 0.1, 0.95);
+        File file = new File(new File("no_such_directory"), "checkpoint.bpnn");
+        Checkpointer instance = new Checkpointer(network, file, 1, 0, true);
+        instance.epochCompleted(0, 1.0, 0.1, null);
+        instance.trainingFinished(0);
+        instance.close();
+    }
+}
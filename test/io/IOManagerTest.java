@@ -1,7 +1,21 @@
 package io;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import neuralnetwork.ActivationFunction;
 import neuralnetwork.Network;
+import neuralnetwork.Optimizer;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -67,6 +81,59 @@ public class IOManagerTest {
         assertEquals(expResult.toString(), result.toString());
     }
 
+    /**
+     * Load time of readNetwork against the number of weights, on fully
+     * specified networks from 16 thousand to 4 million weights. Only reports
+     * the weights read per second, which stays flat when loading is linear.
+     */
+    @Test(timeout = 300000)
+    public void testReadNetwork_scaling() throws Exception {
+        System.out.println("readNetwork_scaling");
+        for (int n = 128; n <= 2048; n *= 2) {
+            File file = File.createTempFile("scaling", ".xml");
+            file.deleteOnExit();
+            writeSpecifiedNetwork(file, new int[]{n, n, 1});
+            long weights = (long) n * n + n;
+            // warm up on the first size
+            if (n == 128) {
+                IOManager.readNetwork(file);
+            }
+            long start = System.nanoTime();
+            Network result = IOManager.readNetwork(file);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            assertEquals(n, result.getWeights()[0].length);
+            assertEquals(n, result.getWeights()[0][0].length);
+            System.out.printf("%d weights (%d bytes): %.3f s, %.0f weights/s\n", weights, file.length(), seconds, weights / seconds);
+            file.delete();
+        }
+    }
+
+    /**
+     * Writes a fully specified network of pseudo-random weights straight to
+     * an XML file.
+     *
+     * @param file the file to be written.
+     * @param neurons the shape of the network.
+     */
+    private static void writeSpecifiedNetwork(File file, int[] neurons) throws IOException {
+        Random random = new Random(6969);
+        try (Writer writer = new BufferedWriter(new FileWriter(file))) {
+            writer.write("<project>\n<network>\n<learningRate>0.1</learningRate>\n<momentum>0.95</momentum>\n<neurons>\n");
+            for (int l = 1; l < neurons.length; l++) {
+                writer.write("<layer>\n");
+                for (int neu = 0; neu < neurons[l]; neu++) {
+                    writer.write("<neuron>\n");
+                    for (int w = 0; w < neurons[l - 1]; w++) {
+                        writer.write("<weight>" + (random.nextDouble() * 2 - 1) + "</weight>\n");
+                    }
+                    writer.write("<threshold>" + (random.nextDouble() * 2 - 1) + "</threshold>\n</neuron>\n");
+                }
+                writer.write("</layer>\n");
+            }
+            writer.write("</neurons>\n</network>\n</project>\n");
+        }
+    }
+
     /**
      * Test of readTrainingSets method, of class IOManager.
      */
@@ -109,6 +176,367 @@ public class IOManagerTest {
         assertEquals(expResult, result);
     }
 
+    /**
+     * Test of writeNetwork and readNetwork methods with per layer activation
+     * functions, of class IOManager.
+     */
+    @Test
+    public void testWriteNetwork_activations() throws Exception {
+        System.out.println("writeNetwork_activations");
+        File file = File.createTempFile("activations", ".xml");
+        file.deleteOnExit();
+        double[][][] weights = {{{0.5, 0.4}, {0.9, 1.0}}, {{-1.2, 1.1}}};
+        double[][] thresholds = {{0.8, -0.1}, {0.3}};
+        Network instance = new Network(weights, thresholds, 0.1, 0);
+        instance.setActivationFunction(0, ActivationFunction.LEAKY_RELU);
+        instance.setActivationFunction(1, ActivationFunction.SIGMOID);
+        IOManager.writeNetwork(file, instance);
+        Network result = IOManager.readNetwork(file);
+        assertSame(ActivationFunction.LEAKY_RELU, result.getActivationFunction(0));
+        assertSame(ActivationFunction.SIGMOID, result.getActivationFunction(1));
+        assertArrayEquals(instance.activation(new double[]{1, 1}), result.activation(new double[]{1, 1}), 0.0);
+    }
+
+    /**
+     * Test of namesActivations method, of class IOManager.
+     */
+    @Test
+    public void testNamesActivations() throws Exception {
+        System.out.println("namesActivations");
+        File file = File.createTempFile("activations", ".xml");
+        file.deleteOnExit();
+        IOManager.writeNetwork(file, new Network(new int[]{2, 2, 1}, 6969, 0.1, 0));
+        assertTrue(IOManager.namesActivations(file));
+        assertFalse(IOManager.namesActivations(new File("set.xml")));
+    }
+
+    /**
+     * Test of readNetwork method with more activation functions than layers,
+     * of class IOManager.
+     */
+    @Test
+    public void testReadNetwork_extraActivations() throws Exception {
+        System.out.println("readNetwork_extraActivations");
+        File file = File.createTempFile("activations", ".xml");
+        file.deleteOnExit();
+        IOManager.writeNetwork(file, new Network(new int[]{2, 2, 1}, 6969, 0.1, 0));
+        String xml = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        assertTrue(xml.contains("</activations>"));
+        xml = xml.replace("</activations>", ",sigmoid</activations>");
+        Files.write(file.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+        assertNull(IOManager.readNetwork(file));
+    }
+
+    /**
+     * Test of writeNetwork and readNetwork methods with an optimizer, of class
+     * IOManager. The classic momentum rule is left out of the file.
+     */
+    @Test
+    public void testWriteNetwork_optimizer() throws Exception {
+        System.out.println("writeNetwork_optimizer");
+        File file = File.createTempFile("optimizer", ".xml");
+        file.deleteOnExit();
+        Network instance = new Network(new int[]{2, 2, 1}, 6969, 0.1, 0.95);
+        IOManager.writeNetwork(file, instance);
+        assertFalse(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).contains("optimizer"));
+        instance.setOptimizer(Optimizer.RMSPROP);
+        IOManager.writeNetwork(file, instance);
+        Network result = IOManager.readNetwork(file);
+        assertEquals(Optimizer.RMSPROP, result.getOptimizer());
+    }
+
+    /**
+     * Test of writeNetwork and readNetwork methods with GZIP compression, of
+     * class IOManager.
+     */
+    @Test
+    public void testWriteNetwork_compressed() throws Exception {
+        System.out.println("writeNetwork_compressed");
+        File plain = File.createTempFile("network", ".xml");
+        File compressed = File.createTempFile("network", ".xml.gz");
+        plain.deleteOnExit();
+        compressed.deleteOnExit();
+        Network instance = new Network(new int[]{20, 20, 1}, 6969, 0.1, 0.95);
+        instance.setActivationFunction(0, ActivationFunction.RELU);
+        IOManager.writeNetwork(plain, instance);
+        IOManager.writeNetwork(compressed, instance, true, false);
+        assertTrue(compressed.length() < plain.length() / 2);
+        try (InputStream in = new FileInputStream(compressed)) {
+            assertEquals(0x1f, in.read());
+            assertEquals(0x8b, in.read());
+        }
+        Network result = IOManager.readNetwork(compressed);
+        assertArrayEquals(instance.getWeights(), result.getWeights());
+        assertArrayEquals(instance.getThresholds(), result.getThresholds());
+        assertSame(ActivationFunction.RELU, result.getActivationFunction(0));
+    }
+
+    /**
+     * Test of writeNetwork method, of class IOManager. The XML is only echoed
+     * to the console when asked for.
+     */
+    @Test
+    public void testWriteNetwork_echo() throws Exception {
+        System.out.println("writeNetwork_echo");
+        File file = File.createTempFile("network", ".xml");
+        file.deleteOnExit();
+        Network instance = new Network(new int[]{2, 2, 1}, 6969, 0.1, 0.95);
+        PrintStream console = System.out;
+        ByteArrayOutputStream quiet = new ByteArrayOutputStream();
+        ByteArrayOutputStream echoed = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(quiet, true));
+            IOManager.writeNetwork(file, instance);
+            System.setOut(new PrintStream(echoed, true));
+            IOManager.writeNetwork(file, instance, false, true);
+        } finally {
+            System.setOut(console);
+        }
+        assertFalse(quiet.toString().contains("<weight>"));
+        assertTrue(echoed.toString().contains("<weight>"));
+    }
+
+    /**
+     * Test of writeBinaryNetwork and readBinaryNetwork methods, of class
+     * IOManager. Every value must survive the round trip exactly.
+     */
+    @Test
+    public void testWriteBinaryNetwork() throws Exception {
+        System.out.println("writeBinaryNetwork");
+        File file = File.createTempFile("network", ".bpnn");
+        file.deleteOnExit();
+        Network instance = new Network(new int[]{3, 5, 4, 2}, 6969, 0.1, 0.95);
+        instance.setActivationFunction(0, ActivationFunction.RELU);
+        instance.setActivationFunction(2, ActivationFunction.SIGMOID);
+        IOManager.writeBinaryNetwork(file, instance);
+        Network result = IOManager.readBinaryNetwork(file);
+        assertArrayEquals(instance.getWeights(), result.getWeights());
+        assertArrayEquals(instance.getThresholds(), result.getThresholds());
+        assertSame(ActivationFunction.RELU, result.getActivationFunction(0));
+        assertSame(ActivationFunction.HYPERBOLIC_TANGENT, result.getActivationFunction(1));
+        assertSame(ActivationFunction.SIGMOID, result.getActivationFunction(2));
+        assertEquals(instance.mLearningRate, result.mLearningRate, 0.0);
+        assertEquals(instance.mMomentum, result.mMomentum, 0.0);
+        assertArrayEquals(instance.activation(new double[]{1, 0, 1}), result.activation(new double[]{1, 0, 1}), 0.0);
+    }
+
+    /**
+     * Test of writeBinaryNetwork and readBinaryNetwork methods with a pruned
+     * network, of class IOManager. Only the non-zero weights are stored, and
+     * the pruned links stay pruned through further training.
+     */
+    @Test
+    public void testWriteBinaryNetwork_pruned() throws Exception {
+        System.out.println("writeBinaryNetwork_pruned");
+        File dense = File.createTempFile("dense", ".bpnn");
+        File sparse = File.createTempFile("sparse", ".bpnn");
+        dense.deleteOnExit();
+        sparse.deleteOnExit();
+        Network instance = new Network(new int[]{20, 20, 1}, 6969, 0.1, 0.95);
+        IOManager.writeBinaryNetwork(dense, instance);
+        instance.pruneTopK(2);
+        IOManager.writeBinaryNetwork(sparse, instance);
+        assertTrue(sparse.length() < dense.length() / 4);
+
+        Network result = IOManager.readBinaryNetwork(sparse);
+        assertArrayEquals(instance.getWeights(), result.getWeights());
+        assertArrayEquals(instance.getThresholds(), result.getThresholds());
+        assertEquals(instance.getNonZeroCount(), result.getNonZeroCount());
+        result.activation(new double[20]);
+        result.setDesiredOutput(new double[]{0.5});
+        result.weightTraining();
+        assertEquals(instance.getNonZeroCount(), result.getNonZeroCount());
+    }
+
+    /**
+     * Test of writeBinaryNetwork and readBinaryNetwork methods with weights
+     * that are 0 without being pruned, of class IOManager. Each layer gets back
+     * exactly the links it pruned, whether it was stored sparse or not.
+     */
+    @Test
+    public void testWriteBinaryNetwork_zeroWeight() throws Exception {
+        System.out.println("writeBinaryNetwork_zeroWeight");
+        File file = File.createTempFile("zero", ".bpnn");
+        file.deleteOnExit();
+        double[][][] weights = {
+            {{0.0, 0.4, 0.3, -0.2, 0.1, 0.5, -0.6, 0.7}, {0.2, -0.1, 0.6, 0.3, -0.4, 0.2, 0.1, -0.3}},
+            {{0.0, 0.5}, {-0.4, 0.3}},
+            {{0.3, 0.0}}};
+        double[][] thresholds = {{0.1, -0.1}, {0.2, 0.1}, {-0.2}};
+        int[][] pruned = {{2, 3, 4, 5, 6, 7, 9, 10, 11, 12, 13, 14, 15}, {3}, {}};
+        Network instance = new Network(weights, thresholds, 0.5, 0);
+        for (int l = 0; l < pruned.length; l++) {
+            instance.getLayer(l).setPrunedLinks(pruned[l]);
+        }
+        IOManager.writeBinaryNetwork(file, instance);
+
+        Network result = IOManager.readBinaryNetwork(file);
+        for (int l = 0; l < pruned.length; l++) {
+            assertArrayEquals(pruned[l], result.getLayer(l).getPrunedLinks());
+        }
+        double[] inputs = {1, 0, 1, 1, 0, 1, 0, 1};
+        for (int step = 0; step < 20; step++) {
+            for (Network network : new Network[]{instance, result}) {
+                network.activation(inputs);
+                network.setDesiredOutput(new double[]{step % 2 == 0 ? 0.9 : 0.1});
+                network.weightTraining();
+            }
+        }
+        assertNotEquals(0.0, result.getLayer(1).getWeight(0, 0), 0.0);
+        assertNotEquals(0.0, result.getLayer(2).getWeight(0, 1), 0.0);
+        assertArrayEquals(instance.getWeights(), result.getWeights());
+    }
+
+    /**
+     * Test of readBinaryNetwork method with a file that is not a binary
+     * network, of class IOManager.
+     */
+    @Test
+    public void testReadBinaryNetwork_notBinary() {
+        System.out.println("readBinaryNetwork_notBinary");
+        assertNull(IOManager.readBinaryNetwork(new File("set.xml")));
+    }
+
+    /**
+     * Test of writeTrainingState and readTrainingState methods, of class
+     * IOManager. A run written out part way and resumed from the file must
+     * finish exactly as the run that was never stopped, while resuming from
+     * the binary network alone, without the momentum or the learning rate
+     * history, does not.
+     */
+    @Test
+    public void testWriteTrainingState_resume() throws Exception {
+        System.out.println("writeTrainingState_resume");
+        File xml = new File("multiplexer_test.xml");
+        double[][] trainingSets = IOManager.readTrainingSets(xml);
+        double[][] desiredOutcomes = IOManager.readDesiredOutcomes(xml);
+        double convergence = 0.001;
+        int split = 40;
+        File state = File.createTempFile("state", ".bpts");
+        state.deleteOnExit();
+        File binary = File.createTempFile("network", ".bpnn");
+        binary.deleteOnExit();
+
+        final Network expResult = new Network(new int[]{3, 8, 1}, 6969, 0.1, 0.95);
+        final IOException[] error = new IOException[1];
+        expResult.setTrainingListener((epoch, sum, learningRate, outputs) -> {
+            if (epoch == split - 1) {
+                try {
+                    IOManager.writeTrainingState(state, expResult);
+                    IOManager.writeBinaryNetwork(binary, expResult);
+                } catch (IOException ex) {
+                    error[0] = ex;
+                }
+            }
+        }, 1);
+        int expEpochs = expResult.train(trainingSets, desiredOutcomes, convergence);
+        assertNull(error[0]);
+        assertTrue(expEpochs > split);
+
+        Network instance = IOManager.readTrainingState(state);
+        assertEquals(split, instance.getEpoch());
+        instance.setTrainingListener(null, 1);
+        int epochs = instance.train(trainingSets, desiredOutcomes, convergence);
+        assertEquals(expEpochs, epochs);
+        assertArrayEquals(expResult.getWeights(), instance.getWeights());
+        assertArrayEquals(expResult.getThresholds(), instance.getThresholds());
+        assertEquals(expResult.mLearningRate, instance.mLearningRate, 0.0);
+        assertEquals(0, instance.getEpoch());
+
+        Network restarted = IOManager.readBinaryNetwork(binary);
+        restarted.setTrainingListener(null, 1);
+        int restartedEpochs = restarted.train(trainingSets, desiredOutcomes, convergence);
+        System.out.printf("Converged at epoch %d, resumed from state at %d, restarted from weights after %d more%n",
+                expEpochs, epochs, restartedEpochs);
+        assertFalse(Arrays.deepEquals(expResult.getWeights(), restarted.getWeights()));
+    }
+
+    /**
+     * Test of writeTrainingState and readTrainingState methods with Adam, of
+     * class IOManager. The optimizer's state must be saved too, so the resumed
+     * run converges exactly as the uninterrupted one.
+     */
+    @Test
+    public void testWriteTrainingState_optimizer() throws Exception {
+        System.out.println("writeTrainingState_optimizer");
+        File xml = new File("multiplexer_test.xml");
+        double[][] trainingSets = IOManager.readTrainingSets(xml);
+        double[][] desiredOutcomes = IOManager.readDesiredOutcomes(xml);
+        double convergence = 0.001;
+        int split = 40;
+        File state = File.createTempFile("state", ".bpts");
+        state.deleteOnExit();
+
+        final Network expResult = new Network(new int[]{3, 8, 1}, 6969, 0.1, 0.95);
+        expResult.setOptimizer(Optimizer.ADAM);
+        final IOException[] error = new IOException[1];
+        expResult.setTrainingListener((epoch, sum, learningRate, outputs) -> {
+            if (epoch == split - 1) {
+                try {
+                    IOManager.writeTrainingState(state, expResult);
+                } catch (IOException ex) {
+                    error[0] = ex;
+                }
+            }
+        }, 1);
+        int expEpochs = expResult.train(trainingSets, desiredOutcomes, convergence);
+        assertNull(error[0]);
+        assertTrue(expEpochs > split);
+
+        Network instance = IOManager.readTrainingState(state);
+        assertEquals(Optimizer.ADAM, instance.getOptimizer());
+        instance.setTrainingListener(null, 1);
+        int epochs = instance.train(trainingSets, desiredOutcomes, convergence);
+        assertEquals(expEpochs, epochs);
+        assertArrayEquals(expResult.getWeights(), instance.getWeights());
+        assertArrayEquals(expResult.getLayer(1).getOptimizer().getState(), instance.getLayer(1).getOptimizer().getState(), 0.0);
+    }
+
+    /**
+     * Test of writeTrainingState and readTrainingState methods with a pruned
+     * layer and a weight that is 0 without being pruned, of class IOManager.
+     * Each layer gets back exactly the links it pruned.
+     */
+    @Test
+    public void testWriteTrainingState_pruned() throws Exception {
+        System.out.println("writeTrainingState_pruned");
+        File state = File.createTempFile("state", ".bpts");
+        state.deleteOnExit();
+        double[][][] weights = {{{0.0, 0.4}, {-0.3, 0.6}}, {{0.5, -0.2}}};
+        double[][] thresholds = {{0.1, -0.1}, {0.2}};
+        Network expResult = new Network(weights, thresholds, 0.5, 0.9);
+        expResult.getLayer(1).setPrunedLinks(new int[]{1});
+        IOManager.writeTrainingState(state, expResult);
+
+        Network instance = IOManager.readTrainingState(state);
+        assertEquals(0, instance.getLayer(0).getPrunedLinks().length);
+        assertArrayEquals(new int[]{1}, instance.getLayer(1).getPrunedLinks());
+        double[][] trainingSets = {{0, 0}, {0, 1}, {1, 0}, {1, 1}};
+        double[][] desiredOutcomes = {{0.1}, {0.9}, {0.9}, {0.1}};
+        for (int step = 0; step < 20; step++) {
+            for (Network network : new Network[]{expResult, instance}) {
+                network.activation(trainingSets[step % 4]);
+                network.setDesiredOutput(desiredOutcomes[step % 4]);
+                network.weightTraining();
+            }
+        }
+        assertNotEquals(0.0, instance.getLayer(0).getWeight(0, 0), 0.0);
+        assertArrayEquals(expResult.getWeights(), instance.getWeights());
+    }
+
+    /**
+     * Test of readTrainingState method with a file that is not a training
+     * state file, of class IOManager.
+     */
+    @Test
+    public void testReadTrainingState_notState() throws Exception {
+        System.out.println("readTrainingState_notState");
+        File binary = File.createTempFile("network", ".bpnn");
+        binary.deleteOnExit();
+        IOManager.writeBinaryNetwork(binary, new Network(new int[]{2, 2, 1}, 6969, 0.1, 0.95));
+        assertNull(IOManager.readTrainingState(binary));
+    }
+
     /**
      * Test of stringToIntArray method, of class IOManager.
      */
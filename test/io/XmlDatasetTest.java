@@ -0,0 +1,106 @@
+package io;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import neuralnetwork.Dataset;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * A JUnit test class for the XmlDataset class.
+ *
+ * @author 18403879 Curtis Alcock
+ */
+public class XmlDatasetTest {
+
+    public XmlDatasetTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of open method, of class XmlDataset. Every pass must read the same
+     * pairs as readTrainingSets and readDesiredOutcomes, in the same order.
+     */
+    @Test
+    public void testOpen() throws IOException {
+        System.out.println("open");
+        File file = new File("multiplexer_test.xml");
+        double[][] trainingSets = IOManager.readTrainingSets(file);
+        double[][] desiredOutcomes = IOManager.readDesiredOutcomes(file);
+        XmlDataset instance = new XmlDataset(file);
+        for (int pass = 0; pass < 2; pass++) {
+            int i = 0;
+            try (Dataset.Cursor cursor = instance.open()) {
+                while (cursor.next()) {
+                    assertArrayEquals(trainingSets[i], cursor.getInputs(), 0.0);
+                    assertArrayEquals(desiredOutcomes[i], cursor.getDesiredOutputs(), 0.0);
+                    i++;
+                }
+                assertFalse(cursor.next());
+            }
+            assertEquals(trainingSets.length, i);
+        }
+    }
+
+    /**
+     * Test of open method with more training sets than desired outcomes, of
+     * class XmlDataset.
+     */
+    @Test(expected = IOException.class)
+    public void testOpen_unevenSets() throws IOException {
+        System.out.println("open_unevenSets");
+        File file = write("<project><trainingSets><set>0,0</set><set>0,1</set></trainingSets>"
+                + "<desiredOutcomes><set>0.1</set></desiredOutcomes></project>");
+        try (Dataset.Cursor cursor = new XmlDataset(file).open()) {
+            while (cursor.next()) {
+            }
+        }
+    }
+
+    /**
+     * Test of open method with a file that holds no desired outcomes, of class
+     * XmlDataset.
+     */
+    @Test(expected = IOException.class)
+    public void testOpen_noOutcomes() throws IOException {
+        System.out.println("open_noOutcomes");
+        File file = write("<project><trainingSets><set>0,0</set></trainingSets></project>");
+        new XmlDataset(file).open().close();
+    }
+
+    /**
+     * Writes an XML document to a temporary file.
+     *
+     * @param xml the document.
+     * @return the file written.
+     */
+    private static File write(String xml) throws IOException {
+        File file = File.createTempFile("dataset", ".xml");
+        file.deleteOnExit();
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(xml);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,113 @@
+package neuralnetwork;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * A JUnit test class for the ActivationFunction interface.
+ *
+ * @author 18403879 Curtis Alcock
+ */
+public class ActivationFunctionTest {
+
+    private static final ActivationFunction[] FUNCTIONS = {
+        ActivationFunction.SIGMOID, ActivationFunction.HYPERBOLIC_TANGENT,
+        ActivationFunction.RELU, ActivationFunction.LEAKY_RELU, ActivationFunction.HARD_TANH};
+
+    public ActivationFunctionTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of transfer method, of class ActivationFunction.
+     */
+    @Test
+    public void testTransfer() {
+        System.out.println("transfer");
+        assertEquals(0.5, ActivationFunction.SIGMOID.transfer(0), 0.0);
+        assertEquals(0.0, ActivationFunction.HYPERBOLIC_TANGENT.transfer(0), 0.0);
+        assertEquals(Neuron.HYPERBOLIC_TANGENT_A, ActivationFunction.HYPERBOLIC_TANGENT.transfer(100), 1e-12);
+        assertEquals(2.5, ActivationFunction.RELU.transfer(2.5), 0.0);
+        assertEquals(0.0, ActivationFunction.RELU.transfer(-2.5), 0.0);
+        assertEquals(2.5, ActivationFunction.LEAKY_RELU.transfer(2.5), 0.0);
+        assertEquals(-0.025, ActivationFunction.LEAKY_RELU.transfer(-2.5), 1e-15);
+        assertEquals(0.5, ActivationFunction.HARD_TANH.transfer(0.5), 0.0);
+        assertEquals(1.0, ActivationFunction.HARD_TANH.transfer(2.5), 0.0);
+        assertEquals(-1.0, ActivationFunction.HARD_TANH.transfer(-2.5), 0.0);
+    }
+
+    /**
+     * Test of slope method, of class ActivationFunction. The slope worked out
+     * from each output must match the numerical derivative of the function,
+     * away from any kinks.
+     */
+    @Test
+    public void testSlope() {
+        System.out.println("slope");
+        double h = 1e-6;
+        for (ActivationFunction function : FUNCTIONS) {
+            for (double x = -3.05; x < 3; x += 0.1) {
+                double expResult = (function.transfer(x + h) - function.transfer(x - h)) / (2 * h);
+                assertEquals(function.getName() + " at " + x, expResult, function.slope(function.transfer(x)), 1e-6);
+            }
+        }
+    }
+
+    /**
+     * Test of the transfer method that records the slope, of class
+     * ActivationFunction. Must agree with transfer and slope called apart.
+     */
+    @Test
+    public void testTransfer_recordsSlope() {
+        System.out.println("transfer_recordsSlope");
+        double[] slopes = new double[1];
+        for (ActivationFunction function : FUNCTIONS) {
+            for (double x = -3.05; x < 3; x += 0.1) {
+                double output = function.transfer(x, slopes, 0);
+                assertEquals(function.transfer(x), output, 0.0);
+                assertEquals(function.slope(output), slopes[0], 1e-12);
+            }
+        }
+    }
+
+    /**
+     * Test of forName method, of class ActivationFunction.
+     */
+    @Test
+    public void testForName() {
+        System.out.println("forName");
+        for (ActivationFunction function : FUNCTIONS) {
+            assertSame(function, ActivationFunction.forName(function.getName()));
+        }
+        assertSame(ActivationFunction.RELU, ActivationFunction.forName(" relu "));
+    }
+
+    /**
+     * Test of forName method with an unknown name, of class
+     * ActivationFunction.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testForName_unknown() {
+        System.out.println("forName_unknown");
+        ActivationFunction.forName("softplus");
+    }
+}
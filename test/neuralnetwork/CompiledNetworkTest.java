@@ -0,0 +1,174 @@
+package neuralnetwork;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import neuralnetworkexceptions.UnevenArraysException;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * A JUnit test class for the CompiledNetwork class.
+ *
+ * @author 18403879 Curtis Alcock
+ */
+public class CompiledNetworkTest {
+
+    public CompiledNetworkTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of activation method, of class CompiledNetwork.
+     */
+    @Test
+    public void testActivation_bookWeights() {
+        System.out.println("activation_bookWeights");
+        double[] inputs = {1, 1};
+        double[][][] weights = {{{0.5, 0.4}, {0.9, 1.0}}, {{-1.2, 1.1}}};
+        double[][] thresholds = {{0.8, -0.1}, {0.3}};
+        CompiledNetwork instance = new Network(weights, thresholds, 0.1, 0).compile();
+        double[] expResult = {0.4103};
+        try {
+            double[] result = instance.activation(inputs);
+            assertArrayEquals(expResult, result, 0.0001);
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of activation method after training the source network, of class
+     * CompiledNetwork. The snapshot must keep the weights it was made with.
+     */
+    @Test
+    public void testActivation_frozen() {
+        System.out.println("activation_frozen");
+        double[] inputs = {1, 1};
+        double[][][] weights = {{{0.5, 0.4}, {0.9, 1.0}}, {{-1.2, 1.1}}};
+        double[][] thresholds = {{0.8, -0.1}, {0.3}};
+        Network network = new Network(weights, thresholds, 0.1, 0);
+        CompiledNetwork instance = network.compile();
+        try {
+            double[] expResult = network.activation(inputs);
+            network.setDesiredOutput(new double[]{0.9});
+            network.weightTraining();
+            assertArrayEquals(expResult, instance.activation(inputs), 0.0);
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of activation method with a different activation function per
+     * layer, of class CompiledNetwork. The snapshot must carry each layer's
+     * function.
+     */
+    @Test
+    public void testActivation_activationFunctions() {
+        System.out.println("activation_activationFunctions");
+        double[] inputs = {0.3, -0.7};
+        Network network = new Network(new int[]{2, 5, 3, 1}, 6969, 0.1, 0);
+        network.setActivationFunction(0, ActivationFunction.LEAKY_RELU);
+        network.setActivationFunction(2, ActivationFunction.SIGMOID);
+        CompiledNetwork instance = network.compile();
+        try {
+            assertArrayEquals(network.activation(inputs), instance.activation(inputs), 0.0);
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of activation method with the wrong number of inputs, of class
+     * CompiledNetwork.
+     */
+    @Test(expected = UnevenArraysException.class)
+    public void testActivation_unevenInputs() throws UnevenArraysException {
+        System.out.println("activation_unevenInputs");
+        int[] neurons = {2, 2, 1};
+        CompiledNetwork instance = new Network(neurons, 6969, 0.1, 0).compile();
+        instance.activation(new double[]{1, 1, 1});
+    }
+
+    /**
+     * Test of activation and activateBatch methods from many threads at once,
+     * of class CompiledNetwork. Every thread must see the same results as the
+     * source network.
+     */
+    @Test
+    public void testActivation_concurrent() throws Exception {
+        System.out.println("activation_concurrent");
+        int[] neurons = {8, 16, 4};
+        Network network = new Network(neurons, 6969, 0.1, 0);
+        final CompiledNetwork instance = network.compile();
+        final double[][] inputs = new double[500][8];
+        Random random = new Random(1984);
+        for (double[] input : inputs) {
+            for (int i = 0; i < input.length; i++) {
+                input[i] = random.nextDouble();
+            }
+        }
+        final double[][] expResult = network.activateBatch(inputs);
+
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<Boolean>> tasks = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                tasks.add(() -> {
+                    double[] outputs = new double[4];
+                    for (int rep = 0; rep < 20; rep++) {
+                        for (int i = 0; i < inputs.length; i++) {
+                            instance.activation(inputs[i], outputs);
+                            for (int o = 0; o < outputs.length; o++) {
+                                if (Math.abs(outputs[o] - expResult[i][o]) > 1e-12) {
+                                    return false;
+                                }
+                            }
+                        }
+                        double[][] batch = instance.activateBatch(inputs);
+                        for (int i = 0; i < inputs.length; i++) {
+                            for (int o = 0; o < outputs.length; o++) {
+                                if (Math.abs(batch[i][o] - expResult[i][o]) > 1e-12) {
+                                    return false;
+                                }
+                            }
+                        }
+                    }
+                    return true;
+                });
+            }
+            for (Future<Boolean> result : threads.invokeAll(tasks)) {
+                assertTrue(result.get());
+            }
+        } finally {
+            threads.shutdown();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package neuralnetwork;
+
+import java.util.Random;
+import neuralnetworkexceptions.UnevenArraysException;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * A JUnit test class for the DenseLayer class.
+ *
+ * @author 18403879 Curtis Alcock
+ */
+public class DenseLayerTest {
+
+    public DenseLayerTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of the seeded constructor, of class DenseLayer. The generator must
+     * be consumed in the same order as creating each Neuron in turn.
+     */
+    @Test
+    public void testRandomInit_matchesNeurons() {
+        System.out.println("randomInit_matchesNeurons");
+        Random layerRand = new Random(9999);
+        Random neuronRand = new Random(9999);
+        DenseLayer instance = new DenseLayer(3, 2, layerRand);
+        for (int neuron = 0; neuron < 2; neuron++) {
+            Neuron expResult = new Neuron(3, neuronRand);
+            assertArrayEquals(expResult.getWeights(), instance.getWeights()[neuron], 0.0);
+            assertEquals(expResult.getThreshold(), instance.getThreshold(neuron), 0.0);
+        }
+    }
+
+    /**
+     * Test of getWeights and getWeight methods, of class DenseLayer.
+     */
+    @Test
+    public void testGetWeights() {
+        System.out.println("getWeights");
+        double[][] weights = {{0.5, 0.4}, {0.9, 1.0}};
+        double[] thresholds = {0.8, -0.1};
+        DenseLayer instance = new DenseLayer(weights, thresholds);
+        assertArrayEquals(weights, instance.getWeights());
+        assertEquals(1.0, instance.getWeight(1, 1), 0.0);
+        assertArrayEquals(thresholds, instance.getThresholds(), 0.0);
+    }
+
+    /**
+     * Test of the constructor with uneven neurons, of class DenseLayer.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_unevenNeurons() {
+        System.out.println("constructor_unevenNeurons");
+        double[][] weights = {{0.5, 0.4}, {0.9}};
+        double[] thresholds = {0.8, -0.1};
+        new DenseLayer(weights, thresholds);
+    }
+
+    /**
+     * Test of activation method, of class DenseLayer. Each output must match
+     * a Neuron holding the same weights.
+     */
+    @Test
+    public void testActivation() {
+        System.out.println("activation");
+        double[] inputs = {1, 1};
+        double[][] weights = {{0.5, 0.4}, {0.9, 1.0}};
+        double[] thresholds = {0.8, -0.1};
+        DenseLayer instance = new DenseLayer(weights, thresholds);
+        try {
+            double[] result = instance.activation(inputs);
+            for (int neuron = 0; neuron < weights.length; neuron++) {
+                Neuron expResult = new Neuron(weights[neuron], thresholds[neuron], new Random());
+                assertEquals(expResult.activation(inputs, false), result[neuron], 0.0);
+            }
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of the activation tape, of class DenseLayer. The derivative
+     * recorded on the way forwards must match the slope worked out from each
+     * output, for both activation functions.
+     */
+    @Test
+    public void testActivation_tape() {
+        System.out.println("activation_tape");
+        double[] inputs = {0.3, -1.7};
+        double[][] weights = {{0.5, 0.4}, {0.9, 1.0}, {-2.5, 0.1}};
+        double[] thresholds = {0.8, -0.1, 0.0};
+        DenseLayer instance = new DenseLayer(weights, thresholds);
+        try {
+            for (ActivationFunction function : new ActivationFunction[]{ActivationFunction.SIGMOID, ActivationFunction.HYPERBOLIC_TANGENT}) {
+                instance.setActivationFunction(function);
+                double[] result = instance.activation(inputs);
+                for (int neuron = 0; neuron < weights.length; neuron++) {
+                    assertEquals(function.slope(result[neuron]), instance.getDerivative(neuron), 1e-12);
+                }
+            }
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of activation method with the wrong number of inputs, of class
+     * DenseLayer.
+     */
+    @Test(expected = UnevenArraysException.class)
+    public void testActivation_unevenInputs() throws UnevenArraysException {
+        System.out.println("activation_unevenInputs");
+        double[][] weights = {{0.5, 0.4}, {0.9, 1.0}};
+        double[] thresholds = {0.8, -0.1};
+        DenseLayer instance = new DenseLayer(weights, thresholds);
+        instance.activation(new double[]{1, 1, 1});
+    }
+
+    /**
+     * Test of outputGradients and weightCorrection methods, of class
+     * DenseLayer. Must match the per Neuron update.
+     */
+    @Test
+    public void testWeightCorrection() {
+        System.out.println("weightCorrection");
+        double[] inputs = {0.0572, 1.0001};
+        double[][] weights = {{-1.2, 1.1}};
+        double[] thresholds = {0.3};
+        double[] desiredOutput = {0.1};
+        DenseLayer instance = new DenseLayer(weights, thresholds);
+        Neuron expResult = new Neuron(weights[0], thresholds[0], new Random());
+        try {
+            instance.activation(inputs);
+            instance.outputGradients(desiredOutput);
+            instance.weightCorrection(0.1, 0.95);
+
+            expResult.activation(inputs, false);
+            expResult.calcError(desiredOutput[0]);
+            expResult.weightCorrection(0.1, 0.95, expResult.hyperbolicErrorGradient());
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+        assertArrayEquals(expResult.getWeights(), instance.getWeights()[0], 0.0);
+        assertEquals(expResult.getThreshold(), instance.getThreshold(0), 0.0);
+        assertEquals(expResult.getError(), instance.getError(0), 0.0);
+    }
+
+    /**
+     * Test of toString method, of class DenseLayer.
+     */
+    @Test
+    public void testToString() {
+        System.out.println("toString");
+        double[][] weights = {{-1.2, 1.1}};
+        double[] thresholds = {0.3};
+        DenseLayer instance = new DenseLayer(weights, thresholds);
+        Neuron expResult = new Neuron(weights[0], thresholds[0], new Random());
+        assertEquals(expResult.toString(), instance.toString(0));
+    }
+}
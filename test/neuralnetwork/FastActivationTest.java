@@ -0,0 +1,124 @@
+package neuralnetwork;
+
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * A JUnit test class for the FastActivation class.
+ *
+ * @author 18403879 Curtis Alcock
+ */
+public class FastActivationTest {
+
+    public FastActivationTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of sigmoid method, of class FastActivation. The output and its
+     * derivative must stay within the documented error, inside and well
+     * beyond the table.
+     */
+    @Test
+    public void testSigmoid() {
+        System.out.println("sigmoid");
+        double worst = 0;
+        for (double x = -40; x <= 40; x += 0.0001) {
+            double expResult = ActivationFunction.SIGMOID.transfer(x);
+            double result = FastActivation.sigmoid(x);
+            worst = Math.max(worst, Math.abs(expResult - result));
+            assertEquals(expResult, result, FastActivation.SIGMOID_MAX_ERROR);
+            assertEquals(ActivationFunction.SIGMOID.slope(expResult), ActivationFunction.SIGMOID.approximate().slope(result), FastActivation.SIGMOID_MAX_ERROR);
+        }
+        System.out.printf("sigmoid max error: %.3e\n", worst);
+    }
+
+    /**
+     * Test of hyperbolicTangent method, of class FastActivation. The output
+     * and its derivative must stay within the documented error, inside and
+     * well beyond the table.
+     */
+    @Test
+    public void testHyperbolicTangent() {
+        System.out.println("hyperbolicTangent");
+        double worst = 0;
+        for (double x = -40; x <= 40; x += 0.0001) {
+            double expResult = ActivationFunction.HYPERBOLIC_TANGENT.transfer(x);
+            double result = FastActivation.hyperbolicTangent(x);
+            worst = Math.max(worst, Math.abs(expResult - result));
+            assertEquals(expResult, result, FastActivation.HYPERBOLIC_MAX_ERROR);
+            assertEquals(ActivationFunction.HYPERBOLIC_TANGENT.slope(expResult), ActivationFunction.HYPERBOLIC_TANGENT.approximate().slope(result), FastActivation.HYPERBOLIC_MAX_ERROR);
+        }
+        System.out.printf("hyperbolic tangent max error: %.3e\n", worst);
+    }
+
+    /**
+     * Test of sigmoid method at the edges of the table, of class
+     * FastActivation.
+     */
+    @Test
+    public void testSigmoid_edges() {
+        System.out.println("sigmoid_edges");
+        assertEquals(0.5, FastActivation.sigmoid(0), 0.0);
+        assertEquals(1.0, FastActivation.sigmoid(FastActivation.RANGE), 0.0);
+        assertEquals(0.0, FastActivation.sigmoid(-FastActivation.RANGE), 0.0);
+        assertEquals(1.0, FastActivation.sigmoid(Double.POSITIVE_INFINITY), 0.0);
+        assertEquals(0.0, FastActivation.sigmoid(Double.NEGATIVE_INFINITY), 0.0);
+        assertTrue(Double.isNaN(FastActivation.sigmoid(Double.NaN)));
+    }
+
+    /**
+     * Reports the speed of the approximate activation functions against the
+     * exact ones.
+     */
+    @Test
+    public void testTransfer_throughput() {
+        System.out.println("transfer_throughput");
+        Random random = new Random(1984);
+        double[] inputs = new double[4096];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = random.nextDouble() * 12 - 6;
+        }
+        double sink = 0;
+        long[] times = new long[4];
+        for (int rep = 0; rep < 3; rep++) {
+            for (int mode = 0; mode < times.length; mode++) {
+                ActivationFunction function = mode < 2 ? ActivationFunction.SIGMOID : ActivationFunction.HYPERBOLIC_TANGENT;
+                if ((mode & 1) == 1) {
+                    function = function.approximate();
+                }
+                long start = System.nanoTime();
+                for (int i = 0; i < 2000; i++) {
+                    for (double input : inputs) {
+                        sink += function.transfer(input);
+                    }
+                }
+                times[mode] = System.nanoTime() - start;
+            }
+        }
+        System.out.printf("sigmoid x%d: exact %.2fms, approximate %.2fms (x%.2f)\n",
+                2000 * inputs.length, times[0] / 1e6, times[1] / 1e6, (double) times[0] / times[1]);
+        System.out.printf("hyperbolic tangent x%d: exact %.2fms, approximate %.2fms (x%.2f) [%.1f]\n",
+                2000 * inputs.length, times[2] / 1e6, times[3] / 1e6, (double) times[2] / times[3], sink);
+    }
+}
@@ -0,0 +1,197 @@
+package neuralnetwork;
+
+import io.IOManager;
+import java.io.File;
+import neuralnetworkexceptions.UnevenArraysException;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * A JUnit test class for the FloatNetwork class.
+ *
+ * @author 18403879 Curtis Alcock
+ */
+public class FloatNetworkTest {
+
+    /* How far, as a fraction of the double precision epochs, single precision may drift */
+    private static final double EPOCH_TOLERANCE = 0.05;
+    /* How far a single precision weight may end from its double precision twin */
+    private static final double WEIGHT_TOLERANCE = 1e-3;
+
+    public FloatNetworkTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of activation method, of class FloatNetwork. Must agree with the
+     * double precision network to float precision.
+     */
+    @Test
+    public void testActivation() {
+        System.out.println("activation");
+        double[] inputs = {1, 1};
+        double[][][] weights = {{{0.5, 0.4}, {0.9, 1.0}}, {{-1.2, 1.1}}};
+        double[][] thresholds = {{0.8, -0.1}, {0.3}};
+        Network network = new Network(weights, thresholds, 0.1, 0);
+        FloatNetwork instance = new FloatNetwork(network);
+        try {
+            assertArrayEquals(network.activation(inputs), instance.activation(inputs), 1e-6);
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of activation method with the wrong number of inputs, of class
+     * FloatNetwork.
+     */
+    @Test(expected = UnevenArraysException.class)
+    public void testActivation_unevenInputs() throws UnevenArraysException {
+        System.out.println("activation_unevenInputs");
+        int[] neurons = {2, 2, 1};
+        FloatNetwork instance = new FloatNetwork(new Network(neurons, 6969, 0.1, 0));
+        instance.activation(new double[]{1, 1, 1});
+    }
+
+    /**
+     * Test of toNetwork method, of class FloatNetwork. Weights that are exact
+     * in float must survive the round trip unchanged.
+     */
+    @Test
+    public void testToNetwork() {
+        System.out.println("toNetwork");
+        double[][][] weights = {{{0.5, 0.25}, {-0.75, 1.0}}, {{-1.5, 1.125}}};
+        double[][] thresholds = {{0.5, -0.125}, {0.375}};
+        Network expResult = new Network(weights, thresholds, 0.1, 0.95);
+        Network result = new FloatNetwork(expResult).toNetwork();
+        assertArrayEquals(expResult.getWeights(), result.getWeights());
+        assertArrayEquals(expResult.getThresholds(), result.getThresholds());
+        assertEquals(expResult.mLearningRate, result.mLearningRate, 0.0);
+        assertEquals(expResult.mMomentum, result.mMomentum, 0.0);
+    }
+
+    /**
+     * Test of toNetwork and train methods with an optimizer, of class FloatNetwork.
+     * The optimizer must be handed back untouched, and training with it
+     * refused rather than silently done by the classic momentum rule.
+     */
+    @Test
+    public void testTrain_optimizer() {
+        System.out.println("train_optimizer");
+        Network expResult = new Network(new int[]{2, 3, 1}, 6969, 0.1, 0.95);
+        expResult.setOptimizer(Optimizer.ADAM);
+        FloatNetwork instance = new FloatNetwork(expResult);
+        Network result = instance.toNetwork();
+        assertEquals(Optimizer.ADAM, result.getOptimizer());
+        assertArrayEquals(expResult.getLayer(1).getOptimizer().getState(), result.getLayer(1).getOptimizer().getState(), 0.0);
+        assertNotSame(expResult.getLayer(1).getOptimizer(), result.getLayer(1).getOptimizer());
+        double[][][] weights = instance.getWeights();
+        try {
+            instance.train(new double[][]{{0, 1}}, new double[][]{{0.9}}, 0.001);
+            fail();
+        } catch (IllegalStateException ex) {
+            assertArrayEquals(weights, instance.getWeights());
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of train method on the XOR problem, of class FloatNetwork.
+     */
+    @Test(timeout = 60000)
+    public void testTrain_xor() {
+        System.out.println("train_xor");
+        compareTraining(new File("set.xml"));
+    }
+
+    /**
+     * Test of train method on the multiplexer problem, of class FloatNetwork.
+     */
+    @Test(timeout = 60000)
+    public void testTrain_multiplexer() {
+        System.out.println("train_multiplexer");
+        compareTraining(new File("multiplexer_test.xml"));
+    }
+
+    /**
+     * Trains a network from a file in both double and single precision, and
+     * checks the single precision network takes about as many epochs and
+     * ends with about the same weights.
+     *
+     * @param file a file holding a network, training sets and desired
+     * outcomes.
+     */
+    private void compareTraining(File file) {
+        double[][] trainingSet = IOManager.readTrainingSets(file);
+        double[][] desiredOutcomes = IOManager.readDesiredOutcomes(file);
+        double convergence = 0.001;
+        Network expResult = IOManager.readNetwork(file);
+        FloatNetwork instance = IOManager.readFloatNetwork(file);
+        expResult.setTrainingListener(null, 1);
+        instance.setTrainingListener(null, 1);
+        try {
+            int expEpochs = expResult.train(trainingSet, desiredOutcomes, convergence);
+            int epochs = instance.train(trainingSet, desiredOutcomes, convergence);
+            System.out.printf("%s: double converged at Epoch[%d], float at Epoch[%d]\n", file.getName(), expEpochs, epochs);
+            double[][][] expWeights = expResult.getWeights();
+            double[][][] weights = instance.getWeights();
+            double error = 0;
+            for (int layer = 0; layer < weights.length; layer++) {
+                for (int neuron = 0; neuron < weights[layer].length; neuron++) {
+                    for (int link = 0; link < weights[layer][neuron].length; link++) {
+                        error = Math.max(error, Math.abs(expWeights[layer][neuron][link] - weights[layer][neuron][link]));
+                    }
+                }
+            }
+            System.out.printf("%s: largest weight difference %.3g\n", file.getName(), error);
+            assertEquals(expEpochs, epochs, EPOCH_TOLERANCE * expEpochs);
+            assertEquals(0, error, WEIGHT_TOLERANCE);
+            for (int i = 0; i < trainingSet.length; i++) {
+                assertArrayEquals(desiredOutcomes[i], instance.activation(trainingSet[i]), 0.05);
+            }
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of writeNetwork and readFloatNetwork methods, of class IOManager,
+     * with a FloatNetwork.
+     */
+    @Test
+    public void testWriteAndRead() throws Exception {
+        System.out.println("writeAndRead");
+        double[][][] weights = {{{0.5, 0.4}, {0.9, 1.0}}, {{-1.2, 1.1}}};
+        double[][] thresholds = {{0.8, -0.1}, {0.3}};
+        FloatNetwork expResult = new FloatNetwork(new Network(weights, thresholds, 0.1, 0));
+        File file = File.createTempFile("floatNetwork", ".xml");
+        file.deleteOnExit();
+        IOManager.writeNetwork(file, expResult);
+        FloatNetwork result = IOManager.readFloatNetwork(file);
+        assertArrayEquals(expResult.getThresholds(), result.getThresholds());
+        assertArrayEquals(expResult.getWeights(), result.getWeights());
+    }
+}
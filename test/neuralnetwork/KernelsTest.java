@@ -0,0 +1,221 @@
+package neuralnetwork;
+
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * A JUnit test class for the Kernels class. Each kernel must match the plain
+ * loop it stands in for.
+ *
+ * @author 18403879 Curtis Alcock
+ */
+public class KernelsTest {
+
+    /*
+     * The largest difference allowed where the summation order differs.
+     */
+    private static final double TOLERANCE = 1e-12;
+
+    public KernelsTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Fills an array with values between -1 and +1.
+     */
+    private static double[] randomArray(Random random, int length) {
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = random.nextDouble() * 2 - 1;
+        }
+        return values;
+    }
+
+    /**
+     * Test of dot method, of class Kernels.
+     */
+    @Test
+    public void testDot() {
+        System.out.println("dot");
+        Random random = new Random(1984);
+        for (int length = 0; length < 70; length++) {
+            double[] a = randomArray(random, length + 3);
+            double[] b = randomArray(random, length + 5);
+            double expResult = 0;
+            for (int i = 0; i < length; i++) {
+                expResult += a[3 + i] * b[5 + i];
+            }
+            assertEquals(expResult, Kernels.dot(a, 3, b, 5, length), 0.0);
+        }
+    }
+
+    /**
+     * Test of axpy method, of class Kernels.
+     */
+    @Test
+    public void testAxpy() {
+        System.out.println("axpy");
+        Random random = new Random(1984);
+        for (int length = 0; length < 70; length++) {
+            double[] x = randomArray(random, length + 1);
+            double[] expResult = randomArray(random, length + 2);
+            double[] result = expResult.clone();
+            for (int i = 0; i < length; i++) {
+                expResult[2 + i] += 0.37 * x[1 + i];
+            }
+            Kernels.axpy(0.37, x, 1, result, 2, length);
+            assertArrayEquals(expResult, result, 0.0);
+        }
+    }
+
+    /**
+     * Test of correction method, of class Kernels.
+     */
+    @Test
+    public void testCorrection() {
+        System.out.println("correction");
+        Random random = new Random(1984);
+        for (int length = 0; length < 70; length++) {
+            double[] inputs = randomArray(random, length);
+            double[] expWeights = randomArray(random, length + 4);
+            double[] expDeltas = randomArray(random, length + 4);
+            double[] weights = expWeights.clone();
+            double[] deltas = expDeltas.clone();
+            for (int i = 0; i < length; i++) {
+                expDeltas[4 + i] = 0.95 * expDeltas[4 + i] + 0.1 * inputs[i] * -0.3;
+                expWeights[4 + i] += expDeltas[4 + i];
+            }
+            Kernels.correction(weights, deltas, 4, inputs, 0, length, 0.95, 0.1, -0.3);
+            assertArrayEquals(expWeights, weights, 0.0);
+            assertArrayEquals(expDeltas, deltas, 0.0);
+        }
+    }
+
+    /**
+     * Test of sparseCorrection method, of class Kernels. Links whose input is
+     * 0 must be left alone.
+     */
+    @Test
+    public void testSparseCorrection() {
+        System.out.println("sparseCorrection");
+        Random random = new Random(1984);
+        for (int length = 0; length < 70; length++) {
+            double[] inputs = randomArray(random, length);
+            for (int i = 0; i < length; i += 3) {
+                inputs[i] = 0;
+            }
+            double[] expWeights = randomArray(random, length + 4);
+            double[] expDeltas = randomArray(random, length + 4);
+            double[] weights = expWeights.clone();
+            double[] deltas = expDeltas.clone();
+            for (int i = 0; i < length; i++) {
+                if (i % 3 != 0) {
+                    expDeltas[4 + i] = 0.1 * inputs[i] * -0.3;
+                    expWeights[4 + i] += expDeltas[4 + i];
+                }
+            }
+            Kernels.sparseCorrection(weights, deltas, 4, inputs, 0, length, 0.1, -0.3);
+            assertArrayEquals(expWeights, weights, 0.0);
+            assertArrayEquals(expDeltas, deltas, 0.0);
+        }
+    }
+
+    /**
+     * Test of optimizerCorrection method, of class Kernels. Each link must be
+     * handed to the optimizer as the parameter at its index in the weights.
+     */
+    @Test
+    public void testOptimizerCorrection() {
+        System.out.println("optimizerCorrection");
+        Random random = new Random(1984);
+        int length = 37;
+        double[] inputs = randomArray(random, length);
+        double[] expWeights = randomArray(random, length + 4);
+        double[] expDeltas = new double[length + 4];
+        double[] weights = expWeights.clone();
+        double[] deltas = expDeltas.clone();
+        Optimizer expOptimizer = Optimizer.forName(Optimizer.ADAM, length + 4);
+        Optimizer optimizer = Optimizer.forName(Optimizer.ADAM, length + 4);
+        expOptimizer.nextStep();
+        optimizer.nextStep();
+        for (int i = 0; i < length; i++) {
+            expDeltas[4 + i] = expOptimizer.delta(4 + i, inputs[i] * -0.3, 0.01, 0.9);
+            expWeights[4 + i] += expDeltas[4 + i];
+        }
+        Kernels.optimizerCorrection(optimizer, weights, deltas, 4, inputs, 0, length, 0.01, 0.9, -0.3);
+        assertArrayEquals(expWeights, weights, 0.0);
+        assertArrayEquals(expDeltas, deltas, 0.0);
+        assertArrayEquals(expOptimizer.getState(), optimizer.getState(), 0.0);
+    }
+
+    /**
+     * Test of multiply method, of class Kernels. Every sum must match the dot
+     * product of its row and neuron, for any number of rows.
+     */
+    @Test
+    public void testMultiply() {
+        System.out.println("multiply");
+        Random random = new Random(1984);
+        int length = 23;
+        for (int rows = 1; rows < 10; rows++) {
+            for (int neurons = 1; neurons < 6; neurons++) {
+                double[] inputs = randomArray(random, rows * length);
+                double[] weights = randomArray(random, neurons * length);
+                double[] result = new double[rows * neurons];
+                Kernels.multiply(inputs, rows, weights, neurons, length, result);
+                for (int row = 0; row < rows; row++) {
+                    for (int neuron = 0; neuron < neurons; neuron++) {
+                        assertEquals(Kernels.dot(inputs, row * length, weights, neuron * length, length),
+                                result[row * neurons + neuron], 0.0);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of outerProducts method, of class Kernels.
+     */
+    @Test
+    public void testOuterProducts() {
+        System.out.println("outerProducts");
+        Random random = new Random(1984);
+        int length = 23;
+        int neurons = 5;
+        for (int rows = 1; rows < 10; rows++) {
+            double[] deltas = randomArray(random, rows * neurons);
+            double[] inputs = randomArray(random, rows * length);
+            double[] expResult = randomArray(random, neurons * length);
+            double[] result = expResult.clone();
+            for (int row = 0; row < rows; row++) {
+                for (int neuron = 0; neuron < neurons; neuron++) {
+                    for (int i = 0; i < length; i++) {
+                        expResult[neuron * length + i] += deltas[row * neurons + neuron] * inputs[row * length + i];
+                    }
+                }
+            }
+            Kernels.outerProducts(deltas, inputs, rows, neurons, length, result);
+            assertArrayEquals(expResult, result, TOLERANCE);
+        }
+    }
+}
@@ -1,7 +1,14 @@
 package neuralnetwork;
 
 import io.IOManager;
+import io.XmlDataset;
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import neuralnetworkexceptions.UnevenArraysException;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -17,6 +24,24 @@ import static org.junit.Assert.*;
  */
 public class NetworkTest {
 
+    /*
+     * The report of testTrained.xml run on {1, 0}.
+     */
+    private static final String RUN_BOOK_VALUES = "---------------\n"
+            + "| Network Run |\n"
+            + "---------------\n"
+            + "| Input: {[0]=1.0000, [1]=0.0000}\n"
+            + "---------------\n"
+            + "| Weights: \n"
+            + "| Layer #0:\n"
+            + "|	N[0]: {1.6137, 1.6240}, Threshold: 1.6224\n"
+            + "|	N[1]: {3.5195, 3.5476}, Threshold: 0.2778\n"
+            + "| Layer #1:\n"
+            + "|	N[0]: {-2.7919, 2.5703}, Threshold: 1.7764\n"
+            + "---------------\n"
+            + "| Output: [0]=0.8956\n"
+            + "---------------";
+
     public NetworkTest() {
     }
 
@@ -81,6 +106,147 @@ public class NetworkTest {
         }
     }
 
+    /**
+     * Test of activation method with an output buffer, of class Network.
+     */
+    @Test
+    public void testActivation_outputBuffer() {
+        System.out.println("activation_outputBuffer");
+        double[] inputs = {1, 1};
+        double[][][] weights = {{{0.5, 0.4}, {0.9, 1.0}}, {{-1.2, 1.1}}};
+        double[][] thresholds = {{0.8, -0.1}, {0.3}};
+        Network instance = new Network(weights, thresholds, 0.1, 0);
+        double[] expResult = {0.4103};
+        double[] result = new double[1];
+        try {
+            instance.activation(inputs, result);
+            assertArrayEquals(expResult, result, 0.0001);
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of activation method with an output buffer, of class Network. Once
+     * warmed up it must not allocate anything per call.
+     */
+    @Test
+    public void testActivation_noAllocation() {
+        System.out.println("activation_noAllocation");
+        java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return; // allocation counting isn't available on this JVM
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        long thread = Thread.currentThread().getId();
+        int[] neurons = {64, 128, 32, 4};
+        Network instance = new Network(neurons, 6969, 0.1, 0);
+        double[] inputs = new double[64];
+        double[] outputs = new double[4];
+        double[][] batch = new double[300][64];
+        double[][] batchOutputs = new double[300][4];
+        try {
+            for (int i = 0; i < 20000; i++) {
+                instance.activation(inputs, outputs);
+            }
+            instance.activateBatch(batch, batchOutputs);
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < 10000; i++) {
+                instance.activation(inputs, outputs);
+            }
+            instance.activateBatch(batch, batchOutputs);
+            long allocated = threads.getThreadAllocatedBytes(thread) - before;
+            System.out.printf("Allocated %d bytes over 10000 activations\n", allocated);
+            assertTrue(allocated < 10000);
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of activateBatch method, of class Network. Every row must match
+     * activating the network with that row alone.
+     */
+    @Test
+    public void testActivateBatch() {
+        System.out.println("activateBatch");
+        int[] neurons = {5, 7, 6, 3};
+        Network instance = new Network(neurons, 6969, 0.1, 0);
+        Random random = new Random(1984);
+        double[][] inputs = new double[301][5];
+        for (double[] input : inputs) {
+            for (int i = 0; i < input.length; i++) {
+                input[i] = random.nextDouble();
+            }
+        }
+        try {
+            double[][] result = instance.activateBatch(inputs);
+            for (int i = 0; i < inputs.length; i++) {
+                assertArrayEquals(instance.activation(inputs[i]), result[i], 1e-12);
+            }
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of activateBatch method with a badly sized input set, of class
+     * Network.
+     */
+    @Test(expected = UnevenArraysException.class)
+    public void testActivateBatch_unevenInputs() throws UnevenArraysException {
+        System.out.println("activateBatch_unevenInputs");
+        int[] neurons = {2, 2, 1};
+        Network instance = new Network(neurons, 6969, 0.1, 0);
+        instance.activateBatch(new double[][]{{1, 1}, {1, 1, 1}});
+    }
+
+    /**
+     * Throughput of activateBatch against looping over activation, on a wide
+     * network. Only reports the rows per second.
+     */
+    @Test
+    public void testActivateBatch_throughput() {
+        System.out.println("activateBatch_throughput");
+        int[] neurons = {256, 512, 512, 10};
+        Network instance = new Network(neurons, 6969, 0.1, 0);
+        double[][] inputs = new double[1024][256];
+        double[][] outputs = new double[inputs.length][10];
+        Random random = new Random(1984);
+        for (double[] input : inputs) {
+            for (int i = 0; i < input.length; i++) {
+                input[i] = random.nextDouble();
+            }
+        }
+        try {
+            long start;
+            double single;
+            double batch;
+            // warm up both paths first
+            for (int rep = 0; rep < 2; rep++) {
+                instance.activateBatch(inputs, outputs);
+                for (double[] input : inputs) {
+                    instance.activation(input);
+                }
+            }
+            start = System.nanoTime();
+            for (double[] input : inputs) {
+                instance.activation(input);
+            }
+            single = inputs.length / ((System.nanoTime() - start) / 1e9);
+            start = System.nanoTime();
+            instance.activateBatch(inputs, outputs);
+            batch = inputs.length / ((System.nanoTime() - start) / 1e9);
+            System.out.printf("activation: %.0f rows/s, activateBatch: %.0f rows/s (x%.2f)\n", single, batch, batch / single);
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
     /**
      * Test of weightTraining method, of class Network.
      */
@@ -299,28 +465,644 @@ public class NetworkTest {
         }
     }
 
+    /**
+     * Test of train method with a Dataset, of class Network. Streaming the
+     * sets from the file must train exactly as the arrays read from it do.
+     */
+    @Test
+    public void testTrain_dataset() {
+        System.out.println("train_dataset");
+        File file = new File("multiplexer_test.xml");
+        double[][] trainingSet = IOManager.readTrainingSets(file);
+        double[][] desiredOutcomes = IOManager.readDesiredOutcomes(file);
+        double convergence = 0.001;
+        Network expResult = new Network(new int[]{3, 8, 1}, 6969, 0.1, 0.95);
+        Network instance = new Network(new int[]{3, 8, 1}, 6969, 0.1, 0.95);
+        try {
+            int expEpochs = expResult.train(trainingSet, desiredOutcomes, convergence);
+            int epochs = instance.train(new XmlDataset(file), convergence);
+            assertEquals(expEpochs, epochs);
+            assertArrayEquals(expResult.getWeights(), instance.getWeights());
+            assertArrayEquals(expResult.getThresholds(), instance.getThresholds());
+            assertEquals(expResult.mLearningRate, instance.mLearningRate, 0.0);
+        } catch (UnevenArraysException | IOException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of train method with a Dataset of the wrong size, of class Network.
+     */
+    @Test(expected = UnevenArraysException.class)
+    public void testTrain_dataset_unevenSets() throws UnevenArraysException, IOException {
+        System.out.println("train_dataset_unevenSets");
+        double[][] trainingSet = {{0.0, 0.0}, {0.0, 1.0, 1.0}};
+        double[][] desiredOutcomes = {{0.1}, {0.9}};
+        Network instance = new Network(new int[]{2, 2, 1}, 6969, 0.1, 0.95);
+        instance.train(Dataset.of(trainingSet, desiredOutcomes), 0.001);
+    }
+
+    /**
+     * Test of setTrainingListener method, of class Network. Only every tenth
+     * epoch and the last are reported, in order, with the
+     * output of each training set.
+     */
+    @Test
+    public void testSetTrainingListener() {
+        System.out.println("setTrainingListener");
+        double[][] trainingSet = {{0.0, 0.0}, {0.0, 1.0}, {1.0, 0.0}, {1.0, 1.0}};
+        double[][] desiredOutcomes = {{0.1}, {0.9}, {0.9}, {0.1}};
+        double convergence = 0.001;
+        final List<Integer> epochs = new ArrayList<>();
+        final List<Double> sums = new ArrayList<>();
+        final int[] finished = {-1};
+        Network instance = new Network(new int[]{2, 2, 1}, 6969, 0.1, 0.95);
+        instance.setTrainingListener(new TrainingListener() {
+            @Override
+            public void epochCompleted(int epoch, double sumOfSquaredErrors, double learningRate, double[][] outputs) {
+                assertEquals(trainingSet.length, outputs.length);
+                epochs.add(epoch);
+                sums.add(sumOfSquaredErrors);
+            }
+
+            @Override
+            public void trainingFinished(int epochs) {
+                finished[0] = epochs;
+            }
+        }, 10);
+        try {
+            int result = instance.train(trainingSet, desiredOutcomes, convergence);
+            assertEquals(result, finished[0]);
+            assertEquals(result / 10 + (result % 10 == 0 ? 1 : 2), epochs.size());
+            for (int i = 0; i < epochs.size() - 1; i++) {
+                assertEquals(i * 10, (int) epochs.get(i));
+            }
+            assertEquals(result, (int) epochs.get(epochs.size() - 1));
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of train method in mini-batch mode, of class Network.
+     *
+     * Note: Converges at Epoch[209]
+     */
+    @Test
+    public void testTrain_miniBatch() {
+        System.out.println("train_miniBatch");
+        double[][] trainingSet = {{0.0, 0.0}, {0.0, 1.0}, {1.0, 1.0}, {1.0, 0.0}};
+        double[][] desiredOutcomes = {{0.1}, {0.9}, {0.1}, {0.9}};
+        double[][][] weights = {{{0.5, 0.4}, {0.9, 1.0}}, {{-1.2, 1.1}}};
+        double[][] thresholds = {{0.8, -0.1}, {0.3}};
+        double momentum = 0.95;
+        double learningRate = 0.1;
+        double convergence = 0.0001;
+        int batchSize = 4;
+        Network instance = new Network(weights, thresholds, learningRate, momentum);
+        try {
+            instance.train(trainingSet, desiredOutcomes, convergence, batchSize);
+            for (int i = 0; i < trainingSet.length; i++) {
+                assertArrayEquals(desiredOutcomes[i], instance.activation(trainingSet[i]), 0.01);
+            }
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of train method in mini-batch mode carrying on from the progress of
+     * an earlier run, of class Network. A snapshot taken at the converging
+     * epoch must not train any further.
+     */
+    @Test
+    public void testTrain_miniBatch_resume() {
+        System.out.println("train_miniBatch_resume");
+        double[][] trainingSet = {{0.0, 0.0}, {0.0, 1.0}, {1.0, 1.0}, {1.0, 0.0}};
+        double[][] desiredOutcomes = {{0.1}, {0.9}, {0.1}, {0.9}};
+        double[][][] weights = {{{0.5, 0.4}, {0.9, 1.0}}, {{-1.2, 1.1}}};
+        double[][] thresholds = {{0.8, -0.1}, {0.3}};
+        double convergence = 0.0001;
+        final Network expResult = new Network(weights, thresholds, 0.1, 0.95);
+        final Network[] snapshot = new Network[1];
+        expResult.setTrainingListener((epoch, sum, learningRate, outputs) -> snapshot[0] = expResult.snapshot(), 1);
+        try {
+            int expEpochs = expResult.train(trainingSet, desiredOutcomes, convergence, 4);
+            Network instance = snapshot[0];
+            assertEquals(expEpochs + 1, instance.getEpoch());
+            instance.setTrainingListener(null, 1);
+            assertEquals(expEpochs, instance.train(trainingSet, desiredOutcomes, convergence, 4));
+            assertArrayEquals(expResult.getWeights(), instance.getWeights());
+            assertEquals(0, instance.getEpoch());
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of train method ending in an exception, of class Network. The
+     * progress of the run is cleared, so the next run starts afresh.
+     */
+    @Test
+    public void testTrain_exception() {
+        System.out.println("train_exception");
+        double[][] trainingSet = {{0.0, 0.0}, {0.0, 1.0}, {1.0, 1.0}, {1.0, 0.0}};
+        double[][] desiredOutcomes = {{0.1}, {0.9}, {0.1}, {0.9}};
+        Network instance = new Network(new int[]{2, 2, 1}, 6969, 0.1, 0.95);
+        instance.setTrainingListener((epoch, sum, learningRate, outputs) -> {
+            if (epoch == 3) {
+                throw new IllegalStateException("stopped");
+            }
+        }, 1);
+        try {
+            instance.train(trainingSet, desiredOutcomes, 0.0001, 2);
+            fail();
+        } catch (IllegalStateException ex) {
+            assertEquals(0, instance.getEpoch());
+            assertArrayEquals(new double[]{1, 1}, instance.getEpochSums(), 0.0);
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of train method in parallel mini-batch mode, of class Network.
+     * Sharding the batch across threads must give the same weights as
+     * working the batch on one thread.
+     */
+    @Test
+    public void testTrain_parallel() {
+        System.out.println("train_parallel");
+        double[][] trainingSet = {{0.0, 0.0}, {0.0, 1.0}, {1.0, 1.0}, {1.0, 0.0}};
+        double[][] desiredOutcomes = {{0.1}, {0.9}, {0.1}, {0.9}};
+        double[][][] weights = {{{0.5, 0.4}, {0.9, 1.0}}, {{-1.2, 1.1}}};
+        double[][] thresholds = {{0.8, -0.1}, {0.3}};
+        double momentum = 0.95;
+        double learningRate = 0.1;
+        double convergence = 0.0001;
+        int batchSize = 4;
+        Network expResult = new Network(weights, thresholds, learningRate, momentum);
+        Network instance = new Network(weights, thresholds, learningRate, momentum);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            int expEpochs = expResult.train(trainingSet, desiredOutcomes, convergence, batchSize);
+            int epochs = instance.train(trainingSet, desiredOutcomes, convergence, batchSize, pool);
+            assertEquals(expEpochs, epochs);
+            for (int layer = 0; layer < weights.length; layer++) {
+                for (int neuron = 0; neuron < weights[layer].length; neuron++) {
+                    assertArrayEquals(expResult.getWeights()[layer][neuron], instance.getWeights()[layer][neuron], 1e-9);
+                }
+                assertArrayEquals(expResult.getThresholds()[layer], instance.getThresholds()[layer], 1e-9);
+            }
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Reports how the gradient pass of a mini-batch scales with the number of
+     * threads it is sharded across. Every thread count must give the same
+     * errors, and train just as far, as one thread; with more than one core,
+     * two threads must also be faster than one.
+     */
+    @Test
+    public void testTrain_parallelScaling() {
+        System.out.println("train_parallelScaling");
+        Random random = new Random(1984);
+        double[][] trainingSet = new double[2048][128];
+        double[][] desiredOutcomes = new double[2048][10];
+        for (int i = 0; i < trainingSet.length; i++) {
+            for (int j = 0; j < 128; j++) {
+                trainingSet[i][j] = random.nextDouble() * 2 - 1;
+            }
+            desiredOutcomes[i][random.nextInt(10)] = 0.9;
+        }
+        Network instance = new Network(new int[]{128, 128, 10}, 6969, 0.1, 0.95);
+        DenseLayer[] layers = new DenseLayer[instance.getLayerCount()];
+        for (int l = 0; l < layers.length; l++) {
+            layers[l] = instance.getLayer(l);
+        }
+        int batchSize = 512;
+        int[] threads = {1, 2, 4};
+        ForkJoinPool[] pools = new ForkJoinPool[threads.length];
+        BatchWorkspace[][] workspaces = new BatchWorkspace[threads.length][];
+        for (int t = 0; t < threads.length; t++) {
+            pools[t] = new ForkJoinPool(threads[t]);
+            workspaces[t] = new BatchWorkspace[threads[t]];
+            for (int shard = 0; shard < threads[t]; shard++) {
+                workspaces[t][shard] = new BatchWorkspace(layers, batchSize / threads[t]);
+            }
+        }
+        // the thread counts take turns, and the best time of each is kept
+        long[] times = new long[threads.length];
+        Arrays.fill(times, Long.MAX_VALUE);
+        double[] sums = new double[threads.length];
+        double sink = 0;
+        double convergence = 0.9;
+        int trainingSize = 256;
+        int[] epochs = new int[threads.length];
+        double[] lastSums = new double[threads.length];
+        try {
+            for (int rep = 0; rep < 5; rep++) {
+                for (int t = 0; t < threads.length; t++) {
+                    long start = System.nanoTime();
+                    sums[t] = 0;
+                    for (int from = 0; from < trainingSet.length; from += batchSize) {
+                        sums[t] += pools[t].invoke(new GradientShard(instance, workspaces[t], 0, threads[t],
+                                trainingSet, desiredOutcomes, from, from + batchSize, batchSize / threads[t], null));
+                    }
+                    times[t] = Math.min(times[t], System.nanoTime() - start);
+                    sink += sums[t];
+                }
+            }
+
+            // train a fresh copy of the network with each thread count
+            double[][] trainingSubset = Arrays.copyOf(trainingSet, trainingSize);
+            double[][] desiredSubset = Arrays.copyOf(desiredOutcomes, trainingSize);
+            for (int t = 0; t < threads.length; t++) {
+                final int run = t;
+                Network copy = new Network(new int[]{128, 128, 10}, 6969, 0.1, 0.95);
+                copy.setTrainingListener((epoch, sum, learningRate, outputs) -> lastSums[run] = sum, 1);
+                epochs[t] = threads[t] == 1 ? copy.train(trainingSubset, desiredSubset, convergence, batchSize / 8)
+                        : copy.train(trainingSubset, desiredSubset, convergence, batchSize / 8, pools[t]);
+            }
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        } finally {
+            for (ForkJoinPool pool : pools) {
+                pool.shutdown();
+            }
+        }
+        for (int t = 0; t < threads.length; t++) {
+            System.out.printf("gradient pass x%d (128-128-10, batch %d, %d cores), %d thread(s): %.2fms (x%.2f) [%.1f]\n",
+                    trainingSet.length, batchSize, Runtime.getRuntime().availableProcessors(),
+                    threads[t], times[t] / 1e6, (double) times[0] / times[t], sink);
+            System.out.printf("train x%d, %d thread(s): converged at Epoch[%d], %.4f\n",
+                    trainingSize, threads[t], epochs[t], lastSums[t]);
+            assertEquals(sums[0], sums[t], 1e-9 * sums[0]);
+            assertTrue(epochs[t] > 0 && lastSums[t] <= convergence);
+            assertEquals(epochs[0], epochs[t], epochs[0] / 10);
+        }
+        if (Runtime.getRuntime().availableProcessors() > 1) {
+            assertTrue("two threads gave no speed up", (double) times[0] / times[1] > 1.1);
+        }
+    }
+
+    /**
+     * Test of trainAsynchronous method on the XOR sets, of class Network.
+     * Reports the epochs taken against the sequential train method.
+     */
+    @Test(timeout = 60000)
+    public void testTrainAsynchronous_xor() {
+        System.out.println("trainAsynchronous_xor");
+        compareAsynchronous(new File("set.xml"));
+    }
+
+    /**
+     * Test of trainAsynchronous method on the multiplexer sets, of class
+     * Network. Reports the epochs taken against the sequential train method.
+     */
+    @Test(timeout = 60000)
+    public void testTrainAsynchronous_multiplexer() {
+        System.out.println("trainAsynchronous_multiplexer");
+        compareAsynchronous(new File("multiplexer_test.xml"));
+    }
+
+    /**
+     * Test of trainAsynchronous method with an optimizer, of class Network.
+     * It must be refused before any weight is touched.
+     */
+    @Test
+    public void testTrainAsynchronous_optimizer() {
+        System.out.println("trainAsynchronous_optimizer");
+        Network instance = new Network(new int[]{2, 2, 1}, 6969, 0.1, 0.9);
+        instance.setOptimizer(Optimizer.ADAM);
+        instance.setTrainingListener(null, 1);
+        double[][][] weights = instance.getWeights();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            instance.trainAsynchronous(new double[][]{{0, 1}}, new double[][]{{0.9}}, 0.001, pool);
+            fail();
+        } catch (IllegalStateException ex) {
+            assertArrayEquals(weights, instance.getWeights());
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Test of setActivationFunction method, of class Network. XOR must still
+     * be learnt with hidden layers from the ReLU family, which need no exp()
+     * at all.
+     */
+    @Test(timeout = 60000)
+    public void testSetActivationFunction_hidden() {
+        System.out.println("setActivationFunction_hidden");
+        File file = new File("set.xml");
+        double[][] trainingSet = IOManager.readTrainingSets(file);
+        double[][] desiredOutcomes = IOManager.readDesiredOutcomes(file);
+        ActivationFunction[] functions = {ActivationFunction.RELU, ActivationFunction.LEAKY_RELU, ActivationFunction.HARD_TANH};
+        for (ActivationFunction function : functions) {
+            Network instance = IOManager.readNetwork(file);
+            instance.setActivationFunction(0, function);
+            assertSame(function, instance.getActivationFunction(0));
+            assertSame(ActivationFunction.HYPERBOLIC_TANGENT, instance.getActivationFunction(1));
+            try {
+                int epochs = instance.train(trainingSet, desiredOutcomes, 0.001);
+                System.out.printf("set.xml: %s hidden layer converged at Epoch[%d]\n", function.getName(), epochs);
+                CompiledNetwork compiled = instance.compile();
+                for (int i = 0; i < trainingSet.length; i++) {
+                    assertArrayEquals(desiredOutcomes[i], instance.activation(trainingSet[i]), 0.05);
+                    assertArrayEquals(instance.activation(trainingSet[i]), compiled.activation(trainingSet[i]), 0.0);
+                }
+            } catch (UnevenArraysException ex) {
+                System.err.println(ex);
+                fail();
+            }
+        }
+    }
+
+    /**
+     * Test of setApproximateActivation method, of class Network. Training
+     * with the approximate activation functions must still solve XOR, and a
+     * compiled copy must keep the setting.
+     */
+    @Test(timeout = 60000)
+    public void testSetApproximateActivation() {
+        System.out.println("setApproximateActivation");
+        File file = new File("set.xml");
+        double[][] trainingSet = IOManager.readTrainingSets(file);
+        double[][] desiredOutcomes = IOManager.readDesiredOutcomes(file);
+        Network expResult = IOManager.readNetwork(file);
+        Network instance = IOManager.readNetwork(file);
+        instance.setApproximateActivation(true);
+        assertTrue(instance.isApproximateActivation());
+        try {
+            assertArrayEquals(expResult.activation(trainingSet[0]), instance.activation(trainingSet[0]), FastActivation.HYPERBOLIC_MAX_ERROR);
+            int expEpochs = expResult.train(trainingSet, desiredOutcomes, 0.0001);
+            int epochs = instance.train(trainingSet, desiredOutcomes, 0.0001);
+            System.out.printf("set.xml: exact converged at Epoch[%d], approximate at Epoch[%d]\n", expEpochs, epochs);
+            CompiledNetwork compiled = instance.compile();
+            for (int i = 0; i < trainingSet.length; i++) {
+                assertArrayEquals(desiredOutcomes[i], instance.activation(trainingSet[i]), 0.01);
+                assertArrayEquals(instance.activation(trainingSet[i]), compiled.activation(trainingSet[i]), 0.0);
+            }
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Trains a network from a file both sequentially and asynchronously, and
+     * checks both converge to the desired outcomes.
+     *
+     * @param file a file holding a network, training sets and desired
+     * outcomes.
+     */
+    private void compareAsynchronous(File file) {
+        double[][] trainingSet = IOManager.readTrainingSets(file);
+        double[][] desiredOutcomes = IOManager.readDesiredOutcomes(file);
+        double convergence = 0.0001;
+        Network expResult = IOManager.readNetwork(file);
+        Network instance = IOManager.readNetwork(file);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            int expEpochs = expResult.train(trainingSet, desiredOutcomes, convergence);
+            int epochs = instance.trainAsynchronous(trainingSet, desiredOutcomes, convergence, pool);
+            System.out.printf("%s: sequential converged at Epoch[%d], asynchronous at Epoch[%d]\n", file.getName(), expEpochs, epochs);
+            for (int i = 0; i < trainingSet.length; i++) {
+                assertArrayEquals(desiredOutcomes[i], instance.activation(trainingSet[i]), 0.01);
+            }
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Test of train method in mini-batch mode with a badly sized training
+     * set, of class Network.
+     */
+    @Test(expected = UnevenArraysException.class)
+    public void testTrain_miniBatch_unevenSets() throws UnevenArraysException {
+        System.out.println("train_miniBatch_unevenSets");
+        double[][] trainingSet = {{0.0, 0.0}, {0.0, 1.0, 1.0}};
+        double[][] desiredOutcomes = {{0.1}, {0.9}};
+        int[] neurons = {2, 2, 1};
+        Network instance = new Network(neurons, 6969, 0.1, 0);
+        instance.train(trainingSet, desiredOutcomes, 0.0001, 2);
+    }
+
+    /**
+     * Test of snapshot method, of class Network. The copy must carry the
+     * parameters and be left as it was by further training.
+     */
+    @Test
+    public void testSnapshot() {
+        System.out.println("snapshot");
+        Network instance = new Network(new int[]{2, 2, 1}, 6969, 0.1, 0.95);
+        instance.setActivationFunction(1, ActivationFunction.SIGMOID);
+        Network result = instance.snapshot();
+        double[][][] weights = instance.getWeights();
+        assertArrayEquals(weights, result.getWeights());
+        assertArrayEquals(instance.getThresholds(), result.getThresholds());
+        assertEquals(ActivationFunction.SIGMOID, result.getActivationFunction(1));
+        assertEquals(instance.mMomentum, result.mMomentum, 0.0);
+        try {
+            instance.activation(new double[]{1.0, 0.0});
+            instance.setDesiredOutput(new double[]{0.9});
+            instance.weightTraining();
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+        assertFalse(Arrays.deepEquals(weights, instance.getWeights()));
+        assertArrayEquals(weights, result.getWeights());
+    }
+
+    /**
+     * Test of setOptimizer and getOptimizer methods, of class Network. A
+     * snapshot must carry the optimizer's state without sharing it.
+     */
+    @Test
+    public void testSetOptimizer() {
+        System.out.println("setOptimizer");
+        Network instance = new Network(new int[]{2, 2, 1}, 6969, 0.1, 0.95);
+        assertEquals(Optimizer.MOMENTUM, instance.getOptimizer());
+        assertNull(instance.getLayer(0).getOptimizer());
+        instance.setOptimizer(Optimizer.ADAM);
+        assertEquals(Optimizer.ADAM, instance.getOptimizer());
+        assertEquals(2 * (2 * 2 + 2) + 1, instance.getLayer(0).getOptimizer().getState().length);
+        assertEquals(2 * (2 * 1 + 1) + 1, instance.getLayer(1).getOptimizer().getState().length);
+        try {
+            instance.activation(new double[]{1.0, 0.0});
+            instance.setDesiredOutput(new double[]{0.9});
+            instance.weightTraining();
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+        Network result = instance.snapshot();
+        double[] state = instance.getLayer(1).getOptimizer().getState();
+        assertEquals(Optimizer.ADAM, result.getOptimizer());
+        assertArrayEquals(state, result.getLayer(1).getOptimizer().getState(), 0.0);
+        assertNotSame(instance.getLayer(1).getOptimizer(), result.getLayer(1).getOptimizer());
+        instance.setOptimizer(Optimizer.MOMENTUM);
+        assertNull(instance.getLayer(1).getOptimizer());
+    }
+
+    /**
+     * Test of setOptimizer method with an unknown name, of class Network.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetOptimizer_unknown() {
+        System.out.println("setOptimizer_unknown");
+        new Network(new int[]{2, 2, 1}, 6969, 0.1, 0.95).setOptimizer("sgd");
+    }
+
+    /**
+     * Test of train method with each optimizer, of class Network. Every rule
+     * must converge on the bundled sets at the default learning rate, and
+     * Nesterov's momentum and Adam must take fewer epochs than the classic
+     * momentum rule.
+     */
+    @Test
+    public void testSetOptimizer_epochsToConvergence() {
+        System.out.println("setOptimizer_epochsToConvergence");
+        String[] names = {Optimizer.MOMENTUM, Optimizer.NESTEROV, Optimizer.ADAGRAD, Optimizer.RMSPROP, Optimizer.ADAM};
+        for (String set : new String[]{"set.xml", "multiplexer_test.xml"}) {
+            File file = new File(set);
+            double[][] trainingSet = IOManager.readTrainingSets(file);
+            double[][] desiredOutcomes = IOManager.readDesiredOutcomes(file);
+            int[] epochs = new int[names.length];
+            for (int i = 0; i < names.length; i++) {
+                Network instance = IOManager.readNetwork(file);
+                instance.mLearningRate = 0.1;
+                instance.setOptimizer(names[i]);
+                instance.setTrainingListener((epoch, sum, learningRate, outputs) -> {
+                    if (epoch >= 10000) {
+                        fail("Did not converge");
+                    }
+                }, 1);
+                try {
+                    epochs[i] = instance.train(trainingSet, desiredOutcomes, 0.0001);
+                } catch (UnevenArraysException ex) {
+                    System.err.println(ex);
+                    fail();
+                }
+                System.out.printf("%s %s: %d epochs%n", set, names[i], epochs[i]);
+            }
+            assertTrue(epochs[1] < epochs[0]);
+            assertTrue(epochs[4] < epochs[0]);
+        }
+    }
+
+    /**
+     * Test of train method with Adam, of class Network. The extra pass the
+     * adaptive learning rate makes at the end of an epoch must not count as a
+     * step of the optimizer.
+     */
+    @Test
+    public void testSetOptimizer_adaptiveSteps() {
+        System.out.println("setOptimizer_adaptiveSteps");
+        double[][] trainingSet = {{0.0, 0.0}, {0.0, 1.0}, {1.0, 0.0}, {1.0, 1.0}};
+        double[][] desiredOutcomes = {{0.1}, {0.9}, {0.9}, {0.1}};
+        Network instance = new Network(new int[]{2, 2, 1}, 6969, 0.1, 0.95);
+        instance.setOptimizer(Optimizer.ADAM);
+        instance.setTrainingListener(null, 1);
+        try {
+            int epochs = instance.train(trainingSet, desiredOutcomes, 0.001) + 1;
+            double[] state = instance.getLayer(0).getOptimizer().getState();
+            assertEquals(epochs * trainingSet.length, state[state.length - 1], 0.0);
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of predict method, of class Network. Must give the same outputs as
+     * activation, while leaving the network's own state untouched.
+     */
+    @Test
+    public void testPredict() {
+        System.out.println("predict");
+        double[] inputs = {1, 1};
+        double[][][] weights = {{{0.5, 0.4}, {0.9, 1.0}}, {{-1.2, 1.1}}};
+        double[][] thresholds = {{0.8, -0.1}, {0.3}};
+        Network expResult = new Network(weights, thresholds, 0.1, 0);
+        Network instance = new Network(weights, thresholds, 0.1, 0);
+        try {
+            String state = instance.toString();
+            double[] result = instance.predict(inputs);
+            assertEquals(state, instance.toString());
+            assertArrayEquals(expResult.activation(inputs), result, 1e-12);
+            double[] outputs = new double[1];
+            instance.predict(inputs, outputs);
+            assertArrayEquals(result, outputs, 0.0);
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of predict method with the wrong number of inputs, of class
+     * Network.
+     */
+    @Test(expected = UnevenArraysException.class)
+    public void testPredict_unevenInputs() throws UnevenArraysException {
+        System.out.println("predict_unevenInputs");
+        Network instance = new Network(new int[]{2, 2, 1}, 6969, 0.1, 0);
+        instance.predict(new double[]{1, 0, 1});
+    }
+
+    /**
+     * Test of report method, of class Network. The report must carry the
+     * outputs of predict and render the text run has always given.
+     */
+    @Test
+    public void testReport() {
+        System.out.println("report");
+        double[] input = {1, 0};
+        Network instance = IOManager.readNetwork(new File("testTrained.xml"));
+        try {
+            RunReport result = instance.report(input);
+            assertArrayEquals(input, result.getInputs(), 0.0);
+            assertArrayEquals(instance.predict(input), result.getOutputs(), 0.0);
+            assertEquals(RUN_BOOK_VALUES, result.toString());
+            assertSame(result.toString(), result.toString());
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
     /**
      * Test of run method, of class Network.
      */
     @Test
+    @SuppressWarnings("deprecation")
     public void testRun() {
         System.out.println("run_bookvalues");
         double[] input = {1, 0};
         Network instance = IOManager.readNetwork(new File("testTrained.xml"));
-        String expResult = "---------------\n"
-                + "| Network Run |\n"
-                + "---------------\n"
-                + "| Input: {[0]=1.0000, [1]=0.0000}\n"
-                + "---------------\n"
-                + "| Weights: \n"
-                + "| Layer #0:\n"
-                + "|	N[0]: {1.6137, 1.6240}, Threshold: 1.6224\n"
-                + "|	N[1]: {3.5195, 3.5476}, Threshold: 0.2778\n"
-                + "| Layer #1:\n"
-                + "|	N[0]: {-2.7919, 2.5703}, Threshold: 1.7764\n"
-                + "---------------\n"
-                + "| Output: [0]=0.8956\n"
-                + "---------------";
+        String expResult = RUN_BOOK_VALUES;
         try {
             String result = instance.run(input);
             assertEquals(expResult, result);
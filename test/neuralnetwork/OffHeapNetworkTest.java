@@ -0,0 +1,197 @@
+package neuralnetwork;
+
+import io.IOManager;
+import java.io.File;
+import neuralnetworkexceptions.UnevenArraysException;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * A JUnit test class for the OffHeapNetwork class.
+ *
+ * @author 18403879 Curtis Alcock
+ */
+public class OffHeapNetworkTest {
+
+    public OffHeapNetworkTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of the seeded constructor, of class OffHeapNetwork. Must generate
+     * the same weights as the on-heap network.
+     */
+    @Test
+    public void testRandomInit_matchesNetwork() {
+        System.out.println("randomInit_matchesNetwork");
+        int[] neurons = {3, 5, 2};
+        Network expResult = new Network(neurons, 9999, 0.1, 0.95);
+        OffHeapNetwork instance = new OffHeapNetwork(neurons, 9999, 0.1, 0.95);
+        assertArrayEquals(expResult.getWeights(), instance.getWeights());
+        assertArrayEquals(expResult.getThresholds(), instance.getThresholds());
+    }
+
+    /**
+     * Test of getOffHeapBytes method, of class OffHeapNetwork.
+     */
+    @Test
+    public void testGetOffHeapBytes() {
+        System.out.println("getOffHeapBytes");
+        int[] neurons = {3, 5, 2};
+        OffHeapNetwork instance = new OffHeapNetwork(neurons, 9999, 0.1, 0.95);
+        // weights, thresholds and both sets of deltas, 8 bytes each
+        assertEquals(16 * (4 * 5 + 6 * 2), instance.getOffHeapBytes());
+    }
+
+    /**
+     * Test of activation method, of class OffHeapNetwork.
+     */
+    @Test
+    public void testActivation() {
+        System.out.println("activation");
+        double[] inputs = {1, 1};
+        double[][][] weights = {{{0.5, 0.4}, {0.9, 1.0}}, {{-1.2, 1.1}}};
+        double[][] thresholds = {{0.8, -0.1}, {0.3}};
+        Network network = new Network(weights, thresholds, 0.1, 0);
+        OffHeapNetwork instance = new OffHeapNetwork(network);
+        try {
+            assertArrayEquals(network.activation(inputs), instance.activation(inputs), 0.0);
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of activation method with the wrong number of inputs, of class
+     * OffHeapNetwork.
+     */
+    @Test(expected = UnevenArraysException.class)
+    public void testActivation_unevenInputs() throws UnevenArraysException {
+        System.out.println("activation_unevenInputs");
+        int[] neurons = {2, 2, 1};
+        OffHeapNetwork instance = new OffHeapNetwork(neurons, 6969, 0.1, 0);
+        instance.activation(new double[]{1, 1, 1});
+    }
+
+    /**
+     * Test of weightTraining method, of class OffHeapNetwork. Every step must
+     * leave exactly the same weights as the on-heap network.
+     */
+    @Test
+    public void testWeightTraining() {
+        System.out.println("weightTraining");
+        File file = new File("multiplexer_test.xml");
+        double[][] trainingSet = IOManager.readTrainingSets(file);
+        double[][] desiredOutcomes = IOManager.readDesiredOutcomes(file);
+        Network expResult = new Network(new int[]{3, 4, 3, 1}, 6969, 0.1, 0.95);
+        expResult.setActivationFunction(0, ActivationFunction.SIGMOID);
+        OffHeapNetwork instance = new OffHeapNetwork(expResult);
+        try {
+            for (int epoch = 0; epoch < 5; epoch++) {
+                for (int i = 0; i < trainingSet.length; i++) {
+                    expResult.activation(trainingSet[i]);
+                    expResult.setDesiredOutput(desiredOutcomes[i]);
+                    expResult.weightTraining();
+                    instance.activation(trainingSet[i]);
+                    assertEquals(expResult.sumOfTheSquaredErrors(), instance.weightTraining(desiredOutcomes[i]), 0.0);
+                }
+            }
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+        assertArrayEquals(expResult.getWeights(), instance.getWeights());
+        assertArrayEquals(expResult.getThresholds(), instance.getThresholds());
+    }
+
+    /**
+     * Test of toNetwork method, of class OffHeapNetwork.
+     */
+    @Test
+    public void testToNetwork() {
+        System.out.println("toNetwork");
+        Network expResult = new Network(new int[]{2, 3, 1}, 6969, 0.1, 0.95);
+        expResult.setActivationFunction(1, ActivationFunction.SIGMOID);
+        Network result = new OffHeapNetwork(expResult).toNetwork();
+        assertArrayEquals(expResult.getWeights(), result.getWeights());
+        assertArrayEquals(expResult.getThresholds(), result.getThresholds());
+        assertEquals(ActivationFunction.HYPERBOLIC_TANGENT, result.getActivationFunction(0));
+        assertEquals(ActivationFunction.SIGMOID, result.getActivationFunction(1));
+        assertEquals(expResult.mLearningRate, result.mLearningRate, 0.0);
+        assertEquals(expResult.mMomentum, result.mMomentum, 0.0);
+    }
+
+    /**
+     * Test of toNetwork and train methods with an optimizer, of class OffHeapNetwork.
+     * The optimizer must be handed back untouched, and training with it
+     * refused rather than silently done by the classic momentum rule.
+     */
+    @Test
+    public void testTrain_optimizer() {
+        System.out.println("train_optimizer");
+        Network expResult = new Network(new int[]{2, 3, 1}, 6969, 0.1, 0.95);
+        expResult.setOptimizer(Optimizer.ADAM);
+        OffHeapNetwork instance = new OffHeapNetwork(expResult);
+        Network result = instance.toNetwork();
+        assertEquals(Optimizer.ADAM, result.getOptimizer());
+        assertArrayEquals(expResult.getLayer(1).getOptimizer().getState(), result.getLayer(1).getOptimizer().getState(), 0.0);
+        assertNotSame(expResult.getLayer(1).getOptimizer(), result.getLayer(1).getOptimizer());
+        double[][][] weights = instance.getWeights();
+        try {
+            instance.train(new double[][]{{0, 1}}, new double[][]{{0.9}}, 0.001);
+            fail();
+        } catch (IllegalStateException ex) {
+            assertArrayEquals(weights, instance.getWeights());
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of train method on the XOR problem, of class OffHeapNetwork. It
+     * must train exactly as a Network does.
+     */
+    @Test(timeout = 60000)
+    public void testTrain_xor() {
+        System.out.println("train_xor");
+        File file = new File("set.xml");
+        double[][] trainingSet = IOManager.readTrainingSets(file);
+        double[][] desiredOutcomes = IOManager.readDesiredOutcomes(file);
+        Network expResult = IOManager.readNetwork(file);
+        OffHeapNetwork instance = new OffHeapNetwork(expResult);
+        expResult.setTrainingListener(null, 1);
+        instance.setTrainingListener(null, 1);
+        try {
+            assertEquals(expResult.train(trainingSet, desiredOutcomes, 0.001), instance.train(trainingSet, desiredOutcomes, 0.001));
+            assertEquals(expResult.mLearningRate, instance.mLearningRate, 0.0);
+            assertArrayEquals(expResult.getWeights(), instance.getWeights());
+            for (int i = 0; i < trainingSet.length; i++) {
+                assertArrayEquals(desiredOutcomes[i], instance.activation(trainingSet[i]), 0.05);
+            }
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package neuralnetwork;
+
+import java.nio.DoubleBuffer;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * A JUnit test class for the Optimizer interface and the optimizers that come
+ * with the network.
+ *
+ * @author 18403879 Curtis Alcock
+ */
+public class OptimizerTest {
+
+    public OptimizerTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of forName method, of interface Optimizer.
+     */
+    @Test
+    public void testForName() {
+        System.out.println("forName");
+        assertNull(Optimizer.forName(Optimizer.MOMENTUM, 3));
+        for (String name : new String[]{Optimizer.NESTEROV, Optimizer.ADAGRAD, Optimizer.RMSPROP, Optimizer.ADAM}) {
+            assertEquals(name, Optimizer.forName(" " + name + " ", 3).getName());
+        }
+    }
+
+    /**
+     * Test of forName method with an unknown name, of interface Optimizer.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testForName_unknown() {
+        System.out.println("forName_unknown");
+        Optimizer.forName("sgd", 3);
+    }
+
+    /**
+     * Test of delta method, of class StandardOptimizer.Nesterov.
+     */
+    @Test
+    public void testDelta_nesterov() {
+        System.out.println("delta_nesterov");
+        Optimizer instance = Optimizer.forName(Optimizer.NESTEROV, 1);
+        instance.nextStep();
+        // v = 0.1 * 2 = 0.2, change = 0.9 * 0.2 + 0.2
+        assertEquals(0.38, instance.delta(0, 2.0, 0.1, 0.9), 1e-12);
+        instance.nextStep();
+        // v = 0.9 * 0.2 + 0.1 * 1 = 0.28, change = 0.9 * 0.28 + 0.1
+        assertEquals(0.352, instance.delta(0, 1.0, 0.1, 0.9), 1e-12);
+    }
+
+    /**
+     * Test of delta method, of class StandardOptimizer.AdaGrad.
+     */
+    @Test
+    public void testDelta_adagrad() {
+        System.out.println("delta_adagrad");
+        Optimizer instance = Optimizer.forName(Optimizer.ADAGRAD, 1);
+        instance.nextStep();
+        assertEquals(0.1, instance.delta(0, 3.0, 0.1, 0.9), 1e-8);
+        instance.nextStep();
+        // sum of squares 9 + 16 = 25
+        assertEquals(0.1 * 4.0 / 5.0, instance.delta(0, 4.0, 0.1, 0.9), 1e-8);
+    }
+
+    /**
+     * Test of delta method, of class StandardOptimizer.RmsProp.
+     */
+    @Test
+    public void testDelta_rmsprop() {
+        System.out.println("delta_rmsprop");
+        Optimizer instance = Optimizer.forName(Optimizer.RMSPROP, 1);
+        instance.nextStep();
+        // average of squares 0.1 * 4 = 0.4
+        assertEquals(0.1 * 2.0 / Math.sqrt(0.4), instance.delta(0, 2.0, 0.1, 0.9), 1e-8);
+    }
+
+    /**
+     * Test of delta method, of class StandardOptimizer.Adam. Corrected for
+     * starting at 0, the first change is the learning rate in the direction of
+     * the step, however large the step.
+     */
+    @Test
+    public void testDelta_adam() {
+        System.out.println("delta_adam");
+        Optimizer instance = Optimizer.forName(Optimizer.ADAM, 2);
+        instance.nextStep();
+        assertEquals(0.01, instance.delta(0, 250.0, 0.01, 0.9), 1e-9);
+        assertEquals(-0.01, instance.delta(1, -0.003, 0.01, 0.9), 1e-7);
+        instance.nextStep();
+        double mean = (0.9 * 0.1 * 250.0 + 0.1 * 50.0) / (1 - 0.9 * 0.9);
+        double square = (0.999 * 0.001 * 250.0 * 250.0 + 0.001 * 50.0 * 50.0) / (1 - 0.999 * 0.999);
+        assertEquals(0.01 * mean / Math.sqrt(square), instance.delta(0, 50.0, 0.01, 0.9), 1e-9);
+    }
+
+    /**
+     * Test of copy method, of interface Optimizer. The copy must go on exactly
+     * as the original would, without sharing its state.
+     */
+    @Test
+    public void testCopy() {
+        System.out.println("copy");
+        for (String name : new String[]{Optimizer.NESTEROV, Optimizer.ADAGRAD, Optimizer.RMSPROP, Optimizer.ADAM}) {
+            Optimizer instance = Optimizer.forName(name, 2);
+            instance.nextStep();
+            instance.delta(0, 0.5, 0.1, 0.9);
+            Optimizer result = instance.copy();
+            instance.nextStep();
+            result.nextStep();
+            assertEquals(name, instance.delta(0, -0.2, 0.1, 0.9), result.delta(0, -0.2, 0.1, 0.9), 0.0);
+            instance.nextStep();
+            instance.delta(1, 1.0, 0.1, 0.9);
+            assertNotEquals(name, instance.getState()[1], result.getState()[1], 0.0);
+        }
+    }
+
+    /**
+     * Test of getState and setState methods, of interface Optimizer.
+     */
+    @Test
+    public void testSetState() {
+        System.out.println("setState");
+        for (String name : new String[]{Optimizer.NESTEROV, Optimizer.ADAGRAD, Optimizer.RMSPROP, Optimizer.ADAM}) {
+            Optimizer expResult = Optimizer.forName(name, 3);
+            for (int step = 0; step < 4; step++) {
+                expResult.nextStep();
+                for (int index = 0; index < 3; index++) {
+                    expResult.delta(index, Math.sin(step + index), 0.1, 0.9);
+                }
+            }
+            double[] state = expResult.getState();
+            DoubleBuffer buffer = DoubleBuffer.allocate(state.length + 1);
+            buffer.put(state).put(42.0).flip();
+            Optimizer instance = Optimizer.forName(name, 3);
+            instance.setState(buffer);
+            assertEquals(name, state.length, buffer.position());
+            assertArrayEquals(name, state, instance.getState(), 0.0);
+
+            expResult.nextStep();
+            instance.nextStep();
+            assertEquals(name, expResult.delta(2, 0.7, 0.1, 0.9), instance.delta(2, 0.7, 0.1, 0.9), 0.0);
+        }
+    }
+}
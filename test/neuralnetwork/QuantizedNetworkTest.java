@@ -0,0 +1,178 @@
+package neuralnetwork;
+
+import io.IOManager;
+import java.io.File;
+import java.util.Random;
+import neuralnetworkexceptions.UnevenArraysException;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * A JUnit test class for the QuantizedNetwork class.
+ *
+ * @author 18403879 Curtis Alcock
+ */
+public class QuantizedNetworkTest {
+
+    public QuantizedNetworkTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of activation method, of class QuantizedNetwork. Must agree with
+     * the double precision network to within the reported error.
+     */
+    @Test
+    public void testActivation() {
+        System.out.println("activation");
+        double[][] inputs = {{0, 0}, {0, 1}, {1, 0}, {1, 1}};
+        double[][][] weights = {{{0.5, 0.4}, {0.9, 1.0}}, {{-1.2, 1.1}}};
+        double[][] thresholds = {{0.8, -0.1}, {0.3}};
+        Network network = new Network(weights, thresholds, 0.1, 0);
+        try {
+            QuantizedNetwork instance = network.quantize(inputs);
+            System.out.print(instance);
+            assertTrue(instance.getMaxError() < 0.02);
+            assertTrue(instance.getMeanError() <= instance.getMaxError());
+            for (double[] set : inputs) {
+                assertArrayEquals(network.activation(set), instance.activation(set), instance.getMaxError() + 1e-12);
+            }
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of quantize method on trained networks read from file, of class
+     * Network. The quantized network must still give the desired outcomes.
+     */
+    @Test(timeout = 60000)
+    public void testQuantize_trained() {
+        System.out.println("quantize_trained");
+        for (String name : new String[]{"set.xml", "multiplexer_test.xml"}) {
+            File file = new File(name);
+            double[][] trainingSet = IOManager.readTrainingSets(file);
+            double[][] desiredOutcomes = IOManager.readDesiredOutcomes(file);
+            Network network = IOManager.readNetwork(file);
+            try {
+                network.train(trainingSet, desiredOutcomes, 0.0001);
+                QuantizedNetwork instance = network.quantize(trainingSet);
+                System.out.print(name + ": " + instance);
+                double[][] result = instance.activateBatch(trainingSet);
+                for (int i = 0; i < trainingSet.length; i++) {
+                    assertArrayEquals(desiredOutcomes[i], result[i], 0.05);
+                }
+            } catch (UnevenArraysException ex) {
+                System.err.println(ex);
+                fail();
+            }
+        }
+    }
+
+    /**
+     * Test of getModelBytes method, of class QuantizedNetwork. A wide network
+     * must come out close to 8 times smaller.
+     */
+    @Test
+    public void testGetModelBytes() throws UnevenArraysException {
+        System.out.println("getModelBytes");
+        int[] neurons = {64, 128, 10};
+        Network network = new Network(neurons, 6969, 0.1, 0);
+        QuantizedNetwork instance = network.quantize(randomSets(new Random(1), 16, 64));
+        long doubleBytes = 8L * (65 * 128 + 129 * 10);
+        System.out.printf("model: double %d bytes, quantized %d bytes\n", doubleBytes, instance.getModelBytes());
+        assertTrue(instance.getModelBytes() * 6 < doubleBytes);
+    }
+
+    /**
+     * Test of activation method with the wrong number of inputs, of class
+     * QuantizedNetwork.
+     */
+    @Test(expected = UnevenArraysException.class)
+    public void testActivation_unevenInputs() throws UnevenArraysException {
+        System.out.println("activation_unevenInputs");
+        int[] neurons = {2, 2, 1};
+        QuantizedNetwork instance = new Network(neurons, 6969, 0.1, 0).quantize(new double[][]{{1, 1}});
+        instance.activation(new double[]{1, 1, 1});
+    }
+
+    /**
+     * Test of readQuantizedNetwork method, of class IOManager.
+     */
+    @Test
+    public void testReadQuantizedNetwork() throws UnevenArraysException {
+        System.out.println("readQuantizedNetwork");
+        File file = new File("set.xml");
+        QuantizedNetwork instance = IOManager.readQuantizedNetwork(file, file);
+        Network network = IOManager.readNetwork(file);
+        double[][] trainingSet = IOManager.readTrainingSets(file);
+        for (double[] set : trainingSet) {
+            assertArrayEquals(network.activation(set), instance.activation(set), instance.getMaxError() + 1e-12);
+        }
+    }
+
+    /**
+     * Reports the scoring speed of the quantized network against the
+     * compiled double precision one.
+     */
+    @Test
+    public void testActivateBatch_throughput() throws UnevenArraysException {
+        System.out.println("activateBatch_throughput");
+        int[] neurons = {256, 256, 10};
+        Network network = new Network(neurons, 6969, 0.1, 0);
+        double[][] inputs = randomSets(new Random(1984), 512, 256);
+        CompiledNetwork compiled = network.compile();
+        QuantizedNetwork instance = network.quantize(inputs);
+        double sink = 0;
+        long compiledTime = 0;
+        long quantizedTime = 0;
+        for (int rep = 0; rep < 5; rep++) {
+            long start = System.nanoTime();
+            for (double[] set : inputs) {
+                sink += compiled.activation(set)[0];
+            }
+            compiledTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (double[] set : inputs) {
+                sink += instance.activation(set)[0];
+            }
+            quantizedTime = System.nanoTime() - start;
+        }
+        System.out.printf("activation x%d (256-256-10): double %.2fms, int8 %.2fms (x%.2f) [%.1f]\n",
+                inputs.length, compiledTime / 1e6, quantizedTime / 1e6, (double) compiledTime / quantizedTime, sink);
+        System.out.print(instance);
+    }
+
+    /**
+     * Makes random input sets between -1 and +1.
+     */
+    private static double[][] randomSets(Random random, int count, int width) {
+        double[][] sets = new double[count][width];
+        for (double[] set : sets) {
+            for (int i = 0; i < width; i++) {
+                set[i] = random.nextDouble() * 2 - 1;
+            }
+        }
+        return sets;
+    }
+}
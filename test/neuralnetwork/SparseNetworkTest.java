@@ -0,0 +1,243 @@
+package neuralnetwork;
+
+import io.IOManager;
+import java.io.File;
+import java.util.Random;
+import neuralnetworkexceptions.UnevenArraysException;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * A JUnit test class for the SparseNetwork class, and the pruning methods of
+ * the Network class.
+ *
+ * @author 18403879 Curtis Alcock
+ */
+public class SparseNetworkTest {
+
+    public SparseNetworkTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of prune method, of class Network.
+     */
+    @Test
+    public void testPrune() {
+        System.out.println("prune");
+        double[][][] weights = {{{0.5, 0.04}, {0.09, 1.0}}, {{-1.2, 0.0}}};
+        double[][] thresholds = {{0.8, -0.1}, {0.3}};
+        Network instance = new Network(weights, thresholds, 0.1, 0);
+        assertEquals(3, instance.prune(0.1));
+        assertEquals(3, instance.getNonZeroCount());
+        double[][][] expResult = {{{0.5, 0.0}, {0.0, 1.0}}, {{-1.2, 0.0}}};
+        assertArrayEquals(expResult, instance.getWeights());
+    }
+
+    /**
+     * Test of pruneTopK method, of class Network.
+     */
+    @Test
+    public void testPruneTopK() {
+        System.out.println("pruneTopK");
+        double[][][] weights = {{{0.5, -0.9, 0.1}, {0.2, 0.3, -0.4}}, {{-1.2, 1.1}}};
+        double[][] thresholds = {{0.8, -0.1}, {0.3}};
+        Network instance = new Network(weights, thresholds, 0.1, 0);
+        assertEquals(2, instance.pruneTopK(2));
+        double[][][] expResult = {{{0.5, -0.9, 0.0}, {0.0, 0.3, -0.4}}, {{-1.2, 1.1}}};
+        assertArrayEquals(expResult, instance.getWeights());
+    }
+
+    /**
+     * Test of activation method, of class SparseNetwork. Must match the
+     * pruned network it was compiled from.
+     */
+    @Test
+    public void testActivation() {
+        System.out.println("activation");
+        int[] neurons = {16, 24, 3};
+        Network network = new Network(neurons, 6969, 0.1, 0);
+        network.setActivationFunction(0, ActivationFunction.LEAKY_RELU);
+        network.prune(0.5);
+        SparseNetwork instance = network.compileSparse();
+        assertEquals(network.getNonZeroCount(), instance.getNonZeroCount());
+        double[][] inputs = randomSets(new Random(7), 20, 16);
+        try {
+            for (double[] set : inputs) {
+                assertArrayEquals(network.activation(set), instance.activation(set), 1e-12);
+            }
+            double[][] result = instance.activateBatch(inputs);
+            for (int i = 0; i < inputs.length; i++) {
+                assertArrayEquals(network.activation(inputs[i]), result[i], 1e-12);
+            }
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of activation method with the wrong number of inputs, of class
+     * SparseNetwork.
+     */
+    @Test(expected = UnevenArraysException.class)
+    public void testActivation_unevenInputs() throws UnevenArraysException {
+        System.out.println("activation_unevenInputs");
+        int[] neurons = {2, 2, 1};
+        SparseNetwork instance = new Network(neurons, 6969, 0.1, 0).compileSparse();
+        instance.activation(new double[]{1, 1, 1});
+    }
+
+    /**
+     * Test of train method after pruning an oversized network, of class
+     * Network. Fine-tuning must leave the pruned links at 0 whichever way the
+     * network is trained.
+     */
+    @Test(timeout = 60000)
+    public void testPrune_fineTune() {
+        System.out.println("prune_fineTune");
+        File file = new File("multiplexer_test.xml");
+        double[][] trainingSet = IOManager.readTrainingSets(file);
+        double[][] desiredOutcomes = IOManager.readDesiredOutcomes(file);
+        int[] neurons = {3, 8, 1};
+        Network instance = new Network(neurons, 6969, 0.1, 0.95);
+        try {
+            instance.train(trainingSet, desiredOutcomes, 0.0001);
+            int pruned = instance.prune(0.5);
+            int nonZero = instance.getNonZeroCount();
+            int epochs = instance.train(trainingSet, desiredOutcomes, 0.0001);
+            epochs += instance.train(trainingSet, desiredOutcomes, 0.0001, 4);
+            System.out.printf("multiplexer_test.xml: 3-8-1 network with %d links pruned, fine-tuned in %d epochs\n", pruned, epochs);
+            assertEquals(nonZero, instance.getNonZeroCount());
+            SparseNetwork sparse = instance.compileSparse();
+            for (int i = 0; i < trainingSet.length; i++) {
+                assertArrayEquals(desiredOutcomes[i], sparse.activation(trainingSet[i]), 0.05);
+            }
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of writeNetwork and readNetwork methods with a pruned network, of
+     * class IOManager. Only the non-zero weights are written, and the read
+     * network keeps the missing links pruned.
+     */
+    @Test
+    public void testWriteAndRead_pruned() throws Exception {
+        System.out.println("writeAndRead_pruned");
+        int[] neurons = {8, 6, 2};
+        Network expResult = new Network(neurons, 6969, 0.1, 0);
+        expResult.prune(0.6);
+        File file = File.createTempFile("pruned", ".xml");
+        file.deleteOnExit();
+        IOManager.writeNetwork(file, expResult);
+        String xml = new String(java.nio.file.Files.readAllBytes(file.toPath()), "UTF-8");
+        assertEquals(expResult.getNonZeroCount(), xml.split("<weight ").length - 1);
+        Network result = IOManager.readNetwork(file);
+        assertArrayEquals(expResult.getWeights(), result.getWeights());
+        assertArrayEquals(expResult.getThresholds(), result.getThresholds());
+        result.train(randomSets(new Random(3), 4, 8), new double[][]{{0.9, 0.1}, {0.1, 0.9}, {0.9, 0.9}, {0.1, 0.1}}, 10);
+        assertEquals(expResult.getNonZeroCount(), result.getNonZeroCount());
+    }
+
+    /**
+     * Test of writeNetwork and readNetwork with a weight that is 0 without
+     * being pruned, of class IOManager. Only the links the layer actually
+     * pruned may be held at 0 after reading.
+     */
+    @Test
+    public void testWriteAndRead_zeroWeight() throws Exception {
+        System.out.println("writeAndRead_zeroWeight");
+        double[][][] weights = {{{0.0, 0.4}, {-0.3, 0.6}}, {{0.5, -0.2}}};
+        double[][] thresholds = {{0.1, -0.1}, {0.2}};
+        Network expResult = new Network(weights, thresholds, 0.5, 0);
+        expResult.getLayer(1).setPrunedLinks(new int[]{1});
+        File file = File.createTempFile("zero", ".xml");
+        file.deleteOnExit();
+        IOManager.writeNetwork(file, expResult);
+        Network result = IOManager.readNetwork(file);
+        assertEquals(0, result.getLayer(0).getPrunedLinks().length);
+        assertArrayEquals(new int[]{1}, result.getLayer(1).getPrunedLinks());
+        double[][] sets = {{0, 0}, {0, 1}, {1, 0}, {1, 1}};
+        double[][] outcomes = {{0.1}, {0.9}, {0.9}, {0.1}};
+        for (int step = 0; step < 20; step++) {
+            for (Network network : new Network[]{expResult, result}) {
+                network.activation(sets[step % 4]);
+                network.setDesiredOutput(outcomes[step % 4]);
+                network.weightTraining();
+            }
+        }
+        assertNotEquals(0.0, result.getLayer(0).getWeight(0, 0), 0.0);
+        assertEquals(0.0, result.getLayer(1).getWeight(0, 1), 0.0);
+        assertArrayEquals(expResult.getWeights(), result.getWeights());
+    }
+
+    /**
+     * Reports the scoring speed of a heavily pruned network against the
+     * compiled dense one.
+     */
+    @Test
+    public void testActivation_throughput() throws UnevenArraysException {
+        System.out.println("activation_throughput");
+        int[] neurons = {256, 256, 10};
+        Network network = new Network(neurons, 6969, 0.1, 0);
+        network.pruneTopK(25);
+        double[][] inputs = randomSets(new Random(1984), 512, 256);
+        CompiledNetwork compiled = network.compile();
+        SparseNetwork instance = network.compileSparse();
+        double[] outputs = new double[10];
+        double sink = 0;
+        long denseTime = 0;
+        long sparseTime = 0;
+        for (int rep = 0; rep < 5; rep++) {
+            long start = System.nanoTime();
+            for (double[] set : inputs) {
+                compiled.activation(set, outputs);
+                sink += outputs[0];
+            }
+            denseTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (double[] set : inputs) {
+                instance.activation(set, outputs);
+                sink += outputs[0];
+            }
+            sparseTime = System.nanoTime() - start;
+        }
+        System.out.printf("activation x%d (256-256-10, %d non-zero): dense %.2fms, sparse %.2fms (x%.2f) [%.1f]\n",
+                inputs.length, instance.getNonZeroCount(), denseTime / 1e6, sparseTime / 1e6, (double) denseTime / sparseTime, sink);
+    }
+
+    /**
+     * Makes random input sets between -1 and +1.
+     */
+    private static double[][] randomSets(Random random, int count, int width) {
+        double[][] sets = new double[count][width];
+        for (double[] set : sets) {
+            for (int i = 0; i < width; i++) {
+                set[i] = random.nextDouble() * 2 - 1;
+            }
+        }
+        return sets;
+    }
+}
@@ -0,0 +1,188 @@
+package neuralnetwork;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import neuralnetworkexceptions.UnevenArraysException;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * A JUnit test class for the TrainingReporter class.
+ *
+ * @author 18403879 Curtis Alcock
+ */
+public class TrainingReporterTest {
+
+    public TrainingReporterTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of console method, of class TrainingReporter. Must write the same
+     * text the network used to print for each epoch.
+     */
+    @Test
+    public void testConsole() {
+        System.out.println("console");
+        PrintStream console = System.out;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TrainingReporter instance;
+        System.setOut(new PrintStream(bytes, true));
+        try {
+            instance = TrainingReporter.console(true);
+        } finally {
+            System.setOut(console);
+        }
+        instance.epochCompleted(7, 0.0123456789, 0.25, new double[][]{{0.1, 0.9}, {0.5, 0.25}});
+        instance.trainingStopped();
+        String expResult = String.format("Epoch[7]:\n Set #0: {%.4f,%.4f} Set #1: {%.4f,%.4f} SotSE: %.8f Learning Rate: %.4f\n",
+                0.1, 0.9, 0.5, 0.25, 0.0123456789, 0.25);
+        assertEquals(expResult, bytes.toString());
+    }
+
+    /**
+     * Test of trainingStopped method, of class TrainingReporter. A run that
+     * throws must still have every epoch reported before it written out.
+     */
+    @Test
+    public void testTrainingStopped_exception() {
+        System.out.println("trainingStopped_exception");
+        double[][] trainingSet = {{0.0, 0.0}, {0.0, 1.0}, {1.0, 1.0}, {1.0, 0.0}};
+        double[][] desiredOutcomes = {{0.1}, {0.9}, {0.1}, {0.9}};
+        StringWriter out = new StringWriter();
+        Network network = new Network(new int[]{2, 2, 1}, 6969, 0.1, 0.95);
+        network.setTrainingListener(TrainingReporter.csv(out, false), 1);
+        network.addTrainingListener((epoch, sum, learningRate, outputs) -> {
+            if (epoch == 99) {
+                throw new IllegalStateException("stopped");
+            }
+        }, 1);
+        try {
+            network.train(trainingSet, desiredOutcomes, 0.0001);
+            fail();
+        } catch (IllegalStateException ex) {
+            assertEquals(101, out.toString().split("\n").length);
+        } catch (UnevenArraysException ex) {
+            System.err.println(ex);
+            fail();
+        }
+    }
+
+    /**
+     * Test of csv method, of class TrainingReporter. The outputs handed over
+     * must be copied, as the training loop reuses its array.
+     */
+    @Test
+    public void testCsv() {
+        System.out.println("csv");
+        StringWriter out = new StringWriter();
+        double[][] outputs = {{0.1}, {0.9}};
+        try (TrainingReporter instance = TrainingReporter.csv(out, true)) {
+            instance.epochCompleted(0, 1.5, 0.1, outputs);
+            outputs[0][0] = 0.2;
+            instance.epochCompleted(1, 0.5, 0.2, outputs);
+        } catch (IOException ex) {
+            System.err.println(ex);
+            fail();
+        }
+        String expResult = "epoch,sumOfSquaredErrors,learningRate,set0_0,set1_0\n"
+                + "0,1.5,0.1,0.1,0.9\n"
+                + "1,0.5,0.2,0.2,0.9\n";
+        assertEquals(expResult, out.toString());
+    }
+
+    /**
+     * Test of epochCompleted method, of class TrainingReporter. Far more
+     * reports than the queue holds must all be written, in order.
+     */
+    @Test
+    public void testEpochCompleted_order() {
+        System.out.println("epochCompleted_order");
+        StringWriter out = new StringWriter();
+        int epochs = 10000;
+        try (TrainingReporter instance = TrainingReporter.csv(out, false)) {
+            for (int epoch = 0; epoch < epochs; epoch++) {
+                instance.epochCompleted(epoch, epoch, 0.1, null);
+            }
+        } catch (IOException ex) {
+            System.err.println(ex);
+            fail();
+        }
+        String[] lines = out.toString().split("\n");
+        assertEquals(epochs + 1, lines.length);
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            assertTrue(lines[epoch + 1].startsWith(epoch + ","));
+        }
+    }
+
+    /**
+     * Test of epochCompleted and trainingStopped methods after close, of class
+     * TrainingReporter. A closed reporter drops the epoch and returns at once,
+     * so a network trained again with it does not hang.
+     */
+    @Test(timeout = 10000)
+    public void testEpochCompleted_closed() {
+        System.out.println("epochCompleted_closed");
+        StringWriter out = new StringWriter();
+        TrainingReporter instance = TrainingReporter.csv(out, false);
+        try {
+            instance.epochCompleted(0, 1.0, 0.1, null);
+            instance.close();
+            instance.epochCompleted(1, 0.5, 0.1, null);
+            instance.trainingStopped();
+            instance.flush();
+        } catch (IOException ex) {
+            System.err.println(ex);
+            fail();
+        }
+        assertEquals("epoch,sumOfSquaredErrors,learningRate\n0,1.0,0.1\n", out.toString());
+    }
+
+    /**
+     * Test of close method with a destination that fails, of class
+     * TrainingReporter. The error met on the reporter's thread must be thrown.
+     */
+    @Test(expected = IOException.class)
+    public void testClose_writeError() throws IOException {
+        System.out.println("close_writeError");
+        Writer out = new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) throws IOException {
+                throw new IOException("Disk full");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        TrainingReporter instance = TrainingReporter.csv(out, false);
+        instance.epochCompleted(0, 1.0, 0.1, null);
+        instance.close();
+    }
+}